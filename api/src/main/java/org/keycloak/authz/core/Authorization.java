@@ -1,15 +1,27 @@
 package org.keycloak.authz.core;
 
+import org.keycloak.authz.core.model.Policy;
+import org.keycloak.authz.core.model.Resource;
+import org.keycloak.authz.core.model.ResourceServer;
+import org.keycloak.authz.core.permission.AccessibleResources;
 import org.keycloak.authz.core.permission.evaluator.Evaluators;
+import org.keycloak.authz.core.policy.cache.DecisionCache;
+import org.keycloak.authz.core.policy.evaluation.CachingPolicyEvaluator;
 import org.keycloak.authz.core.policy.evaluation.DefaultPolicyEvaluator;
 import org.keycloak.authz.core.policy.evaluation.PolicyEvaluator;
+import org.keycloak.authz.core.policy.index.PolicyIndex;
+import org.keycloak.authz.core.policy.index.PolicyIndexes;
+import org.keycloak.authz.core.policy.provider.PolicyProvider;
+import org.keycloak.authz.core.policy.provider.PolicyProviderCache;
 import org.keycloak.authz.core.policy.provider.PolicyProviderFactory;
+import org.keycloak.authz.core.store.PolicyStore;
 import org.keycloak.authz.core.store.StoreFactory;
 
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
 import java.util.ServiceLoader;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Supplier;
 
 /**
@@ -48,19 +60,39 @@ import java.util.function.Supplier;
  */
 public final class Authorization {
 
-    private final DefaultPolicyEvaluator policyEvaluator;
+    private final PolicyEvaluator policyEvaluator;
 
     public synchronized static final Builder builder() {
         return new Builder();
     }
 
     private final Supplier<StoreFactory> storeFactory;
+    private final Supplier<PolicyStore> policyStore;
     private final List<PolicyProviderFactory> policyProviderFactories;
+    private final PolicyIndexes policyIndexes;
+    private final PolicyProviderCache policyProviderCache;
+    private final int parallelismThreshold;
+    private final boolean shortCircuit;
+    private final boolean reuseEvaluations;
+    private final DecisionCache decisionCache;
+    private final EvaluationMetrics metrics;
+    private final long evaluationTimeoutNanos;
+    private final long policyIndexMaxAgeMillis;
 
-    private Authorization(Supplier<StoreFactory> storeFactorySupplier) {
-        this.storeFactory = storeFactorySupplier;
+    private Authorization(Builder builder) {
+        this.storeFactory = builder.storeFactorySupplier;
+        this.policyStore = () -> getStoreFactory().getPolicyStore();
+        this.parallelismThreshold = builder.parallelismThreshold;
+        this.shortCircuit = builder.shortCircuit;
+        this.reuseEvaluations = builder.reuseEvaluations;
+        this.decisionCache = builder.decisionCache;
+        this.metrics = builder.metrics;
+        this.evaluationTimeoutNanos = builder.evaluationTimeoutNanos;
+        this.policyIndexMaxAgeMillis = builder.policyIndexMaxAgeMillis;
+        this.policyIndexes = new PolicyIndexes();
         this.policyProviderFactories = configurePolicyProviderFactories();
-        this.policyEvaluator = new DefaultPolicyEvaluator(this);
+        this.policyProviderCache = new PolicyProviderCache(this.policyProviderFactories);
+        this.policyEvaluator = createPolicyEvaluator();
     }
 
     /**
@@ -70,7 +102,29 @@ public final class Authorization {
      * @return a {@link Evaluators} instance
      */
     public Evaluators evaluators() {
-        return new Evaluators(this.policyProviderFactories, this.policyEvaluator);
+        Evaluators evaluators = new Evaluators(this.policyProviderFactories, this.policyEvaluator, this.parallelismThreshold, this.metrics);
+
+        if (this.evaluationTimeoutNanos > 0) {
+            return evaluators.timeout(this.evaluationTimeoutNanos, TimeUnit.NANOSECONDS);
+        }
+
+        return evaluators;
+    }
+
+    /**
+     * Returns the resources of the given <code>resourceServer</code> that are granted within the given <code>context</code>, ordered by name.
+     * Only the resources reachable from a permission that can still be granted, given the policies that depend neither on the resource nor
+     * on the scopes being requested, are evaluated.
+     *
+     * @param resourceServer the resource server
+     * @param context the evaluation context
+     * @param firstResult the number of granted resources to skip
+     * @param maxResults the maximum number of resources to return or a negative value to return all of them
+     * @return the granted resources
+     * @see AccessibleResources
+     */
+    public List<Resource> findAccessibleResources(ResourceServer resourceServer, EvaluationContext context, int firstResult, int maxResults) {
+        return new AccessibleResources(this).find(resourceServer, context, firstResult, maxResults);
     }
 
     /**
@@ -99,7 +153,95 @@ public final class Authorization {
      * @return a {@link PolicyProviderFactory} with the given <code>type</code>
      */
     public <F extends PolicyProviderFactory> F getProviderFactory(String type) {
-        return (F) getProviderFactories().stream().filter(policyProviderFactory -> policyProviderFactory.getType().equals(type)).findFirst().orElse(null);
+        return (F) this.policyProviderCache.getFactory(type);
+    }
+
+    /**
+     * Returns the {@link PolicyIndex} for the given <code>resourceServer</code>. The index is built from the {@link StoreFactory}
+     * if not yet available or if it is older than the maximum age set with {@link Builder#policyIndexMaxAge(long, TimeUnit)}.
+     *
+     * @param resourceServer the resource server
+     * @return the policy index for the given resource server
+     */
+    public PolicyIndex getPolicyIndex(ResourceServer resourceServer) {
+        return this.policyIndexes.get(resourceServer, this.policyStore, this.metrics, this.policyIndexMaxAgeMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Returns the {@link PolicyIndexes} holding the policy index of each resource server.
+     *
+     * @return the policy indexes
+     */
+    public PolicyIndexes getPolicyIndexes() {
+        return this.policyIndexes;
+    }
+
+    /**
+     * Returns a {@link PolicyProvider} able to evaluate the given <code>policy</code>. Providers that are reusable are shared
+     * by subsequent evaluations of the same policy.
+     *
+     * @param policy the policy to evaluate
+     * @return a policy provider
+     */
+    public PolicyProvider getPolicyProvider(Policy policy) {
+        return this.policyProviderCache.get(policy);
+    }
+
+    /**
+     * Returns the {@link PolicyProviderCache} holding the reusable providers created by this instance.
+     *
+     * @return the policy provider cache
+     */
+    public PolicyProviderCache getPolicyProviderCache() {
+        return this.policyProviderCache;
+    }
+
+    /**
+     * Indicates if the evaluation of the policies associated with a permission stops as soon as the outcome of the permission is settled
+     * by its {@link Policy.DecisionStrategy}.
+     *
+     * @return {@code true} if short-circuit evaluation is enabled. Otherwise, {@code false}.
+     */
+    public boolean isShortCircuit() {
+        return this.shortCircuit;
+    }
+
+    /**
+     * Indicates if the {@link org.keycloak.authz.core.policy.evaluation.Evaluation} instances passed to policy providers and to
+     * {@link Decision} are reused by the evaluating thread, instead of being created for each policy.
+     *
+     * @return {@code true} if evaluations are reused. Otherwise, {@code false}.
+     */
+    public boolean isReuseEvaluations() {
+        return this.reuseEvaluations;
+    }
+
+    /**
+     * Returns the {@link DecisionCache} used to cache decisions across evaluations.
+     *
+     * @return the decision cache or {@code null} if decisions are not cached
+     */
+    public DecisionCache getDecisionCache() {
+        return this.decisionCache;
+    }
+
+    /**
+     * Returns the {@link EvaluationMetrics} notified about the work done while evaluating permissions.
+     *
+     * @return the evaluation metrics
+     */
+    public EvaluationMetrics getMetrics() {
+        return this.metrics;
+    }
+
+    private PolicyEvaluator createPolicyEvaluator() {
+        DefaultPolicyEvaluator policyEvaluator = new DefaultPolicyEvaluator(this);
+
+        if (this.decisionCache != null) {
+            return new CachingPolicyEvaluator(policyEvaluator, this.decisionCache, this);
+        }
+
+        return policyEvaluator;
     }
 
     private List<PolicyProviderFactory> configurePolicyProviderFactories() {
@@ -119,6 +261,13 @@ public final class Authorization {
     public static final class Builder {
 
         private Supplier<StoreFactory> storeFactorySupplier;
+        private int parallelismThreshold = Evaluators.DEFAULT_PARALLELISM_THRESHOLD;
+        private boolean shortCircuit;
+        private boolean reuseEvaluations;
+        private DecisionCache decisionCache;
+        private EvaluationMetrics metrics = EvaluationMetrics.NONE;
+        private long evaluationTimeoutNanos;
+        private long policyIndexMaxAgeMillis = PolicyIndexes.DEFAULT_MAX_AGE;
 
         private Builder() {
 
@@ -135,6 +284,118 @@ public final class Authorization {
             return this;
         }
 
+        /**
+         * The maximum number of permissions evaluated sequentially by a parallel {@link org.keycloak.authz.core.permission.evaluator.PermissionEvaluator}.
+         * Larger lists are split into chunks of at most this size and evaluated concurrently.
+         *
+         * @param threshold the parallelism threshold
+         * @return this instance
+         * @see Evaluators#parallel(List, EvaluationContext, java.util.concurrent.ForkJoinPool)
+         */
+        public Builder parallelismThreshold(int threshold) {
+            if (threshold < 1) {
+                throw new RuntimeException("Parallelism threshold must be greater than zero.");
+            }
+
+            this.parallelismThreshold = threshold;
+            return this;
+        }
+
+        /**
+         * Enables or disables short-circuit evaluation. When enabled, the associated policies of a permission are no longer evaluated once
+         * its {@link Policy.DecisionStrategy} outcome is settled. Skipped policies are still reported to {@link Decision#onSkip(org.keycloak.authz.core.policy.evaluation.Evaluation)}.
+         * Disabled by default.
+         *
+         * @param shortCircuit {@code true} to enable short-circuit evaluation
+         * @return this instance
+         */
+        public Builder shortCircuit(boolean shortCircuit) {
+            this.shortCircuit = shortCircuit;
+            return this;
+        }
+
+        /**
+         * Enables or disables the allocation-light evaluation mode. When enabled, each thread reuses the same
+         * {@link org.keycloak.authz.core.policy.evaluation.Evaluation} instance and scratch state for all the policies it evaluates, which
+         * reduces the garbage produced per permission. In this mode, {@link Decision} implementations and policy providers must not keep a
+         * reference to an {@link org.keycloak.authz.core.policy.evaluation.Evaluation} after the method it was passed to returns, nor use
+         * it from another thread. Disabled by default.
+         *
+         * @param reuseEvaluations {@code true} to reuse evaluations
+         * @return this instance
+         */
+        public Builder reuseEvaluations(boolean reuseEvaluations) {
+            this.reuseEvaluations = reuseEvaluations;
+            return this;
+        }
+
+        /**
+         * A {@link DecisionCache} used to cache the decisions taken for a permission across evaluations. Decisions are not cached by default.
+         *
+         * @param decisionCache the decision cache
+         * @return this instance
+         * @see org.keycloak.authz.core.policy.cache.DefaultDecisionCache
+         */
+        public Builder decisionCache(DecisionCache decisionCache) {
+            this.decisionCache = decisionCache;
+            return this;
+        }
+
+        /**
+         * The {@link EvaluationMetrics} notified about the work done while evaluating permissions. Nothing is recorded by default.
+         *
+         * @param metrics the evaluation metrics
+         * @return this instance
+         * @see org.keycloak.authz.core.metrics.DefaultEvaluationMetrics
+         */
+        public Builder metrics(EvaluationMetrics metrics) {
+            if (metrics == null) {
+                throw new RuntimeException("Evaluation metrics must be provided.");
+            }
+
+            this.metrics = metrics;
+            return this;
+        }
+
+        /**
+         * The maximum time a {@link org.keycloak.authz.core.permission.evaluator.PermissionEvaluator} has to evaluate its permissions. Once it
+         * elapses, the remaining associated policies are denied without being evaluated and the remaining permissions are reported as an
+         * {@link EvaluationTimeoutException}. Evaluations are only bound by {@link EvaluationContext#getDeadline()} by default.
+         *
+         * @param timeout the timeout. Zero disables the timeout
+         * @param unit the unit of the timeout
+         * @return this instance
+         * @see Evaluators#timeout(long, TimeUnit)
+         */
+        public Builder evaluationTimeout(long timeout, TimeUnit unit) {
+            if (timeout < 0) {
+                throw new RuntimeException("Evaluation timeout must not be negative.");
+            }
+
+            this.evaluationTimeoutNanos = unit.toNanos(timeout);
+            return this;
+        }
+
+        /**
+         * The maximum age of the {@link PolicyIndex} of a resource server. Older indexes are built again from the {@link StoreFactory},
+         * which bounds how long changes not made through this JVM take to be seen by evaluations. Invalidations are not propagated
+         * to other nodes of a cluster, so these keep evaluating the policies of their own index, which may be stale, until it reaches
+         * the maximum age. Indexes are built again after {@link PolicyIndexes#DEFAULT_MAX_AGE} by default.
+         *
+         * @param maxAge the maximum age. Zero keeps indexes until they are invalidated
+         * @param unit the unit of the maximum age
+         * @return this instance
+         * @see PolicyIndexes#invalidate(String)
+         */
+        public Builder policyIndexMaxAge(long maxAge, TimeUnit unit) {
+            if (maxAge < 0) {
+                throw new RuntimeException("Policy index maximum age must not be negative.");
+            }
+
+            this.policyIndexMaxAgeMillis = unit.toMillis(maxAge);
+            return this;
+        }
+
         /**
          * Returns a new {@link Authorization} instance based on the configuration previously provided.
          *
@@ -146,7 +407,7 @@ public final class Authorization {
                 this.storeFactorySupplier = () -> storeFactory;
             }
 
-            return new Authorization(this.storeFactorySupplier);
+            return new Authorization(this);
         }
 
         private StoreFactory configureStoreFactory() {
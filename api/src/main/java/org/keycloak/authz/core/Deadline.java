@@ -0,0 +1,146 @@
+package org.keycloak.authz.core;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>The point in time by which an evaluation must complete. Evaluations check their deadline cooperatively, between permissions and between
+ * the associated policies of a permission, so a policy that is already being evaluated is never interrupted.
+ *
+ * <p>Instances are immutable and can be shared by concurrent evaluations.
+ *
+ * @author <a href="mailto:psilva@redhat.com">Pedro Igor</a>
+ * @see EvaluationContext#getDeadline()
+ */
+public final class Deadline {
+
+    /**
+     * A deadline that never expires.
+     */
+    public static final Deadline NONE = new Deadline(0, 0);
+
+    /**
+     * Returns a deadline that expires once the given <code>timeout</code> elapses, counting from now.
+     *
+     * @param timeout the timeout. If zero or negative, {@link #NONE} is returned
+     * @param unit the unit of the timeout
+     * @return a deadline
+     */
+    public static Deadline after(long timeout, TimeUnit unit) {
+        if (timeout <= 0) {
+            return NONE;
+        }
+
+        long timeoutNanos = unit.toNanos(timeout);
+
+        return new Deadline(System.nanoTime() + timeoutNanos, timeoutNanos);
+    }
+
+    private final long expiresAt;
+    private final long timeoutNanos;
+
+    private Deadline(long expiresAt, long timeoutNanos) {
+        this.expiresAt = expiresAt;
+        this.timeoutNanos = timeoutNanos;
+    }
+
+    /**
+     * Indicates if this deadline has passed.
+     *
+     * @return {@code true} if the deadline has passed. Otherwise, {@code false}.
+     */
+    public boolean isExpired() {
+        return this != NONE && System.nanoTime() - this.expiresAt >= 0;
+    }
+
+    /**
+     * Returns how long until this deadline passes.
+     *
+     * @param unit the unit of the returned value
+     * @return the remaining time, zero if the deadline has passed or {@link Long#MAX_VALUE} if this deadline never expires
+     */
+    public long remaining(TimeUnit unit) {
+        if (this == NONE) {
+            return Long.MAX_VALUE;
+        }
+
+        return unit.convert(Math.max(0, this.expiresAt - System.nanoTime()), TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Returns the timeout from which this deadline was created.
+     *
+     * @param unit the unit of the returned value
+     * @return the timeout or zero if this deadline never expires
+     */
+    public long getTimeout(TimeUnit unit) {
+        return unit.convert(this.timeoutNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Returns whichever of this and the given <code>other</code> deadline expires first.
+     *
+     * @param other another deadline
+     * @return the deadline that expires first
+     */
+    public Deadline min(Deadline other) {
+        if (other == null || other == NONE) {
+            return this;
+        }
+
+        if (this == NONE) {
+            return other;
+        }
+
+        return other.expiresAt - this.expiresAt < 0 ? other : this;
+    }
+
+    /**
+     * Returns a future completed normally once the given <code>future</code> completes or this deadline passes, whichever happens first.
+     * The given future is not affected.
+     *
+     * @param future the future to wait for
+     * @return a future completed once the given future completes or this deadline passes
+     */
+    public CompletableFuture<Void> bound(CompletableFuture<?> future) {
+        CompletableFuture<Void> bounded = new CompletableFuture<>();
+
+        future.whenComplete((result, cause) -> bounded.complete(null));
+
+        if (this != NONE && !bounded.isDone()) {
+            ScheduledFuture<?> timer = Timer.INSTANCE.schedule(() -> bounded.complete(null), remaining(TimeUnit.NANOSECONDS), TimeUnit.NANOSECONDS);
+
+            // the timer is removed as soon as the given future completes, instead of being kept until this deadline passes
+            bounded.whenComplete((result, cause) -> timer.cancel(false));
+        }
+
+        return bounded;
+    }
+
+    @Override
+    public String toString() {
+        return this == NONE ? "none" : getTimeout(TimeUnit.MILLISECONDS) + "ms";
+    }
+
+    /**
+     * The thread completing the futures returned by {@link #bound(CompletableFuture)}, only created if needed.
+     */
+    private static final class Timer {
+
+        static final ScheduledThreadPoolExecutor INSTANCE = create();
+
+        private static ScheduledThreadPoolExecutor create() {
+            ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1, runnable -> {
+                Thread thread = new Thread(runnable, "keycloak-authz-deadline");
+                thread.setDaemon(true);
+                return thread;
+            });
+
+            executor.setRemoveOnCancelPolicy(true);
+
+            return executor;
+        }
+    }
+}
@@ -14,6 +14,15 @@ public interface Decision {
 
     void onDecision(Evaluation evaluation);
 
+    /**
+     * Called when the evaluation of a policy was skipped because the outcome of its parent policy was already settled. By default, skipped
+     * evaluations are ignored.
+     *
+     * @param evaluation the skipped evaluation, which has no effect
+     */
+    default void onSkip(Evaluation evaluation) {
+    }
+
     default void onError(Throwable cause) {
         throw new RuntimeException("Not implemented.", cause);
     }
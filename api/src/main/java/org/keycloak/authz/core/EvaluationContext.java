@@ -41,4 +41,13 @@ public interface EvaluationContext {
      * @return the attributes within the current execution and runtime environment
      */
     Attributes getAttributes();
+
+    /**
+     * Returns the {@link Deadline} by which the evaluation must complete. Policies not evaluated before the deadline are denied.
+     *
+     * @return the deadline of the evaluation. By default, {@link Deadline#NONE}
+     */
+    default Deadline getDeadline() {
+        return Deadline.NONE;
+    }
 }
@@ -0,0 +1,117 @@
+package org.keycloak.authz.core;
+
+import org.keycloak.authz.core.metrics.MetricsSnapshot;
+import org.keycloak.authz.core.model.Policy;
+import org.keycloak.authz.core.policy.evaluation.Evaluation;
+import org.keycloak.authz.core.policy.provider.PolicyProvider;
+
+/**
+ * <p>An instrumentation SPI notified about the work done while evaluating permissions. Implementations must be thread-safe and should
+ * be cheap, given that they are called for every single policy evaluated.
+ *
+ * <p>Instances are set when building an {@link Authorization} instance. By default, {@link #NONE} is used and nothing is recorded.
+ *
+ * @author <a href="mailto:psilva@redhat.com">Pedro Igor</a>
+ * @see org.keycloak.authz.core.metrics.DefaultEvaluationMetrics
+ */
+public interface EvaluationMetrics {
+
+    /**
+     * An instance that records nothing.
+     */
+    EvaluationMetrics NONE = new EvaluationMetrics() {
+        @Override
+        public void evaluate(PolicyProvider policyProvider, Evaluation evaluation) {
+            policyProvider.evaluate(evaluation);
+        }
+    };
+
+    /**
+     * Evaluates the given <code>evaluation</code> using the given <code>policyProvider</code> and records how long it took and whether
+     * it failed.
+     *
+     * @param policyProvider the provider of the policy being evaluated
+     * @param evaluation the evaluation
+     */
+    default void evaluate(PolicyProvider policyProvider, Evaluation evaluation) {
+        long start = System.nanoTime();
+        boolean failed = true;
+
+        try {
+            policyProvider.evaluate(evaluation);
+            failed = false;
+        } finally {
+            onPolicyEvaluated(evaluation.getPolicy(), System.nanoTime() - start, failed);
+        }
+    }
+
+    /**
+     * Called after a policy was evaluated.
+     *
+     * @param policy the policy
+     * @param elapsedNanos how long the evaluation took, in nanoseconds
+     * @param failed if the evaluation failed with an exception
+     */
+    default void onPolicyEvaluated(Policy policy, long elapsedNanos, boolean failed) {
+    }
+
+    /**
+     * Called when a policy failed, but its provider contained the failure and left the evaluation without an effect, so that the policy
+     * is denied instead of failing the whole request. The evaluation is still reported by {@link #onPolicyEvaluated(Policy, long, boolean)}.
+     *
+     * @param policy the policy
+     */
+    default void onPolicyError(Policy policy) {
+    }
+
+    /**
+     * Called when the effect of a policy is reused instead of evaluating the policy again, because it does not depend on the permission
+     * being evaluated.
+     *
+     * @param policy the policy
+     * @see org.keycloak.authz.core.policy.provider.PolicyProviderFactory#getDependencies(Policy)
+     */
+    default void onEvaluationReused(Policy policy) {
+    }
+
+    /**
+     * Called when a policy is denied because the {@link Deadline} of the evaluation passed before the policy was evaluated or before it completed.
+     *
+     * @param policy the policy
+     */
+    default void onEvaluationTimedOut(Policy policy) {
+    }
+
+    /**
+     * Called once a {@link org.keycloak.authz.core.permission.evaluator.PermissionEvaluator} evaluated all its permissions.
+     *
+     * @param count the number of permissions evaluated
+     */
+    default void onPermissionsEvaluated(int count) {
+    }
+
+    /**
+     * Called after loading data from the stores in order to evaluate permissions, e.g.: when building a policy index.
+     *
+     * @param elapsedNanos how long the lookup took, in nanoseconds
+     */
+    default void onStoreLookup(long elapsedNanos) {
+    }
+
+    /**
+     * Called once a policy was removed, so that any metrics kept for it can be discarded.
+     *
+     * @param policyId the identifier of the policy
+     */
+    default void onPolicyRemoved(String policyId) {
+    }
+
+    /**
+     * Returns a snapshot of the metrics recorded so far.
+     *
+     * @return a snapshot of the metrics
+     */
+    default MetricsSnapshot getSnapshot() {
+        return MetricsSnapshot.EMPTY;
+    }
+}
@@ -0,0 +1,15 @@
+package org.keycloak.authz.core;
+
+/**
+ * Reported to {@link Decision#onError(Throwable)} when the {@link Deadline} of an evaluation passes before all its permissions were evaluated.
+ *
+ * @author <a href="mailto:psilva@redhat.com">Pedro Igor</a>
+ */
+public class EvaluationTimeoutException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public EvaluationTimeoutException(Deadline deadline) {
+        super("Evaluation did not complete within [" + deadline + "].");
+    }
+}
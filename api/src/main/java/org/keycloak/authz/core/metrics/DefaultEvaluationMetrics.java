@@ -0,0 +1,141 @@
+package org.keycloak.authz.core.metrics;
+
+import org.keycloak.authz.core.EvaluationMetrics;
+import org.keycloak.authz.core.model.Policy;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * <p>An {@link EvaluationMetrics} that keeps count, errors and a {@link LatencyHistogram} for each policy type and policy, as well as
+ * histograms for the number of permissions per request and the latency of store lookups.
+ *
+ * <p>Recording is lock-free. Metrics for a policy are kept until the policy is {@link #onPolicyRemoved(String) removed} or {@link #reset()}
+ * is called. Policies without an identifier are only accounted by type.
+ *
+ * @author <a href="mailto:psilva@redhat.com">Pedro Igor</a>
+ */
+public final class DefaultEvaluationMetrics implements EvaluationMetrics {
+
+    private static final DefaultEvaluationMetrics SHARED = new DefaultEvaluationMetrics();
+
+    /**
+     * Returns an instance that can be shared by different {@link org.keycloak.authz.core.Authorization} instances, so that their
+     * metrics are reported together.
+     *
+     * @return the shared instance
+     */
+    public static DefaultEvaluationMetrics shared() {
+        return SHARED;
+    }
+
+    private final ConcurrentMap<String, Counter> policyTypes = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Counter> policies = new ConcurrentHashMap<>();
+    private volatile LatencyHistogram permissionsPerRequest = new LatencyHistogram();
+    private volatile LatencyHistogram storeLookups = new LatencyHistogram();
+
+    @Override
+    public void onPolicyEvaluated(Policy policy, long elapsedNanos, boolean failed) {
+        counter(this.policyTypes, policy.getType()).record(elapsedNanos, failed);
+
+        if (policy.getId() != null) {
+            counter(this.policies, policy.getId()).record(elapsedNanos, failed);
+        }
+    }
+
+    @Override
+    public void onPolicyError(Policy policy) {
+        counter(this.policyTypes, policy.getType()).errors.increment();
+
+        if (policy.getId() != null) {
+            counter(this.policies, policy.getId()).errors.increment();
+        }
+    }
+
+    @Override
+    public void onEvaluationReused(Policy policy) {
+        counter(this.policyTypes, policy.getType()).reused.increment();
+
+        if (policy.getId() != null) {
+            counter(this.policies, policy.getId()).reused.increment();
+        }
+    }
+
+    @Override
+    public void onEvaluationTimedOut(Policy policy) {
+        counter(this.policyTypes, policy.getType()).timedOut.increment();
+
+        if (policy.getId() != null) {
+            counter(this.policies, policy.getId()).timedOut.increment();
+        }
+    }
+
+    @Override
+    public void onPolicyRemoved(String policyId) {
+        if (policyId != null) {
+            this.policies.remove(policyId);
+        }
+    }
+
+    @Override
+    public void onPermissionsEvaluated(int count) {
+        this.permissionsPerRequest.record(count);
+    }
+
+    @Override
+    public void onStoreLookup(long elapsedNanos) {
+        this.storeLookups.record(elapsedNanos);
+    }
+
+    @Override
+    public MetricsSnapshot getSnapshot() {
+        return new MetricsSnapshot(snapshot(this.policyTypes), snapshot(this.policies), this.permissionsPerRequest.snapshot(), this.storeLookups.snapshot());
+    }
+
+    /**
+     * Discards all metrics recorded so far.
+     */
+    public void reset() {
+        this.policyTypes.clear();
+        this.policies.clear();
+        this.permissionsPerRequest = new LatencyHistogram();
+        this.storeLookups = new LatencyHistogram();
+    }
+
+    private static Counter counter(ConcurrentMap<String, Counter> counters, String key) {
+        Counter counter = counters.get(key);
+
+        if (counter == null) {
+            counter = counters.computeIfAbsent(key, k -> new Counter());
+        }
+
+        return counter;
+    }
+
+    private static Map<String, MetricsSnapshot.PolicyMetrics> snapshot(ConcurrentMap<String, Counter> counters) {
+        Map<String, MetricsSnapshot.PolicyMetrics> snapshot = new TreeMap<>();
+
+        counters.forEach((key, counter) -> snapshot.put(key, new MetricsSnapshot.PolicyMetrics(counter.errors.sum(), counter.reused.sum(), counter.timedOut.sum(), counter.latency.snapshot())));
+
+        return snapshot;
+    }
+
+    private static final class Counter {
+
+        final LongAdder errors = new LongAdder();
+        final LongAdder reused = new LongAdder();
+        final LongAdder timedOut = new LongAdder();
+        final LatencyHistogram latency = new LatencyHistogram();
+
+        void record(long elapsedNanos, boolean failed) {
+            this.latency.record(elapsedNanos);
+
+            if (failed) {
+                this.errors.increment();
+            }
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package org.keycloak.authz.core.metrics;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * A point-in-time view of the metrics recorded by an {@link org.keycloak.authz.core.EvaluationMetrics}. Latencies are in nanoseconds.
+ *
+ * @author <a href="mailto:psilva@redhat.com">Pedro Igor</a>
+ */
+public final class MetricsSnapshot {
+
+    public static final MetricsSnapshot EMPTY = new MetricsSnapshot(Collections.emptyMap(), Collections.emptyMap(), LatencyHistogram.Snapshot.EMPTY, LatencyHistogram.Snapshot.EMPTY);
+
+    private final Map<String, PolicyMetrics> policyTypes;
+    private final Map<String, PolicyMetrics> policies;
+    private final LatencyHistogram.Snapshot permissionsPerRequest;
+    private final LatencyHistogram.Snapshot storeLookups;
+
+    public MetricsSnapshot(Map<String, PolicyMetrics> policyTypes, Map<String, PolicyMetrics> policies, LatencyHistogram.Snapshot permissionsPerRequest, LatencyHistogram.Snapshot storeLookups) {
+        this.policyTypes = Collections.unmodifiableMap(policyTypes);
+        this.policies = Collections.unmodifiableMap(policies);
+        this.permissionsPerRequest = permissionsPerRequest;
+        this.storeLookups = storeLookups;
+    }
+
+    /**
+     * Returns the metrics for each policy type.
+     *
+     * @return a map where the key is the policy type
+     */
+    public Map<String, PolicyMetrics> getPolicyTypes() {
+        return this.policyTypes;
+    }
+
+    /**
+     * Returns the metrics for each policy.
+     *
+     * @return a map where the key is the policy identifier
+     */
+    public Map<String, PolicyMetrics> getPolicies() {
+        return this.policies;
+    }
+
+    /**
+     * Returns the distribution of the number of permissions evaluated by each request.
+     *
+     * @return the number of permissions per request
+     */
+    public LatencyHistogram.Snapshot getPermissionsPerRequest() {
+        return this.permissionsPerRequest;
+    }
+
+    /**
+     * Returns how many times the effect of a policy was reused instead of evaluating the policy again, for all policy types.
+     *
+     * @return the number of evaluations saved
+     */
+    public long getReusedEvaluations() {
+        long reused = 0;
+
+        for (PolicyMetrics metrics : this.policyTypes.values()) {
+            reused += metrics.getReused();
+        }
+
+        return reused;
+    }
+
+    /**
+     * Returns how many times a policy was denied because the evaluation timed out, for all policy types.
+     *
+     * @return the number of evaluations that timed out
+     */
+    public long getTimedOutEvaluations() {
+        long timedOut = 0;
+
+        for (PolicyMetrics metrics : this.policyTypes.values()) {
+            timedOut += metrics.getTimedOut();
+        }
+
+        return timedOut;
+    }
+
+    /**
+     * Returns the latency of the lookups done to the stores.
+     *
+     * @return the latency of store lookups
+     */
+    public LatencyHistogram.Snapshot getStoreLookups() {
+        return this.storeLookups;
+    }
+
+    /**
+     * The metrics for a policy or policy type.
+     */
+    public static final class PolicyMetrics {
+
+        private final long errors;
+        private final long reused;
+        private final long timedOut;
+        private final LatencyHistogram.Snapshot latency;
+
+        public PolicyMetrics(long errors, LatencyHistogram.Snapshot latency) {
+            this(errors, 0, latency);
+        }
+
+        public PolicyMetrics(long errors, long reused, LatencyHistogram.Snapshot latency) {
+            this(errors, reused, 0, latency);
+        }
+
+        public PolicyMetrics(long errors, long reused, long timedOut, LatencyHistogram.Snapshot latency) {
+            this.errors = errors;
+            this.reused = reused;
+            this.timedOut = timedOut;
+            this.latency = latency;
+        }
+
+        public long getCount() {
+            return this.latency.getCount();
+        }
+
+        public long getErrors() {
+            return this.errors;
+        }
+
+        /**
+         * Returns how many times the effect of a policy was reused instead of evaluating the policy again. Reused effects are not
+         * accounted by {@link #getCount()}.
+         *
+         * @return the number of evaluations saved
+         */
+        public long getReused() {
+            return this.reused;
+        }
+
+        /**
+         * Returns how many times a policy was denied because the evaluation timed out. Policies that timed out before being evaluated are
+         * not accounted by {@link #getCount()}.
+         *
+         * @return the number of evaluations that timed out
+         */
+        public long getTimedOut() {
+            return this.timedOut;
+        }
+
+        public LatencyHistogram.Snapshot getLatency() {
+            return this.latency;
+        }
+    }
+}
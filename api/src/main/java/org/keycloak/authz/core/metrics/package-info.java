@@ -0,0 +1,6 @@
+/**
+ * Provides the default implementation of {@link org.keycloak.authz.core.EvaluationMetrics}.
+ *
+ * @author <a href="mailto:psilva@redhat.com">Pedro Igor</a>
+ */
+package org.keycloak.authz.core.metrics;
@@ -0,0 +1,306 @@
+package org.keycloak.authz.core.permission;
+
+import org.keycloak.authz.core.Authorization;
+import org.keycloak.authz.core.Decision;
+import org.keycloak.authz.core.EvaluationContext;
+import org.keycloak.authz.core.identity.Identity;
+import org.keycloak.authz.core.model.Policy;
+import org.keycloak.authz.core.model.Resource;
+import org.keycloak.authz.core.model.ResourceServer;
+import org.keycloak.authz.core.model.ResourceServer.PolicyEnforcementMode;
+import org.keycloak.authz.core.model.Scope;
+import org.keycloak.authz.core.permission.evaluator.Flow;
+import org.keycloak.authz.core.permission.evaluator.Publishers;
+import org.keycloak.authz.core.policy.evaluation.Evaluation;
+import org.keycloak.authz.core.policy.evaluation.Result;
+import org.keycloak.authz.core.policy.index.PolicyIndex;
+import org.keycloak.authz.core.policy.provider.PolicyProviderFactory;
+import org.keycloak.authz.core.policy.provider.PolicyProviderFactory.Dependency;
+import org.keycloak.authz.core.store.ResourceStore;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * <p>Finds the {@link Resource} instances of a {@link ResourceServer} that are granted within a given {@link EvaluationContext}, without
+ * evaluating a permission for every resource of the resource server.
+ *
+ * <p>The policies that depend neither on the resource nor on the scopes of a permission, as declared by {@link PolicyProviderFactory#getDependencies(Policy)},
+ * are evaluated once. Then, the permissions of the {@link PolicyIndex} that can no longer grant access given the effect of these policies are
+ * discarded. Only the resources reachable from the remaining permissions, either directly, by resource type or by scope, are evaluated as a
+ * {@link ResourcePermission}, which also takes into account any other permission that applies to them.
+ *
+ * <p>Like any other entitlement, only resources owned by the resource server or by the identity of the context are considered.
+ *
+ * @author <a href="mailto:psilva@redhat.com">Pedro Igor</a>
+ * @see Authorization#findAccessibleResources(ResourceServer, EvaluationContext, int, int)
+ */
+public final class AccessibleResources {
+
+    private static final Comparator<Resource> BY_NAME = Comparator.comparing(Resource::getName, Comparator.nullsLast(Comparator.naturalOrder())).thenComparing(Resource::getId);
+
+    private final Authorization authorization;
+
+    public AccessibleResources(Authorization authorization) {
+        this.authorization = authorization;
+    }
+
+    /**
+     * Returns the resources of the given <code>resourceServer</code> that are granted within the given <code>context</code>, ordered by name.
+     *
+     * @param resourceServer the resource server
+     * @param context the evaluation context
+     * @param firstResult the number of granted resources to skip
+     * @param maxResults the maximum number of resources to return or a negative value to return all of them
+     * @return the granted resources
+     */
+    public List<Resource> find(ResourceServer resourceServer, EvaluationContext context, int firstResult, int maxResults) {
+        if (maxResults == 0) {
+            return Collections.emptyList();
+        }
+
+        List<Resource> candidates = findCandidates(resourceServer, context);
+        List<ResourcePermission> permissions = new ArrayList<>(candidates.size());
+
+        for (Resource resource : candidates) {
+            permissions.add(new ResourcePermission(resource, Collections.emptyList(), resourceServer));
+        }
+
+        PageSubscriber page = new PageSubscriber(Math.max(0, firstResult), maxResults);
+
+        // permissions are evaluated by the calling thread, no more than needed to fill the page are requested at a time
+        this.authorization.evaluators().stream(Publishers.from(permissions), context).subscribe(page);
+
+        if (page.error != null) {
+            if (page.error instanceof RuntimeException) {
+                throw (RuntimeException) page.error;
+            }
+
+            throw new RuntimeException("Failed to find accessible resources for resource server [" + resourceServer.getId() + "].", page.error);
+        }
+
+        return page.resources;
+    }
+
+    /**
+     * Returns the resources that may be granted, ordered by name. Resources are only reachable from permissions that can still grant access
+     * after evaluating the policies that do not depend on the permission.
+     */
+    private List<Resource> findCandidates(ResourceServer resourceServer, EvaluationContext context) {
+        ResourceStore resourceStore = this.authorization.getStoreFactory().getResourceStore();
+        Identity identity = context.getIdentity();
+        String identityId = identity != null ? identity.getId() : null;
+        Map<String, Resource> candidates = new HashMap<>();
+
+        PolicyEnforcementMode enforcementMode = resourceServer.getPolicyEnforcementMode();
+
+        if (PolicyEnforcementMode.PERMISSIVE.equals(enforcementMode) || PolicyEnforcementMode.DISABLED.equals(enforcementMode)) {
+            // resources without any policy are also granted, all of them must be evaluated
+            addCandidates(candidates, resourceStore.findByOwner(resourceServer.getClientId()), resourceServer, identityId);
+
+            if (identityId != null) {
+                addCandidates(candidates, resourceStore.findByOwner(identityId), resourceServer, identityId);
+            }
+        } else {
+            PolicyIndex policyIndex = this.authorization.getPolicyIndex(resourceServer);
+            ResourcePermission permission = new ResourcePermission(null, Collections.emptyList(), resourceServer);
+            Map<String, Decision.Effect> effects = new HashMap<>();
+
+            for (Policy policy : policyIndex.getPermissions()) {
+                if (!isReachable(policy, permission, context, effects)) {
+                    continue;
+                }
+
+                Set<Resource> resources = policy.getResources();
+
+                if (!resources.isEmpty()) {
+                    addCandidates(candidates, resources, resourceServer, identityId);
+                    continue;
+                }
+
+                String resourceType = policy.getConfig().get("defaultResourceType");
+
+                if (resourceType != null) {
+                    addCandidates(candidates, resourceStore.findByType(resourceType), resourceServer, identityId);
+                }
+
+                Set<Scope> scopes = policy.getScopes();
+
+                if (!scopes.isEmpty()) {
+                    String[] scopeIds = new String[scopes.size()];
+                    int i = 0;
+
+                    for (Scope scope : scopes) {
+                        scopeIds[i++] = scope.getId();
+                    }
+
+                    addCandidates(candidates, resourceStore.findByScope(scopeIds), resourceServer, identityId);
+                }
+            }
+        }
+
+        List<Resource> result = new ArrayList<>(candidates.values());
+
+        result.sort(BY_NAME);
+
+        return result;
+    }
+
+    private void addCandidates(Map<String, Resource> candidates, Collection<Resource> resources, ResourceServer resourceServer, String identityId) {
+        for (Resource resource : resources) {
+            if (!resourceServer.getId().equals(resource.getResourceServer().getId())) {
+                continue;
+            }
+
+            String owner = resource.getOwner();
+
+            if (owner != null && (owner.equals(resourceServer.getClientId()) || owner.equals(identityId))) {
+                candidates.putIfAbsent(resource.getId(), resource);
+            }
+        }
+    }
+
+    /**
+     * Checks if the given <code>policy</code> can still grant access, given the effect of its associated policies that do not depend on the
+     * permission. The effect of those policies is kept in the given <code>effects</code>, so that each policy is evaluated only once.
+     * Associated policies that depend on the permission are assumed to grant. It must be kept consistent with the decision strategies
+     * implemented by {@link org.keycloak.authz.core.policy.evaluation.DecisionResultCollector}.
+     */
+    private boolean isReachable(Policy policy, ResourcePermission permission, EvaluationContext context, Map<String, Decision.Effect> effects) {
+        Set<Policy> associatedPolicies = policy.getAssociatedPolicies();
+
+        if (associatedPolicies.isEmpty()) {
+            return false;
+        }
+
+        int grantCount = 0;
+        int denyCount = 0;
+
+        for (Policy associatedPolicy : associatedPolicies) {
+            if (!isIndependent(associatedPolicy)) {
+                continue;
+            }
+
+            Decision.Effect effect = effects.get(associatedPolicy.getId());
+
+            if (effect == null) {
+                effect = evaluate(associatedPolicy, permission, context);
+                effects.put(associatedPolicy.getId(), effect);
+            }
+
+            if (Decision.Effect.PERMIT.equals(effect)) {
+                grantCount++;
+            } else {
+                denyCount++;
+            }
+        }
+
+        int maxGrantCount = associatedPolicies.size() - denyCount;
+        Policy.DecisionStrategy decisionStrategy = policy.getDecisionStrategy();
+
+        if (Policy.DecisionStrategy.AFFIRMATIVE.equals(decisionStrategy)) {
+            return maxGrantCount > 0;
+        } else if (Policy.DecisionStrategy.CONSENSUS.equals(decisionStrategy)) {
+            return maxGrantCount > denyCount;
+        }
+
+        return denyCount == 0;
+    }
+
+    private boolean isIndependent(Policy policy) {
+        if (policy.getId() == null) {
+            return false;
+        }
+
+        PolicyProviderFactory factory = this.authorization.getProviderFactory(policy.getType());
+
+        if (factory == null) {
+            return false;
+        }
+
+        Set<Dependency> dependencies = factory.getDependencies(policy);
+
+        return !dependencies.contains(Dependency.RESOURCE) && !dependencies.contains(Dependency.SCOPES);
+    }
+
+    private Decision.Effect evaluate(Policy policy, ResourcePermission permission, EvaluationContext context) {
+        Evaluation evaluation = new Evaluation(permission, context, null, policy, decision -> {});
+
+        this.authorization.getMetrics().evaluate(this.authorization.getPolicyProvider(policy), evaluation);
+
+        return evaluation.getEffect() == null ? Decision.Effect.DENY : evaluation.getEffect();
+    }
+
+    /**
+     * Keeps the granted resources of a single page. Results are requested in chunks of as many as the resources still missing from the page,
+     * given that each result may grant a resource, and the evaluation is cancelled once the page is full.
+     */
+    private static class PageSubscriber implements Flow.Subscriber<Result> {
+
+        private final List<Resource> resources = new ArrayList<>();
+        private final int firstResult;
+        private final int maxResults;
+        private Flow.Subscription subscription;
+        private int skipped;
+        private long pending;
+        private Throwable error;
+
+        PageSubscriber(int firstResult, int maxResults) {
+            this.firstResult = firstResult;
+            this.maxResults = maxResults;
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+            requestMissing();
+        }
+
+        @Override
+        public void onNext(Result result) {
+            this.pending--;
+
+            if (Decision.Effect.PERMIT.equals(result.getEffect())) {
+                if (this.skipped < this.firstResult) {
+                    this.skipped++;
+                } else {
+                    this.resources.add(result.getPermission().getResource());
+
+                    if (this.resources.size() == this.maxResults) {
+                        this.subscription.cancel();
+                        return;
+                    }
+                }
+            }
+
+            if (this.pending == 0) {
+                requestMissing();
+            }
+        }
+
+        private void requestMissing() {
+            if (this.maxResults < 0) {
+                this.pending = Long.MAX_VALUE;
+            } else {
+                this.pending = (this.firstResult - this.skipped) + (this.maxResults - this.resources.size());
+            }
+
+            this.subscription.request(this.pending);
+        }
+
+        @Override
+        public void onError(Throwable cause) {
+            this.error = cause;
+        }
+
+        @Override
+        public void onComplete() {
+        }
+    }
+}
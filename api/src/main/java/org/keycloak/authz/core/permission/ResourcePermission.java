@@ -20,7 +20,10 @@ package org.keycloak.authz.core.permission;
 import org.keycloak.authz.core.model.Resource;
 import org.keycloak.authz.core.model.ResourceServer;
 import org.keycloak.authz.core.model.Scope;
+import org.keycloak.authz.core.policy.index.ScopeDictionary;
+import org.keycloak.authz.core.policy.index.ScopeMask;
 
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 
@@ -33,11 +36,14 @@ public class ResourcePermission {
 
     private final Resource resource;
     private final List<Scope> scopes;
+    private final List<String> scopeNames;
     private ResourceServer resourceServer;
+    private ScopeMaskEntry scopeMask;
 
     public ResourcePermission(Resource resource, List<Scope> scopes, ResourceServer resourceServer) {
         this.resource = resource;
-        this.scopes = scopes;
+        this.scopes = Collections.unmodifiableList(scopes);
+        this.scopeNames = toNames(scopes);
         this.resourceServer = resourceServer;
     }
 
@@ -56,7 +62,17 @@ public class ResourcePermission {
      * @return a lit of permitted scopes
      */
     public List<Scope> getScopes() {
-        return Collections.unmodifiableList(this.scopes);
+        return this.scopes;
+    }
+
+    /**
+     * Returns the names of the scopes returned by {@link #getScopes()}, in the same order. The names are computed once, when this
+     * permission is created, so that they can be used to look up policies without allocating a new list per evaluation.
+     *
+     * @return the names of the permitted scopes
+     */
+    public List<String> getScopeNames() {
+        return this.scopeNames;
     }
 
     /**
@@ -67,4 +83,48 @@ public class ResourcePermission {
     public ResourceServer getResourceServer() {
         return this.resourceServer;
     }
+
+    /**
+     * Returns a {@link ScopeMask} with the scopes returned by {@link #getScopes()}, as known by the given <code>dictionary</code>. The mask is
+     * kept until a different dictionary is given, usually after the policies of the resource server are reloaded.
+     *
+     * @param dictionary the scope dictionary of the resource server
+     * @return a mask with the permitted scopes
+     */
+    public ScopeMask getScopeMask(ScopeDictionary dictionary) {
+        ScopeMaskEntry entry = this.scopeMask;
+
+        if (entry == null || entry.dictionary != dictionary) {
+            // entries are immutable, so a racy update at most computes the mask again
+            entry = new ScopeMaskEntry(dictionary, dictionary.mask(this.scopes));
+            this.scopeMask = entry;
+        }
+
+        return entry.mask;
+    }
+
+    private static List<String> toNames(List<Scope> scopes) {
+        if (scopes.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        String[] names = new String[scopes.size()];
+
+        for (int i = 0; i < names.length; i++) {
+            names[i] = scopes.get(i).getName();
+        }
+
+        return Collections.unmodifiableList(Arrays.asList(names));
+    }
+
+    private static final class ScopeMaskEntry {
+
+        final ScopeDictionary dictionary;
+        final ScopeMask mask;
+
+        ScopeMaskEntry(ScopeDictionary dictionary, ScopeMask mask) {
+            this.dictionary = dictionary;
+            this.mask = mask;
+        }
+    }
 }
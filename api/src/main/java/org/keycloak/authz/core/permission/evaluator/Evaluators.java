@@ -1,12 +1,16 @@
 package org.keycloak.authz.core.permission.evaluator;
 
 import org.keycloak.authz.core.EvaluationContext;
+import org.keycloak.authz.core.EvaluationMetrics;
 import org.keycloak.authz.core.permission.ResourcePermission;
-import org.keycloak.authz.core.policy.evaluation.DefaultPolicyEvaluator;
+import org.keycloak.authz.core.policy.evaluation.PolicyEvaluator;
+import org.keycloak.authz.core.policy.evaluation.Result;
 import org.keycloak.authz.core.policy.provider.PolicyProviderFactory;
 
 import java.util.List;
 import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Supplier;
 
 /**
@@ -16,12 +20,49 @@ import java.util.function.Supplier;
  */
 public final class Evaluators {
 
+    /**
+     * The default number of permissions up to which {@link #parallel(List, EvaluationContext, ForkJoinPool)} evaluates sequentially.
+     */
+    public static final int DEFAULT_PARALLELISM_THRESHOLD = 64;
+
     private final List<PolicyProviderFactory> policyProviderFactories;
-    private final DefaultPolicyEvaluator policyEvaluator;
+    private final PolicyEvaluator policyEvaluator;
+    private final int parallelismThreshold;
+    private final EvaluationMetrics metrics;
+    private final long timeoutNanos;
+
+    public Evaluators(List<PolicyProviderFactory> policyProviderFactories, PolicyEvaluator policyEvaluator) {
+        this(policyProviderFactories, policyEvaluator, DEFAULT_PARALLELISM_THRESHOLD);
+    }
+
+    public Evaluators(List<PolicyProviderFactory> policyProviderFactories, PolicyEvaluator policyEvaluator, int parallelismThreshold) {
+        this(policyProviderFactories, policyEvaluator, parallelismThreshold, EvaluationMetrics.NONE);
+    }
+
+    public Evaluators(List<PolicyProviderFactory> policyProviderFactories, PolicyEvaluator policyEvaluator, int parallelismThreshold, EvaluationMetrics metrics) {
+        this(policyProviderFactories, policyEvaluator, parallelismThreshold, metrics, 0);
+    }
 
-    public Evaluators(List<PolicyProviderFactory> policyProviderFactories, DefaultPolicyEvaluator policyEvaluator) {
+    private Evaluators(List<PolicyProviderFactory> policyProviderFactories, PolicyEvaluator policyEvaluator, int parallelismThreshold, EvaluationMetrics metrics, long timeoutNanos) {
         this.policyProviderFactories = policyProviderFactories;
         this.policyEvaluator = policyEvaluator;
+        this.parallelismThreshold = parallelismThreshold;
+        this.metrics = metrics;
+        this.timeoutNanos = timeoutNanos;
+    }
+
+    /**
+     * Returns a copy of this instance whose {@link PermissionEvaluator}s must complete within the given <code>timeout</code>, counting from
+     * the moment they start evaluating. Permissions not evaluated by then are reported to {@link org.keycloak.authz.core.Decision#onError(Throwable)}
+     * as a {@link org.keycloak.authz.core.EvaluationTimeoutException} and policies not evaluated by then are denied. If the
+     * {@link EvaluationContext} has its own {@link org.keycloak.authz.core.Deadline}, whichever expires first applies.
+     *
+     * @param timeout the timeout. If zero or negative, evaluations are only bound by the deadline of the context
+     * @param unit the unit of the timeout
+     * @return a copy of this instance with the given timeout
+     */
+    public Evaluators timeout(long timeout, TimeUnit unit) {
+        return new Evaluators(this.policyProviderFactories, this.policyEvaluator, this.parallelismThreshold, this.metrics, Math.max(0, unit.toNanos(timeout)));
     }
 
     public PermissionEvaluator from(List<ResourcePermission> permissions, EvaluationContext executionContext) {
@@ -40,11 +81,39 @@ public final class Evaluators {
         return new ScheduledPermissionEvaluator(createEvaluationContext(permissions, executionContext), scheduler);
     }
 
+    /**
+     * Returns a {@link PermissionEvaluator} that evaluates the given <code>permissions</code> concurrently using the threads of the given
+     * <code>pool</code>. Permissions are evaluated sequentially by the calling thread if there are no more than the configured parallelism
+     * threshold.
+     *
+     * @param permissions the permissions to evaluate
+     * @param executionContext the evaluation context
+     * @param pool the pool used to evaluate the permissions
+     * @return a permission evaluator
+     */
+    public PermissionEvaluator parallel(List<ResourcePermission> permissions, EvaluationContext executionContext, ForkJoinPool pool) {
+        return new ParallelPermissionEvaluator(permissions, executionContext, this.policyEvaluator, pool, this.parallelismThreshold, this.metrics, this.timeoutNanos);
+    }
+
+    /**
+     * Returns a {@link Flow.Publisher} that emits the {@link Result} of each permission emitted by the given <code>permissions</code> publisher.
+     * Permissions are only requested from the source as results are requested by the subscriber, so arbitrarily large sets of permissions can
+     * be evaluated with bounded memory.
+     *
+     * @param permissions the source of permissions to evaluate
+     * @param executionContext the evaluation context
+     * @return a publisher of results
+     * @see Publishers
+     */
+    public Flow.Publisher<Result> stream(Flow.Publisher<ResourcePermission> permissions, EvaluationContext executionContext) {
+        return new StreamingPermissionEvaluator(permissions, executionContext, this.policyEvaluator, this.metrics, this.timeoutNanos);
+    }
+
     private IterablePermissionEvaluator createEvaluationContext(List<ResourcePermission> permissions, EvaluationContext executionContext) {
-        return new IterablePermissionEvaluator(permissions.iterator(), executionContext, this.policyEvaluator);
+        return new IterablePermissionEvaluator(permissions, executionContext, this.policyEvaluator, this.metrics, this.timeoutNanos);
     }
 
     private SupplierPermissionEvaluator createEvaluationContext(Supplier<ResourcePermission> permissions, EvaluationContext executionContext) {
-        return new SupplierPermissionEvaluator(permissions, executionContext, this.policyEvaluator);
+        return new SupplierPermissionEvaluator(permissions, executionContext, this.policyEvaluator, this.metrics, this.timeoutNanos);
     }
 }
@@ -0,0 +1,81 @@
+/*
+ * JBoss, Home of Professional Open Source
+ *
+ * Copyright 2015 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.keycloak.authz.core.permission.evaluator;
+
+/**
+ * <p>Interfaces for establishing flow-controlled components in which {@link Publisher Publishers} produce items consumed by one or more
+ * {@link Subscriber Subscribers}, each managed by a {@link Subscription}.
+ *
+ * <p>These interfaces mirror <code>java.util.concurrent.Flow</code> from Java 9, which is not available in the Java version targeted by this
+ * project, and follow the same rules from the Reactive Streams specification. Implementations written against them can be moved to
+ * <code>java.util.concurrent.Flow</code> by changing imports only.
+ *
+ * @author <a href="mailto:psilva@redhat.com">Pedro Igor</a>
+ * @see Evaluators#stream(Publisher, org.keycloak.authz.core.EvaluationContext)
+ */
+public final class Flow {
+
+    private Flow() {
+    }
+
+    /**
+     * A producer of items received by {@link Subscriber Subscribers}. Items are only delivered when requested through
+     * {@link Subscription#request(long)}.
+     *
+     * @param <T> the type of items published
+     */
+    @FunctionalInterface
+    public interface Publisher<T> {
+
+        void subscribe(Subscriber<? super T> subscriber);
+    }
+
+    /**
+     * A receiver of items. Methods are invoked in strict sequential order for each {@link Subscription}.
+     *
+     * @param <T> the type of items received
+     */
+    public interface Subscriber<T> {
+
+        void onSubscribe(Subscription subscription);
+
+        void onNext(T item);
+
+        void onError(Throwable throwable);
+
+        void onComplete();
+    }
+
+    /**
+     * Links a {@link Publisher} and a {@link Subscriber}.
+     */
+    public interface Subscription {
+
+        /**
+         * Adds the given number <code>n</code> of items to the current unfulfilled demand for this subscription.
+         *
+         * @param n the increment of demand, which must be positive
+         */
+        void request(long n);
+
+        /**
+         * Causes the {@link Subscriber} to (eventually) stop receiving items.
+         */
+        void cancel();
+    }
+}
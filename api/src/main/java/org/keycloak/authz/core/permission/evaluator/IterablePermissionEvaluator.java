@@ -17,12 +17,18 @@
  */
 package org.keycloak.authz.core.permission.evaluator;
 
+import org.keycloak.authz.core.Deadline;
 import org.keycloak.authz.core.Decision;
 import org.keycloak.authz.core.EvaluationContext;
+import org.keycloak.authz.core.EvaluationMetrics;
+import org.keycloak.authz.core.EvaluationTimeoutException;
 import org.keycloak.authz.core.permission.ResourcePermission;
+import org.keycloak.authz.core.policy.evaluation.EvaluationScope;
 import org.keycloak.authz.core.policy.evaluation.PolicyEvaluator;
 
 import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
 
 /**
@@ -31,19 +37,42 @@ import java.util.function.Consumer;
 class IterablePermissionEvaluator implements PermissionEvaluator, PermissionEmitter {
 
     private final Iterator<ResourcePermission> permissions;
+    private final List<ResourcePermission> prefetched;
     private final EvaluationContext executionContext;
     private final PolicyEvaluator policyEvaluator;
+    private final EvaluationMetrics metrics;
+    private final long timeoutNanos;
 
-    IterablePermissionEvaluator(Iterator<ResourcePermission> permissions, EvaluationContext executionContext, PolicyEvaluator policyEvaluator) {
-        this.permissions = permissions;
+    IterablePermissionEvaluator(List<ResourcePermission> permissions, EvaluationContext executionContext, PolicyEvaluator policyEvaluator, EvaluationMetrics metrics, long timeoutNanos) {
+        this.permissions = permissions.iterator();
+        this.prefetched = permissions;
         this.executionContext = executionContext;
         this.policyEvaluator = policyEvaluator;
+        this.metrics = metrics;
+        this.timeoutNanos = timeoutNanos;
     }
 
     @Override
     public void evaluate(Decision decision) {
         try {
-            forEach(permission -> this.policyEvaluator.evaluate(permission, this.executionContext, decision));
+            EvaluationContext executionContext = EvaluationScope.create(this.executionContext, Deadline.after(this.timeoutNanos, TimeUnit.NANOSECONDS));
+            Deadline deadline = executionContext.getDeadline();
+            int count = 0;
+
+            if (this.permissions.hasNext()) {
+                this.policyEvaluator.prefetch(this.prefetched, executionContext);
+            }
+
+            while (this.permissions.hasNext()) {
+                if (deadline.isExpired()) {
+                    throw new EvaluationTimeoutException(deadline);
+                }
+
+                this.policyEvaluator.evaluate(this.permissions.next(), executionContext, decision);
+                count++;
+            }
+
+            this.metrics.onPermissionsEvaluated(count);
             decision.onComplete();
         } catch (Throwable cause) {
             decision.onError(cause);
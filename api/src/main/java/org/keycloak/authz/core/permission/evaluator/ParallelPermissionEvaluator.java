@@ -0,0 +1,177 @@
+/*
+ * JBoss, Home of Professional Open Source
+ *
+ * Copyright 2015 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.keycloak.authz.core.permission.evaluator;
+
+import org.keycloak.authz.core.Deadline;
+import org.keycloak.authz.core.Decision;
+import org.keycloak.authz.core.EvaluationContext;
+import org.keycloak.authz.core.EvaluationMetrics;
+import org.keycloak.authz.core.EvaluationTimeoutException;
+import org.keycloak.authz.core.permission.ResourcePermission;
+import org.keycloak.authz.core.policy.evaluation.ConcurrentDecisionResultCollector;
+import org.keycloak.authz.core.policy.evaluation.DecisionResultCollector;
+import org.keycloak.authz.core.policy.evaluation.Evaluation;
+import org.keycloak.authz.core.policy.evaluation.EvaluationScope;
+import org.keycloak.authz.core.policy.evaluation.PolicyEvaluator;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>A {@link PermissionEvaluator} that splits a list of permissions into chunks and evaluates them concurrently using a {@link ForkJoinPool}.
+ *
+ * <p>Lists with no more permissions than the configured <code>threshold</code> are evaluated sequentially by the calling thread. Otherwise,
+ * the list is split until each chunk has at most <code>threshold</code> permissions. Calls to {@link Decision#onDecision(Evaluation)} are
+ * serialized, so the given {@link Decision} does not need to be thread-safe, unless it is a {@link ConcurrentDecisionResultCollector}. When permissions
+ * are evaluated concurrently and the given {@link Decision} is a {@link DecisionResultCollector}, decisions are collected by a
+ * {@link ConcurrentDecisionResultCollector} instead, which is only worth its overhead in that case. In any case, {@link Decision#onComplete()} is
+ * called only once, by the calling thread, after all permissions were evaluated.
+ *
+ * <p>Policies are evaluated by the threads of the given pool. These threads must have access to any context required by the policy providers
+ * and by the {@link org.keycloak.authz.core.store.StoreFactory}.
+ *
+ * @author <a href="mailto:psilva@redhat.com">Pedro Igor</a>
+ * @see PermissionEvaluator
+ */
+class ParallelPermissionEvaluator implements PermissionEvaluator {
+
+    private final List<ResourcePermission> permissions;
+    private final EvaluationContext executionContext;
+    private final PolicyEvaluator policyEvaluator;
+    private final ForkJoinPool pool;
+    private final int threshold;
+    private final EvaluationMetrics metrics;
+    private final long timeoutNanos;
+
+    ParallelPermissionEvaluator(List<ResourcePermission> permissions, EvaluationContext executionContext, PolicyEvaluator policyEvaluator, ForkJoinPool pool, int threshold, EvaluationMetrics metrics, long timeoutNanos) {
+        this.permissions = permissions instanceof RandomAccess ? permissions : new ArrayList<>(permissions);
+        this.executionContext = executionContext;
+        this.policyEvaluator = policyEvaluator;
+        this.pool = pool;
+        this.threshold = Math.max(1, threshold);
+        this.metrics = metrics;
+        this.timeoutNanos = timeoutNanos;
+    }
+
+    @Override
+    public void evaluate(Decision decision) {
+        try {
+            EvaluationContext executionContext = EvaluationScope.create(this.executionContext, Deadline.after(this.timeoutNanos, TimeUnit.NANOSECONDS));
+
+            // batches are evaluated by the calling thread, the permissions are then evaluated concurrently replaying their effects
+            this.policyEvaluator.prefetch(this.permissions, executionContext);
+
+            Decision completion = decision;
+
+            if (this.permissions.size() <= this.threshold) {
+                this.permissions.forEach(permission -> evaluate(permission, executionContext, decision));
+            } else {
+                completion = concurrent(decision);
+                this.pool.invoke(new EvaluationTask(0, this.permissions.size(), executionContext, completion));
+            }
+
+            this.metrics.onPermissionsEvaluated(this.permissions.size());
+            completion.onComplete();
+        } catch (Throwable cause) {
+            decision.onError(cause);
+        }
+    }
+
+    private void evaluate(ResourcePermission permission, EvaluationContext executionContext, Decision decision) {
+        Deadline deadline = executionContext.getDeadline();
+
+        if (deadline.isExpired()) {
+            throw new EvaluationTimeoutException(deadline);
+        }
+
+        this.policyEvaluator.evaluate(permission, executionContext, decision);
+    }
+
+    /**
+     * Returns a {@link Decision} that accepts decisions from the threads of the pool and delivers them to the given <code>decision</code>.
+     */
+    private Decision concurrent(Decision decision) {
+        if (decision instanceof DecisionResultCollector) {
+            ConcurrentDecisionResultCollector collector = ConcurrentDecisionResultCollector.of((DecisionResultCollector) decision);
+
+            if (collector != null) {
+                return collector;
+            }
+        }
+
+        return new SerializedDecision(decision);
+    }
+
+    private class EvaluationTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int from;
+        private final int to;
+        private final EvaluationContext executionContext;
+        private final Decision decision;
+
+        EvaluationTask(int from, int to, EvaluationContext executionContext, Decision decision) {
+            this.from = from;
+            this.to = to;
+            this.executionContext = executionContext;
+            this.decision = decision;
+        }
+
+        @Override
+        protected void compute() {
+            if (this.to - this.from <= threshold) {
+                for (int i = this.from; i < this.to; i++) {
+                    evaluate(permissions.get(i), this.executionContext, this.decision);
+                }
+            } else {
+                int middle = (this.from + this.to) >>> 1;
+
+                invokeAll(new EvaluationTask(this.from, middle, this.executionContext, this.decision), new EvaluationTask(middle, this.to, this.executionContext, this.decision));
+            }
+        }
+    }
+
+    private static class SerializedDecision implements Decision {
+
+        private final Decision delegate;
+
+        SerializedDecision(Decision delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public synchronized void onDecision(Evaluation evaluation) {
+            this.delegate.onDecision(evaluation);
+        }
+
+        @Override
+        public synchronized void onSkip(Evaluation evaluation) {
+            this.delegate.onSkip(evaluation);
+        }
+
+        @Override
+        public void onComplete() {
+            this.delegate.onComplete();
+        }
+    }
+}
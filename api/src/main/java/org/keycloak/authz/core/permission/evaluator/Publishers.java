@@ -0,0 +1,175 @@
+/*
+ * JBoss, Home of Professional Open Source
+ *
+ * Copyright 2015 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.keycloak.authz.core.permission.evaluator;
+
+import java.util.Iterator;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Creates {@link Flow.Publisher} instances that pull items from a source only when they are requested by a subscriber.
+ *
+ * @author <a href="mailto:psilva@redhat.com">Pedro Igor</a>
+ */
+public final class Publishers {
+
+    private Publishers() {
+    }
+
+    /**
+     * Returns a publisher of the items of the given <code>iterable</code>. A new iterator is obtained for each subscriber.
+     *
+     * @param iterable the source of items
+     * @param <T> the type of items
+     * @return a publisher
+     */
+    public static <T> Flow.Publisher<T> from(Iterable<T> iterable) {
+        return subscriber -> {
+            Iterator<T> iterator = iterable.iterator();
+            new PullSubscription<T>(() -> iterator.hasNext() ? iterator.next() : null, subscriber).start();
+        };
+    }
+
+    /**
+     * Returns a publisher of the items obtained from the given <code>supplier</code>, which signals the end of the items by returning
+     * {@code null}, as expected by {@link Evaluators#from(Supplier, org.keycloak.authz.core.EvaluationContext)}. The supplier is shared
+     * by all subscribers, so it should have a single subscriber.
+     *
+     * @param supplier the source of items
+     * @param <T> the type of items
+     * @return a publisher
+     */
+    public static <T> Flow.Publisher<T> from(Supplier<T> supplier) {
+        return subscriber -> new PullSubscription<T>(supplier, subscriber).start();
+    }
+
+    /**
+     * <p>Pulls items from a {@link Supplier} as long as there is demand. Items are emitted by the thread calling {@link #request(long)},
+     * or by the thread already emitting items if any, so that the subscriber is never called concurrently nor recursively.
+     *
+     * <p>One item is read ahead once the demand is fulfilled, so that completion is signaled as soon as the source is exhausted.
+     */
+    private static final class PullSubscription<T> implements Flow.Subscription {
+
+        private final Supplier<T> source;
+        private final Flow.Subscriber<? super T> subscriber;
+        private final AtomicLong requested = new AtomicLong();
+        private final AtomicInteger wip = new AtomicInteger();
+        private volatile boolean cancelled;
+        private T next;
+
+        PullSubscription(Supplier<T> source, Flow.Subscriber<? super T> subscriber) {
+            this.source = source;
+            this.subscriber = subscriber;
+        }
+
+        void start() {
+            this.subscriber.onSubscribe(this);
+        }
+
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                cancel();
+                this.subscriber.onError(new IllegalArgumentException("Demand must be positive, got [" + n + "]."));
+                return;
+            }
+
+            this.requested.getAndUpdate(current -> current + n < 0 ? Long.MAX_VALUE : current + n);
+
+            drain();
+        }
+
+        @Override
+        public void cancel() {
+            this.cancelled = true;
+        }
+
+        private void drain() {
+            if (this.wip.getAndIncrement() != 0) {
+                return;
+            }
+
+            int missed = 1;
+
+            do {
+                long demand = this.requested.get();
+                long emitted = 0;
+
+                try {
+                    while (emitted != demand) {
+                        if (this.cancelled) {
+                            return;
+                        }
+
+                        T item = poll();
+
+                        if (item == null) {
+                            complete();
+                            return;
+                        }
+
+                        this.subscriber.onNext(item);
+                        emitted++;
+                    }
+
+                    if (!this.cancelled && this.next == null) {
+                        this.next = this.source.get();
+
+                        if (this.next == null) {
+                            complete();
+                            return;
+                        }
+                    }
+                } catch (Throwable cause) {
+                    if (!this.cancelled) {
+                        this.cancelled = true;
+                        this.subscriber.onError(cause);
+                    }
+
+                    return;
+                }
+
+                if (emitted != 0 && demand != Long.MAX_VALUE) {
+                    this.requested.addAndGet(-emitted);
+                }
+
+                missed = this.wip.addAndGet(-missed);
+            } while (missed != 0);
+        }
+
+        private T poll() {
+            T item = this.next;
+
+            if (item != null) {
+                this.next = null;
+                return item;
+            }
+
+            return this.source.get();
+        }
+
+        private void complete() {
+            if (!this.cancelled) {
+                this.cancelled = true;
+                this.subscriber.onComplete();
+            }
+        }
+    }
+}
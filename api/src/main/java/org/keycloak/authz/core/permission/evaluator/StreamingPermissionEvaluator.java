@@ -0,0 +1,261 @@
+/*
+ * JBoss, Home of Professional Open Source
+ *
+ * Copyright 2015 Red Hat, Inc. and/or its affiliates.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.keycloak.authz.core.permission.evaluator;
+
+import org.keycloak.authz.core.Deadline;
+import org.keycloak.authz.core.EvaluationContext;
+import org.keycloak.authz.core.EvaluationMetrics;
+import org.keycloak.authz.core.EvaluationTimeoutException;
+import org.keycloak.authz.core.permission.ResourcePermission;
+import org.keycloak.authz.core.policy.evaluation.DecisionResultCollector;
+import org.keycloak.authz.core.policy.evaluation.EvaluationScope;
+import org.keycloak.authz.core.policy.evaluation.PolicyEvaluator;
+import org.keycloak.authz.core.policy.evaluation.Result;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>A {@link Flow.Publisher} of the {@link Result} of each permission emitted by another {@link Flow.Publisher}.
+ *
+ * <p>Demand is propagated to the source of permissions in requests of at most {@link #MAX_WINDOW_SIZE} permissions, given that each
+ * permission results in one {@link Result}. Permissions that end up without a result, e.g.: there are no policies associated with them, are
+ * replaced by requesting one more permission from the source. Results are never buffered.
+ *
+ * <p>Permissions emitted by the source while a request is being made, as sources such as {@link Publishers#from(Iterable)} do, form a
+ * window that is {@link PolicyEvaluator#prefetch(List, EvaluationContext) prefetched} together before being evaluated in order. Windows are
+ * evaluated one after the other until the demand of the subscriber is met, so no more than {@link #MAX_WINDOW_SIZE} permissions are held in
+ * memory, whatever the demand. Permissions emitted asynchronously are evaluated as they arrive, in which case the remaining demand is
+ * propagated as is.
+ *
+ * @author <a href="mailto:psilva@redhat.com">Pedro Igor</a>
+ * @see Evaluators#stream(Flow.Publisher, EvaluationContext)
+ */
+class StreamingPermissionEvaluator implements Flow.Publisher<Result> {
+
+    /**
+     * The maximum number of permissions requested from the source at once.
+     */
+    static final int MAX_WINDOW_SIZE = 64;
+
+    private final Flow.Publisher<ResourcePermission> permissions;
+    private final EvaluationContext executionContext;
+    private final PolicyEvaluator policyEvaluator;
+    private final EvaluationMetrics metrics;
+    private final long timeoutNanos;
+
+    StreamingPermissionEvaluator(Flow.Publisher<ResourcePermission> permissions, EvaluationContext executionContext, PolicyEvaluator policyEvaluator, EvaluationMetrics metrics, long timeoutNanos) {
+        this.permissions = permissions;
+        this.executionContext = executionContext;
+        this.policyEvaluator = policyEvaluator;
+        this.metrics = metrics;
+        this.timeoutNanos = timeoutNanos;
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super Result> subscriber) {
+        this.permissions.subscribe(new EvaluationSubscriber(subscriber));
+    }
+
+    private class EvaluationSubscriber implements Flow.Subscriber<ResourcePermission>, Flow.Subscription {
+
+        private final Flow.Subscriber<? super Result> downstream;
+        private final EvaluationContext executionContext = EvaluationScope.create(StreamingPermissionEvaluator.this.executionContext,
+                Deadline.after(timeoutNanos, TimeUnit.NANOSECONDS));
+        private Flow.Subscription upstream;
+        private volatile boolean done;
+        private int count;
+        private List<ResourcePermission> window;
+        private long demand;
+        private boolean requesting;
+        private boolean completed;
+
+        EvaluationSubscriber(Flow.Subscriber<? super Result> downstream) {
+            this.downstream = downstream;
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.upstream = subscription;
+            this.downstream.onSubscribe(this);
+        }
+
+        @Override
+        public void onNext(ResourcePermission permission) {
+            if (this.done) {
+                return;
+            }
+
+            if (this.window != null) {
+                this.window.add(permission);
+                return;
+            }
+
+            emit(permission);
+        }
+
+        private void emit(ResourcePermission permission) {
+            Result result;
+
+            try {
+                result = evaluate(permission);
+            } catch (Throwable cause) {
+                this.upstream.cancel();
+                onError(cause);
+                return;
+            }
+
+            this.count++;
+
+            if (result == null) {
+                if (this.requesting) {
+                    this.demand++;
+                } else {
+                    this.upstream.request(1);
+                }
+            } else {
+                this.downstream.onNext(result);
+            }
+        }
+
+        @Override
+        public void onError(Throwable cause) {
+            if (!this.done) {
+                this.done = true;
+                this.downstream.onError(cause);
+            }
+        }
+
+        @Override
+        public void onComplete() {
+            if (this.requesting) {
+                // completes once the permissions emitted while requesting were evaluated
+                this.completed = true;
+                return;
+            }
+
+            if (!this.done) {
+                this.done = true;
+                metrics.onPermissionsEvaluated(this.count);
+                this.downstream.onComplete();
+            }
+        }
+
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                // the source reports the invalid demand
+                this.upstream.request(n);
+                return;
+            }
+
+            this.demand = n > Long.MAX_VALUE - this.demand ? Long.MAX_VALUE : this.demand + n;
+
+            if (this.requesting) {
+                // requested by the subscriber while receiving a result, handled by the loop below
+                return;
+            }
+
+            this.requesting = true;
+
+            try {
+                while (this.demand > 0 && !this.done && !this.completed) {
+                    int requested = (int) Math.min(this.demand, MAX_WINDOW_SIZE);
+                    List<ResourcePermission> window = new ArrayList<>(requested);
+
+                    this.demand -= requested;
+                    this.window = window;
+                    this.upstream.request(requested);
+                    this.window = null;
+
+                    if (window.isEmpty()) {
+                        // the source emits asynchronously, permissions are evaluated as they arrive
+                        if (this.demand > 0 && !this.done && !this.completed) {
+                            long remaining = this.demand;
+
+                            this.demand = 0;
+                            this.upstream.request(remaining);
+                        }
+
+                        continue;
+                    }
+
+                    if (window.size() > 1 && !prefetch(window)) {
+                        return;
+                    }
+
+                    for (int i = 0; i < window.size() && !this.done; i++) {
+                        emit(window.get(i));
+                    }
+                }
+            } finally {
+                this.requesting = false;
+            }
+
+            if (this.completed) {
+                onComplete();
+            }
+        }
+
+        private boolean prefetch(List<ResourcePermission> permissions) {
+            try {
+                policyEvaluator.prefetch(permissions, this.executionContext);
+            } catch (Throwable cause) {
+                this.upstream.cancel();
+                onError(cause);
+                return false;
+            }
+
+            return true;
+        }
+
+        @Override
+        public void cancel() {
+            this.done = true;
+            this.upstream.cancel();
+        }
+
+        private Result evaluate(ResourcePermission permission) {
+            Deadline deadline = this.executionContext.getDeadline();
+
+            if (deadline.isExpired()) {
+                throw new EvaluationTimeoutException(deadline);
+            }
+
+            SingleResultCollector collector = new SingleResultCollector();
+
+            policyEvaluator.evaluate(permission, this.executionContext, collector);
+            collector.onComplete();
+
+            return collector.result;
+        }
+    }
+
+    private static class SingleResultCollector extends DecisionResultCollector {
+
+        private Result result;
+
+        @Override
+        protected void onComplete(List<Result> results) {
+            if (!results.isEmpty()) {
+                this.result = results.get(0);
+            }
+        }
+    }
+}
@@ -17,11 +17,16 @@
  */
 package org.keycloak.authz.core.permission.evaluator;
 
+import org.keycloak.authz.core.Deadline;
 import org.keycloak.authz.core.Decision;
 import org.keycloak.authz.core.EvaluationContext;
+import org.keycloak.authz.core.EvaluationMetrics;
+import org.keycloak.authz.core.EvaluationTimeoutException;
 import org.keycloak.authz.core.permission.ResourcePermission;
+import org.keycloak.authz.core.policy.evaluation.EvaluationScope;
 import org.keycloak.authz.core.policy.evaluation.PolicyEvaluator;
 
+import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
 import java.util.function.Supplier;
 
@@ -34,17 +39,34 @@ class SupplierPermissionEvaluator implements PermissionEvaluator, PermissionEmit
     private final Supplier<ResourcePermission> permissions;
     private final EvaluationContext executionContext;
     private final PolicyEvaluator policyEvaluator;
+    private final EvaluationMetrics metrics;
+    private final long timeoutNanos;
 
-    SupplierPermissionEvaluator(Supplier<ResourcePermission> permissions, EvaluationContext executionContext, PolicyEvaluator policyEvaluator) {
+    SupplierPermissionEvaluator(Supplier<ResourcePermission> permissions, EvaluationContext executionContext, PolicyEvaluator policyEvaluator, EvaluationMetrics metrics, long timeoutNanos) {
         this.permissions = permissions;
         this.executionContext = executionContext;
         this.policyEvaluator = policyEvaluator;
+        this.metrics = metrics;
+        this.timeoutNanos = timeoutNanos;
     }
 
     @Override
     public void evaluate(Decision decision) {
         try {
-            forEach(permission -> policyEvaluator.evaluate(permission, executionContext, decision));
+            EvaluationContext executionContext = EvaluationScope.create(this.executionContext, Deadline.after(this.timeoutNanos, TimeUnit.NANOSECONDS));
+            Deadline deadline = executionContext.getDeadline();
+            int count = 0;
+
+            for (ResourcePermission permission = this.permissions.get(); permission != null; permission = this.permissions.get()) {
+                if (deadline.isExpired()) {
+                    throw new EvaluationTimeoutException(deadline);
+                }
+
+                this.policyEvaluator.evaluate(permission, executionContext, decision);
+                count++;
+            }
+
+            this.metrics.onPermissionsEvaluated(count);
             decision.onComplete();
         } catch (Throwable cause) {
             decision.onError(cause);
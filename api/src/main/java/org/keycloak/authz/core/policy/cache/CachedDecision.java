@@ -0,0 +1,60 @@
+package org.keycloak.authz.core.policy.cache;
+
+import org.keycloak.authz.core.Decision;
+import org.keycloak.authz.core.model.Policy;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The outcome of the evaluation of a single permission, as a list of the decisions taken by each policy. Replaying these decisions to a
+ * {@link Decision} produces the same final result as evaluating the policies again.
+ *
+ * @author <a href="mailto:psilva@redhat.com">Pedro Igor</a>
+ */
+public final class CachedDecision {
+
+    private final List<Outcome> outcomes;
+
+    public CachedDecision(List<Outcome> outcomes) {
+        this.outcomes = Collections.unmodifiableList(outcomes);
+    }
+
+    public List<Outcome> getOutcomes() {
+        return this.outcomes;
+    }
+
+    /**
+     * The decision taken by a single policy.
+     */
+    public static final class Outcome {
+
+        private final Policy parentPolicy;
+        private final Policy policy;
+        private final Decision.Effect effect;
+        private final boolean skipped;
+
+        public Outcome(Policy parentPolicy, Policy policy, Decision.Effect effect, boolean skipped) {
+            this.parentPolicy = parentPolicy;
+            this.policy = policy;
+            this.effect = effect;
+            this.skipped = skipped;
+        }
+
+        public Policy getParentPolicy() {
+            return this.parentPolicy;
+        }
+
+        public Policy getPolicy() {
+            return this.policy;
+        }
+
+        public Decision.Effect getEffect() {
+            return this.effect;
+        }
+
+        public boolean isSkipped() {
+            return this.skipped;
+        }
+    }
+}
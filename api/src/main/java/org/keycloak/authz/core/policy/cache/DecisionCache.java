@@ -0,0 +1,95 @@
+package org.keycloak.authz.core.policy.cache;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * <p>A cache for the decisions taken when evaluating a {@link org.keycloak.authz.core.permission.ResourcePermission}, so that subsequent
+ * requests for the same identity, resource and scopes do not need to evaluate the same policies again.
+ *
+ * <p>Entries are keyed by {@link DecisionCacheKey}, which includes the version of the {@link org.keycloak.authz.core.policy.index.PolicyIndex}
+ * of the resource server. Entries computed before any change to the policies, resources or scopes of a resource server are therefore
+ * never returned once the index is invalidated.
+ *
+ * <p>Implementations must be thread-safe.
+ *
+ * @author <a href="mailto:psilva@redhat.com">Pedro Igor</a>
+ */
+public interface DecisionCache {
+
+    /**
+     * The identity and context attributes included in cache keys by default.
+     */
+    Set<String> DEFAULT_KEY_ATTRIBUTES = Collections.unmodifiableSet(new HashSet<>(Arrays.asList("roles", "kc.authz.context.client_id")));
+
+    /**
+     * Returns the decision cached for the given <code>key</code>.
+     *
+     * @param key the key
+     * @return the cached decision or {@code null} if there is no valid entry for the given key
+     */
+    CachedDecision get(DecisionCacheKey key);
+
+    /**
+     * Caches the given <code>decision</code>.
+     *
+     * @param key the key
+     * @param decision the decision to cache
+     */
+    void put(DecisionCacheKey key, CachedDecision decision);
+
+    /**
+     * Discards all cached decisions.
+     */
+    void invalidateAll();
+
+    /**
+     * Returns the names of the identity and context attributes that may influence a decision and must be part of a {@link DecisionCacheKey}.
+     *
+     * @return the names of the attributes included in cache keys
+     */
+    default Set<String> getKeyAttributes() {
+        return DEFAULT_KEY_ATTRIBUTES;
+    }
+
+    /**
+     * Indicates if the attributes returned by {@link #getKeyAttributes()} include all the context attributes read by policies depending on
+     * {@link org.keycloak.authz.core.policy.provider.PolicyProviderFactory.Dependency#ATTRIBUTES}. Otherwise, decisions taken by these
+     * policies are not cached, given that two contexts differing only in an attribute outside the key would share the same entry.
+     *
+     * @return {@code true} if decisions taken by policies depending on context attributes can be cached
+     */
+    default boolean coversAttributes() {
+        return false;
+    }
+
+    /**
+     * Returns the number of lookups that returned a cached decision.
+     *
+     * @return the number of hits
+     */
+    long getHitCount();
+
+    /**
+     * Returns the number of lookups that did not return a cached decision.
+     *
+     * @return the number of misses
+     */
+    long getMissCount();
+
+    /**
+     * Returns the number of entries removed because they expired or because the cache was full.
+     *
+     * @return the number of evictions
+     */
+    long getEvictionCount();
+
+    /**
+     * Returns the number of entries currently cached.
+     *
+     * @return the number of entries
+     */
+    int size();
+}
@@ -0,0 +1,134 @@
+package org.keycloak.authz.core.policy.cache;
+
+import org.keycloak.authz.core.EvaluationContext;
+import org.keycloak.authz.core.attribute.Attributes;
+import org.keycloak.authz.core.identity.Identity;
+import org.keycloak.authz.core.model.Resource;
+import org.keycloak.authz.core.model.Scope;
+import org.keycloak.authz.core.permission.ResourcePermission;
+import org.keycloak.authz.core.policy.index.PolicyIndex;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * <p>Identifies a cached decision by the identity requesting access, the resource and scopes being requested, the version of the
+ * {@link PolicyIndex} used to evaluate them and the values of the identity and context attributes that may influence the decision.
+ *
+ * <p>Attribute values are kept in the key, rather than just a hash of them, so that two different sets of attributes never share the same entry.
+ *
+ * @author <a href="mailto:psilva@redhat.com">Pedro Igor</a>
+ */
+public final class DecisionCacheKey {
+
+    private final String resourceServerId;
+    private final long policyIndexVersion;
+    private final String identityId;
+    private final String resourceId;
+    private final String[] scopeIds;
+    private final Map<String, List<String>> attributes;
+    private final int hashCode;
+
+    private DecisionCacheKey(String resourceServerId, long policyIndexVersion, String identityId, String resourceId, String[] scopeIds, Map<String, List<String>> attributes) {
+        this.resourceServerId = resourceServerId;
+        this.policyIndexVersion = policyIndexVersion;
+        this.identityId = identityId;
+        this.resourceId = resourceId;
+        this.scopeIds = scopeIds;
+        this.attributes = attributes;
+        this.hashCode = Objects.hash(resourceServerId, policyIndexVersion, identityId, resourceId, Arrays.hashCode(scopeIds), attributes);
+    }
+
+    /**
+     * Creates a key for the given <code>permission</code>.
+     *
+     * @param permission the permission being evaluated
+     * @param executionContext the evaluation context
+     * @param policyIndex the policy index of the resource server of the permission
+     * @param keyAttributes the names of the identity and context attributes to include in the key
+     * @return a new key or {@code null} if the decision for the given permission can not be cached, e.g.: there is no identity
+     */
+    public static DecisionCacheKey create(ResourcePermission permission, EvaluationContext executionContext, PolicyIndex policyIndex, Set<String> keyAttributes) {
+        Identity identity = executionContext.getIdentity();
+
+        if (identity == null || identity.getId() == null) {
+            return null;
+        }
+
+        Resource resource = permission.getResource();
+        List<Scope> scopes = permission.getScopes();
+        String[] scopeIds = new String[scopes.size()];
+
+        for (int i = 0; i < scopeIds.length; i++) {
+            scopeIds[i] = scopes.get(i).getId();
+        }
+
+        Arrays.sort(scopeIds);
+
+        Map<String, List<String>> attributes = new TreeMap<>();
+
+        if (!keyAttributes.isEmpty()) {
+            collect(identity.getAttributes(), keyAttributes, "identity.", attributes);
+            collect(executionContext.getAttributes(), keyAttributes, "context.", attributes);
+        }
+
+        return new DecisionCacheKey(policyIndex.getResourceServerId(), policyIndex.getVersion(), identity.getId(), resource != null ? resource.getId() : null, scopeIds, attributes);
+    }
+
+    private static void collect(Attributes source, Set<String> names, String prefix, Map<String, List<String>> target) {
+        if (source == null) {
+            return;
+        }
+
+        Map<String, Collection<String>> values = source.toMap();
+
+        for (String name : names) {
+            Collection<String> value = values.get(name);
+
+            if (value != null) {
+                List<String> sorted = new ArrayList<>(value);
+
+                sorted.removeIf(Objects::isNull);
+                Collections.sort(sorted);
+                target.put(prefix + name, sorted);
+            }
+        }
+    }
+
+    public String getResourceServerId() {
+        return this.resourceServerId;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+
+        DecisionCacheKey that = (DecisionCacheKey) o;
+
+        return this.hashCode == that.hashCode
+                && this.policyIndexVersion == that.policyIndexVersion
+                && Objects.equals(this.resourceServerId, that.resourceServerId)
+                && Objects.equals(this.identityId, that.identityId)
+                && Objects.equals(this.resourceId, that.resourceId)
+                && Arrays.equals(this.scopeIds, that.scopeIds)
+                && this.attributes.equals(that.attributes);
+    }
+
+    @Override
+    public int hashCode() {
+        return this.hashCode;
+    }
+}
@@ -0,0 +1,213 @@
+package org.keycloak.authz.core.policy.cache;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * <p>A {@link DecisionCache} that keeps a bounded number of entries in memory, each one valid for a fixed amount of time.
+ *
+ * <p>Entries are spread over a number of segments, each one an access-ordered map guarded by its own lock, so that the least recently
+ * used entries of a segment are evicted first once it is full. Expired entries are removed when they are looked up.
+ *
+ * @author <a href="mailto:psilva@redhat.com">Pedro Igor</a>
+ */
+public final class DefaultDecisionCache implements DecisionCache {
+
+    private static final int MAX_SEGMENTS = 16;
+
+    private final Segment[] segments;
+    private final long timeToLive;
+    private final Set<String> keyAttributes;
+    private final boolean coversAttributes;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * Creates a new instance using {@link DecisionCache#DEFAULT_KEY_ATTRIBUTES}.
+     *
+     * @param maxEntries the maximum number of entries
+     * @param timeToLive how long an entry is valid
+     * @param unit the unit of <code>timeToLive</code>
+     */
+    public DefaultDecisionCache(int maxEntries, long timeToLive, TimeUnit unit) {
+        this(maxEntries, timeToLive, unit, DEFAULT_KEY_ATTRIBUTES);
+    }
+
+    /**
+     * Creates a new instance.
+     *
+     * @param maxEntries the maximum number of entries
+     * @param timeToLive how long an entry is valid
+     * @param unit the unit of <code>timeToLive</code>
+     * @param keyAttributes the names of the identity and context attributes included in cache keys
+     */
+    public DefaultDecisionCache(int maxEntries, long timeToLive, TimeUnit unit, Set<String> keyAttributes) {
+        this(maxEntries, timeToLive, unit, keyAttributes, false);
+    }
+
+    /**
+     * Creates a new instance.
+     *
+     * @param maxEntries the maximum number of entries
+     * @param timeToLive how long an entry is valid
+     * @param unit the unit of <code>timeToLive</code>
+     * @param keyAttributes the names of the identity and context attributes included in cache keys
+     * @param coversAttributes if <code>keyAttributes</code> include all the context attributes read by policies
+     * @see DecisionCache#coversAttributes()
+     */
+    public DefaultDecisionCache(int maxEntries, long timeToLive, TimeUnit unit, Set<String> keyAttributes, boolean coversAttributes) {
+        if (maxEntries < 1) {
+            throw new RuntimeException("Maximum number of entries must be greater than zero.");
+        }
+
+        if (timeToLive < 1) {
+            throw new RuntimeException("Time to live must be greater than zero.");
+        }
+
+        int segments = Math.min(MAX_SEGMENTS, Integer.highestOneBit(maxEntries));
+        int segmentSize = maxEntries / segments;
+        int remainder = maxEntries % segments;
+
+        this.segments = new Segment[segments];
+
+        // the remainder is spread over the first segments, so that all segments together hold exactly maxEntries
+        for (int i = 0; i < segments; i++) {
+            this.segments[i] = new Segment(i < remainder ? segmentSize + 1 : segmentSize);
+        }
+
+        this.timeToLive = unit.toNanos(timeToLive);
+        this.keyAttributes = Collections.unmodifiableSet(new HashSet<>(keyAttributes));
+        this.coversAttributes = coversAttributes;
+    }
+
+    @Override
+    public CachedDecision get(DecisionCacheKey key) {
+        Segment segment = segment(key);
+        CacheEntry entry;
+
+        synchronized (segment) {
+            entry = segment.get(key);
+
+            if (entry != null && entry.isExpired()) {
+                segment.remove(key);
+                this.evictions.increment();
+                entry = null;
+            }
+        }
+
+        if (entry == null) {
+            this.misses.increment();
+            return null;
+        }
+
+        this.hits.increment();
+
+        return entry.decision;
+    }
+
+    @Override
+    public void put(DecisionCacheKey key, CachedDecision decision) {
+        Segment segment = segment(key);
+        CacheEntry entry = new CacheEntry(decision, System.nanoTime() + this.timeToLive);
+
+        synchronized (segment) {
+            segment.put(key, entry);
+        }
+    }
+
+    @Override
+    public void invalidateAll() {
+        for (Segment segment : this.segments) {
+            synchronized (segment) {
+                segment.clear();
+            }
+        }
+    }
+
+    @Override
+    public Set<String> getKeyAttributes() {
+        return this.keyAttributes;
+    }
+
+    @Override
+    public boolean coversAttributes() {
+        return this.coversAttributes;
+    }
+
+    @Override
+    public long getHitCount() {
+        return this.hits.sum();
+    }
+
+    @Override
+    public long getMissCount() {
+        return this.misses.sum();
+    }
+
+    @Override
+    public long getEvictionCount() {
+        return this.evictions.sum();
+    }
+
+    @Override
+    public int size() {
+        int size = 0;
+
+        for (Segment segment : this.segments) {
+            synchronized (segment) {
+                size += segment.size();
+            }
+        }
+
+        return size;
+    }
+
+    private Segment segment(DecisionCacheKey key) {
+        int hash = key.hashCode();
+
+        return this.segments[(hash ^ (hash >>> 16)) & (this.segments.length - 1)];
+    }
+
+    private static final class CacheEntry {
+
+        final CachedDecision decision;
+        final long expiresAt;
+
+        CacheEntry(CachedDecision decision, long expiresAt) {
+            this.decision = decision;
+            this.expiresAt = expiresAt;
+        }
+
+        boolean isExpired() {
+            return System.nanoTime() - this.expiresAt > 0;
+        }
+    }
+
+    private final class Segment extends LinkedHashMap<DecisionCacheKey, CacheEntry> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int maxEntries;
+
+        Segment(int maxEntries) {
+            super(16, 0.75f, true);
+            this.maxEntries = maxEntries;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<DecisionCacheKey, CacheEntry> eldest) {
+            if (size() > this.maxEntries) {
+                evictions.increment();
+                return true;
+            }
+
+            return false;
+        }
+    }
+}
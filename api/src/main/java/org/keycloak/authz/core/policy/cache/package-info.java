@@ -0,0 +1,6 @@
+/**
+ * Provides a cache for the outcome of the evaluation of permissions, shared across evaluation requests.
+ *
+ * @author <a href="mailto:psilva@redhat.com">Pedro Igor</a>
+ */
+package org.keycloak.authz.core.policy.cache;
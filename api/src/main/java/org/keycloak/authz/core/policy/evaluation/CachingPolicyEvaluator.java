@@ -0,0 +1,159 @@
+package org.keycloak.authz.core.policy.evaluation;
+
+import org.keycloak.authz.core.Authorization;
+import org.keycloak.authz.core.Decision;
+import org.keycloak.authz.core.EvaluationContext;
+import org.keycloak.authz.core.model.Policy;
+import org.keycloak.authz.core.permission.ResourcePermission;
+import org.keycloak.authz.core.policy.cache.CachedDecision;
+import org.keycloak.authz.core.policy.cache.DecisionCache;
+import org.keycloak.authz.core.policy.cache.DecisionCacheKey;
+import org.keycloak.authz.core.policy.index.PolicyIndex;
+import org.keycloak.authz.core.policy.provider.PolicyProviderFactory;
+import org.keycloak.authz.core.policy.provider.PolicyProviderFactory.Dependency;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+
+/**
+ * <p>A {@link PolicyEvaluator} that looks up a {@link DecisionCache} before delegating the evaluation of a permission to another
+ * {@link PolicyEvaluator}.
+ *
+ * <p>On a miss, the decisions delivered by the delegate are recorded and cached. On a hit, the cached decisions are replayed to the given
+ * {@link Decision}, which sees exactly the same sequence of events it would see if the policies were evaluated again. Decisions are not cached
+ * if any policy timed out, given that they do not reflect the actual outcome of the policies, nor if any policy depends on
+ * {@link Dependency#TIME}, given that its outcome may change before the entry expires. Decisions of policies depending on
+ * {@link Dependency#ATTRIBUTES} are only cached if {@link DecisionCache#coversAttributes()}, given that keys only hold the attributes
+ * returned by {@link DecisionCache#getKeyAttributes()}.
+ *
+ * @author <a href="mailto:psilva@redhat.com">Pedro Igor</a>
+ */
+public class CachingPolicyEvaluator implements PolicyEvaluator {
+
+    private final PolicyEvaluator delegate;
+    private final DecisionCache cache;
+    private final Authorization authorization;
+
+    public CachingPolicyEvaluator(PolicyEvaluator delegate, DecisionCache cache, Authorization authorization) {
+        this.delegate = delegate;
+        this.cache = cache;
+        this.authorization = authorization;
+    }
+
+    @Override
+    public void evaluate(ResourcePermission permission, EvaluationContext executionContext, Decision decision) {
+        PolicyIndex policyIndex = this.authorization.getPolicyIndex(permission.getResourceServer());
+        DecisionCacheKey key = DecisionCacheKey.create(permission, executionContext, policyIndex, this.cache.getKeyAttributes());
+
+        if (key == null) {
+            this.delegate.evaluate(permission, executionContext, decision);
+            return;
+        }
+
+        CachedDecision cached = this.cache.get(key);
+
+        if (cached != null) {
+            replay(cached, permission, executionContext, decision);
+            return;
+        }
+
+        RecordingDecision recorder = new RecordingDecision(decision);
+
+        this.delegate.evaluate(permission, executionContext, recorder);
+
+        cache(key, recorder);
+    }
+
+    @Override
+    public CompletionStage<Void> evaluateAsync(ResourcePermission permission, EvaluationContext executionContext, Decision decision) {
+        PolicyIndex policyIndex = this.authorization.getPolicyIndex(permission.getResourceServer());
+        DecisionCacheKey key = DecisionCacheKey.create(permission, executionContext, policyIndex, this.cache.getKeyAttributes());
+
+        if (key == null) {
+            return this.delegate.evaluateAsync(permission, executionContext, decision);
+        }
+
+        CachedDecision cached = this.cache.get(key);
+
+        if (cached != null) {
+            replay(cached, permission, executionContext, decision);
+            return CompletableFuture.completedFuture(null);
+        }
+
+        RecordingDecision recorder = new RecordingDecision(decision);
+
+        return this.delegate.evaluateAsync(permission, executionContext, recorder).thenRun(() -> cache(key, recorder));
+    }
+
+    /**
+     * Delegates as is, given that looking up the cache here would account each lookup twice. Permissions whose decisions are cached are
+     * also part of the batches, but their cached decisions are the ones delivered.
+     */
+    @Override
+    public void prefetch(List<ResourcePermission> permissions, EvaluationContext executionContext) {
+        this.delegate.prefetch(permissions, executionContext);
+    }
+
+    private void cache(DecisionCacheKey key, RecordingDecision recorder) {
+        if (!recorder.timedOut && !recorder.uncacheable) {
+            this.cache.put(key, new CachedDecision(recorder.outcomes));
+        }
+    }
+
+    private void replay(CachedDecision cached, ResourcePermission permission, EvaluationContext executionContext, Decision decision) {
+        for (CachedDecision.Outcome outcome : cached.getOutcomes()) {
+            Evaluation evaluation = new Evaluation(permission, executionContext, outcome.getParentPolicy(), outcome.getPolicy(), decision);
+
+            if (outcome.isSkipped()) {
+                evaluation.skip();
+            } else {
+                evaluation.replay(outcome.getEffect());
+            }
+        }
+    }
+
+    private boolean isUncacheable(Policy policy) {
+        PolicyProviderFactory factory = this.authorization.getProviderFactory(policy.getType());
+
+        if (factory == null) {
+            return true;
+        }
+
+        Set<Dependency> dependencies = factory.getDependencies(policy);
+
+        return dependencies.contains(Dependency.TIME) || (dependencies.contains(Dependency.ATTRIBUTES) && !this.cache.coversAttributes());
+    }
+
+    private class RecordingDecision implements Decision {
+
+        private final Decision delegate;
+        private final List<CachedDecision.Outcome> outcomes = new ArrayList<>();
+        private boolean timedOut;
+        private boolean uncacheable;
+
+        RecordingDecision(Decision delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void onDecision(Evaluation evaluation) {
+            this.outcomes.add(new CachedDecision.Outcome(evaluation.getParentPolicy(), evaluation.getPolicy(), evaluation.getEffect(), false));
+            this.timedOut |= evaluation.isTimedOut();
+
+            if (!this.uncacheable) {
+                this.uncacheable = isUncacheable(evaluation.getPolicy());
+            }
+
+            this.delegate.onDecision(evaluation);
+        }
+
+        @Override
+        public void onSkip(Evaluation evaluation) {
+            this.outcomes.add(new CachedDecision.Outcome(evaluation.getParentPolicy(), evaluation.getPolicy(), null, true));
+            this.delegate.onSkip(evaluation);
+        }
+    }
+}
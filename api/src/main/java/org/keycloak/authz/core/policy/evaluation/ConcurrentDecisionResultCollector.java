@@ -0,0 +1,130 @@
+package org.keycloak.authz.core.policy.evaluation;
+
+import org.keycloak.authz.core.permission.ResourcePermission;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * <p>A {@link DecisionResultCollector} that accepts decisions from multiple threads at the same time.
+ *
+ * <p>Results are kept in a fixed number of stripes, each one guarding its own map. All the decisions for a given {@link ResourcePermission}
+ * go to the same stripe, so updates to a {@link Result} are always done while holding the lock of its stripe and threads evaluating different
+ * permissions rarely contend for the same lock.
+ *
+ * <p>{@link #onComplete()} must be called once all decisions were delivered, usually by the thread that started the evaluation.
+ *
+ * <p>Collecting decisions this way is slower than with a {@link DecisionResultCollector} when they are delivered by a single thread. Evaluators
+ * that deliver decisions from multiple threads should rather accept a {@link DecisionResultCollector} and use {@link #of(DecisionResultCollector)}
+ * only when they actually evaluate permissions concurrently.
+ *
+ * @author <a href="mailto:psilva@redhat.com">Pedro Igor</a>
+ */
+public abstract class ConcurrentDecisionResultCollector extends DecisionResultCollector {
+
+    private static final int MAX_STRIPES = 1 << 16;
+
+    /**
+     * Indicates whether a {@link DecisionResultCollector} only collects results, i.e.: it does not override the methods through which
+     * decisions are delivered.
+     */
+    private static final ClassValue<Boolean> COLLECTS_ONLY = new ClassValue<Boolean>() {
+        @Override
+        protected Boolean computeValue(Class<?> type) {
+            try {
+                return type.getMethod("onDecision", Evaluation.class).getDeclaringClass() == DecisionResultCollector.class
+                        && type.getMethod("onSkip", Evaluation.class).getDeclaringClass() == DecisionResultCollector.class
+                        && type.getMethod("onComplete").getDeclaringClass() == DecisionResultCollector.class;
+            } catch (NoSuchMethodException cause) {
+                return false;
+            }
+        }
+    };
+
+    /**
+     * Returns a {@link ConcurrentDecisionResultCollector} that delivers the results to the given <code>collector</code> once completed,
+     * as if the decisions were delivered to the given collector by a single thread.
+     *
+     * @param collector the collector to deliver the results to
+     * @return a collector accepting decisions from multiple threads or {@code null} if the given <code>collector</code> overrides the methods
+     * through which decisions are delivered, in which case it can not be replaced
+     */
+    public static ConcurrentDecisionResultCollector of(DecisionResultCollector collector) {
+        if (collector instanceof ConcurrentDecisionResultCollector) {
+            return (ConcurrentDecisionResultCollector) collector;
+        }
+
+        if (!COLLECTS_ONLY.get(collector.getClass())) {
+            return null;
+        }
+
+        return new ConcurrentDecisionResultCollector() {
+            @Override
+            protected void onComplete(List<Result> results) {
+                collector.onComplete(results);
+            }
+
+            @Override
+            public void onError(Throwable cause) {
+                collector.onError(cause);
+            }
+        };
+    }
+
+    private final Stripe[] stripes;
+
+    public ConcurrentDecisionResultCollector() {
+        this(Runtime.getRuntime().availableProcessors() * 4);
+    }
+
+    /**
+     * Creates a new instance with the given number of <code>stripes</code>, rounded up to the next power of two.
+     *
+     * @param stripes the number of stripes
+     */
+    public ConcurrentDecisionResultCollector(int stripes) {
+        if (stripes < 1 || stripes > MAX_STRIPES) {
+            throw new RuntimeException("Number of stripes must be between 1 and " + MAX_STRIPES + ".");
+        }
+
+        this.stripes = new Stripe[stripes == 1 ? 1 : Integer.highestOneBit(stripes - 1) << 1];
+
+        for (int i = 0; i < this.stripes.length; i++) {
+            this.stripes[i] = new Stripe();
+        }
+    }
+
+    @Override
+    public void onDecision(Evaluation evaluation) {
+        Stripe stripe = stripe(evaluation.getPermission());
+
+        synchronized (stripe) {
+            collect(evaluation, stripe.results);
+        }
+    }
+
+    @Override
+    public void onComplete() {
+        List<Result> results = new ArrayList<>();
+
+        for (Stripe stripe : this.stripes) {
+            synchronized (stripe) {
+                results.addAll(stripe.results.values());
+            }
+        }
+
+        complete(results);
+    }
+
+    private Stripe stripe(ResourcePermission permission) {
+        int hash = permission.hashCode();
+
+        return this.stripes[(hash ^ (hash >>> 16)) & (this.stripes.length - 1)];
+    }
+
+    private static final class Stripe {
+        final Map<ResourcePermission, Result> results = new HashMap<>();
+    }
+}
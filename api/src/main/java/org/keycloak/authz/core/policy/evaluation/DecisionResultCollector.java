@@ -4,10 +4,11 @@ import org.keycloak.authz.core.Decision;
 import org.keycloak.authz.core.model.Policy;
 import org.keycloak.authz.core.permission.ResourcePermission;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
 
 /**
  * @author <a href="mailto:psilva@redhat.com">Pedro Igor</a>
@@ -18,51 +19,56 @@ public abstract class DecisionResultCollector implements Decision {
 
     @Override
     public void onDecision(Evaluation evaluation) {
-        if (evaluation.getParentPolicy() != null) {
-            results.computeIfAbsent(evaluation.getPermission(), Result::new).policy(evaluation.getParentPolicy()).policy(evaluation.getPolicy()).setStatus(evaluation.getEffect());
-        } else {
-            results.computeIfAbsent(evaluation.getPermission(), Result::new).setStatus(evaluation.getEffect());
-        }
+        collect(evaluation, this.results);
     }
 
     @Override
-    public void onComplete() {
-        for (Result result : results.values()) {
-            for (Result.PolicyResult policyResult : result.getResults()) {
-                if (isGranted(policyResult)) {
-                    policyResult.setStatus(Effect.PERMIT);
-                } else {
-                    policyResult.setStatus(Effect.DENY);
-                }
-            }
-
-            if (result.getResults().stream()
-                    .filter(policyResult -> Effect.DENY.equals(policyResult.getStatus())).count() > 0) {
-                result.setStatus(Effect.DENY);
-            } else {
-                result.setStatus(Effect.PERMIT);
-            }
-        }
+    public void onSkip(Evaluation evaluation) {
+        onDecision(evaluation);
+    }
 
-        onComplete(results.values().stream().collect(Collectors.toList()));
+    @Override
+    public void onComplete() {
+        complete(this.results.values());
     }
 
     protected abstract void onComplete(List<Result> results);
 
-    private boolean isGranted(Result.PolicyResult policyResult) {
-        List<Result.PolicyResult> values = policyResult.getAssociatedPolicies();
+    /**
+     * Records the outcome of the given <code>evaluation</code> into the {@link Result} of its permission.
+     *
+     * @param evaluation the evaluation
+     * @param results the results collected so far, keyed by permission
+     */
+    void collect(Evaluation evaluation, Map<ResourcePermission, Result> results) {
+        Result result = results.computeIfAbsent(evaluation.getPermission(), Result::new);
 
-        int grantCount = 0;
-        int denyCount = policyResult.getPolicy().getAssociatedPolicies().size();
+        if (evaluation.getParentPolicy() != null) {
+            result.record(evaluation.getParentPolicy(), evaluation.getPolicy(), evaluation.getEffect(), evaluation.isSkipped(), evaluation.isTimedOut());
+        } else {
+            result.setStatus(evaluation.getEffect());
+        }
+    }
 
-        for (Result.PolicyResult decision : values) {
-            if (decision.getStatus().equals(Effect.PERMIT)) {
-                grantCount++;
-                denyCount--;
-            }
+    /**
+     * Resolves the final status of each {@link Result} and delivers them to {@link #onComplete(List)}.
+     *
+     * @param results all the collected results
+     */
+    void complete(Collection<Result> results) {
+        for (Result result : results) {
+            result.resolve(this::resolve);
         }
 
-        Policy policy = policyResult.getPolicy();
+        onComplete(new ArrayList<>(results));
+    }
+
+    private Effect resolve(Policy policy, int grantCount) {
+        return isGranted(policy, grantCount) ? Effect.PERMIT : Effect.DENY;
+    }
+
+    private boolean isGranted(Policy policy, int grantCount) {
+        int denyCount = policy.getAssociatedPolicies().size() - grantCount;
         Policy.DecisionStrategy decisionStrategy = policy.getDecisionStrategy();
 
         if (decisionStrategy == null) {
@@ -1,121 +1,600 @@
 package org.keycloak.authz.core.policy.evaluation;
 
 import org.keycloak.authz.core.Authorization;
+import org.keycloak.authz.core.Deadline;
 import org.keycloak.authz.core.Decision;
 import org.keycloak.authz.core.EvaluationContext;
+import org.keycloak.authz.core.EvaluationMetrics;
 import org.keycloak.authz.core.model.Policy;
 import org.keycloak.authz.core.model.Resource;
 import org.keycloak.authz.core.model.ResourceServer;
 import org.keycloak.authz.core.model.ResourceServer.PolicyEnforcementMode;
 import org.keycloak.authz.core.model.Scope;
 import org.keycloak.authz.core.permission.ResourcePermission;
+import org.keycloak.authz.core.policy.provider.AsyncPolicyProvider;
+import org.keycloak.authz.core.policy.provider.BatchPolicyProvider;
 import org.keycloak.authz.core.policy.provider.PolicyProvider;
-import org.keycloak.authz.core.policy.provider.PolicyProviderFactory;
-import org.keycloak.authz.core.store.PolicyStore;
+import org.keycloak.authz.core.policy.index.PolicyIndex;
+import org.keycloak.authz.core.policy.index.ScopeMask;
 
-import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.atomic.AtomicInteger;
-import java.util.function.Consumer;
-import java.util.stream.Collectors;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
 
 /**
  * @author <a href="mailto:psilva@redhat.com">Pedro Igor</a>
  */
 public class DefaultPolicyEvaluator implements PolicyEvaluator {
 
+    /**
+     * Receives the decisions of the evaluations of a batch, whose effects are only delivered once each permission is evaluated.
+     */
+    private static final Decision BATCH_DECISION = evaluation -> {};
+
     private final Authorization authorization;
-    private Map<String, PolicyProviderFactory> policyProviders = new HashMap<>();
+    private final boolean shortCircuit;
+    private final ThreadLocal<EvaluationScratch> scratch;
 
     public DefaultPolicyEvaluator(Authorization authorization) {
         this.authorization = authorization;
+        this.shortCircuit = authorization.isShortCircuit();
+        this.scratch = authorization.isReuseEvaluations() ? ThreadLocal.withInitial(EvaluationScratch::new) : null;
+    }
+
+    @Override
+    public void evaluate(ResourcePermission permission, EvaluationContext executionContext, Decision decision) {
+        PendingEvaluations pending = start(permission, executionContext, decision);
 
-        for (PolicyProviderFactory provider : this.authorization.getProviderFactories()) {
-            this.policyProviders.put(provider.getType(), provider);
+        if (pending != null) {
+            // blocks once per permission, after all its asynchronous policies were started, and no longer than the deadline
+            executionContext.getDeadline().bound(pending.whenCompleted()).join();
+            complete(pending, executionContext);
         }
     }
 
     @Override
-    public void evaluate(ResourcePermission permission, EvaluationContext executionContext, Decision decision) {
-        ResourceServer resourceServer = permission.getResourceServer();
+    public CompletionStage<Void> evaluateAsync(ResourcePermission permission, EvaluationContext executionContext, Decision decision) {
+        PendingEvaluations pending;
 
-        if (PolicyEnforcementMode.DISABLED.equals(resourceServer.getPolicyEnforcementMode())) {
-            createEvaluation(permission, executionContext, decision, null, null).grant();
+        try {
+            pending = start(permission, executionContext, decision);
+        } catch (RuntimeException cause) {
+            CompletableFuture<Void> failed = new CompletableFuture<>();
+            failed.completeExceptionally(cause);
+            return failed;
+        }
+
+        if (pending == null) {
+            return CompletableFuture.completedFuture(null);
+        }
+
+        return executionContext.getDeadline().bound(pending.whenCompleted()).thenRun(() -> complete(pending, executionContext));
+    }
+
+    /**
+     * Evaluates each {@link BatchPolicyProvider batch policy} that applies to the given <code>permissions</code> once, for all of them, and
+     * records the effects in the {@link EvaluationScope} of the evaluation, from where they are replayed as each permission is evaluated.
+     * Policies whose effect is shared by all permissions are not batched, neither are policies that apply to a single permission.
+     */
+    @Override
+    public void prefetch(List<ResourcePermission> permissions, EvaluationContext executionContext) {
+        EvaluationScope scope = getScope(executionContext);
+
+        if (scope == null || permissions.size() < 2) {
             return;
         }
 
-        PolicyStore policyStore = this.authorization.getStoreFactory().getPolicyStore();
-        AtomicInteger policiesCount = new AtomicInteger(0);
-        Consumer<Policy> consumer = createDecisionConsumer(permission, executionContext, decision, policiesCount);
-        Resource resource = permission.getResource();
+        Map<String, Batch> batches = new LinkedHashMap<>();
+
+        for (int i = 0; i < permissions.size(); i++) {
+            ResourcePermission permission = permissions.get(i);
+            ResourceServer resourceServer = permission.getResourceServer();
+
+            if (PolicyEnforcementMode.DISABLED.equals(resourceServer.getPolicyEnforcementMode())) {
+                continue;
+            }
+
+            PolicyIndex policyIndex = this.authorization.getPolicyIndex(resourceServer);
+            Resource resource = permission.getResource();
+
+            if (resource != null) {
+                addToBatches(policyIndex.findByResource(resource.getId()), permission, scope, policyIndex, batches);
+
+                if (resource.getType() != null) {
+                    addToBatches(policyIndex.findByResourceType(resource.getType()), permission, scope, policyIndex, batches);
+                }
+
+                List<Scope> resourceScopes = resource.getScopes();
+
+                if (permission.getScopes().isEmpty() && !resourceScopes.isEmpty()) {
+                    addToBatches(policyIndex.findByScopeName(toNames(resourceScopes)), permission, scope, policyIndex, batches);
+                }
+            }
+
+            if (!permission.getScopes().isEmpty()) {
+                addToBatches(policyIndex.findByScopeName(permission.getScopeNames()), permission, scope, policyIndex, batches);
+            }
+        }
+
+        Deadline deadline = scope.getDeadline();
 
-        if (resource != null) {
-            List<? extends Policy> resourcePolicies = policyStore.findByResource(resource.getId());
+        for (Batch batch : batches.values()) {
+            if (deadline.isExpired()) {
+                // the remaining policies time out as each permission is evaluated
+                return;
+            }
 
-            if (!resourcePolicies.isEmpty()) {
-                resourcePolicies.forEach(consumer);
+            if (batch.evaluations.size() > 1) {
+                evaluate(batch, scope);
             }
+        }
+    }
 
-            if (resource.getType() != null) {
-                policyStore.findByResourceType(resource.getType(), resourceServer.getId()).forEach(consumer);
+    /**
+     * Adds an {@link Evaluation} of the given <code>permission</code> to the batch of each batch policy associated with the given
+     * <code>parentPolicies</code>.
+     */
+    private void addToBatches(List<? extends Policy> parentPolicies, ResourcePermission permission, EvaluationScope scope, PolicyIndex policyIndex, Map<String, Batch> batches) {
+        for (int i = 0; i < parentPolicies.size(); i++) {
+            Policy parentPolicy = parentPolicies.get(i);
+
+            if (!hasRequestedScopes(permission, parentPolicy, policyIndex)) {
+                continue;
             }
 
-            if (permission.getScopes().isEmpty() && !resource.getScopes().isEmpty()) {
-                policyStore.findByScopeName(resource.getScopes().stream().map(Scope::getName).collect(Collectors.toList()), resourceServer.getId()).forEach(consumer);
+            for (Policy associatedPolicy : parentPolicy.getAssociatedPolicies()) {
+                String policyId = associatedPolicy.getId();
+
+                // evaluated once and reused for all the permissions instead
+                if (policyId == null || scope.isShared(associatedPolicy, this.authorization)) {
+                    continue;
+                }
+
+                Batch batch = batches.get(policyId);
+
+                if (batch == null) {
+                    PolicyProvider policyProvider = this.authorization.getPolicyProvider(associatedPolicy);
+
+                    batch = new Batch(associatedPolicy, policyProvider instanceof BatchPolicyProvider ? (BatchPolicyProvider) policyProvider : null);
+                    batches.put(policyId, batch);
+                }
+
+                batch.add(permission, scope, parentPolicy);
             }
         }
+    }
+
+    /**
+     * Evaluates the given <code>batch</code> with a single call to its provider, which is recorded by the metrics as a single evaluation
+     * of the policy.
+     */
+    private void evaluate(Batch batch, EvaluationScope scope) {
+        long start = System.nanoTime();
+        boolean failed = true;
+
+        try {
+            batch.policyProvider.evaluate(batch.evaluations);
+            failed = false;
+        } finally {
+            this.authorization.getMetrics().onPolicyEvaluated(batch.policy, System.nanoTime() - start, failed);
+        }
+
+        Map<ResourcePermission, Decision.Effect> effects = new IdentityHashMap<>(batch.evaluations.size());
 
-        if (!permission.getScopes().isEmpty()) {
-            policyStore.findByScopeName(permission.getScopes().stream().map(Scope::getName).collect(Collectors.toList()), resourceServer.getId()).forEach(consumer);
+        for (Evaluation evaluation : batch.evaluations) {
+            evaluation.denyIfNoEffect();
+            effects.put(evaluation.getPermission(), evaluation.getEffect());
         }
 
-        if (PolicyEnforcementMode.PERMISSIVE.equals(resourceServer.getPolicyEnforcementMode()) && policiesCount.get() == 0) {
+        scope.setBatchEffects(batch.policy, effects);
+    }
+
+    /**
+     * Evaluates the policies that apply to the given <code>permission</code> until the first asynchronous policy is found.
+     *
+     * @return the evaluations deferred from the first asynchronous policy on or {@code null} if all the decisions were already delivered
+     */
+    private PendingEvaluations start(ResourcePermission permission, EvaluationContext executionContext, Decision decision) {
+        ResourceServer resourceServer = permission.getResourceServer();
+
+        if (PolicyEnforcementMode.DISABLED.equals(resourceServer.getPolicyEnforcementMode())) {
             createEvaluation(permission, executionContext, decision, null, null).grant();
+            return null;
+        }
+
+        PolicyIndex policyIndex = this.authorization.getPolicyIndex(resourceServer);
+        EvaluationScratch scratch = acquireScratch();
+        PendingEvaluations pending = scratch != null ? scratch.getPendingEvaluations() : new PendingEvaluations();
+
+        try {
+            int policiesCount = 0;
+            Resource resource = permission.getResource();
+
+            if (resource != null) {
+                policiesCount += evaluate(policyIndex.findByResource(resource.getId()), permission, executionContext, decision, scratch, policyIndex, pending);
+
+                if (resource.getType() != null) {
+                    policiesCount += evaluate(policyIndex.findByResourceType(resource.getType()), permission, executionContext, decision, scratch, policyIndex, pending);
+                }
+
+                List<Scope> resourceScopes = resource.getScopes();
+
+                if (permission.getScopes().isEmpty() && !resourceScopes.isEmpty()) {
+                    List<String> scopeNames = scratch != null ? scratch.toNames(resourceScopes) : toNames(resourceScopes);
+
+                    policiesCount += evaluate(policyIndex.findByScopeName(scopeNames), permission, executionContext, decision, scratch, policyIndex, pending);
+                }
+            }
+
+            if (!permission.getScopes().isEmpty()) {
+                policiesCount += evaluate(policyIndex.findByScopeName(permission.getScopeNames()), permission, executionContext, decision, scratch, policyIndex, pending);
+            }
+
+            if (pending.isDeferred()) {
+                return scratch != null ? pending.detach() : pending;
+            }
+
+            if (PolicyEnforcementMode.PERMISSIVE.equals(resourceServer.getPolicyEnforcementMode()) && policiesCount == 0) {
+                createEvaluation(scratch, permission, executionContext, decision, null, null).grant();
+            }
+
+            return null;
+        } finally {
+            if (scratch != null) {
+                scratch.release();
+            }
         }
     }
 
-    private  Consumer<Policy> createDecisionConsumer(ResourcePermission permission, EvaluationContext executionContext, Decision decision, AtomicInteger policiesCount) {
-        return (parentPolicy) -> {
-            if (hasRequestedScopes(permission, parentPolicy)) {
-                for (Policy associatedPolicy : parentPolicy.getAssociatedPolicies()) {
-                    PolicyProvider policyProvider = policyProviders.get(associatedPolicy.getType()).create(associatedPolicy);
+    /**
+     * Evaluates the associated policies of each of the given <code>parentPolicies</code> that apply to the requested scopes. Once an
+     * asynchronous policy is found, this and all the following evaluations are deferred to the given <code>pending</code> evaluations.
+     *
+     * @return the number of associated policies that were actually evaluated
+     */
+    private int evaluate(List<? extends Policy> parentPolicies, ResourcePermission permission, EvaluationContext executionContext, Decision decision, EvaluationScratch scratch, PolicyIndex policyIndex, PendingEvaluations pending) {
+        EvaluationScope scope = getScope(executionContext);
+        Deadline deadline = executionContext.getDeadline();
+        int policiesCount = 0;
+
+        for (int i = 0; i < parentPolicies.size(); i++) {
+            Policy parentPolicy = parentPolicies.get(i);
+
+            if (hasRequestedScopes(permission, parentPolicy, policyIndex)) {
+                Set<Policy> associatedPolicies = parentPolicy.getAssociatedPolicies();
+                int grantCount = 0;
+                int denyCount = 0;
+                boolean settled = false;
+                boolean groupStart = true;
+
+                for (Policy associatedPolicy : associatedPolicies) {
+                    if (pending.isDeferred()) {
+                        defer(pending, createEvaluation(permission, executionContext, decision, parentPolicy, associatedPolicy), associatedPolicies.size(), groupStart, grantCount, denyCount, null, scope);
+                        groupStart = false;
+                        continue;
+                    }
+
+                    Evaluation evaluation = createEvaluation(scratch, permission, executionContext, decision, parentPolicy, associatedPolicy);
 
-                    if (policyProvider == null) {
-                        throw new RuntimeException("Unknown parentPolicy provider for type [" + associatedPolicy.getType() + "].");
+                    if (settled) {
+                        evaluation.skip();
+                        continue;
                     }
 
-                    Evaluation evaluation = createEvaluation(permission, executionContext, decision, parentPolicy, associatedPolicy);
+                    policiesCount++;
+
+                    if (!replay(evaluation, associatedPolicy, scope) && !timeoutIfExpired(evaluation, deadline)) {
+                        PolicyProvider policyProvider = this.authorization.getPolicyProvider(associatedPolicy);
+
+                        if (policyProvider instanceof AsyncPolicyProvider) {
+                            // the evaluation must outlive the scratch, decisions are delivered once the asynchronous policies complete
+                            defer(pending, createEvaluation(permission, executionContext, decision, parentPolicy, associatedPolicy), associatedPolicies.size(), true, grantCount, denyCount, policyProvider, scope);
+                            groupStart = false;
+                            continue;
+                        }
+
+                        evaluate(evaluation, policyProvider, scope);
+                    }
+
+                    if (this.shortCircuit) {
+                        if (Decision.Effect.PERMIT.equals(evaluation.getEffect())) {
+                            grantCount++;
+                        } else {
+                            denyCount++;
+                        }
+
+                        settled = isSettled(parentPolicy.getDecisionStrategy(), associatedPolicies.size(), grantCount, denyCount);
+                    }
+                }
+            }
+        }
+
+        return policiesCount;
+    }
+
+    /**
+     * Defers the given <code>evaluation</code>, starting it right away if its policy is asynchronous and the deadline has not passed yet.
+     */
+    private void defer(PendingEvaluations pending, Evaluation evaluation, int groupSize, boolean groupStart, int grantCount, int denyCount, PolicyProvider policyProvider, EvaluationScope scope) {
+        Policy policy = evaluation.getPolicy();
+
+        if (policyProvider == null && (scope == null || scope.getEffect(policy) == null)) {
+            policyProvider = this.authorization.getPolicyProvider(policy);
+        }
+
+        if (policyProvider instanceof AsyncPolicyProvider && !evaluation.getContext().getDeadline().isExpired()) {
+            pending.add(new PendingEvaluations.Entry(evaluation, groupSize, groupStart, grantCount, denyCount, null, evaluateAsync((AsyncPolicyProvider) policyProvider, evaluation)));
+        } else {
+            pending.add(new PendingEvaluations.Entry(evaluation, groupSize, groupStart, grantCount, denyCount, policyProvider, null));
+        }
+    }
+
+    /**
+     * Delivers the decisions of the given <code>pending</code> evaluations, in order, once all their asynchronous policies completed or the
+     * deadline passed. Asynchronous policies that did not complete by then are cancelled and denied.
+     */
+    private void complete(PendingEvaluations pending, EvaluationContext executionContext) {
+        EvaluationScope scope = getScope(executionContext);
+        Deadline deadline = executionContext.getDeadline();
+        int grantCount = 0;
+        int denyCount = 0;
+        boolean settled = false;
+
+        for (PendingEvaluations.Entry entry : pending.getEntries()) {
+            Evaluation evaluation = entry.evaluation;
+
+            if (entry.groupStart) {
+                grantCount = entry.grantCount;
+                denyCount = entry.denyCount;
+                settled = false;
+            }
+
+            if (settled) {
+                evaluation.skip();
+                continue;
+            }
 
-                    policyProvider.evaluate(evaluation);
-                    evaluation.denyIfNoEffect();
+            if (entry.effect != null) {
+                if (entry.effect.isDone()) {
+                    complete(evaluation, join(entry.effect, entry.getPolicy()), scope);
+                } else {
+                    entry.effect.cancel(true);
+                    timeout(evaluation);
+                }
+            } else if (!replay(evaluation, entry.getPolicy(), scope) && !timeoutIfExpired(evaluation, deadline)) {
+                evaluate(evaluation, entry.policyProvider != null ? entry.policyProvider : this.authorization.getPolicyProvider(entry.getPolicy()), scope);
+            }
 
-                    policiesCount.incrementAndGet();
+            if (this.shortCircuit) {
+                if (Decision.Effect.PERMIT.equals(evaluation.getEffect())) {
+                    grantCount++;
+                } else {
+                    denyCount++;
                 }
+
+                settled = isSettled(entry.getParentPolicy().getDecisionStrategy(), entry.groupSize, grantCount, denyCount);
+            }
+        }
+    }
+
+    /**
+     * Replays the effect of the given <code>policy</code> if it was already recorded by the {@link EvaluationScope} of the current evaluation,
+     * either because the effect is shared by all permissions or because the policy was evaluated as part of a batch.
+     *
+     * @return {@code true} if the effect was replayed. Otherwise, {@code false}.
+     */
+    private boolean replay(Evaluation evaluation, Policy policy, EvaluationScope scope) {
+        if (scope == null) {
+            return false;
+        }
+
+        Decision.Effect effect = scope.getEffect(policy);
+
+        if (effect == null) {
+            effect = scope.getBatchEffect(policy, evaluation.getPermission());
+
+            if (effect == null) {
+                return false;
+            }
+
+            // the evaluation was accounted by the metrics when the batch was evaluated
+            evaluation.replay(effect);
+
+            return true;
+        }
+
+        evaluation.replay(effect);
+        this.authorization.getMetrics().onEvaluationReused(policy);
+
+        return true;
+    }
+
+    private void evaluate(Evaluation evaluation, PolicyProvider policyProvider, EvaluationScope scope) {
+        this.authorization.getMetrics().evaluate(policyProvider, evaluation);
+        evaluation.denyIfNoEffect();
+
+        if (scope != null) {
+            scope.setEffect(evaluation.getPolicy(), evaluation.getEffect(), this.authorization);
+        }
+    }
+
+    /**
+     * Denies the given <code>evaluation</code> without evaluating its policy, because the deadline passed. The effect is not recorded by
+     * the {@link EvaluationScope}, so that it is not reused by other permissions.
+     */
+    private void timeout(Evaluation evaluation) {
+        evaluation.timeout();
+        this.authorization.getMetrics().onEvaluationTimedOut(evaluation.getPolicy());
+    }
+
+    /**
+     * Times out the given <code>evaluation</code> if the given <code>deadline</code> has passed.
+     *
+     * @return {@code true} if the evaluation timed out. Otherwise, {@code false}.
+     */
+    private boolean timeoutIfExpired(Evaluation evaluation, Deadline deadline) {
+        if (!deadline.isExpired()) {
+            return false;
+        }
+
+        timeout(evaluation);
+
+        return true;
+    }
+
+    /**
+     * Starts the evaluation of an asynchronous policy. The returned future completes after the evaluation was recorded by the metrics.
+     * Cancelling the returned future cancels the future returned by the provider.
+     */
+    private CompletableFuture<Decision.Effect> evaluateAsync(AsyncPolicyProvider policyProvider, Evaluation evaluation) {
+        EvaluationMetrics metrics = this.authorization.getMetrics();
+        Policy policy = evaluation.getPolicy();
+        long start = System.nanoTime();
+        CompletableFuture<Decision.Effect> effect;
+
+        try {
+            effect = policyProvider.evaluateAsync(evaluation).toCompletableFuture();
+        } catch (RuntimeException cause) {
+            effect = new CompletableFuture<>();
+            effect.completeExceptionally(cause);
+        }
+
+        CompletableFuture<Decision.Effect> source = effect;
+        // cancelled evaluations are accounted as timed out, not as failures
+        CompletableFuture<Decision.Effect> recorded = effect.whenComplete((result, cause) -> metrics.onPolicyEvaluated(policy, System.nanoTime() - start, cause != null && !source.isCancelled()));
+
+        recorded.whenComplete((result, cause) -> {
+            if (recorded.isCancelled()) {
+                source.cancel(true);
+            }
+        });
+
+        return recorded;
+    }
+
+    /**
+     * Delivers the effect of an asynchronous policy, applying the logic of the policy.
+     */
+    private void complete(Evaluation evaluation, Decision.Effect effect, EvaluationScope scope) {
+        if (Decision.Effect.PERMIT.equals(effect)) {
+            evaluation.grant();
+        } else {
+            evaluation.deny();
+        }
+
+        if (scope != null) {
+            scope.setEffect(evaluation.getPolicy(), evaluation.getEffect(), this.authorization);
+        }
+    }
+
+    private Decision.Effect join(CompletableFuture<Decision.Effect> effect, Policy policy) {
+        try {
+            return effect.join();
+        } catch (CompletionException cause) {
+            if (cause.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) cause.getCause();
             }
-        };
+
+            throw new RuntimeException("Failed to evaluate policy [" + policy.getName() + "].", cause.getCause());
+        }
+    }
+
+    private EvaluationScope getScope(EvaluationContext executionContext) {
+        return executionContext instanceof EvaluationScope ? (EvaluationScope) executionContext : null;
+    }
+
+    /**
+     * Checks if the outcome of a policy with the given <code>decisionStrategy</code> can no longer change, regardless of the decisions
+     * of the associated policies that were not yet evaluated. It must be kept consistent with {@link DecisionResultCollector}.
+     */
+    private boolean isSettled(Policy.DecisionStrategy decisionStrategy, int total, int grantCount, int denyCount) {
+        if (decisionStrategy == null || Policy.DecisionStrategy.UNANIMOUS.equals(decisionStrategy)) {
+            return denyCount > 0;
+        } else if (Policy.DecisionStrategy.AFFIRMATIVE.equals(decisionStrategy)) {
+            return grantCount > 0;
+        } else if (Policy.DecisionStrategy.CONSENSUS.equals(decisionStrategy)) {
+            return grantCount * 2 > total || denyCount * 2 >= total;
+        }
+
+        return false;
     }
 
     private Evaluation createEvaluation(ResourcePermission permission, EvaluationContext executionContext, Decision decision, Policy parentPolicy, Policy associatedPolicy) {
         return new Evaluation(permission, executionContext, parentPolicy, associatedPolicy, decision);
     }
 
-    private boolean hasRequestedScopes(final ResourcePermission permission, final Policy policy) {
+    private Evaluation createEvaluation(EvaluationScratch scratch, ResourcePermission permission, EvaluationContext executionContext, Decision decision, Policy parentPolicy, Policy associatedPolicy) {
+        if (scratch == null) {
+            return createEvaluation(permission, executionContext, decision, parentPolicy, associatedPolicy);
+        }
+
+        Evaluation evaluation = scratch.getEvaluation();
+
+        evaluation.reset(permission, executionContext, parentPolicy, associatedPolicy, decision);
+
+        return evaluation;
+    }
+
+    private List<String> toNames(List<Scope> scopes) {
+        List<String> names = new ArrayList<>(scopes.size());
+
+        for (int i = 0; i < scopes.size(); i++) {
+            names.add(scopes.get(i).getName());
+        }
+
+        return names;
+    }
+
+    private EvaluationScratch acquireScratch() {
+        if (this.scratch == null) {
+            return null;
+        }
+
+        EvaluationScratch scratch = this.scratch.get();
+
+        if (!scratch.acquire()) {
+            scratch = new EvaluationScratch();
+            scratch.acquire();
+        }
+
+        return scratch;
+    }
+
+    /**
+     * Checks if all the scopes of the given <code>policy</code> were requested by the given <code>permission</code>, using the masks computed
+     * from the {@link org.keycloak.authz.core.policy.index.ScopeDictionary} of the index.
+     */
+    private boolean hasRequestedScopes(final ResourcePermission permission, final Policy policy, final PolicyIndex policyIndex) {
         if (permission.getScopes().isEmpty()) {
             return true;
         }
 
-        if (policy.getScopes().isEmpty()) {
+        ScopeMask policyScopes = policyIndex.getScopeMask(policy);
+
+        if (policyScopes == null) {
+            // the policy does not belong to the index and references scopes unknown to its dictionary
+            return hasRequestedScopes(permission.getScopes(), policy.getScopes());
+        }
+
+        if (policyScopes.isEmpty()) {
             return true;
         }
 
-        boolean hasScope = true;
+        return permission.getScopeMask(policyIndex.getScopeDictionary()).containsAll(policyScopes);
+    }
 
-        for (Scope givenScope : policy.getScopes()) {
+    private boolean hasRequestedScopes(final List<Scope> permissionScopes, final Set<Scope> policyScopes) {
+        for (Scope givenScope : policyScopes) {
             boolean hasGivenScope = false;
 
-            for (Scope scope : permission.getScopes()) {
-                if (givenScope.getId().equals(scope.getId())) {
+            for (int i = 0; i < permissionScopes.size(); i++) {
+                if (givenScope.getId().equals(permissionScopes.get(i).getId())) {
                     hasGivenScope = true;
                     break;
                 }
@@ -126,6 +605,28 @@ public class DefaultPolicyEvaluator implements PolicyEvaluator {
             }
         }
 
-        return hasScope;
+        return true;
+    }
+
+    /**
+     * The evaluations of a batch policy, one per permission.
+     */
+    private static class Batch {
+
+        private final Policy policy;
+        private final BatchPolicyProvider policyProvider;
+        private final List<Evaluation> evaluations = new ArrayList<>();
+        private final Map<ResourcePermission, Boolean> permissions = new IdentityHashMap<>();
+
+        Batch(Policy policy, BatchPolicyProvider policyProvider) {
+            this.policy = policy;
+            this.policyProvider = policyProvider;
+        }
+
+        void add(ResourcePermission permission, EvaluationScope scope, Policy parentPolicy) {
+            if (this.policyProvider != null && this.permissions.put(permission, Boolean.TRUE) == null) {
+                this.evaluations.add(new Evaluation(permission, scope, parentPolicy, this.policy, BATCH_DECISION));
+            }
+        }
     }
 }
@@ -17,19 +17,17 @@ import org.keycloak.authz.core.policy.provider.PolicyProvider;
  */
 public class Evaluation {
 
-    private final ResourcePermission permission;
-    private final EvaluationContext executionContext;
-    private final Decision decision;
-    private final Policy policy;
-    private final Policy parentPolicy;
+    private ResourcePermission permission;
+    private EvaluationContext executionContext;
+    private Decision decision;
+    private Policy policy;
+    private Policy parentPolicy;
     private Decision.Effect effect;
+    private boolean skipped;
+    private boolean timedOut;
 
     public Evaluation(ResourcePermission permission, EvaluationContext executionContext, Policy parentPolicy, Policy policy, Decision decision) {
-        this.permission = permission;
-        this.executionContext = executionContext;
-        this.parentPolicy = parentPolicy;
-        this.policy = policy;
-        this.decision = decision;
+        reset(permission, executionContext, parentPolicy, policy, decision);
     }
 
     /**
@@ -73,6 +71,25 @@ public class Evaluation {
         this.decision.onDecision(this);
     }
 
+    /**
+     * Indicates if the evaluation of the policy was skipped, in which case there is no effect.
+     *
+     * @return {@code true} if the policy was not evaluated. Otherwise, {@code false}.
+     */
+    public boolean isSkipped() {
+        return this.skipped;
+    }
+
+    /**
+     * Indicates if the policy was denied because the {@link org.keycloak.authz.core.Deadline} of the evaluation passed before it was evaluated
+     * or before it completed.
+     *
+     * @return {@code true} if the policy timed out. Otherwise, {@code false}.
+     */
+    public boolean isTimedOut() {
+        return this.timedOut;
+    }
+
     public Policy getPolicy() {
         return this.policy;
     }
@@ -85,6 +102,36 @@ public class Evaluation {
         return effect;
     }
 
+    void replay(Decision.Effect effect) {
+        this.effect = effect;
+        this.decision.onDecision(this);
+    }
+
+    void timeout() {
+        this.timedOut = true;
+        this.effect = Decision.Effect.DENY;
+        this.decision.onDecision(this);
+    }
+
+    void skip() {
+        this.skipped = true;
+        this.decision.onSkip(this);
+    }
+
+    /**
+     * Reinitializes this instance so that it can be reused to evaluate another policy, as if it was just created.
+     */
+    void reset(ResourcePermission permission, EvaluationContext executionContext, Policy parentPolicy, Policy policy, Decision decision) {
+        this.permission = permission;
+        this.executionContext = executionContext;
+        this.parentPolicy = parentPolicy;
+        this.policy = policy;
+        this.decision = decision;
+        this.effect = null;
+        this.skipped = false;
+        this.timedOut = false;
+    }
+
     void denyIfNoEffect() {
         if (this.effect == null) {
             deny();
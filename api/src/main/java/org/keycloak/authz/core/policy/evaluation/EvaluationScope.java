@@ -0,0 +1,196 @@
+package org.keycloak.authz.core.policy.evaluation;
+
+import org.keycloak.authz.core.Authorization;
+import org.keycloak.authz.core.Deadline;
+import org.keycloak.authz.core.Decision;
+import org.keycloak.authz.core.EvaluationContext;
+import org.keycloak.authz.core.attribute.Attributes;
+import org.keycloak.authz.core.identity.Identity;
+import org.keycloak.authz.core.model.Policy;
+import org.keycloak.authz.core.permission.ResourcePermission;
+import org.keycloak.authz.core.policy.provider.PolicyProviderFactory;
+import org.keycloak.authz.core.policy.provider.PolicyProviderFactory.Dependency;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * <p>An {@link EvaluationContext} that lasts for a single {@link org.keycloak.authz.core.permission.evaluator.PermissionEvaluator#evaluate(Decision)}
+ * and keeps the effect of the policies that do not depend on the permission being evaluated, as declared by
+ * {@link PolicyProviderFactory#getDependencies(Policy)}. Such policies are evaluated once and their effect is reused for all the other permissions.
+ *
+ * <p>It also keeps the effects of {@link org.keycloak.authz.core.policy.provider.BatchPolicyProvider batch policies}, evaluated for many
+ * permissions at once by {@link PolicyEvaluator#prefetch(java.util.List, EvaluationContext)}, until each of these permissions is evaluated.
+ *
+ * <p>Instances are thread-safe, so that permissions can be evaluated concurrently.
+ *
+ * @author <a href="mailto:psilva@redhat.com">Pedro Igor</a>
+ */
+public final class EvaluationScope implements EvaluationContext {
+
+    /**
+     * Marks a policy whose effect depends on the permission being evaluated.
+     */
+    private static final Object NOT_SHARED = new Object();
+
+    private final EvaluationContext context;
+    private final Deadline deadline;
+    private final ConcurrentMap<String, Object> effects = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Map<ResourcePermission, Decision.Effect>> batchEffects = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Boolean> shared = new ConcurrentHashMap<>();
+
+    private EvaluationScope(EvaluationContext context, Deadline deadline) {
+        this.context = context;
+        this.deadline = deadline;
+    }
+
+    /**
+     * Creates a new scope for the given <code>context</code>. If the given context is itself a scope, the new scope does not share any effect with it.
+     *
+     * @param context the evaluation context
+     * @return a new scope
+     */
+    public static EvaluationScope create(EvaluationContext context) {
+        return create(context, Deadline.NONE);
+    }
+
+    /**
+     * Creates a new scope for the given <code>context</code> that expires at the given <code>deadline</code> or at the deadline of the context,
+     * whichever comes first.
+     *
+     * @param context the evaluation context
+     * @param deadline the deadline of the evaluation
+     * @return a new scope
+     */
+    public static EvaluationScope create(EvaluationContext context, Deadline deadline) {
+        Deadline effective = deadline.min(context.getDeadline());
+
+        if (context instanceof EvaluationScope) {
+            return new EvaluationScope(((EvaluationScope) context).context, effective);
+        }
+
+        return new EvaluationScope(context, effective);
+    }
+
+    @Override
+    public Identity getIdentity() {
+        return this.context.getIdentity();
+    }
+
+    @Override
+    public Attributes getAttributes() {
+        return this.context.getAttributes();
+    }
+
+    @Override
+    public Deadline getDeadline() {
+        return this.deadline;
+    }
+
+    /**
+     * Returns the effect of the given <code>policy</code>, as recorded by {@link #setEffect(Policy, Decision.Effect, Authorization)}.
+     *
+     * @param policy the policy
+     * @return the effect of the policy or {@code null} if the policy was not evaluated yet or if its effect can not be reused
+     */
+    Decision.Effect getEffect(Policy policy) {
+        String policyId = policy.getId();
+
+        if (policyId == null) {
+            return null;
+        }
+
+        Object effect = this.effects.get(policyId);
+
+        return effect == NOT_SHARED ? null : (Decision.Effect) effect;
+    }
+
+    /**
+     * Records the <code>effect</code> of the given <code>policy</code>, if the policy does not depend on the permission being evaluated.
+     *
+     * @param policy the policy
+     * @param effect the effect of the policy
+     * @param authorization the authorization instance from where the {@link PolicyProviderFactory} of the policy is obtained
+     */
+    void setEffect(Policy policy, Decision.Effect effect, Authorization authorization) {
+        String policyId = policy.getId();
+
+        if (policyId == null || effect == null || this.effects.containsKey(policyId)) {
+            return;
+        }
+
+        this.effects.putIfAbsent(policyId, isShared(policy, authorization) ? effect : NOT_SHARED);
+    }
+
+    /**
+     * Returns the effect of the given <code>policy</code> for the given <code>permission</code>, as recorded by
+     * {@link #setBatchEffects(Policy, Map)}.
+     *
+     * @param policy the policy
+     * @param permission the permission
+     * @return the effect of the policy or {@code null} if the policy was not evaluated for the permission as part of a batch
+     */
+    Decision.Effect getBatchEffect(Policy policy, ResourcePermission permission) {
+        String policyId = policy.getId();
+
+        if (policyId == null || this.batchEffects.isEmpty()) {
+            return null;
+        }
+
+        Map<ResourcePermission, Decision.Effect> effects = this.batchEffects.get(policyId);
+
+        return effects != null ? effects.get(permission) : null;
+    }
+
+    /**
+     * Records the effects of the given <code>policy</code> for a batch of permissions, replacing the effects of any previous batch. The
+     * given map must not be changed afterwards.
+     *
+     * @param policy the policy
+     * @param effects the effect of the policy for each permission of the batch, keyed by identity
+     */
+    void setBatchEffects(Policy policy, Map<ResourcePermission, Decision.Effect> effects) {
+        if (policy.getId() != null) {
+            this.batchEffects.put(policy.getId(), effects);
+        }
+    }
+
+    /**
+     * Indicates if the effect of the given <code>policy</code> is shared by all the permissions evaluated within this scope, given that it
+     * depends neither on the resource nor on the scopes of the permission.
+     *
+     * @param policy the policy
+     * @param authorization the authorization instance from where the {@link PolicyProviderFactory} of the policy is obtained
+     * @return {@code true} if the effect of the policy is shared. Otherwise, {@code false}.
+     */
+    boolean isShared(Policy policy, Authorization authorization) {
+        String policyId = policy.getId();
+
+        if (policyId == null) {
+            return false;
+        }
+
+        Boolean shared = this.shared.get(policyId);
+
+        if (shared == null) {
+            shared = !dependsOnPermission(policy, authorization);
+            this.shared.putIfAbsent(policyId, shared);
+        }
+
+        return shared;
+    }
+
+    private boolean dependsOnPermission(Policy policy, Authorization authorization) {
+        PolicyProviderFactory factory = authorization.getProviderFactory(policy.getType());
+
+        if (factory == null) {
+            return true;
+        }
+
+        Set<Dependency> dependencies = factory.getDependencies(policy);
+
+        return dependencies.contains(Dependency.RESOURCE) || dependencies.contains(Dependency.SCOPES);
+    }
+}
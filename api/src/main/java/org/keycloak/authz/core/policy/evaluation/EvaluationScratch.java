@@ -0,0 +1,69 @@
+package org.keycloak.authz.core.policy.evaluation;
+
+import org.keycloak.authz.core.model.Scope;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * <p>Per-thread state reused by {@link DefaultPolicyEvaluator} across evaluations when {@link org.keycloak.authz.core.Authorization#isReuseEvaluations()}
+ * is enabled, so that evaluating a permission does not allocate a new {@link Evaluation} per policy or a new list of scope names.
+ *
+ * <p>An instance is only lent to one evaluation at a time. If a policy provider causes another permission to be evaluated by the same thread
+ * while the instance is in use, a new one is created for that nested evaluation.
+ *
+ * @author <a href="mailto:psilva@redhat.com">Pedro Igor</a>
+ */
+final class EvaluationScratch {
+
+    private final Evaluation evaluation = new Evaluation(null, null, null, null, null);
+    private final List<String> scopeNames = new ArrayList<>();
+    private final PendingEvaluations pendingEvaluations = new PendingEvaluations();
+    private boolean inUse;
+
+    /**
+     * Marks this instance as in use.
+     *
+     * @return {@code true} if this instance was not in use and can be used by the caller. Otherwise, {@code false}.
+     */
+    boolean acquire() {
+        if (this.inUse) {
+            return false;
+        }
+
+        this.inUse = true;
+
+        return true;
+    }
+
+    void release() {
+        this.evaluation.reset(null, null, null, null, null);
+        this.scopeNames.clear();
+        this.pendingEvaluations.clear();
+        this.inUse = false;
+    }
+
+    Evaluation getEvaluation() {
+        return this.evaluation;
+    }
+
+    PendingEvaluations getPendingEvaluations() {
+        return this.pendingEvaluations;
+    }
+
+    /**
+     * Fills and returns the reusable list of scope names with the names of the given <code>scopes</code>.
+     *
+     * @param scopes the scopes
+     * @return the names of the given scopes
+     */
+    List<String> toNames(List<Scope> scopes) {
+        this.scopeNames.clear();
+
+        for (int i = 0; i < scopes.size(); i++) {
+            this.scopeNames.add(scopes.get(i).getName());
+        }
+
+        return this.scopeNames;
+    }
+}
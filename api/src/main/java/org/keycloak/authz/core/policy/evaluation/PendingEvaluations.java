@@ -0,0 +1,124 @@
+package org.keycloak.authz.core.policy.evaluation;
+
+import org.keycloak.authz.core.Decision;
+import org.keycloak.authz.core.model.Policy;
+import org.keycloak.authz.core.policy.provider.PolicyProvider;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * <p>The evaluations of a single permission whose decisions are delivered only after all the asynchronous policies among them completed.
+ *
+ * <p>{@link DefaultPolicyEvaluator} starts deferring evaluations once it finds the first policy provided by an
+ * {@link org.keycloak.authz.core.policy.provider.AsyncPolicyProvider}. Asynchronous policies are started right away, so that they run concurrently,
+ * while synchronous policies are only evaluated when decisions are delivered, in the same order they would have been delivered if all the
+ * policies were synchronous.
+ *
+ * <p>Instances are not thread-safe.
+ *
+ * @author <a href="mailto:psilva@redhat.com">Pedro Igor</a>
+ */
+final class PendingEvaluations {
+
+    private List<Entry> entries;
+
+    /**
+     * Indicates if evaluations are being deferred.
+     *
+     * @return {@code true} if at least one evaluation was deferred. Otherwise, {@code false}.
+     */
+    boolean isDeferred() {
+        return this.entries != null;
+    }
+
+    void add(Entry entry) {
+        if (this.entries == null) {
+            this.entries = new ArrayList<>();
+        }
+
+        this.entries.add(entry);
+    }
+
+    List<Entry> getEntries() {
+        return this.entries;
+    }
+
+    /**
+     * Moves the deferred evaluations to a new instance, so that this one can be reused by another evaluation.
+     *
+     * @return a new instance with the evaluations deferred so far
+     */
+    PendingEvaluations detach() {
+        PendingEvaluations detached = new PendingEvaluations();
+
+        detached.entries = this.entries;
+        this.entries = null;
+
+        return detached;
+    }
+
+    void clear() {
+        this.entries = null;
+    }
+
+    /**
+     * Returns a future completed once all the asynchronous policies completed, successfully or not. Failures are only reported when the
+     * decision of the failed policy is delivered.
+     *
+     * @return a future completed once all the asynchronous policies completed
+     */
+    CompletableFuture<Void> whenCompleted() {
+        List<CompletableFuture<Decision.Effect>> effects = new ArrayList<>();
+
+        for (Entry entry : this.entries) {
+            if (entry.effect != null) {
+                effects.add(entry.effect);
+            }
+        }
+
+        return CompletableFuture.allOf(effects.toArray(new CompletableFuture<?>[effects.size()])).exceptionally(cause -> null);
+    }
+
+    /**
+     * A deferred evaluation.
+     */
+    static final class Entry {
+
+        final Evaluation evaluation;
+        final int groupSize;
+        final boolean groupStart;
+        final int grantCount;
+        final int denyCount;
+        final PolicyProvider policyProvider;
+        final CompletableFuture<Decision.Effect> effect;
+
+        /**
+         * @param evaluation the evaluation of the associated policy
+         * @param groupSize the number of associated policies of the parent policy
+         * @param groupStart if this is the first deferred evaluation of the associated policies of the parent policy
+         * @param grantCount the number of associated policies that granted access before this one, if this is the first deferred evaluation of the group
+         * @param denyCount the number of associated policies that denied access before this one, if this is the first deferred evaluation of the group
+         * @param policyProvider the synchronous provider to evaluate once decisions are delivered or {@code null}
+         * @param effect the effect of an asynchronous policy already started or {@code null}
+         */
+        Entry(Evaluation evaluation, int groupSize, boolean groupStart, int grantCount, int denyCount, PolicyProvider policyProvider, CompletableFuture<Decision.Effect> effect) {
+            this.evaluation = evaluation;
+            this.groupSize = groupSize;
+            this.groupStart = groupStart;
+            this.grantCount = grantCount;
+            this.denyCount = denyCount;
+            this.policyProvider = policyProvider;
+            this.effect = effect;
+        }
+
+        Policy getPolicy() {
+            return this.evaluation.getPolicy();
+        }
+
+        Policy getParentPolicy() {
+            return this.evaluation.getParentPolicy();
+        }
+    }
+}
@@ -4,6 +4,10 @@ import org.keycloak.authz.core.Decision;
 import org.keycloak.authz.core.EvaluationContext;
 import org.keycloak.authz.core.permission.ResourcePermission;
 
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+
 /**
  * <p>A {@link PolicyEvaluator} evaluates authorization policies based on a given {@link ResourcePermission}, sending
  * the results to a {@link Decision} point through the methods defined in that interface.
@@ -18,4 +22,40 @@ public interface PolicyEvaluator {
      * @param decision a {@link Decision} point to where notifications events will be delivered during the evaluation
      */
     void evaluate(ResourcePermission permission, EvaluationContext executionContext, Decision decision);
+
+    /**
+     * <p>Starts the evaluation of the configured authorization policies without waiting for asynchronous policies to complete.
+     *
+     * <p>Decisions may be delivered by a different thread, once the asynchronous policies completed, but they are never delivered concurrently
+     * for a single permission. By default, the permission is evaluated synchronously by {@link #evaluate(ResourcePermission, EvaluationContext, Decision)}.
+     *
+     * @param decision a {@link Decision} point to where notifications events will be delivered during the evaluation
+     * @return a stage completed once all the decisions were delivered
+     * @see org.keycloak.authz.core.policy.provider.AsyncPolicyProvider
+     */
+    default CompletionStage<Void> evaluateAsync(ResourcePermission permission, EvaluationContext executionContext, Decision decision) {
+        CompletableFuture<Void> future = new CompletableFuture<>();
+
+        try {
+            evaluate(permission, executionContext, decision);
+            future.complete(null);
+        } catch (RuntimeException cause) {
+            future.completeExceptionally(cause);
+        }
+
+        return future;
+    }
+
+    /**
+     * <p>Called by the {@link org.keycloak.authz.core.permission.evaluator.PermissionEvaluator} before evaluating the given <code>permissions</code>
+     * within the same <code>executionContext</code>, so that policies that can be evaluated for many permissions at once are entered only once.
+     *
+     * <p>By default, it does nothing.
+     *
+     * @param permissions the permissions about to be evaluated
+     * @param executionContext the evaluation context
+     * @see org.keycloak.authz.core.policy.provider.BatchPolicyProvider
+     */
+    default void prefetch(List<ResourcePermission> permissions, EvaluationContext executionContext) {
+    }
 }
@@ -0,0 +1,257 @@
+package org.keycloak.authz.core.policy.evaluation;
+
+import org.keycloak.authz.core.Decision;
+import org.keycloak.authz.core.model.Policy;
+
+import java.util.Arrays;
+
+/**
+ * <p>A compact representation of the tree of {@link Result.PolicyResult} of a single {@link Result}.
+ *
+ * <p>Each node of the tree is a slot in a set of parallel arrays, holding its policy, its parent slot, its status and skipped flag as bits
+ * and links to its first, last and next sibling slots. Nodes are resolved from their parent slot and policy id through an open-addressing hash
+ * index, so that recording a decision takes constant time regardless of the number of policies already recorded. Children are kept in insertion
+ * order.
+ *
+ * <p>Instances are not thread-safe.
+ *
+ * @author <a href="mailto:psilva@redhat.com">Pedro Igor</a>
+ */
+final class PolicyResultTable {
+
+    /**
+     * The parent slot of top-level nodes.
+     */
+    static final int ROOT = -1;
+
+    /**
+     * Marks the absence of a slot, e.g.: a node without children.
+     */
+    static final int NONE = -2;
+
+    private static final byte PERMIT = 1;
+    private static final byte DENY = 2;
+    private static final byte STATUS_MASK = PERMIT | DENY;
+    private static final byte SKIPPED = 4;
+    private static final byte TIMED_OUT = 8;
+
+    private Policy[] policies = new Policy[4];
+    private int[] parents = new int[4];
+    private int[] firstChildren = new int[4];
+    private int[] lastChildren = new int[4];
+    private int[] nextSiblings = new int[4];
+    private byte[] flags = new byte[4];
+    private int[] index = new int[8];
+    private int size;
+    private int modCount;
+    private int firstRoot = NONE;
+    private int lastRoot = NONE;
+
+    /**
+     * Returns the slot of the node for the given <code>policy</code> under the given <code>parent</code>, creating it if it does not exist.
+     *
+     * @param parent the slot of the parent node or {@link #ROOT}
+     * @param policy the policy
+     * @return the slot of the node
+     */
+    int slot(int parent, Policy policy) {
+        int mask = this.index.length - 1;
+        int i = hash(parent, policy) & mask;
+
+        for (int entry = this.index[i]; entry != 0; entry = this.index[i]) {
+            int slot = entry - 1;
+
+            if (this.parents[slot] == parent && isSamePolicy(this.policies[slot], policy)) {
+                return slot;
+            }
+
+            i = (i + 1) & mask;
+        }
+
+        int slot = add(parent, policy);
+
+        this.index[i] = slot + 1;
+
+        if (this.size * 2 > this.index.length) {
+            rehash();
+        }
+
+        return slot;
+    }
+
+    int size() {
+        return this.size;
+    }
+
+    /**
+     * Returns a number that changes whenever the structure of the tree changes, so that views of the tree know when they must be recreated.
+     *
+     * @return the modification count
+     */
+    int getModCount() {
+        return this.modCount;
+    }
+
+    /**
+     * Indicates if the node at the given <code>slot</code> was detached from the tree by {@link #clearChildren(int)}.
+     *
+     * @param slot the slot
+     * @return {@code true} if the node is no longer part of the tree
+     */
+    boolean isDetached(int slot) {
+        return this.parents[slot] == NONE;
+    }
+
+    Policy getPolicy(int slot) {
+        return this.policies[slot];
+    }
+
+    int getFirstChild(int slot) {
+        return slot == ROOT ? this.firstRoot : this.firstChildren[slot];
+    }
+
+    int getNextSibling(int slot) {
+        return this.nextSiblings[slot];
+    }
+
+    Decision.Effect getStatus(int slot) {
+        switch (this.flags[slot] & STATUS_MASK) {
+            case PERMIT:
+                return Decision.Effect.PERMIT;
+            case DENY:
+                return Decision.Effect.DENY;
+            default:
+                return null;
+        }
+    }
+
+    void setStatus(int slot, Decision.Effect status) {
+        byte bits = 0;
+
+        if (Decision.Effect.PERMIT.equals(status)) {
+            bits = PERMIT;
+        } else if (Decision.Effect.DENY.equals(status)) {
+            bits = DENY;
+        }
+
+        this.flags[slot] = (byte) ((this.flags[slot] & ~STATUS_MASK) | bits);
+    }
+
+    boolean isPermit(int slot) {
+        return (this.flags[slot] & STATUS_MASK) == PERMIT;
+    }
+
+    boolean isDeny(int slot) {
+        return (this.flags[slot] & STATUS_MASK) == DENY;
+    }
+
+    boolean isSkipped(int slot) {
+        return (this.flags[slot] & SKIPPED) != 0;
+    }
+
+    void setSkipped(int slot, boolean skipped) {
+        this.flags[slot] = (byte) (skipped ? this.flags[slot] | SKIPPED : this.flags[slot] & ~SKIPPED);
+    }
+
+    boolean isTimedOut(int slot) {
+        return (this.flags[slot] & TIMED_OUT) != 0;
+    }
+
+    void setTimedOut(int slot, boolean timedOut) {
+        this.flags[slot] = (byte) (timedOut ? this.flags[slot] | TIMED_OUT : this.flags[slot] & ~TIMED_OUT);
+    }
+
+    /**
+     * Detaches all the children of the node at the given <code>slot</code>. Detached nodes are no longer reachable, but their slots are not reused.
+     *
+     * @param slot the slot of the parent node
+     */
+    void clearChildren(int slot) {
+        for (int child = this.firstChildren[slot]; child != NONE; child = this.nextSiblings[child]) {
+            clearChildren(child);
+            // detached nodes must not be found again by slot(int, Policy)
+            this.parents[child] = NONE;
+        }
+
+        this.firstChildren[slot] = NONE;
+        this.lastChildren[slot] = NONE;
+        this.modCount++;
+    }
+
+    private int add(int parent, Policy policy) {
+        if (this.size == this.policies.length) {
+            int capacity = this.size * 2;
+
+            this.policies = Arrays.copyOf(this.policies, capacity);
+            this.parents = Arrays.copyOf(this.parents, capacity);
+            this.firstChildren = Arrays.copyOf(this.firstChildren, capacity);
+            this.lastChildren = Arrays.copyOf(this.lastChildren, capacity);
+            this.nextSiblings = Arrays.copyOf(this.nextSiblings, capacity);
+            this.flags = Arrays.copyOf(this.flags, capacity);
+        }
+
+        int slot = this.size++;
+
+        this.modCount++;
+
+        this.policies[slot] = policy;
+        this.parents[slot] = parent;
+        this.firstChildren[slot] = NONE;
+        this.lastChildren[slot] = NONE;
+        this.nextSiblings[slot] = NONE;
+
+        if (parent == ROOT) {
+            if (this.lastRoot == NONE) {
+                this.firstRoot = slot;
+            } else {
+                this.nextSiblings[this.lastRoot] = slot;
+            }
+
+            this.lastRoot = slot;
+        } else {
+            if (this.lastChildren[parent] == NONE) {
+                this.firstChildren[parent] = slot;
+            } else {
+                this.nextSiblings[this.lastChildren[parent]] = slot;
+            }
+
+            this.lastChildren[parent] = slot;
+        }
+
+        return slot;
+    }
+
+    private void rehash() {
+        int[] index = new int[this.index.length * 2];
+        int mask = index.length - 1;
+
+        for (int slot = 0; slot < this.size; slot++) {
+            int i = hash(this.parents[slot], this.policies[slot]) & mask;
+
+            while (index[i] != 0) {
+                i = (i + 1) & mask;
+            }
+
+            index[i] = slot + 1;
+        }
+
+        this.index = index;
+    }
+
+    private static int hash(int parent, Policy policy) {
+        String id = policy.getId();
+        int hash = 31 * parent + (id != null ? id.hashCode() : System.identityHashCode(policy));
+
+        return hash ^ (hash >>> 16);
+    }
+
+    private static boolean isSamePolicy(Policy policy, Policy other) {
+        if (policy == other) {
+            return true;
+        }
+
+        String id = policy.getId();
+
+        return id != null && id.equals(other.getId());
+    }
+}
@@ -5,16 +5,24 @@ import org.keycloak.authz.core.permission.ResourcePermission;
 import org.keycloak.authz.core.Decision;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
-import java.util.function.Predicate;
 
 /**
+ * <p>The result of the evaluation of a {@link ResourcePermission}.
+ *
+ * <p>Decisions are recorded into a compact {@link PolicyResultTable}, which does not depend on the number of policies already recorded to
+ * record a new one. The tree of {@link PolicyResult} returned by {@link #getResults()} is only created when requested and is backed by the
+ * same table, so changes made through it are visible to this result and vice-versa.
+ *
  * @author <a href="mailto:psilva@redhat.com">Pedro Igor</a>
  */
 public class Result {
 
     private final ResourcePermission permission;
-    private List<PolicyResult> results = new ArrayList<>();
+    private final PolicyResultTable table = new PolicyResultTable();
+    private List<PolicyResult> results;
+    private int resultsModCount = -1;
     private Decision.Effect status;
 
     public Result(ResourcePermission permission) {
@@ -26,21 +34,16 @@ public class Result {
     }
 
     public List<PolicyResult> getResults() {
-        return results;
-    }
-
-    public PolicyResult policy(Policy policy) {
-        for (PolicyResult result : this.results) {
-            if (result.getPolicy().equals(policy)) {
-                return result;
-            }
+        if (this.resultsModCount != this.table.getModCount()) {
+            this.results = PolicyResult.children(this.table, PolicyResultTable.ROOT);
+            this.resultsModCount = this.table.getModCount();
         }
 
-        PolicyResult policyResult = new PolicyResult(policy);
-
-        this.results.add(policyResult);
+        return this.results;
+    }
 
-        return policyResult;
+    public PolicyResult policy(Policy policy) {
+        return new PolicyResult(this.table, this.table.slot(PolicyResultTable.ROOT, policy));
     }
 
     public void setStatus(final Decision.Effect status) {
@@ -51,74 +54,188 @@ public class Result {
         return status;
     }
 
+    /**
+     * Indicates if any of the policies of this result was denied because the evaluation timed out.
+     *
+     * @return {@code true} if any policy timed out. Otherwise, {@code false}.
+     */
+    public boolean isTimedOut() {
+        PolicyResultTable table = this.table;
+
+        for (int slot = 0; slot < table.size(); slot++) {
+            if (table.isTimedOut(slot) && !table.isDetached(slot)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
     public boolean anyDenial() {
-        return anyDenial(this.results);
+        PolicyResultTable table = this.table;
+
+        for (int slot = 0; slot < table.size(); slot++) {
+            if (table.isDeny(slot) && !table.isDetached(slot) && !table.getPolicy(slot).getAssociatedPolicies().isEmpty()) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Records the outcome of an associated <code>policy</code> of the given <code>parentPolicy</code>, without creating any {@link PolicyResult}.
+     */
+    void record(Policy parentPolicy, Policy policy, Decision.Effect effect, boolean skipped, boolean timedOut) {
+        PolicyResultTable table = this.table;
+        int slot = table.slot(table.slot(PolicyResultTable.ROOT, parentPolicy), policy);
+
+        if (skipped) {
+            table.setSkipped(slot, true);
+        } else {
+            table.setStatus(slot, effect);
+
+            if (timedOut) {
+                table.setTimedOut(slot, true);
+            }
+        }
     }
 
-    private boolean anyDenial(List<PolicyResult> result) {
-        return result.stream().anyMatch(new Predicate<PolicyResult>() {
-            @Override
-            public boolean test(PolicyResult policyResult) {
-                if (Decision.Effect.DENY.equals(policyResult.getStatus()) && !policyResult.getPolicy().getAssociatedPolicies().isEmpty()) {
-                    return true;
+    /**
+     * Resolves the status of each top-level policy using the given <code>resolver</code> and the status of this result, which is
+     * {@link Decision.Effect#DENY} if any of them is denied.
+     */
+    void resolve(StatusResolver resolver) {
+        PolicyResultTable table = this.table;
+        boolean anyDeny = false;
+
+        for (int slot = table.getFirstChild(PolicyResultTable.ROOT); slot != PolicyResultTable.NONE; slot = table.getNextSibling(slot)) {
+            int grantCount = 0;
+
+            for (int child = table.getFirstChild(slot); child != PolicyResultTable.NONE; child = table.getNextSibling(child)) {
+                if (table.isPermit(child)) {
+                    grantCount++;
                 }
+            }
+
+            Decision.Effect effect = resolver.resolve(table.getPolicy(slot), grantCount);
+
+            table.setStatus(slot, effect);
 
-                return anyDenial(policyResult.getAssociatedPolicies());
+            if (Decision.Effect.DENY.equals(effect)) {
+                anyDeny = true;
             }
-        });
+        }
+
+        this.status = anyDeny ? Decision.Effect.DENY : Decision.Effect.PERMIT;
     }
 
+    interface StatusResolver {
+        Decision.Effect resolve(Policy policy, int grantCount);
+    }
+
+    /**
+     * A view of a node of the tree of results, backed by the {@link PolicyResultTable} of a {@link Result}.
+     */
     public static class PolicyResult {
 
-        private final Policy policy;
-        private List<PolicyResult> associatedPolicies = new ArrayList<>();
-        private Decision.Effect status;
+        private final PolicyResultTable table;
+        private final int slot;
+        private List<PolicyResult> associatedPolicies;
+        private int associatedPoliciesModCount = -1;
 
         public PolicyResult(Policy policy) {
-            this.policy = policy;
+            this.table = new PolicyResultTable();
+            this.slot = this.table.slot(PolicyResultTable.ROOT, policy);
+        }
+
+        private PolicyResult(PolicyResultTable table, int slot) {
+            this.table = table;
+            this.slot = slot;
         }
 
         public PolicyResult status(Decision.Effect status) {
-            this.status = status;
+            setStatus(status);
             return this;
         }
 
         public PolicyResult policy(Policy policy) {
-            return getPolicy(policy, this.associatedPolicies);
+            return new PolicyResult(this.table, this.table.slot(this.slot, policy));
         }
 
-        private PolicyResult getPolicy(Policy policy, List<PolicyResult> results) {
-            for (PolicyResult result : results) {
-                if (result.getPolicy().equals(policy)) {
-                    return result;
-                }
+        public Policy getPolicy() {
+            return this.table.getPolicy(this.slot);
+        }
+
+        public List<PolicyResult> getAssociatedPolicies() {
+            if (this.associatedPoliciesModCount != this.table.getModCount()) {
+                this.associatedPolicies = children(this.table, this.slot);
+                this.associatedPoliciesModCount = this.table.getModCount();
             }
 
-            PolicyResult policyResult = new PolicyResult(policy);
+            return this.associatedPolicies;
+        }
 
-            results.add(policyResult);
+        public void setAssociatedPolicies(final List<PolicyResult> associatedPolicies) {
+            this.table.clearChildren(this.slot);
 
-            return policyResult;
+            for (PolicyResult associatedPolicy : associatedPolicies) {
+                copy(associatedPolicy, policy(associatedPolicy.getPolicy()));
+            }
         }
 
-        public Policy getPolicy() {
-            return policy;
+        public Decision.Effect getStatus() {
+            return this.table.getStatus(this.slot);
         }
 
-        public List<PolicyResult> getAssociatedPolicies() {
-            return associatedPolicies;
+        public void setStatus(final Decision.Effect status) {
+            this.table.setStatus(this.slot, status);
         }
 
-        public void setAssociatedPolicies(final List<PolicyResult> associatedPolicies) {
-            this.associatedPolicies = associatedPolicies;
+        /**
+         * Indicates if the policy was not evaluated because the outcome of its parent policy was already settled.
+         *
+         * @return {@code true} if the policy was skipped. Otherwise, {@code false}.
+         */
+        public boolean isSkipped() {
+            return this.table.isSkipped(this.slot);
         }
 
-        public Decision.Effect getStatus() {
-            return status;
+        public void setSkipped(final boolean skipped) {
+            this.table.setSkipped(this.slot, skipped);
         }
 
-        public void setStatus(final Decision.Effect status) {
-            this.status = status;
+        /**
+         * Indicates if the policy was denied because the evaluation timed out before the policy was evaluated or before it completed.
+         *
+         * @return {@code true} if the policy timed out. Otherwise, {@code false}.
+         */
+        public boolean isTimedOut() {
+            return this.table.isTimedOut(this.slot);
+        }
+
+        public void setTimedOut(final boolean timedOut) {
+            this.table.setTimedOut(this.slot, timedOut);
+        }
+
+        private static List<PolicyResult> children(PolicyResultTable table, int slot) {
+            List<PolicyResult> children = new ArrayList<>();
+
+            for (int child = table.getFirstChild(slot); child != PolicyResultTable.NONE; child = table.getNextSibling(child)) {
+                children.add(new PolicyResult(table, child));
+            }
+
+            return Collections.unmodifiableList(children);
+        }
+
+        private static void copy(PolicyResult source, PolicyResult target) {
+            target.setStatus(source.getStatus());
+            target.setSkipped(source.isSkipped());
+            target.setTimedOut(source.isTimedOut());
+
+            for (PolicyResult child : source.getAssociatedPolicies()) {
+                copy(child, target.policy(child.getPolicy()));
+            }
         }
     }
 }
@@ -0,0 +1,279 @@
+package org.keycloak.authz.core.policy.index;
+
+import org.keycloak.authz.core.model.Policy;
+import org.keycloak.authz.core.model.Resource;
+import org.keycloak.authz.core.model.ResourceServer;
+import org.keycloak.authz.core.model.Scope;
+import org.keycloak.authz.core.store.PolicyStore;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * <p>An immutable, in-memory view of all the {@link Policy} instances of a single {@link ResourceServer}, indexed by resource
+ * identifier, resource type and scope name.
+ *
+ * <p>The lookups provided by this class mirror the queries defined by {@link PolicyStore#findByResource(String)},
+ * {@link PolicyStore#findByResourceType(String, String)} and {@link PolicyStore#findByScopeName(List, String)}, but without
+ * any round trip to the underlying storage.
+ *
+ * <p>Instances are created using {@link #build(ResourceServer, PolicyStore)} and are usually managed by {@link PolicyIndexes}.
+ *
+ * @author <a href="mailto:psilva@redhat.com">Pedro Igor</a>
+ */
+public final class PolicyIndex {
+
+    private static final Comparator<Policy> BY_NAME = Comparator.comparing(Policy::getName, Comparator.nullsLast(Comparator.naturalOrder()));
+    private static final AtomicLong VERSIONS = new AtomicLong();
+
+    /**
+     * The maximum number of distinct combinations of scope names for which the result of {@link #findByScopeName(Collection)} is kept.
+     */
+    private static final int MAX_SCOPE_NAME_COMBINATIONS = 1024;
+
+    private final String resourceServerId;
+    private final Map<String, List<Policy>> byResource;
+    private final Map<String, List<Policy>> byResourceType;
+    private final Map<String, List<Policy>> byScopeName;
+    private final Map<List<String>, List<Policy>> byScopeNames = new ConcurrentHashMap<>();
+    private final List<Policy> permissions;
+    private final ScopeDictionary scopeDictionary;
+    private final Map<Policy, ScopeMask> scopeMasks;
+    private final int size;
+    private final long buildTime;
+    private final long createdAt;
+    private final long version;
+
+    private PolicyIndex(String resourceServerId, Map<String, List<Policy>> byResource, Map<String, List<Policy>> byResourceType, Map<String, List<Policy>> byScopeName, List<Policy> permissions, ScopeDictionary scopeDictionary, Map<Policy, ScopeMask> scopeMasks, int size, long buildTime) {
+        this.resourceServerId = resourceServerId;
+        this.byResource = byResource;
+        this.byResourceType = byResourceType;
+        this.byScopeName = byScopeName;
+        this.permissions = permissions;
+        this.scopeDictionary = scopeDictionary;
+        this.scopeMasks = scopeMasks;
+        this.size = size;
+        this.buildTime = buildTime;
+        this.createdAt = System.currentTimeMillis();
+        this.version = VERSIONS.incrementAndGet();
+    }
+
+    /**
+     * Builds a new {@link PolicyIndex} for the given <code>resourceServer</code> by loading all its policies from the given <code>policyStore</code>.
+     *
+     * @param resourceServer the resource server
+     * @param policyStore the store from where policies are loaded
+     * @return a new index
+     */
+    public static PolicyIndex build(ResourceServer resourceServer, PolicyStore policyStore) {
+        long start = System.nanoTime();
+        List<Policy> policies = policyStore.findByResourceServer(resourceServer.getId());
+        Map<String, List<Policy>> byResource = new HashMap<>();
+        Map<String, List<Policy>> byResourceType = new HashMap<>();
+        Map<String, List<Policy>> byScopeName = new HashMap<>();
+        List<Policy> permissions = new ArrayList<>();
+
+        for (Policy policy : policies) {
+            Set<Resource> resources = policy.getResources();
+
+            for (Resource resource : resources) {
+                byResource.computeIfAbsent(resource.getId(), key -> new ArrayList<>()).add(policy);
+            }
+
+            if (!resources.isEmpty()) {
+                permissions.add(policy);
+                continue;
+            }
+
+            String defaultResourceType = policy.getConfig().get("defaultResourceType");
+
+            if (defaultResourceType != null) {
+                byResourceType.computeIfAbsent(defaultResourceType, key -> new ArrayList<>()).add(policy);
+            }
+
+            for (Scope scope : policy.getScopes()) {
+                byScopeName.computeIfAbsent(scope.getName(), key -> new ArrayList<>()).add(policy);
+            }
+
+            if (defaultResourceType != null || !policy.getScopes().isEmpty()) {
+                permissions.add(policy);
+            }
+        }
+
+        permissions.sort(BY_NAME);
+
+        byScopeName.values().forEach(scopePolicies -> scopePolicies.sort(BY_NAME));
+
+        ScopeDictionary scopeDictionary = ScopeDictionary.build(policies);
+        // policies are looked up by identity, they are the same instances returned by the find methods
+        Map<Policy, ScopeMask> scopeMasks = new IdentityHashMap<>(policies.size());
+
+        for (Policy policy : policies) {
+            scopeMasks.put(policy, scopeDictionary.maskOrNull(policy.getScopes()));
+        }
+
+        return new PolicyIndex(resourceServer.getId(), freeze(byResource), freeze(byResourceType), freeze(byScopeName), Collections.unmodifiableList(permissions), scopeDictionary, scopeMasks, policies.size(), System.nanoTime() - start);
+    }
+
+    /**
+     * Returns the policies associated with a {@link Resource} with the given <code>resourceId</code>.
+     *
+     * @param resourceId the identifier of a resource
+     * @return a list of policies associated with the given resource
+     */
+    public List<Policy> findByResource(String resourceId) {
+        return this.byResource.getOrDefault(resourceId, Collections.emptyList());
+    }
+
+    /**
+     * Returns the policies associated with a resource type. Only policies not bound to any specific resource are considered.
+     *
+     * @param resourceType the type of a resource
+     * @return a list of policies associated with the given resource type
+     */
+    public List<Policy> findByResourceType(String resourceType) {
+        return this.byResourceType.getOrDefault(resourceType, Collections.emptyList());
+    }
+
+    /**
+     * Returns the policies associated with any of the given <code>scopeNames</code>, ordered by name and without duplicates.
+     * Only policies not bound to any specific resource are considered.
+     *
+     * <p>When more than one name is given as a {@link List}, such as {@link org.keycloak.authz.core.permission.ResourcePermission#getScopeNames()},
+     * the result is kept for subsequent lookups with the same names, in the same order.
+     *
+     * @param scopeNames the name of the scopes
+     * @return a list of policies associated with the given scope names
+     */
+    public List<Policy> findByScopeName(Collection<String> scopeNames) {
+        if (scopeNames.size() == 1) {
+            return this.byScopeName.getOrDefault(scopeNames.iterator().next(), Collections.emptyList());
+        }
+
+        boolean cacheable = scopeNames instanceof List;
+
+        if (cacheable) {
+            List<Policy> cached = this.byScopeNames.get(scopeNames);
+
+            if (cached != null) {
+                return cached;
+            }
+        }
+
+        Set<Policy> policies = new LinkedHashSet<>();
+
+        for (String scopeName : scopeNames) {
+            policies.addAll(this.byScopeName.getOrDefault(scopeName, Collections.emptyList()));
+        }
+
+        List<Policy> result = new ArrayList<>(policies);
+
+        result.sort(BY_NAME);
+        result = Collections.unmodifiableList(result);
+
+        if (cacheable && this.byScopeNames.size() < MAX_SCOPE_NAME_COMBINATIONS) {
+            // the given list may be reused by the caller, so a copy is used as the key
+            this.byScopeNames.putIfAbsent(Collections.unmodifiableList(new ArrayList<>(scopeNames)), result);
+        }
+
+        return result;
+    }
+
+    /**
+     * Returns all the policies returned by any of the find methods of this index, that is, the policies bound to resources, to a resource
+     * type or to scopes, ordered by name. These are the policies whose associated policies decide the outcome of a permission.
+     *
+     * @return the policies bound to resources, resource types or scopes
+     */
+    public List<Policy> getPermissions() {
+        return this.permissions;
+    }
+
+    /**
+     * Returns the {@link ScopeDictionary} with the scopes referenced by the policies of this index.
+     *
+     * @return the scope dictionary
+     */
+    public ScopeDictionary getScopeDictionary() {
+        return this.scopeDictionary;
+    }
+
+    /**
+     * Returns a {@link ScopeMask} with the scopes of the given <code>policy</code>, computed when this index was built.
+     *
+     * @param policy a policy returned by this index
+     * @return the scopes of the given policy or {@code null} if the policy does not belong to this index and references scopes unknown to
+     * its {@link #getScopeDictionary()}
+     */
+    public ScopeMask getScopeMask(Policy policy) {
+        ScopeMask mask = this.scopeMasks.get(policy);
+
+        if (mask == null) {
+            return this.scopeDictionary.maskOrNull(policy.getScopes());
+        }
+
+        return mask;
+    }
+
+    /**
+     * Returns the identifier of the {@link ResourceServer} to which this index belongs.
+     *
+     * @return the identifier of the resource server
+     */
+    public String getResourceServerId() {
+        return this.resourceServerId;
+    }
+
+    /**
+     * Returns the number of policies loaded into this index.
+     *
+     * @return the number of policies
+     */
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * Returns how long it took to build this index, in nanoseconds.
+     *
+     * @return the build time in nanoseconds
+     */
+    public long getBuildTime() {
+        return this.buildTime;
+    }
+
+    /**
+     * Returns the time, in milliseconds since the epoch, when this index was built.
+     *
+     * @return the creation time of this index
+     */
+    public long getCreatedAt() {
+        return this.createdAt;
+    }
+
+    /**
+     * Returns a number that uniquely identifies this index within the JVM. A new version is assigned whenever an index is built, so
+     * state derived from an index (e.g.: cached decisions) can be discarded once the index is invalidated and rebuilt.
+     *
+     * @return the version of this index
+     */
+    public long getVersion() {
+        return this.version;
+    }
+
+    private static Map<String, List<Policy>> freeze(Map<String, List<Policy>> index) {
+        index.replaceAll((key, policies) -> Collections.unmodifiableList(policies));
+
+        return Collections.unmodifiableMap(index);
+    }
+}
@@ -0,0 +1,129 @@
+package org.keycloak.authz.core.policy.index;
+
+import org.keycloak.authz.core.EvaluationMetrics;
+import org.keycloak.authz.core.model.ResourceServer;
+import org.keycloak.authz.core.store.PolicyStore;
+
+import java.util.Collection;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * <p>Holds the {@link PolicyIndex} of each {@link ResourceServer}. Indexes are built lazily, on first access, and kept until
+ * {@link #invalidate(String)} is called for their resource server or until they are older than the maximum age given when they are
+ * obtained.
+ *
+ * <p>Each {@link org.keycloak.authz.core.Authorization} holds its own instance, so the policies of an index are only handed to evaluations
+ * using the same store factory. Invalidations, on the other hand, are seen by all instances within the same JVM, so that changes made
+ * through one of them (e.g.: the administration API) are visible to all the others. Changes made through other JVMs, or directly
+ * to the store, are only visible once the index expires.
+ *
+ * @author <a href="mailto:psilva@redhat.com">Pedro Igor</a>
+ */
+public final class PolicyIndexes {
+
+    /**
+     * The default maximum age of an index, in milliseconds.
+     */
+    public static final long DEFAULT_MAX_AGE = TimeUnit.MINUTES.toMillis(1);
+
+    private static final AtomicLong INVALIDATIONS = new AtomicLong();
+
+    /**
+     * The last invalidation of each resource server, from any instance within the JVM. Only identifiers are kept, never the policies.
+     */
+    private static final ConcurrentMap<String, Long> INVALIDATED = new ConcurrentHashMap<>();
+
+    private final ConcurrentMap<String, Entry> indexes = new ConcurrentHashMap<>();
+
+    /**
+     * Returns the {@link PolicyIndex} for the given <code>resourceServer</code>, building it from the given <code>policyStore</code>
+     * if necessary. Indexes older than {@link #DEFAULT_MAX_AGE} are built again.
+     *
+     * @param resourceServer the resource server
+     * @param policyStore a supplier of the store from where policies are loaded when the index must be built
+     * @return the index for the given resource server
+     */
+    public PolicyIndex get(ResourceServer resourceServer, Supplier<PolicyStore> policyStore) {
+        return get(resourceServer, policyStore, EvaluationMetrics.NONE, DEFAULT_MAX_AGE, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Same as {@link #get(ResourceServer, Supplier)}, but notifying the given <code>metrics</code> about the time spent to load policies
+     * from the store when the index is built and building the index again once it is older than the given <code>maxAge</code>.
+     *
+     * @param resourceServer the resource server
+     * @param policyStore a supplier of the store from where policies are loaded when the index must be built
+     * @param metrics the metrics to notify
+     * @param maxAge the maximum age of the index. Zero keeps the index until it is invalidated
+     * @param unit the unit of the maximum age
+     * @return the index for the given resource server
+     */
+    public PolicyIndex get(ResourceServer resourceServer, Supplier<PolicyStore> policyStore, EvaluationMetrics metrics, long maxAge, TimeUnit unit) {
+        String resourceServerId = resourceServer.getId();
+        Entry entry = this.indexes.get(resourceServerId);
+
+        if (entry != null && (entry.invalidation < INVALIDATED.getOrDefault(resourceServerId, 0L)
+                || maxAge > 0 && System.currentTimeMillis() - entry.index.getCreatedAt() > unit.toMillis(maxAge))) {
+            // evaluations holding the expired index keep using it, only new ones see the index built from the store
+            this.indexes.remove(resourceServerId, entry);
+            entry = null;
+        }
+
+        if (entry == null) {
+            entry = this.indexes.computeIfAbsent(resourceServerId, key -> {
+                // taken before loading from the store, an invalidation while the index is built makes it stale
+                long invalidation = INVALIDATIONS.get();
+                PolicyIndex built = PolicyIndex.build(resourceServer, policyStore.get());
+
+                metrics.onStoreLookup(built.getBuildTime());
+
+                return new Entry(built, invalidation);
+            });
+        }
+
+        return entry.index;
+    }
+
+    /**
+     * Discards the {@link PolicyIndex} of a resource server with the given <code>resourceServerId</code>. The index is rebuilt
+     * on next access, by this and any other instance within the JVM.
+     *
+     * @param resourceServerId the identifier of a resource server
+     */
+    public void invalidate(String resourceServerId) {
+        INVALIDATED.put(resourceServerId, INVALIDATIONS.incrementAndGet());
+        this.indexes.remove(resourceServerId);
+    }
+
+    /**
+     * Discards all indexes held by this instance.
+     */
+    public void invalidateAll() {
+        this.indexes.clear();
+    }
+
+    /**
+     * Returns all the indexes currently built.
+     *
+     * @return the indexes currently built
+     */
+    public Collection<PolicyIndex> getIndexes() {
+        return this.indexes.values().stream().map(entry -> entry.index).collect(Collectors.toList());
+    }
+
+    private static final class Entry {
+
+        final PolicyIndex index;
+        final long invalidation;
+
+        Entry(PolicyIndex index, long invalidation) {
+            this.index = index;
+            this.invalidation = invalidation;
+        }
+    }
+}
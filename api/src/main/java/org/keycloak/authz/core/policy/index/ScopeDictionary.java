@@ -0,0 +1,119 @@
+package org.keycloak.authz.core.policy.index;
+
+import org.keycloak.authz.core.model.Policy;
+import org.keycloak.authz.core.model.ResourceServer;
+import org.keycloak.authz.core.model.Scope;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * <p>Assigns a dense <code>int</code> identifier to each {@link Scope} referenced by the policies of a single {@link ResourceServer}, so that
+ * sets of scopes can be represented as a {@link ScopeMask} and compared with a few bitwise operations instead of comparing scope identifiers.
+ *
+ * <p>A dictionary is built together with its {@link PolicyIndex} and is immutable, so it is safe to use it concurrently. Scopes not referenced
+ * by any policy of the index are unknown to the dictionary.
+ *
+ * @author <a href="mailto:psilva@redhat.com">Pedro Igor</a>
+ */
+public final class ScopeDictionary {
+
+    /**
+     * The identifier returned by {@link #idOf(String)} for unknown scopes.
+     */
+    public static final int UNKNOWN = -1;
+
+    private final Map<String, Integer> ids;
+
+    private ScopeDictionary(Map<String, Integer> ids) {
+        this.ids = ids;
+    }
+
+    /**
+     * Creates a new dictionary with all the scopes referenced by the given <code>policies</code>.
+     *
+     * @param policies the policies
+     * @return a new dictionary
+     */
+    static ScopeDictionary build(Collection<Policy> policies) {
+        Map<String, Integer> ids = new HashMap<>();
+
+        for (Policy policy : policies) {
+            for (Scope scope : policy.getScopes()) {
+                ids.putIfAbsent(scope.getId(), ids.size());
+            }
+        }
+
+        return new ScopeDictionary(ids);
+    }
+
+    /**
+     * Returns the dense identifier of the scope with the given <code>scopeId</code>.
+     *
+     * @param scopeId the identifier of the scope
+     * @return the dense identifier of the scope or {@link #UNKNOWN} if the scope is not referenced by any policy
+     */
+    public int idOf(String scopeId) {
+        Integer id = this.ids.get(scopeId);
+
+        if (id == null) {
+            return UNKNOWN;
+        }
+
+        return id;
+    }
+
+    /**
+     * Returns the number of scopes in this dictionary.
+     *
+     * @return the number of scopes
+     */
+    public int size() {
+        return this.ids.size();
+    }
+
+    /**
+     * Returns a {@link ScopeMask} with the known scopes from the given <code>scopes</code>. Unknown scopes are ignored, given that no policy
+     * of the index requires them.
+     *
+     * @param scopes the scopes
+     * @return a mask with the known scopes
+     */
+    public ScopeMask mask(List<Scope> scopes) {
+        ScopeMask.Builder builder = new ScopeMask.Builder();
+
+        for (int i = 0; i < scopes.size(); i++) {
+            int id = idOf(scopes.get(i).getId());
+
+            if (id != UNKNOWN) {
+                builder.add(id);
+            }
+        }
+
+        return builder.build();
+    }
+
+    /**
+     * Returns a {@link ScopeMask} with all the given <code>scopes</code>.
+     *
+     * @param scopes the scopes
+     * @return a mask with the given scopes or {@code null} if any of them is unknown to this dictionary
+     */
+    ScopeMask maskOrNull(Collection<Scope> scopes) {
+        ScopeMask.Builder builder = new ScopeMask.Builder();
+
+        for (Scope scope : scopes) {
+            int id = idOf(scope.getId());
+
+            if (id == UNKNOWN) {
+                return null;
+            }
+
+            builder.add(id);
+        }
+
+        return builder.build();
+    }
+}
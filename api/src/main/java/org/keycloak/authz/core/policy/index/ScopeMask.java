@@ -0,0 +1,109 @@
+package org.keycloak.authz.core.policy.index;
+
+import java.util.Arrays;
+
+/**
+ * <p>An immutable set of scopes, represented by the dense identifiers assigned to them by a {@link ScopeDictionary}.
+ *
+ * <p>The first 64 identifiers are kept in a single <code>long</code>, so that checking if a set contains another only takes a couple of
+ * bitwise operations for most resource servers. Larger identifiers are kept in additional words.
+ *
+ * @author <a href="mailto:psilva@redhat.com">Pedro Igor</a>
+ */
+public final class ScopeMask {
+
+    /**
+     * An empty mask.
+     */
+    public static final ScopeMask EMPTY = new ScopeMask(0, null);
+
+    private final long bits;
+    private final long[] more;
+
+    private ScopeMask(long bits, long[] more) {
+        this.bits = bits;
+        this.more = more;
+    }
+
+    /**
+     * Checks if this mask contains all the scopes from the given <code>other</code> mask.
+     *
+     * @param other the other mask
+     * @return {@code true} if the scopes of the given mask are a subset of the scopes of this mask
+     */
+    public boolean containsAll(ScopeMask other) {
+        if ((other.bits & ~this.bits) != 0) {
+            return false;
+        }
+
+        if (other.more == null) {
+            return true;
+        }
+
+        for (int i = 0; i < other.more.length; i++) {
+            long bits = this.more != null && i < this.more.length ? this.more[i] : 0;
+
+            if ((other.more[i] & ~bits) != 0) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Checks if the scope with the given dense <code>id</code> belongs to this mask.
+     *
+     * @param id the dense identifier of a scope
+     * @return {@code true} if the scope belongs to this mask
+     */
+    public boolean contains(int id) {
+        if (id < 64) {
+            return (this.bits & (1L << id)) != 0;
+        }
+
+        int word = (id >>> 6) - 1;
+
+        return this.more != null && word < this.more.length && (this.more[word] & (1L << id)) != 0;
+    }
+
+    public boolean isEmpty() {
+        return this.bits == 0 && this.more == null;
+    }
+
+    /**
+     * Creates {@link ScopeMask} instances. Instances are not thread-safe.
+     */
+    static final class Builder {
+
+        private long bits;
+        private long[] more;
+
+        Builder add(int id) {
+            if (id < 64) {
+                this.bits |= 1L << id;
+                return this;
+            }
+
+            int word = (id >>> 6) - 1;
+
+            if (this.more == null) {
+                this.more = new long[word + 1];
+            } else if (word >= this.more.length) {
+                this.more = Arrays.copyOf(this.more, word + 1);
+            }
+
+            this.more[word] |= 1L << id;
+
+            return this;
+        }
+
+        ScopeMask build() {
+            if (this.bits == 0 && this.more == null) {
+                return EMPTY;
+            }
+
+            return new ScopeMask(this.bits, this.more);
+        }
+    }
+}
@@ -0,0 +1,6 @@
+/**
+ * Provides in-memory indexes used to look up the policies that apply to a given permission.
+ *
+ * @author <a href="mailto:psilva@redhat.com">Pedro Igor</a>
+ */
+package org.keycloak.authz.core.policy.index;
\ No newline at end of file
@@ -0,0 +1,74 @@
+package org.keycloak.authz.core.policy.provider;
+
+import org.keycloak.authz.core.Decision;
+import org.keycloak.authz.core.policy.evaluation.Evaluation;
+
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+
+/**
+ * <p>A {@link PolicyProvider} that evaluates policies without blocking the calling thread, e.g.: providers that need to do I/O in order to
+ * reach a decision.
+ *
+ * <p>Instead of calling {@link Evaluation#grant()} or {@link Evaluation#deny()}, implementations return a {@link CompletionStage} completed
+ * with the effect they would have delivered through those methods. The {@link org.keycloak.authz.core.model.Policy.Logic} of the policy is
+ * applied by the caller, once the stage completes. A stage completed with {@code null} means the policy had no effect and completing it
+ * exceptionally means the evaluation failed.
+ *
+ * <p>{@link org.keycloak.authz.core.policy.evaluation.DefaultPolicyEvaluator} starts the evaluation of all the asynchronous policies of a
+ * permission before waiting for any of them, so that they run concurrently. Synchronous providers keep working as is and can be adapted to
+ * this interface through {@link #of(PolicyProvider)}.
+ *
+ * @author <a href="mailto:psilva@redhat.com">Pedro Igor</a>
+ */
+public interface AsyncPolicyProvider extends PolicyProvider {
+
+    /**
+     * Starts the evaluation of the policy.
+     *
+     * @param evaluation the evaluation. Implementations must not deliver any decision through it
+     * @return a stage completed with {@link Decision.Effect#PERMIT} to grant, {@link Decision.Effect#DENY} to deny or {@code null} if there is no effect
+     */
+    CompletionStage<Decision.Effect> evaluateAsync(Evaluation evaluation);
+
+    /**
+     * Evaluates the policy and blocks until it completes, for callers that can only evaluate policies synchronously.
+     *
+     * @param evaluation the evaluation
+     */
+    @Override
+    default void evaluate(Evaluation evaluation) {
+        Decision.Effect effect;
+
+        try {
+            effect = evaluateAsync(evaluation).toCompletableFuture().join();
+        } catch (CompletionException cause) {
+            if (cause.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) cause.getCause();
+            }
+
+            throw new RuntimeException("Failed to evaluate policy [" + evaluation.getPolicy().getName() + "].", cause.getCause());
+        }
+
+        if (Decision.Effect.PERMIT.equals(effect)) {
+            evaluation.grant();
+        } else if (Decision.Effect.DENY.equals(effect)) {
+            evaluation.deny();
+        }
+    }
+
+    /**
+     * Adapts the given <code>policyProvider</code> to this interface. Synchronous providers are evaluated by the calling thread and the returned
+     * stage is already completed when {@link #evaluateAsync(Evaluation)} returns.
+     *
+     * @param policyProvider the provider to adapt
+     * @return the given provider if it is already asynchronous. Otherwise, an adapter that evaluates the given provider synchronously
+     */
+    static AsyncPolicyProvider of(PolicyProvider policyProvider) {
+        if (policyProvider instanceof AsyncPolicyProvider) {
+            return (AsyncPolicyProvider) policyProvider;
+        }
+
+        return new SynchronousPolicyProviderAdapter(policyProvider);
+    }
+}
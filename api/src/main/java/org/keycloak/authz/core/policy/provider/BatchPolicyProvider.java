@@ -0,0 +1,35 @@
+package org.keycloak.authz.core.policy.provider;
+
+import org.keycloak.authz.core.policy.evaluation.Evaluation;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * <p>A {@link PolicyProvider} that evaluates a policy for many permissions at once, for providers where entering the provider costs more
+ * than the logic of the policy itself, e.g.: script-based policies.
+ *
+ * <p>Before evaluating the permissions of a request, {@link org.keycloak.authz.core.policy.evaluation.DefaultPolicyEvaluator#prefetch(List,
+ * org.keycloak.authz.core.EvaluationContext)} groups them by the batch policies that apply to them and calls {@link #evaluate(List)} once per
+ * policy, with an {@link Evaluation} for each permission. Implementations must grant or deny each evaluation as they would do through
+ * {@link #evaluate(Evaluation)}. Evaluations without an effect are denied.
+ *
+ * <p>The effects are then replayed as each permission is evaluated, within the same {@link org.keycloak.authz.core.policy.evaluation.EvaluationScope}.
+ * Permissions evaluated outside of a batch, e.g.: a single permission, are evaluated through {@link #evaluate(Evaluation)}.
+ *
+ * @author <a href="mailto:psilva@redhat.com">Pedro Igor</a>
+ */
+public interface BatchPolicyProvider extends PolicyProvider {
+
+    /**
+     * Evaluates the policy for all the given <code>evaluations</code>, which share the same policy.
+     *
+     * @param evaluations the evaluations, one per permission
+     */
+    void evaluate(List<Evaluation> evaluations);
+
+    @Override
+    default void evaluate(Evaluation evaluation) {
+        evaluate(Collections.singletonList(evaluation));
+    }
+}
@@ -26,4 +26,14 @@ public interface PolicyProvider {
 
     void evaluate(Evaluation evaluation);
 
+    /**
+     * Indicates if this provider is thread-safe and can be reused to evaluate the same policy multiple times, possibly by different
+     * threads at the same time. Reusable providers are created once and cached by {@link PolicyProviderCache}, otherwise a new
+     * provider is created for each evaluation.
+     *
+     * @return {@code true} if this provider can be reused. Otherwise, {@code false}.
+     */
+    default boolean isReusable() {
+        return false;
+    }
 }
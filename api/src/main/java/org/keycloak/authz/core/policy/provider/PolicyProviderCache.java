@@ -0,0 +1,128 @@
+package org.keycloak.authz.core.policy.provider;
+
+import org.keycloak.authz.core.model.Policy;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * <p>Creates {@link PolicyProvider} instances and keeps those that are {@link PolicyProvider#isReusable() reusable}, so that they
+ * can be shared by subsequent evaluations of the same {@link Policy}.
+ *
+ * <p>Cached providers are keyed by policy identifier and kept along with a copy of the type, logic, decision strategy and configuration
+ * of the policy they were created from. A provider is created again whenever any of these changes or after its entry is
+ * {@link #invalidate(String) invalidated}.
+ *
+ * @author <a href="mailto:psilva@redhat.com">Pedro Igor</a>
+ */
+public final class PolicyProviderCache {
+
+    private final Map<String, PolicyProviderFactory> factories = new HashMap<>();
+    private final ConcurrentMap<String, Entry> providers = new ConcurrentHashMap<>();
+
+    public PolicyProviderCache(List<PolicyProviderFactory> factories) {
+        for (PolicyProviderFactory factory : factories) {
+            // the first factory registered for a type wins, as with Authorization#getProviderFactory(String)
+            this.factories.putIfAbsent(factory.getType(), factory);
+        }
+    }
+
+    /**
+     * Returns a {@link PolicyProvider} for the given <code>policy</code>.
+     *
+     * @param policy the policy
+     * @return a provider able to evaluate the given policy
+     */
+    public PolicyProvider get(Policy policy) {
+        String policyId = policy.getId();
+        Entry entry = policyId != null ? this.providers.get(policyId) : null;
+
+        if (entry != null && entry.isCreatedFrom(policy)) {
+            return entry.provider;
+        }
+
+        PolicyProviderFactory factory = this.factories.get(policy.getType());
+
+        if (factory == null) {
+            throw new RuntimeException("Unknown policy provider for type [" + policy.getType() + "].");
+        }
+
+        PolicyProvider provider = factory.create(policy);
+
+        if (provider == null) {
+            throw new RuntimeException("Policy provider for type [" + policy.getType() + "] returned no provider for policy [" + policy.getName() + "].");
+        }
+
+        if (policyId != null && provider.isReusable()) {
+            this.providers.put(policyId, new Entry(policy, provider));
+        }
+
+        return provider;
+    }
+
+    /**
+     * Returns the {@link PolicyProviderFactory} for the given <code>type</code>.
+     *
+     * @param type the type of the policy provider
+     * @return the factory for the given type or {@code null} if there is no factory for the type
+     */
+    public PolicyProviderFactory getFactory(String type) {
+        return this.factories.get(type);
+    }
+
+    /**
+     * Discards the provider cached for a policy with the given <code>policyId</code>.
+     *
+     * @param policyId the identifier of the policy
+     */
+    public void invalidate(String policyId) {
+        this.providers.remove(policyId);
+    }
+
+    /**
+     * Discards all cached providers.
+     */
+    public void invalidateAll() {
+        this.providers.clear();
+    }
+
+    /**
+     * Returns the number of providers currently cached.
+     *
+     * @return the number of cached providers
+     */
+    public int size() {
+        return this.providers.size();
+    }
+
+    private static final class Entry {
+
+        final String type;
+        final Policy.Logic logic;
+        final Policy.DecisionStrategy decisionStrategy;
+        final Map<String, String> config;
+        final PolicyProvider provider;
+
+        Entry(Policy policy, PolicyProvider provider) {
+            Map<String, String> config = policy.getConfig();
+
+            this.type = policy.getType();
+            this.logic = policy.getLogic();
+            this.decisionStrategy = policy.getDecisionStrategy();
+            this.config = config != null ? Collections.unmodifiableMap(new HashMap<>(config)) : null;
+            this.provider = provider;
+        }
+
+        boolean isCreatedFrom(Policy policy) {
+            return Objects.equals(this.type, policy.getType())
+                    && this.logic == policy.getLogic()
+                    && this.decisionStrategy == policy.getDecisionStrategy()
+                    && Objects.equals(this.config, policy.getConfig());
+        }
+    }
+}
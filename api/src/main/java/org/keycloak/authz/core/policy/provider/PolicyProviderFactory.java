@@ -3,11 +3,46 @@ package org.keycloak.authz.core.policy.provider;
 import org.keycloak.authz.core.Authorization;
 import org.keycloak.authz.core.model.Policy;
 
+import java.util.EnumSet;
+import java.util.Set;
+
 /**
  * @author <a href="mailto:psilva@redhat.com">Pedro Igor</a>
  */
 public interface PolicyProviderFactory {
 
+    /**
+     * The inputs that may influence the outcome of a policy.
+     */
+    enum Dependency {
+
+        /**
+         * The {@link org.keycloak.authz.core.identity.Identity} of the {@link org.keycloak.authz.core.EvaluationContext}.
+         */
+        IDENTITY,
+
+        /**
+         * The {@link org.keycloak.authz.core.attribute.Attributes} of the {@link org.keycloak.authz.core.EvaluationContext}.
+         */
+        ATTRIBUTES,
+
+        /**
+         * The resource of the permission being evaluated.
+         */
+        RESOURCE,
+
+        /**
+         * The scopes of the permission being evaluated.
+         */
+        SCOPES,
+
+        /**
+         * The time at which the policy is evaluated. Decisions taken by such policies are never cached, given that the same inputs may lead to a
+         * different outcome at a later time.
+         */
+        TIME
+    }
+
     String getName();
 
     String getGroup();
@@ -19,4 +54,21 @@ public interface PolicyProviderFactory {
     PolicyProvider create(Policy policy);
 
     void dispose();
+
+    /**
+     * <p>Returns the inputs the outcome of the given <code>policy</code> depends on.
+     *
+     * <p>All the permissions evaluated by a single {@link org.keycloak.authz.core.permission.evaluator.PermissionEvaluator#evaluate(org.keycloak.authz.core.Decision)}
+     * share the same {@link org.keycloak.authz.core.EvaluationContext}, so the effect of a policy that depends on neither {@link Dependency#RESOURCE}
+     * nor {@link Dependency#SCOPES} is reused for all of them instead of being evaluated once per permission.
+     *
+     * <p>Decisions are only kept in a {@link org.keycloak.authz.core.policy.cache.DecisionCache} if none of the policies involved depends on
+     * {@link Dependency#TIME}. By default, policies depend on all inputs.
+     *
+     * @param policy the policy
+     * @return the inputs the given policy depends on
+     */
+    default Set<Dependency> getDependencies(Policy policy) {
+        return EnumSet.allOf(Dependency.class);
+    }
 }
@@ -0,0 +1,71 @@
+package org.keycloak.authz.core.policy.provider;
+
+import org.keycloak.authz.core.Decision;
+import org.keycloak.authz.core.model.Policy;
+import org.keycloak.authz.core.policy.evaluation.Evaluation;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+
+/**
+ * <p>Adapts a synchronous {@link PolicyProvider} to {@link AsyncPolicyProvider}. The provider is evaluated by the calling thread against a
+ * copy of the {@link Evaluation} that captures its decision instead of delivering it.
+ *
+ * @author <a href="mailto:psilva@redhat.com">Pedro Igor</a>
+ * @see AsyncPolicyProvider#of(PolicyProvider)
+ */
+final class SynchronousPolicyProviderAdapter implements AsyncPolicyProvider {
+
+    private final PolicyProvider delegate;
+
+    SynchronousPolicyProviderAdapter(PolicyProvider delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public CompletionStage<Decision.Effect> evaluateAsync(Evaluation evaluation) {
+        CompletableFuture<Decision.Effect> future = new CompletableFuture<>();
+        EffectCapture capture = new EffectCapture();
+
+        try {
+            this.delegate.evaluate(new Evaluation(evaluation.getPermission(), evaluation.getContext(), evaluation.getParentPolicy(), evaluation.getPolicy(), capture));
+            future.complete(capture.getEffect(evaluation.getPolicy()));
+        } catch (Throwable cause) {
+            future.completeExceptionally(cause);
+        }
+
+        return future;
+    }
+
+    @Override
+    public void evaluate(Evaluation evaluation) {
+        this.delegate.evaluate(evaluation);
+    }
+
+    @Override
+    public boolean isReusable() {
+        return this.delegate.isReusable();
+    }
+
+    private static class EffectCapture implements Decision {
+
+        private Effect effect;
+
+        @Override
+        public void onDecision(Evaluation evaluation) {
+            this.effect = evaluation.getEffect();
+        }
+
+        /**
+         * Returns the captured effect as it was before the logic of the given <code>policy</code> was applied, as expected by the callers
+         * of {@link AsyncPolicyProvider#evaluateAsync(Evaluation)}.
+         */
+        Effect getEffect(Policy policy) {
+            if (this.effect == null || policy == null || !Policy.Logic.NEGATIVE.equals(policy.getLogic())) {
+                return this.effect;
+            }
+
+            return Effect.PERMIT.equals(this.effect) ? Effect.DENY : Effect.PERMIT;
+        }
+    }
+}
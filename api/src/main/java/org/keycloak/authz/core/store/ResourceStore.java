@@ -20,6 +20,7 @@ package org.keycloak.authz.core.store;
 import org.keycloak.authz.core.model.Resource;
 import org.keycloak.authz.core.model.ResourceServer;
 
+import java.util.Collection;
 import java.util.List;
 
 /**
@@ -60,6 +61,15 @@ public interface ResourceStore {
      */
     Resource findById(String id);
 
+    /**
+     * Returns all {@link Resource} instances with the given identifiers. Implementations should load all of them at once, instead of
+     * issuing one query per identifier.
+     *
+     * @param ids the identifiers of existing resource instances
+     * @return a list with the resources found. Identifiers without a corresponding resource are ignored
+     */
+    List<Resource> findByIds(Collection<String> ids);
+
     /**
      * Finds all {@link Resource} instances with the given {@code ownerId}.
      *
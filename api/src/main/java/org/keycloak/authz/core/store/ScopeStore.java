@@ -21,6 +21,7 @@ import org.keycloak.authz.core.model.Policy;
 import org.keycloak.authz.core.model.ResourceServer;
 import org.keycloak.authz.core.model.Scope;
 
+import java.util.Collection;
 import java.util.List;
 
 /**
@@ -73,6 +74,17 @@ public interface ScopeStore {
      */
     Scope findByName(String name);
 
+    /**
+     * Returns all {@link Scope} with the given <code>names</code> that belong to a {@link ResourceServer} with the given
+     * <code>resourceServerId</code>. Implementations should load all of them at once, instead of issuing one query per name.
+     *
+     * @param names the names of the scopes
+     * @param resourceServerId the identifier of a resource server
+     *
+     * @return a list with the scopes found. Names without a corresponding scope are ignored
+     */
+    List<Scope> findByNames(Collection<String> names, String resourceServerId);
+
     /**
      * Returns a list of {@link Scope} associated with a {@link ResourceServer} with the given <code>resourceServerId</code>.
      *
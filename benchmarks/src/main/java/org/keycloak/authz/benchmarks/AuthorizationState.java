@@ -0,0 +1,213 @@
+package org.keycloak.authz.benchmarks;
+
+import org.keycloak.authz.core.Authorization;
+import org.keycloak.authz.core.EvaluationContext;
+import org.keycloak.authz.core.attribute.Attributes;
+import org.keycloak.authz.core.identity.Identity;
+import org.keycloak.authz.core.model.Policy;
+import org.keycloak.authz.core.model.Resource;
+import org.keycloak.authz.core.model.ResourceServer;
+import org.keycloak.authz.core.model.Scope;
+import org.keycloak.authz.core.permission.ResourcePermission;
+import org.keycloak.authz.core.policy.evaluation.DefaultPolicyEvaluator;
+import org.keycloak.authz.core.policy.evaluation.PolicyEvaluator;
+import org.keycloak.authz.core.policy.provider.PolicyProviderFactory;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import test.org.keycloak.authz.api.MapStoreFactory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>Holds an {@link Authorization} instance and the permissions to evaluate, created from a synthetic resource server with the following
+ * shape:
+ *
+ * <ul>
+ *     <li><code>resources</code> resources, each one with <code>scopes</code> scopes. Every permission asks for the resource and all its scopes.</li>
+ *     <li><code>policiesPerResource</code> resource permissions for each resource and one scope permission for each scope.</li>
+ *     <li><code>associatedPolicies</code> policies of type <code>policyType</code> associated with every permission. These policies are
+ *     shared by all permissions, as it usually happens in practice.</li>
+ * </ul>
+ *
+ * <p>When <code>reuseEvaluations</code> is set, the allocation-light evaluation mode is enabled. See {@link Authorization.Builder#reuseEvaluations(boolean)}.
+ *
+ * <p>Drools policies use the <code>MainUserSession</code> of the photoz example rules, which must be installed to the local repository.
+ * The artifact can be changed with the <code>benchmarks.drools.groupId</code>, <code>benchmarks.drools.artifactId</code>,
+ * <code>benchmarks.drools.version</code> and <code>benchmarks.drools.sessionName</code> system properties.
+ *
+ * @author <a href="mailto:psilva@redhat.com">Pedro Igor</a>
+ */
+@State(org.openjdk.jmh.annotations.Scope.Benchmark)
+public class AuthorizationState {
+
+    @Param({"10", "1000"})
+    int resources;
+
+    @Param({"1", "4"})
+    int policiesPerResource;
+
+    @Param({"1", "4"})
+    int associatedPolicies;
+
+    @Param({"0", "4"})
+    int scopes;
+
+    @Param({"user", "time", "js", "aggregate", "drools"})
+    String policyType;
+
+    @Param({"false", "true"})
+    boolean reuseEvaluations;
+
+    Authorization authorization;
+    PolicyEvaluator policyEvaluator;
+    List<ResourcePermission> permissions;
+    EvaluationContext evaluationContext;
+    ExecutorService scheduler;
+
+    private MapStoreFactory storeFactory;
+    private ResourceServer resourceServer;
+
+    @Setup(Level.Trial)
+    public void onSetup() {
+        this.storeFactory = new MapStoreFactory();
+        this.resourceServer = this.storeFactory.getResourceServerStore().create("benchmark-resource-server");
+        this.storeFactory.getResourceServerStore().save(this.resourceServer);
+
+        List<Policy> associatedPolicies = new ArrayList<>();
+
+        for (int i = 0; i < this.associatedPolicies; i++) {
+            associatedPolicies.add(createPolicy(this.policyType, this.policyType + " Policy " + i));
+        }
+
+        this.permissions = new ArrayList<>(this.resources);
+
+        for (int i = 0; i < this.resources; i++) {
+            this.permissions.add(createPermission("Resource " + i, associatedPolicies));
+        }
+
+        this.authorization = Authorization.builder().storeFactory(() -> this.storeFactory).reuseEvaluations(this.reuseEvaluations).build();
+        this.authorization.getPolicyIndexes().invalidate(this.resourceServer.getId());
+        this.policyEvaluator = new DefaultPolicyEvaluator(this.authorization);
+        this.evaluationContext = createEvaluationContext();
+        this.scheduler = Executors.newWorkStealingPool();
+    }
+
+    @TearDown(Level.Trial)
+    public void onTearDown() throws InterruptedException {
+        this.scheduler.shutdown();
+        this.scheduler.awaitTermination(10, TimeUnit.SECONDS);
+        this.authorization.getProviderFactories().forEach(PolicyProviderFactory::dispose);
+        this.authorization.getPolicyIndexes().invalidate(this.resourceServer.getId());
+    }
+
+    private ResourcePermission createPermission(String resourceName, List<Policy> associatedPolicies) {
+        Resource resource = this.storeFactory.getResourceStore().create(resourceName, this.resourceServer, "alice");
+        List<Scope> resourceScopes = new ArrayList<>();
+
+        for (int i = 0; i < this.scopes; i++) {
+            Scope scope = this.storeFactory.getScopeStore().create(resourceName + " Scope " + i, this.resourceServer);
+
+            this.storeFactory.getScopeStore().save(scope);
+            resourceScopes.add(scope);
+        }
+
+        resource.updateScopes(new HashSet<>(resourceScopes));
+        this.storeFactory.getResourceStore().save(resource);
+
+        for (int i = 0; i < this.policiesPerResource; i++) {
+            Policy policy = this.storeFactory.getPolicyStore().create(resourceName + " Permission " + i, "resource", this.resourceServer);
+
+            policy.addResource(resource);
+            associatedPolicies.forEach(policy::addAssociatedPolicy);
+            this.storeFactory.getPolicyStore().save(policy);
+        }
+
+        for (Scope scope : resourceScopes) {
+            Policy policy = this.storeFactory.getPolicyStore().create(scope.getName() + " Permission", "scope", this.resourceServer);
+
+            policy.addScope(scope);
+            associatedPolicies.forEach(policy::addAssociatedPolicy);
+            this.storeFactory.getPolicyStore().save(policy);
+        }
+
+        return new ResourcePermission(resource, resourceScopes, this.resourceServer);
+    }
+
+    private Policy createPolicy(String type, String name) {
+        Map<String, String> config = new HashMap<>();
+        Policy policy = this.storeFactory.getPolicyStore().create(name, type, this.resourceServer);
+
+        switch (type) {
+            case "user":
+                config.put("users", "[\"alice\"]");
+                break;
+            case "time":
+                config.put("nbf", "2000-01-01");
+                break;
+            case "js":
+                config.put("code", "$evaluation.grant();");
+                break;
+            case "aggregate":
+                policy.addAssociatedPolicy(createPolicy("time", name + " Time Policy"));
+                break;
+            case "drools":
+                config.put("mavenArtifactGroupId", System.getProperty("benchmarks.drools.groupId", "org.keycloak"));
+                config.put("mavenArtifactId", System.getProperty("benchmarks.drools.artifactId", "photoz-authz-policy"));
+                config.put("mavenArtifactVersion", System.getProperty("benchmarks.drools.version", "1.0-SNAPSHOT"));
+                config.put("sessionName", System.getProperty("benchmarks.drools.sessionName", "MainUserSession"));
+                config.put("scannerPeriod", "1");
+                config.put("scannerPeriodUnit", "Hours");
+                break;
+            default:
+                throw new RuntimeException("Unsupported policy type [" + type + "].");
+        }
+
+        policy.setConfig(config);
+        this.storeFactory.getPolicyStore().save(policy);
+
+        return policy;
+    }
+
+    private EvaluationContext createEvaluationContext() {
+        Map<String, Collection<String>> attributes = new HashMap<>();
+
+        attributes.put("roles", Arrays.asList("user"));
+
+        Attributes identityAttributes = Attributes.from(attributes);
+        Identity identity = new Identity() {
+            @Override
+            public String getId() {
+                return "alice";
+            }
+
+            @Override
+            public Attributes getAttributes() {
+                return identityAttributes;
+            }
+        };
+
+        return new EvaluationContext() {
+            @Override
+            public Identity getIdentity() {
+                return identity;
+            }
+
+            @Override
+            public Attributes getAttributes() {
+                return Attributes.EMPTY;
+            }
+        };
+    }
+}
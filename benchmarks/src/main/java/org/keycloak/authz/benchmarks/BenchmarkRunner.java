@@ -0,0 +1,42 @@
+package org.keycloak.authz.benchmarks;
+
+import org.openjdk.jmh.Main;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * <p>Runs the benchmarks with the {@link GCProfiler} enabled, so that every run reports the allocation rate (<code>gc.alloc.rate.norm</code>)
+ * along with the throughput, and writes the results to <code>jmh-result.json</code> unless another result format was given. Results from
+ * different releases can be compared with any JMH result viewer.
+ *
+ * <p>Accepts the same arguments as the JMH command line, e.g.:
+ *
+ * <pre>
+ *     java -jar benchmarks/target/benchmarks.jar EvaluatorsBenchmark.from -p policyType=js,drools -p resources=1000
+ * </pre>
+ *
+ * @author <a href="mailto:psilva@redhat.com">Pedro Igor</a>
+ */
+public final class BenchmarkRunner {
+
+    public static void main(String[] args) throws Exception {
+        CommandLineOptions commandLine = new CommandLineOptions(args);
+
+        if (commandLine.shouldHelp() || commandLine.shouldList() || commandLine.shouldListProfilers() || commandLine.shouldListResultFormats()) {
+            Main.main(args);
+            return;
+        }
+
+        ChainedOptionsBuilder options = new OptionsBuilder().parent(commandLine).addProfiler(GCProfiler.class);
+
+        if (!commandLine.getResultFormat().hasValue()) {
+            options.resultFormat(ResultFormatType.JSON);
+        }
+
+        new Runner(options.build()).run();
+    }
+}
@@ -0,0 +1,172 @@
+package org.keycloak.authz.benchmarks;
+
+import org.keycloak.authz.core.Decision;
+import org.keycloak.authz.core.model.Policy;
+import org.keycloak.authz.core.model.Resource;
+import org.keycloak.authz.core.model.ResourceServer;
+import org.keycloak.authz.core.permission.ResourcePermission;
+import org.keycloak.authz.core.policy.evaluation.ConcurrentDecisionResultCollector;
+import org.keycloak.authz.core.policy.evaluation.DecisionResultCollector;
+import org.keycloak.authz.core.policy.evaluation.Evaluation;
+import org.keycloak.authz.core.policy.evaluation.Result;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import test.org.keycloak.authz.api.MapStoreFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>Measures the throughput of collecting decisions into results, depending on the <code>collector</code> and on the number of
+ * <code>threads</code> delivering decisions:
+ *
+ * <ul>
+ *     <li><code>plain</code>: a {@link DecisionResultCollector}. When decisions are delivered by more than one thread, calls are serialized,
+ *     as done by {@link org.keycloak.authz.core.permission.evaluator.Evaluators#parallel(List, org.keycloak.authz.core.EvaluationContext, java.util.concurrent.ForkJoinPool)}
+ *     for decisions that are not thread-safe.</li>
+ *     <li><code>concurrent</code>: a {@link ConcurrentDecisionResultCollector}.</li>
+ * </ul>
+ *
+ * <p>An operation is the delivery of a grant and a deny decision for each one of <code>permissions</code> permissions, followed by the
+ * completion of the collector.
+ *
+ * @author <a href="mailto:psilva@redhat.com">Pedro Igor</a>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DecisionResultCollectorBenchmark {
+
+    @Param({"plain", "concurrent"})
+    String collector;
+
+    @Param({"1", "8"})
+    int threads;
+
+    @Param({"1000"})
+    int permissions;
+
+    private List<ResourcePermission> resourcePermissions;
+    private Policy parentPolicy;
+    private Policy grantPolicy;
+    private Policy denyPolicy;
+    private ExecutorService executor;
+
+    @Setup(Level.Trial)
+    public void onSetup() {
+        MapStoreFactory storeFactory = new MapStoreFactory();
+        ResourceServer resourceServer = storeFactory.getResourceServerStore().create("benchmark-resource-server");
+
+        storeFactory.getResourceServerStore().save(resourceServer);
+
+        this.grantPolicy = storeFactory.getPolicyStore().create("Grant Policy", "tests-static-decision", resourceServer);
+        this.denyPolicy = storeFactory.getPolicyStore().create("Deny Policy", "tests-static-decision", resourceServer);
+        this.parentPolicy = storeFactory.getPolicyStore().create("Parent Policy", "resource", resourceServer);
+        this.parentPolicy.setDecisionStrategy(Policy.DecisionStrategy.AFFIRMATIVE);
+        this.parentPolicy.addAssociatedPolicy(this.grantPolicy);
+        this.parentPolicy.addAssociatedPolicy(this.denyPolicy);
+        this.resourcePermissions = new ArrayList<>(this.permissions);
+
+        for (int i = 0; i < this.permissions; i++) {
+            Resource resource = storeFactory.getResourceStore().create("Resource " + i, resourceServer, "alice");
+            this.resourcePermissions.add(new ResourcePermission(resource, Collections.emptyList(), resourceServer));
+        }
+
+        this.executor = Executors.newFixedThreadPool(this.threads);
+    }
+
+    @TearDown(Level.Trial)
+    public void onTearDown() {
+        this.executor.shutdownNow();
+    }
+
+    @Benchmark
+    public void collect(Blackhole blackhole) throws Exception {
+        Decision decision = createCollector(blackhole);
+
+        if (this.threads == 1) {
+            deliver(decision, 0, this.resourcePermissions.size());
+        } else {
+            Decision target = "plain".equals(this.collector) ? new SerializedDecision(decision) : decision;
+            List<Future<?>> futures = new ArrayList<>(this.threads);
+            int chunk = this.resourcePermissions.size() / this.threads;
+
+            for (int i = 0; i < this.threads; i++) {
+                int from = i * chunk;
+                int to = i == this.threads - 1 ? this.resourcePermissions.size() : from + chunk;
+
+                futures.add(this.executor.submit(() -> deliver(target, from, to)));
+            }
+
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        }
+
+        decision.onComplete();
+    }
+
+    private void deliver(Decision decision, int from, int to) {
+        for (int i = from; i < to; i++) {
+            ResourcePermission permission = this.resourcePermissions.get(i);
+
+            new Evaluation(permission, null, this.parentPolicy, this.grantPolicy, decision).grant();
+            new Evaluation(permission, null, this.parentPolicy, this.denyPolicy, decision).deny();
+        }
+    }
+
+    private DecisionResultCollector createCollector(Blackhole blackhole) {
+        switch (this.collector) {
+            case "plain":
+                return new DecisionResultCollector() {
+                    @Override
+                    protected void onComplete(List<Result> results) {
+                        blackhole.consume(results);
+                    }
+                };
+            case "concurrent":
+                return new ConcurrentDecisionResultCollector() {
+                    @Override
+                    protected void onComplete(List<Result> results) {
+                        blackhole.consume(results);
+                    }
+                };
+            default:
+                throw new RuntimeException("Unsupported collector [" + this.collector + "].");
+        }
+    }
+
+    private static class SerializedDecision implements Decision {
+
+        private final Decision delegate;
+
+        SerializedDecision(Decision delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public synchronized void onDecision(Evaluation evaluation) {
+            this.delegate.onDecision(evaluation);
+        }
+    }
+}
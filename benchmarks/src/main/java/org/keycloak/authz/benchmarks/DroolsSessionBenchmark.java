@@ -0,0 +1,195 @@
+package org.keycloak.authz.benchmarks;
+
+import org.keycloak.authz.core.Authorization;
+import org.keycloak.authz.core.EvaluationContext;
+import org.keycloak.authz.core.attribute.Attributes;
+import org.keycloak.authz.core.identity.Identity;
+import org.keycloak.authz.core.model.Policy;
+import org.keycloak.authz.core.model.Resource;
+import org.keycloak.authz.core.model.ResourceServer;
+import org.keycloak.authz.core.permission.ResourcePermission;
+import org.keycloak.authz.core.policy.provider.PolicyProviderFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import test.org.keycloak.authz.api.MapStoreFactory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>Measures the throughput of Drools policies depending on how they obtain their sessions, as configured by the <code>session</code>
+ * parameter:
+ *
+ * <ul>
+ *     <li><code>new</code>: a new session is created and disposed for every evaluation, by setting <code>sessionPoolSize</code> to zero.</li>
+ *     <li><code>pooled</code>: sessions are taken from a pool of <code>sessionPoolSize</code> sessions.</li>
+ *     <li><code>stateless</code>: a stateless session executes a batch of commands for every evaluation.</li>
+ * </ul>
+ *
+ * <p>An operation is the evaluation of <code>resources</code> permissions, each one with a single permission associated with the Drools
+ * policy. {@link #evaluate(Blackhole)} runs in a single thread, while {@link #contended(Blackhole)} runs in as many threads as there are
+ * processors, so that evaluations compete for the sessions of the pool. When <code>batch</code> is set, the permissions of an operation are
+ * evaluated within a single session, firing the rules once.
+ *
+ * <p>Like {@link AuthorizationState}, the rules are taken from the photoz example, which must be installed to the local repository, and the
+ * artifact can be changed with the <code>benchmarks.drools.*</code> system properties.
+ *
+ * @author <a href="mailto:psilva@redhat.com">Pedro Igor</a>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DroolsSessionBenchmark {
+
+    @Param({"new", "pooled", "stateless"})
+    String session;
+
+    @Param({"10"})
+    int sessionPoolSize;
+
+    @Param({"10"})
+    int resources;
+
+    @Param({"false", "true"})
+    boolean batch;
+
+    private Authorization authorization;
+    private List<ResourcePermission> permissions;
+    private EvaluationContext evaluationContext;
+
+    @Setup(Level.Trial)
+    public void onSetup() {
+        MapStoreFactory storeFactory = new MapStoreFactory();
+        ResourceServer resourceServer = storeFactory.getResourceServerStore().create("benchmark-resource-server");
+
+        storeFactory.getResourceServerStore().save(resourceServer);
+
+        Policy droolsPolicy = createDroolsPolicy(storeFactory, resourceServer);
+
+        this.permissions = new ArrayList<>(this.resources);
+
+        for (int i = 0; i < this.resources; i++) {
+            Resource resource = storeFactory.getResourceStore().create("Resource " + i, resourceServer, "alice");
+            Policy permission = storeFactory.getPolicyStore().create("Resource " + i + " Permission", "resource", resourceServer);
+
+            storeFactory.getResourceStore().save(resource);
+            permission.addResource(resource);
+            permission.addAssociatedPolicy(droolsPolicy);
+            storeFactory.getPolicyStore().save(permission);
+            this.permissions.add(new ResourcePermission(resource, Collections.emptyList(), resourceServer));
+        }
+
+        this.authorization = Authorization.builder().storeFactory(() -> storeFactory).build();
+        this.authorization.getPolicyIndexes().invalidate(resourceServer.getId());
+        this.evaluationContext = createEvaluationContext();
+    }
+
+    @TearDown(Level.Trial)
+    public void onTearDown() {
+        this.authorization.getProviderFactories().forEach(PolicyProviderFactory::dispose);
+    }
+
+    @Benchmark
+    public void evaluate(Blackhole blackhole) {
+        doEvaluate(blackhole);
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public void contended(Blackhole blackhole) {
+        doEvaluate(blackhole);
+    }
+
+    private void doEvaluate(Blackhole blackhole) {
+        EvaluatorsBenchmark.BlackholeDecision decision = new EvaluatorsBenchmark.BlackholeDecision(blackhole);
+
+        this.authorization.evaluators().from(this.permissions, this.evaluationContext).evaluate(decision);
+
+        decision.verify();
+    }
+
+    private Policy createDroolsPolicy(MapStoreFactory storeFactory, ResourceServer resourceServer) {
+        Policy policy = storeFactory.getPolicyStore().create("Drools Policy", "drools", resourceServer);
+        Map<String, String> config = new HashMap<>();
+
+        config.put("mavenArtifactGroupId", System.getProperty("benchmarks.drools.groupId", "org.keycloak"));
+        config.put("mavenArtifactId", System.getProperty("benchmarks.drools.artifactId", "photoz-authz-policy"));
+        config.put("mavenArtifactVersion", System.getProperty("benchmarks.drools.version", "1.0-SNAPSHOT"));
+        config.put("sessionName", System.getProperty("benchmarks.drools.sessionName", "MainUserSession"));
+        config.put("scannerPeriod", "1");
+        config.put("scannerPeriodUnit", "Hours");
+        config.put("batch", String.valueOf(this.batch));
+
+        switch (this.session) {
+            case "new":
+                config.put("sessionPoolSize", "0");
+                break;
+            case "pooled":
+                config.put("sessionPoolSize", String.valueOf(this.sessionPoolSize));
+                break;
+            case "stateless":
+                config.put("statelessSession", Boolean.TRUE.toString());
+                break;
+            default:
+                throw new RuntimeException("Unsupported session [" + this.session + "].");
+        }
+
+        policy.setConfig(config);
+        storeFactory.getPolicyStore().save(policy);
+
+        return policy;
+    }
+
+    private EvaluationContext createEvaluationContext() {
+        Map<String, Collection<String>> attributes = new HashMap<>();
+
+        attributes.put("roles", Arrays.asList("user"));
+
+        Attributes identityAttributes = Attributes.from(attributes);
+        Identity identity = new Identity() {
+            @Override
+            public String getId() {
+                return "alice";
+            }
+
+            @Override
+            public Attributes getAttributes() {
+                return identityAttributes;
+            }
+        };
+
+        return new EvaluationContext() {
+            @Override
+            public Identity getIdentity() {
+                return identity;
+            }
+
+            @Override
+            public Attributes getAttributes() {
+                return Attributes.EMPTY;
+            }
+        };
+    }
+}
@@ -0,0 +1,122 @@
+package org.keycloak.authz.benchmarks;
+
+import org.keycloak.authz.core.Decision;
+import org.keycloak.authz.core.permission.ResourcePermission;
+import org.keycloak.authz.core.policy.evaluation.Evaluation;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>Measures the throughput of the different ways of evaluating permissions:
+ *
+ * <ul>
+ *     <li>{@link #from(AuthorizationState, Blackhole)}: evaluates all permissions in the calling thread using
+ *     {@link org.keycloak.authz.core.permission.evaluator.Evaluators#from(java.util.List, org.keycloak.authz.core.EvaluationContext)}.</li>
+ *     <li>{@link #schedule(AuthorizationState, Blackhole)}: evaluates all permissions using
+ *     {@link org.keycloak.authz.core.permission.evaluator.Evaluators#schedule(java.util.List, org.keycloak.authz.core.EvaluationContext, java.util.concurrent.Executor)}
+ *     and waits for the evaluation to complete.</li>
+ *     <li>{@link #policyEvaluator(AuthorizationState, Blackhole)}: evaluates a single permission using
+ *     {@link org.keycloak.authz.core.policy.evaluation.DefaultPolicyEvaluator} directly.</li>
+ * </ul>
+ *
+ * <p>An operation of the first two benchmarks is the evaluation of all the <code>resources</code> permissions, while an operation of the last
+ * one is the evaluation of a single permission. Hence, the <code>gc.alloc.rate.norm</code> reported for the last benchmark by the GC profiler,
+ * which is enabled by {@link BenchmarkRunner}, is the number of bytes allocated to evaluate a single permission.
+ *
+ * @author <a href="mailto:psilva@redhat.com">Pedro Igor</a>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EvaluatorsBenchmark {
+
+    private int next;
+    private BlackholeDecision decision;
+
+    @Benchmark
+    public void from(AuthorizationState state, Blackhole blackhole) {
+        BlackholeDecision decision = new BlackholeDecision(blackhole);
+
+        state.authorization.evaluators().from(state.permissions, state.evaluationContext).evaluate(decision);
+
+        decision.verify();
+    }
+
+    @Benchmark
+    public void schedule(AuthorizationState state, Blackhole blackhole) throws InterruptedException {
+        BlackholeDecision decision = new BlackholeDecision(blackhole);
+
+        state.authorization.evaluators().schedule(state.permissions, state.evaluationContext, state.scheduler).evaluate(decision);
+
+        decision.await();
+    }
+
+    @Benchmark
+    public void policyEvaluator(AuthorizationState state, Blackhole blackhole) {
+        ResourcePermission permission = state.permissions.get(this.next++ % state.permissions.size());
+
+        // reused so that only the allocations made by the evaluator are measured
+        if (this.decision == null) {
+            this.decision = new BlackholeDecision(blackhole);
+        }
+
+        state.policyEvaluator.evaluate(permission, state.evaluationContext, this.decision);
+
+        this.decision.verify();
+    }
+
+    static class BlackholeDecision implements Decision {
+
+        private final Blackhole blackhole;
+        private final CountDownLatch latch = new CountDownLatch(1);
+        private volatile Throwable error;
+
+        BlackholeDecision(Blackhole blackhole) {
+            this.blackhole = blackhole;
+        }
+
+        @Override
+        public void onDecision(Evaluation evaluation) {
+            this.blackhole.consume(evaluation.getEffect());
+        }
+
+        @Override
+        public void onError(Throwable cause) {
+            this.error = cause;
+            this.latch.countDown();
+        }
+
+        @Override
+        public void onComplete() {
+            this.latch.countDown();
+        }
+
+        void await() throws InterruptedException {
+            if (!this.latch.await(1, TimeUnit.MINUTES)) {
+                throw new RuntimeException("Evaluation did not complete in time.");
+            }
+
+            verify();
+        }
+
+        void verify() {
+            if (this.error != null) {
+                throw new RuntimeException("Evaluation failed.", this.error);
+            }
+        }
+    }
+}
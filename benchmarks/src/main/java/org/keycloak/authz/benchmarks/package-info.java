@@ -0,0 +1,8 @@
+/**
+ * <p>JMH benchmarks for the policy evaluation engine. Benchmarks run over the in-memory stores from the test suite, so they measure the
+ * evaluation engine and the policy providers only, without any persistence or network overhead.
+ *
+ * <p>Build with <code>mvn -Pbenchmarks install</code> and run with <code>java -jar benchmarks/target/benchmarks.jar</code>. See
+ * {@link org.keycloak.authz.benchmarks.BenchmarkRunner} for details.
+ */
+package org.keycloak.authz.benchmarks;
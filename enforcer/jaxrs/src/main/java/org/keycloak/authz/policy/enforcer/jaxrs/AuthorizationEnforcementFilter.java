@@ -34,9 +34,11 @@ import java.io.IOException;
 import java.lang.reflect.Method;
 import java.security.Principal;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * @author <a href="mailto:psilva@redhat.com">Pedro Igor</a>
@@ -45,6 +47,7 @@ public class AuthorizationEnforcementFilter implements ContainerRequestFilter {
 
     private final Map<Class<?>, Set<ResourceRepresentation>> protectedResources;
     private final AuthzClient authzClient;
+    private final Map<Method, Set<String>> requiredScopes = new ConcurrentHashMap<>();
 
     @Context
     private ResourceInfo resourceInfo;
@@ -73,11 +76,7 @@ public class AuthorizationEnforcementFilter implements ContainerRequestFilter {
         Class<?> resourceClass = resourceInfo.getResourceClass();
         Method resourceMethod = resourceInfo.getResourceMethod();
         Enforce enforce = resourceMethod.getAnnotation(Enforce.class);
-        Set<String> requiredScopes = new HashSet<>();
-
-        if (enforce != null) {
-            requiredScopes.addAll(Arrays.asList(enforce.scopes()));
-        }
+        Set<String> requiredScopes = this.requiredScopes.computeIfAbsent(resourceMethod, method -> getRequiredScopes(enforce));
 
         ResourceRepresentation protectedResource = getResourceWithUri(resourceClass, enforce, requestContext.getUriInfo());
         RequestingPartyToken rpt = extractRequestingPartyToken(requestContext);
@@ -89,6 +88,14 @@ public class AuthorizationEnforcementFilter implements ContainerRequestFilter {
         }
     }
 
+    private Set<String> getRequiredScopes(Enforce enforce) {
+        if (enforce == null || enforce.scopes().length == 0) {
+            return Collections.emptySet();
+        }
+
+        return Collections.unmodifiableSet(new HashSet<>(Arrays.asList(enforce.scopes())));
+    }
+
     private ResourceRepresentation getResourceWithUri(Class<?> resourceClass, Enforce enforce, UriInfo uriInfo) {
         String uri = buildUri(uriInfo, enforce);
 
@@ -140,20 +147,20 @@ public class AuthorizationEnforcementFilter implements ContainerRequestFilter {
 
     private boolean isAuthorized(ResourceRepresentation protectedResource, Set<String> requiredScopes, RequestingPartyToken rpt) {
         if (rpt != null && rpt.isValid()) {
+            String resourceId = protectedResource.getId();
+
             for (Permission permission : rpt.getPermissions()) {
+                String resourceSetId = permission.getResourceSetId();
+
+                if (resourceSetId != null && !resourceSetId.equals(resourceId)) {
+                    continue;
+                }
+
                 Set<String> allowedScopes = permission.getScopes();
-                String resourceId = protectedResource.getId();
-
-                if (permission.getResourceSetId() != null) {
-                    if (permission.getResourceSetId().equals(resourceId)) {
-                        if ((allowedScopes.isEmpty() && requiredScopes.isEmpty()) || allowedScopes.containsAll(requiredScopes)) {
-                            return true;
-                        }
-                    }
-                } else {
-                    if ((allowedScopes.isEmpty() && requiredScopes.isEmpty()) || allowedScopes.containsAll(requiredScopes)) {
-                        return true;
-                    }
+
+                // an empty set of required scopes is always contained by the allowed scopes
+                if (requiredScopes.isEmpty() || allowedScopes.containsAll(requiredScopes)) {
+                    return true;
                 }
             }
         }
@@ -18,6 +18,8 @@
 package org.keycloak.authz.persistence.jpa.store;
 
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 import org.keycloak.authz.core.model.Resource;
 import org.keycloak.authz.core.model.ResourceServer;
@@ -85,9 +87,24 @@ public class JPAResourceStore implements ResourceStore {
         return entityManager.find(ResourceEntity.class, id);
     }
 
+    @Override
+    public List<Resource> findByIds(Collection<String> ids) {
+        if (ids.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        return Queries.inChunks(ids, chunk -> {
+            Query query = entityManager.createQuery("select distinct r from ResourceEntity r left join fetch r.scopes where r.id in (:ids)");
+
+            query.setParameter("ids", chunk);
+
+            return query.getResultList();
+        });
+    }
+
     @Override
     public List<Resource> findByOwner(String ownerId) {
-        Query query = entityManager.createQuery("from ResourceEntity where owner = :ownerId");
+        Query query = entityManager.createQuery("select distinct r from ResourceEntity r left join fetch r.scopes where r.owner = :ownerId");
 
         query.setParameter("ownerId", ownerId);
 
@@ -105,7 +122,7 @@ public class JPAResourceStore implements ResourceStore {
 
     @Override
     public List<Resource> findByScope(String... id) {
-        Query query = entityManager.createQuery("from ResourceEntity r inner join r.scopes s where s.id in (:scopeIds)");
+        Query query = entityManager.createQuery("select distinct r from ResourceEntity r inner join r.scopes s where s.id in (:scopeIds)");
 
         query.setParameter("scopeIds", Arrays.asList(id));
 
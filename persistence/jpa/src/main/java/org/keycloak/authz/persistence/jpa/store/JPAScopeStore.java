@@ -17,6 +17,8 @@
  */
 package org.keycloak.authz.persistence.jpa.store;
 
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 import org.keycloak.authz.core.model.ResourceServer;
 import org.keycloak.authz.core.model.Scope;
@@ -89,6 +91,22 @@ public class JPAScopeStore implements ScopeStore {
         }
     }
 
+    @Override
+    public List<Scope> findByNames(Collection<String> names, String resourceServerId) {
+        if (names.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        return Queries.inChunks(names, chunk -> {
+            Query query = entityManager.createQuery("from ScopeEntity where resourceServer.id = :serverId and name in (:names)");
+
+            query.setParameter("serverId", resourceServerId);
+            query.setParameter("names", chunk);
+
+            return query.getResultList();
+        });
+    }
+
     @Override
     public List<Scope> findByResourceServer(final String serverId) {
         Query query = entityManager.createQuery("from ScopeEntity where resourceServer.id = :serverId");
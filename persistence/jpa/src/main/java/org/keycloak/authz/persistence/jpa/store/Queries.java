@@ -0,0 +1,49 @@
+package org.keycloak.authz.persistence.jpa.store;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Utility methods for queries that take a collection of values as a parameter.
+ *
+ * @author <a href="mailto:psilva@redhat.com">Pedro Igor</a>
+ */
+final class Queries {
+
+    /**
+     * The maximum number of values bound to a single <code>in</code> clause, which keeps queries below the limit of parameters per statement
+     * of most databases.
+     */
+    static final int MAX_IN_PARAMETERS = 500;
+
+    private Queries() {
+    }
+
+    /**
+     * Runs the given <code>query</code> once for each chunk of at most {@link #MAX_IN_PARAMETERS} of the given <code>values</code> and
+     * returns all the results. Duplicate values are bound only once.
+     *
+     * @param values the values to bind to the <code>in</code> clause of the query
+     * @param query runs the query for a chunk of values
+     * @return the results of all chunks
+     */
+    static <V, R> List<R> inChunks(Collection<V> values, Function<List<V>, List<R>> query) {
+        // duplicates are dropped, so that no value is looked up by more than one chunk
+        List<V> list = new ArrayList<>(new LinkedHashSet<>(values));
+
+        if (list.size() <= MAX_IN_PARAMETERS) {
+            return query.apply(list);
+        }
+
+        List<R> result = new ArrayList<>();
+
+        for (int i = 0; i < list.size(); i += MAX_IN_PARAMETERS) {
+            result.addAll(query.apply(list.subList(i, Math.min(i + MAX_IN_PARAMETERS, list.size()))));
+        }
+
+        return result;
+    }
+}
@@ -5,8 +5,6 @@ import org.keycloak.authz.core.model.ResourceServer;
 import org.keycloak.authz.server.admin.resource.PolicyProviderAdminResource;
 import org.kohsuke.MetaInfServices;
 
-import java.text.SimpleDateFormat;
-
 /**
  * @author <a href="mailto:psilva@redhat.com">Pedro Igor</a>
  */
@@ -24,10 +22,17 @@ public class AggregatePolicyAdminResource implements PolicyProviderAdminResource
 
     @Override
     public void create(Policy policy) {
+        validateAssociatedPolicies(policy);
     }
 
     @Override
     public void update(Policy policy) {
+        validateAssociatedPolicies(policy);
+    }
+
+    private void validateAssociatedPolicies(Policy policy) {
+        // fails if the policy depends on itself, before the changes are committed
+        AggregatePolicyGraph.compile(policy, 0);
     }
 
     @Override
@@ -0,0 +1,274 @@
+package org.keycloak.authz.policy.provider.time;
+
+import org.keycloak.authz.core.Authorization;
+import org.keycloak.authz.core.Decision;
+import org.keycloak.authz.core.model.Policy;
+import org.keycloak.authz.core.policy.evaluation.Evaluation;
+import org.keycloak.authz.core.policy.provider.PolicyProvider;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * <p>An aggregate policy compiled into a directed acyclic graph of the policies it depends on, directly or through other aggregate policies.
+ *
+ * <p>Each distinct policy is a single node of the graph, no matter how many aggregate policies it is associated with. Nodes are kept in
+ * topological order, so that evaluating them in sequence evaluates every policy exactly once, after all the policies it depends on and
+ * without any recursion. The effect of a node is then reused by all the aggregate policies that depend on it.
+ *
+ * <p>Instances are immutable and can be shared by concurrent evaluations.
+ *
+ * @author <a href="mailto:psilva@redhat.com">Pedro Igor</a>
+ */
+public final class AggregatePolicyGraph {
+
+    static final String AGGREGATE_TYPE = "aggregate";
+
+    private static final byte NO_EFFECT = 0;
+    private static final byte PERMIT = 1;
+    private static final byte DENY = 2;
+
+    private final Policy[] policies;
+    private final int[][] children;
+    private final int[] parents;
+    private final long version;
+
+    private AggregatePolicyGraph(Policy[] policies, int[][] children, long version) {
+        this.policies = policies;
+        this.children = children;
+        this.parents = new int[policies.length];
+        this.version = version;
+
+        // a policy shared by several aggregate policies is evaluated once, on behalf of the first of them
+        for (int node = policies.length - 1; node >= 0; node--) {
+            if (children[node] != null) {
+                for (int child : children[node]) {
+                    if (this.parents[child] == 0) {
+                        this.parents[child] = node + 1;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Compiles the given aggregate <code>policy</code> into a graph.
+     *
+     * @param policy the aggregate policy
+     * @param version the version of the policies from which the graph is compiled
+     * @return the compiled graph, with the given policy as the last node
+     * @throws RuntimeException if the given policy depends on itself, directly or through other aggregate policies
+     */
+    public static AggregatePolicyGraph compile(Policy policy, long version) {
+        Compiler compiler = new Compiler();
+
+        compiler.visit(policy, new ArrayList<>());
+
+        return new AggregatePolicyGraph(compiler.policies.toArray(new Policy[compiler.policies.size()]), compiler.children.toArray(new int[compiler.children.size()][]), version);
+    }
+
+    /**
+     * Returns the version of the policies from which this graph was compiled.
+     *
+     * @return the version of this graph
+     */
+    public long getVersion() {
+        return this.version;
+    }
+
+    /**
+     * Returns the number of distinct policies in this graph, including the aggregate policy it was compiled from.
+     *
+     * @return the number of nodes
+     */
+    public int size() {
+        return this.policies.length;
+    }
+
+    /**
+     * Evaluates all the policies of this graph and delivers the outcome of the aggregate policy to the given <code>evaluation</code>.
+     *
+     * @param evaluation the evaluation of the aggregate policy
+     * @param authorization the authorization instance from where the providers of the policies are obtained
+     */
+    public void evaluate(Evaluation evaluation, Authorization authorization) {
+        byte[] effects = new byte[this.policies.length];
+        int root = this.policies.length - 1;
+
+        for (int node = 0; node < root; node++) {
+            Policy policy = this.policies[node];
+
+            if (this.children[node] == null) {
+                effects[node] = evaluatePolicy(evaluation, authorization, policy, this.policies[this.parents[node] - 1]);
+            } else {
+                effects[node] = evaluateAggregate(policy, this.children[node], effects);
+            }
+        }
+
+        byte effect = resolve(this.policies[root], this.children[root], effects);
+
+        if (effect == DENY) {
+            evaluation.deny();
+        } else if (effect == PERMIT) {
+            evaluation.grant();
+        }
+    }
+
+    private byte evaluatePolicy(Evaluation evaluation, Authorization authorization, Policy policy, Policy parentPolicy) {
+        PolicyProvider policyProvider = authorization.getPolicyProvider(policy);
+        EffectCollector collector = new EffectCollector();
+
+        authorization.getMetrics().evaluate(policyProvider, new Evaluation(evaluation.getPermission(), evaluation.getContext(), parentPolicy, policy, collector));
+
+        return collector.effect;
+    }
+
+    /**
+     * Returns the effect of an aggregate policy that is not the root, as delivered to the evaluation of its own parent.
+     */
+    private byte evaluateAggregate(Policy policy, int[] children, byte[] effects) {
+        byte effect = resolve(policy, children, effects);
+
+        if (effect == NO_EFFECT) {
+            return NO_EFFECT;
+        }
+
+        boolean negative = Policy.Logic.NEGATIVE.equals(policy.getLogic());
+
+        if (effect == PERMIT) {
+            return negative ? DENY : PERMIT;
+        }
+
+        return negative ? PERMIT : DENY;
+    }
+
+    /**
+     * Resolves the outcome of an aggregate policy from the effects of its associated policies: {@link #DENY} if none of them had an effect,
+     * {@link #PERMIT} if they grant access according to the decision strategy of the policy, {@link #NO_EFFECT} otherwise.
+     */
+    private byte resolve(Policy policy, int[] children, byte[] effects) {
+        int grantCount = 0;
+        boolean anyEffect = false;
+
+        for (int child : children) {
+            if (effects[child] != NO_EFFECT) {
+                anyEffect = true;
+            }
+
+            if (effects[child] == PERMIT) {
+                grantCount++;
+            }
+        }
+
+        if (!anyEffect) {
+            return DENY;
+        }
+
+        return isGranted(policy.getDecisionStrategy(), children.length, grantCount) ? PERMIT : NO_EFFECT;
+    }
+
+    private boolean isGranted(Policy.DecisionStrategy decisionStrategy, int total, int grantCount) {
+        int denyCount = total - grantCount;
+
+        if (decisionStrategy == null) {
+            decisionStrategy = Policy.DecisionStrategy.UNANIMOUS;
+        }
+
+        if (Policy.DecisionStrategy.AFFIRMATIVE.equals(decisionStrategy)) {
+            return grantCount > 0;
+        } else if (Policy.DecisionStrategy.UNANIMOUS.equals(decisionStrategy)) {
+            return denyCount == 0;
+        } else if (Policy.DecisionStrategy.CONSENSUS.equals(decisionStrategy)) {
+            return grantCount > denyCount;
+        }
+
+        return false;
+    }
+
+    private static final class Compiler {
+
+        final List<Policy> policies = new ArrayList<>();
+        final List<int[]> children = new ArrayList<>();
+        final Map<Object, Integer> nodes = new HashMap<>();
+
+        /**
+         * Adds the given <code>policy</code> and, if it is an aggregate policy, all its associated policies in post-order.
+         *
+         * @param policy the policy to visit
+         * @param path the aggregate policies being visited, from the root to the parent of the given policy
+         * @return the node of the given policy
+         */
+        int visit(Policy policy, List<Policy> path) {
+            Object key = key(policy);
+            Integer node = this.nodes.get(key);
+
+            if (node != null) {
+                return node;
+            }
+
+            // the root is always expanded, it is the aggregate policy being compiled
+            if (!path.isEmpty() && !AGGREGATE_TYPE.equals(policy.getType())) {
+                return add(key, policy, null);
+            }
+
+            for (Policy visiting : path) {
+                if (key.equals(key(visiting))) {
+                    throw new RuntimeException("Aggregate policy [" + visiting.getName() + "] depends on itself through policies " + names(path, visiting) + ".");
+                }
+            }
+
+            path.add(policy);
+
+            List<Policy> associatedPolicies = new ArrayList<>(policy.getAssociatedPolicies());
+            int[] children = new int[associatedPolicies.size()];
+
+            for (int i = 0; i < children.length; i++) {
+                children[i] = visit(associatedPolicies.get(i), path);
+            }
+
+            path.remove(path.size() - 1);
+
+            return add(key, policy, children);
+        }
+
+        private int add(Object key, Policy policy, int[] children) {
+            int node = this.policies.size();
+
+            this.policies.add(policy);
+            this.children.add(children);
+            this.nodes.put(key, node);
+
+            return node;
+        }
+
+        private static Object key(Policy policy) {
+            String id = policy.getId();
+
+            return id != null ? id : policy;
+        }
+
+        private static List<String> names(List<Policy> path, Policy from) {
+            List<String> names = new ArrayList<>();
+
+            for (int i = path.indexOf(from); i < path.size(); i++) {
+                names.add(path.get(i).getName());
+            }
+
+            names.add(from.getName());
+
+            return names;
+        }
+    }
+
+    private static final class EffectCollector implements Decision {
+
+        byte effect = NO_EFFECT;
+
+        @Override
+        public void onDecision(Evaluation evaluation) {
+            this.effect = Effect.PERMIT.equals(evaluation.getEffect()) ? PERMIT : DENY;
+        }
+    }
+}
@@ -18,52 +18,44 @@
 package org.keycloak.authz.policy.provider.time;
 
 import org.keycloak.authz.core.Authorization;
-import org.keycloak.authz.core.model.Policy;
-import org.keycloak.authz.core.policy.evaluation.DecisionResultCollector;
 import org.keycloak.authz.core.policy.evaluation.Evaluation;
-import org.keycloak.authz.core.policy.evaluation.Result;
 import org.keycloak.authz.core.policy.provider.PolicyProvider;
-import org.keycloak.authz.core.policy.provider.PolicyProviderFactory;
-
-import java.util.List;
 
 /**
  * @author <a href="mailto:psilva@redhat.com">Pedro Igor</a>
  */
 public class AggregatePolicyProvider implements PolicyProvider {
 
-    private final Policy policy;
     private final Authorization authorization;
+    private volatile AggregatePolicyGraph graph;
 
-    public AggregatePolicyProvider(Policy policy, Authorization authorization) {
-        this.policy = policy;
+    public AggregatePolicyProvider(Authorization authorization) {
         this.authorization = authorization;
     }
 
     @Override
     public void evaluate(Evaluation evaluation) {
-        //TODO: need to detect deep recursions
-        DecisionResultCollector decision = new DecisionResultCollector() {
-            @Override
-            protected void onComplete(List<Result> results) {
-                if (results.isEmpty()) {
-                    evaluation.deny();
-                } else {
-                    Result result = results.iterator().next();
+        getGraph(evaluation).evaluate(evaluation, this.authorization);
+    }
 
-                    if (Effect.PERMIT.equals(result.getEffect())) {
-                        evaluation.grant();
-                    }
-                }
-            }
-        };
+    /**
+     * Returns the {@link AggregatePolicyGraph} of the policy being evaluated. The graph is compiled again whenever the policies of the
+     * resource server change, which is tracked by the version of its {@link org.keycloak.authz.core.policy.index.PolicyIndex}.
+     */
+    private AggregatePolicyGraph getGraph(Evaluation evaluation) {
+        long version = this.authorization.getPolicyIndex(evaluation.getPermission().getResourceServer()).getVersion();
+        AggregatePolicyGraph graph = this.graph;
 
-        this.policy.getAssociatedPolicies().forEach(associatedPolicy -> {
-            PolicyProviderFactory providerFactory = authorization.getProviderFactory(associatedPolicy.getType());
-            PolicyProvider policyProvider = providerFactory.create(associatedPolicy);
-            policyProvider.evaluate(new Evaluation(evaluation.getPermission(), evaluation.getContext(), policy, associatedPolicy, decision));
-        });
+        if (graph == null || graph.getVersion() != version) {
+            graph = AggregatePolicyGraph.compile(evaluation.getPolicy(), version);
+            this.graph = graph;
+        }
 
-        decision.onComplete();
+        return graph;
+    }
+
+    @Override
+    public boolean isReusable() {
+        return true;
     }
 }
@@ -6,6 +6,10 @@ import org.keycloak.authz.core.policy.provider.PolicyProvider;
 import org.keycloak.authz.core.policy.provider.PolicyProviderFactory;
 import org.kohsuke.MetaInfServices;
 
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.Set;
+
 /**
  * @author <a href="mailto:psilva@redhat.com">Pedro Igor</a>
  */
@@ -36,10 +40,41 @@ public class AggregatePolicyProviderFactory implements PolicyProviderFactory {
 
     @Override
     public PolicyProvider create(Policy policy) {
-        return new AggregatePolicyProvider(policy, this.authorization);
+        return new AggregatePolicyProvider(this.authorization);
     }
 
     @Override
     public void dispose() {
     }
+
+    @Override
+    public Set<Dependency> getDependencies(Policy policy) {
+        // an aggregate policy depends on whatever its associated policies depend on
+        Set<Dependency> dependencies = EnumSet.noneOf(Dependency.class);
+
+        collectDependencies(policy, dependencies, new HashSet<>());
+
+        return dependencies;
+    }
+
+    private void collectDependencies(Policy policy, Set<Dependency> dependencies, Set<Object> visited) {
+        if (!visited.add(policy.getId() != null ? policy.getId() : policy)) {
+            return;
+        }
+
+        for (Policy associatedPolicy : policy.getAssociatedPolicies()) {
+            if (getType().equals(associatedPolicy.getType())) {
+                collectDependencies(associatedPolicy, dependencies, visited);
+                continue;
+            }
+
+            PolicyProviderFactory factory = this.authorization.getProviderFactory(associatedPolicy.getType());
+
+            if (factory == null) {
+                dependencies.addAll(EnumSet.allOf(Dependency.class));
+            } else {
+                dependencies.addAll(factory.getDependencies(associatedPolicy));
+            }
+        }
+    }
 }
@@ -0,0 +1,34 @@
+package org.keycloak.authz.policy.provider.drools;
+
+import org.keycloak.authz.core.policy.evaluation.Evaluation;
+import org.keycloak.authz.core.policy.provider.BatchPolicyProvider;
+
+import java.util.List;
+
+/**
+ * Evaluates Drools policies for all the permissions of a request at once. Each {@link Evaluation} is inserted as a separate fact into the
+ * same session and the rules are fired once, granting or denying each evaluation they match. Rules should therefore match a single
+ * {@link Evaluation} at a time, as they would do when evaluations are inserted into their own session.
+ *
+ * @author <a href="mailto:psilva@redhat.com">Pedro Igor</a>
+ */
+public class DroolsBatchPolicyProvider implements BatchPolicyProvider {
+
+    private final KieContainerRegistry.Entry policy;
+
+    DroolsBatchPolicyProvider(KieContainerRegistry.Entry policy) {
+        this.policy = policy;
+    }
+
+    @Override
+    public void evaluate(List<Evaluation> evaluations) {
+        if (!evaluations.isEmpty()) {
+            this.policy.get(evaluations.get(0).getContext().getDeadline()).evaluate(evaluations);
+        }
+    }
+
+    @Override
+    public void evaluate(Evaluation evaluation) {
+        this.policy.get(evaluation.getContext().getDeadline()).evaluate(evaluation);
+    }
+}
@@ -1,71 +1,137 @@
 package org.keycloak.authz.policy.provider.drools;
 
-import org.keycloak.authz.core.model.Policy;
 import org.keycloak.authz.core.policy.evaluation.Evaluation;
 import org.kie.api.KieServices;
-import org.kie.api.builder.KieScanner;
+import org.kie.api.command.KieCommands;
 import org.kie.api.runtime.KieContainer;
 import org.kie.api.runtime.KieSession;
+import org.kie.api.runtime.StatelessKieSession;
 
-import java.util.concurrent.TimeUnit;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
 
 /**
+ * <p>Evaluates the rules of a {@link KieContainer} using the session with the name configured in the policy.
+ *
+ * <p>By default, sessions are kept in a {@link KieSessionPool} of <code>sessionPoolSize</code> sessions, which defaults to {@link #SESSION_POOL_SIZE}.
+ * A size of zero disables pooling, so every evaluation creates and disposes its own session. When <code>statelessSession</code> is set, the
+ * rules are evaluated by a {@link StatelessKieSession} from the knowledge base of the session instead, executing the insertion of the
+ * {@link Evaluation} and the firing of the rules as a single batch of commands.
+ *
+ * <p>Evaluations can also be evaluated in bulk, in which case all of them are inserted into the same session before firing the rules. See
+ * {@link DroolsBatchPolicyProvider}.
+ *
  * @author <a href="mailto:psilva@redhat.com">Pedro Igor</a>
  */
 class DroolsPolicy {
 
     private static final int SESSION_POOL_SIZE = 10;
 
-    private final KieContainer kc;
-    private final KieScanner kcs;
     private final String sessionName;
+    private final KieSessionPool sessionPool;
+    private final StatelessKieSession statelessSession;
+    private final KieCommands commands;
 
-    DroolsPolicy(KieServices ks, Policy associatedPolicy) {
-        String groupId = associatedPolicy.getConfig().get("mavenArtifactGroupId");
-        String artifactId = associatedPolicy.getConfig().get("mavenArtifactId");
-        String version = associatedPolicy.getConfig().get("mavenArtifactVersion");
-        String scannerPeriod = associatedPolicy.getConfig().get("scannerPeriod");
-        String scannerPeriodUnit = associatedPolicy.getConfig().get("scannerPeriodUnit");
-        this.sessionName = associatedPolicy.getConfig().get("sessionName");
+    DroolsPolicy(KieServices ks, KieContainer kc, Map<String, String> config) {
+        this.sessionName = config.get("sessionName");
 
-        this.kc = ks.newKieContainer(ks.newReleaseId(groupId, artifactId, version));
-        this.kcs = ks.newKieScanner(this.kc);
-        this.kcs.start(toMillis(scannerPeriod, scannerPeriodUnit));
-
-        KieSession session = this.kc.newKieSession(this.sessionName);
+        KieSession session = kc.newKieSession(this.sessionName);
 
         if (session == null) {
             throw new RuntimeException("Could not obtain session with name [" + this.sessionName + "].");
         }
 
-        session.dispose();
+        try {
+            if (Boolean.valueOf(config.get("statelessSession"))) {
+                this.sessionPool = null;
+                this.statelessSession = session.getKieBase().newStatelessKieSession();
+                this.commands = ks.getCommands();
+            } else {
+                this.sessionPool = new KieSessionPool(kc, this.sessionName, toPoolSize(config.get("sessionPoolSize")));
+                this.statelessSession = null;
+                this.commands = null;
+            }
+        } finally {
+            session.dispose();
+        }
     }
 
     void evaluate(Evaluation evaluation) {
-        KieSession session = this.kc.newKieSession(this.sessionName);
+        if (this.statelessSession != null) {
+            this.statelessSession.execute(this.commands.newBatchExecution(Arrays.asList(this.commands.newInsert(evaluation), this.commands.newFireAllRules())));
+            return;
+        }
 
-        session.insert(evaluation);
-        session.fireAllRules();
+        KieSession session = this.sessionPool.acquire(evaluation.getContext().getDeadline());
+        boolean reusable = false;
 
-        session.dispose();
+        try {
+            session.insert(evaluation);
+            session.fireAllRules();
+            reusable = true;
+        } finally {
+            this.sessionPool.release(session, reusable);
+        }
     }
 
+    /**
+     * Evaluates all the given <code>evaluations</code> within the same session, inserting each one as a fact and firing the rules once.
+     *
+     * @param evaluations the evaluations, which share the same context
+     */
+    void evaluate(List<Evaluation> evaluations) {
+        if (evaluations.isEmpty()) {
+            return;
+        }
+
+        if (this.statelessSession != null) {
+            this.statelessSession.execute(this.commands.newBatchExecution(Arrays.asList(this.commands.newInsertElements(evaluations), this.commands.newFireAllRules())));
+            return;
+        }
+
+        KieSession session = this.sessionPool.acquire(evaluations.get(0).getContext().getDeadline());
+        boolean reusable = false;
+
+        try {
+            for (Evaluation evaluation : evaluations) {
+                session.insert(evaluation);
+            }
+
+            session.fireAllRules();
+            reusable = true;
+        } finally {
+            this.sessionPool.release(session, reusable);
+        }
+    }
+
+    /**
+     * Returns the metrics of the session pool of this policy.
+     *
+     * @return the metrics or {@code null} if this policy uses a stateless session
+     */
+    SessionPoolMetrics getSessionPoolMetrics() {
+        return this.sessionPool != null ? this.sessionPool.getMetrics() : null;
+    }
+
+    /**
+     * Disposes the sessions of this policy. Evaluations in flight can still complete, their sessions are disposed once released.
+     */
     void dispose() {
-        this.kcs.stop();
+        if (this.sessionPool != null) {
+            this.sessionPool.dispose();
+        }
     }
 
-    private long toMillis(final String scannerPeriod, final String scannerPeriodUnit) {
-        switch (scannerPeriodUnit) {
-            case "Seconds":
-                return TimeUnit.SECONDS.toMillis(Integer.valueOf(scannerPeriod));
-            case "Minutes":
-                return TimeUnit.MINUTES.toMillis(Integer.valueOf(scannerPeriod));
-            case "Hours":
-                return TimeUnit.HOURS.toMillis(Integer.valueOf(scannerPeriod));
-            case "Days":
-                return TimeUnit.DAYS.toMillis(Integer.valueOf(scannerPeriod));
+    private int toPoolSize(String sessionPoolSize) {
+        if (sessionPoolSize == null || sessionPoolSize.trim().isEmpty()) {
+            return SESSION_POOL_SIZE;
         }
 
-        throw new RuntimeException("Invalid time period [" + scannerPeriodUnit + "].");
+        try {
+            return Integer.parseInt(sessionPoolSize.trim());
+        } catch (NumberFormatException cause) {
+            throw new RuntimeException("Invalid session pool size [" + sessionPoolSize + "].", cause);
+        }
     }
 }
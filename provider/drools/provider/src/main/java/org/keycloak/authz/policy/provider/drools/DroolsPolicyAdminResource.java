@@ -9,11 +9,14 @@ import org.kie.api.runtime.KieContainer;
 import org.kohsuke.MetaInfServices;
 
 import javax.ws.rs.Consumes;
+import javax.ws.rs.GET;
 import javax.ws.rs.POST;
 import javax.ws.rs.Path;
 import javax.ws.rs.Produces;
 import javax.ws.rs.core.Context;
 import javax.ws.rs.core.Response;
+import java.util.Map;
+import java.util.TreeMap;
 
 /**
  * @author <a href="mailto:psilva@redhat.com">Pedro Igor</a>
@@ -69,6 +72,38 @@ public class DroolsPolicyAdminResource implements PolicyProviderAdminResource {
         return Response.ok(getContainer(policy).getKieSessionNamesInKieBase(policy.getConfig().get("moduleName"))).build();
     }
 
+    /**
+     * Returns the metrics of the session pools of the Drools policies of the resource server, keyed by policy identifier.
+     */
+    @Path("/sessionPools")
+    @GET
+    @Produces("application/json")
+    public Response getSessionPools() {
+        Map<String, SessionPoolMetrics> sessionPools = new TreeMap<>();
+
+        this.authorizationManager.getStoreFactory().getPolicyStore().findByResourceServer(this.resourceServer.getId()).forEach(policy -> {
+            if (getType().equals(policy.getType())) {
+                SessionPoolMetrics metrics = this.provider.getSessionPoolMetrics(policy);
+
+                if (metrics != null) {
+                    sessionPools.put(policy.getId(), metrics);
+                }
+            }
+        });
+
+        return Response.ok(sessionPools).build();
+    }
+
+    /**
+     * Returns the metrics of the containers built for Drools policies, for all resource servers.
+     */
+    @Path("/containers")
+    @GET
+    @Produces("application/json")
+    public Response getContainers() {
+        return Response.ok(this.provider.getContainerMetrics()).build();
+    }
+
     private KieContainer getContainer(PolicyRepresentation policy) {
         String groupId = policy.getConfig().get("mavenArtifactGroupId");
         String artifactId = policy.getConfig().get("mavenArtifactId");
@@ -25,14 +25,14 @@ import org.keycloak.authz.core.policy.provider.PolicyProvider;
  */
 public class DroolsPolicyProvider implements PolicyProvider {
 
-    private final DroolsPolicy policy;
+    private final KieContainerRegistry.Entry policy;
 
-    public DroolsPolicyProvider(DroolsPolicy policy) {
+    DroolsPolicyProvider(KieContainerRegistry.Entry policy) {
         this.policy = policy;
     }
 
     @Override
     public void evaluate(Evaluation evaluationt) {
-        this.policy.evaluate(evaluationt);
+        this.policy.get(evaluationt.getContext().getDeadline()).evaluate(evaluationt);
     }
 }
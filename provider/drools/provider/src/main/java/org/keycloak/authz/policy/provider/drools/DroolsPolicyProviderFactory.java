@@ -8,17 +8,17 @@ import org.kie.api.KieServices;
 import org.kie.api.runtime.KieContainer;
 import org.kohsuke.MetaInfServices;
 
-import java.util.HashMap;
-import java.util.Map;
-
 /**
+ * <p>Policies are evaluated by a {@link DroolsBatchPolicyProvider}, so that all the permissions of a request are evaluated within a single
+ * session, unless <code>batch</code> is set to <code>false</code> in their configuration.
+ *
  * @author <a href="mailto:psilva@redhat.com">Pedro Igor</a>
  */
 @MetaInfServices(PolicyProviderFactory.class)
 public class DroolsPolicyProviderFactory implements PolicyProviderFactory {
 
     private KieServices ks;
-    private final Map<String, DroolsPolicy> containers = new HashMap<>();
+    private KieContainerRegistry containers;
 
     @Override
     public String getName() {
@@ -38,35 +38,67 @@ public class DroolsPolicyProviderFactory implements PolicyProviderFactory {
     @Override
     public void init(Authorization authorization) {
         this.ks = KieServices.Factory.get();
-        authorization.getStoreFactory().getPolicyStore().findByType(getType()).forEach(this::update);
+        this.containers = KieContainerRegistry.acquire();
+        // containers are built in the background, evaluations wait for them if needed
+        authorization.getStoreFactory().getPolicyStore().findByType(getType()).forEach(this.containers::register);
     }
 
     @Override
     public PolicyProvider create(Policy policy) {
-        if (!this.containers.containsKey(policy.getId())) {
-            update(policy);
+        KieContainerRegistry.Entry droolsPolicy = this.containers.getEntry(policy);
+
+        if (Boolean.parseBoolean(policy.getConfig().getOrDefault("batch", Boolean.TRUE.toString()))) {
+            return new DroolsBatchPolicyProvider(droolsPolicy);
         }
 
-        return new DroolsPolicyProvider(this.containers.get(policy.getId()));
+        return new DroolsPolicyProvider(droolsPolicy);
     }
 
     @Override
     public void dispose() {
-        this.containers.values().forEach(DroolsPolicy::dispose);
-        this.containers.clear();
+        KieContainerRegistry.release(this.containers);
     }
 
-    void update(Policy policy) {
-        remove(policy);
-        this.containers.put(policy.getId(), new DroolsPolicy(this.ks, policy));
+    /**
+     * Builds the container of the given <code>policy</code> from its current configuration and replaces the one in use once built. Evaluations
+     * in flight complete with the previous container. A new build of an artifact already in use, e.g.: a redeployed <code>SNAPSHOT</code>,
+     * is picked up as well.
+     *
+     * @param policy a Drools policy that was created or updated
+     */
+    public void update(Policy policy) {
+        this.containers.update(policy);
     }
 
-    void remove(Policy policy) {
-        DroolsPolicy holder = this.containers.remove(policy.getId());
+    /**
+     * Releases the container of the given <code>policy</code>.
+     *
+     * @param policy a Drools policy that was removed
+     */
+    public void remove(Policy policy) {
+        this.containers.remove(policy);
+    }
 
-        if (holder != null) {
-            holder.dispose();
-        }
+    /**
+     * Returns the metrics of the sessions pooled for the given <code>policy</code>.
+     *
+     * @param policy a Drools policy
+     * @return the metrics or {@code null} if the policy was not loaded yet or if it uses a stateless session
+     */
+    public SessionPoolMetrics getSessionPoolMetrics(Policy policy) {
+        KieContainerRegistry.Entry entry = this.containers.findEntry(policy);
+        DroolsPolicy droolsPolicy = entry != null ? entry.getIfBuilt() : null;
+
+        return droolsPolicy != null ? droolsPolicy.getSessionPoolMetrics() : null;
+    }
+
+    /**
+     * Returns the metrics of the containers built for Drools policies, by all the factories of the JVM.
+     *
+     * @return the metrics
+     */
+    public KieContainerMetrics getContainerMetrics() {
+        return this.containers.getMetrics();
     }
 
     KieContainer getKieContainer(String groupId, String artifactId, String version) {
@@ -0,0 +1,118 @@
+package org.keycloak.authz.policy.provider.drools;
+
+import org.keycloak.authz.core.metrics.LatencyHistogram;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * A point-in-time view of the metrics of the containers built for Drools policies. Times are in nanoseconds.
+ *
+ * @author <a href="mailto:psilva@redhat.com">Pedro Igor</a>
+ */
+public final class KieContainerMetrics {
+
+    private final long builds;
+    private final long failures;
+    private final long updates;
+    private final LatencyHistogram.Snapshot buildTime;
+    private final Map<String, Container> containers;
+
+    KieContainerMetrics(long builds, long failures, long updates, LatencyHistogram.Snapshot buildTime, Map<String, Container> containers) {
+        this.builds = builds;
+        this.failures = failures;
+        this.updates = updates;
+        this.buildTime = buildTime;
+        this.containers = Collections.unmodifiableMap(containers);
+    }
+
+    /**
+     * Returns how many containers were built so far.
+     *
+     * @return the number of containers built
+     */
+    public long getBuilds() {
+        return this.builds;
+    }
+
+    /**
+     * Returns how many times a container or a policy failed to build, or a container failed to scan for new versions of its artifact.
+     *
+     * @return the number of failures
+     */
+    public long getFailures() {
+        return this.failures;
+    }
+
+    /**
+     * Returns how many times a policy was replaced because a new version of its artifact was found.
+     *
+     * @return the number of updates
+     */
+    public long getUpdates() {
+        return this.updates;
+    }
+
+    /**
+     * Returns how long it took to build a container, including the resolution of its artifact.
+     *
+     * @return the time spent building containers
+     */
+    public LatencyHistogram.Snapshot getBuildTime() {
+        return this.buildTime;
+    }
+
+    /**
+     * Returns the metrics of each container in use.
+     *
+     * @return a map where the key is the <code>groupId:artifactId:version</code> of the artifact of the container
+     */
+    public Map<String, Container> getContainers() {
+        return this.containers;
+    }
+
+    /**
+     * The metrics of a container, shared by all the policies pointing to the same artifact.
+     */
+    public static final class Container {
+
+        private final int policies;
+        private final long allocatedBytes;
+        private final long lastBuildTime;
+
+        Container(int policies, long allocatedBytes, long lastBuildTime) {
+            this.policies = policies;
+            this.allocatedBytes = allocatedBytes;
+            this.lastBuildTime = lastBuildTime;
+        }
+
+        /**
+         * Returns the number of policies using the container.
+         *
+         * @return the number of policies
+         */
+        public int getPolicies() {
+            return this.policies;
+        }
+
+        /**
+         * Returns the number of bytes allocated to build the container and the knowledge bases of its policies, including the versions
+         * found by the scanner. It is an upper bound of the heap retained by the container, which is not measured directly. Zero if the
+         * JVM does not report allocations.
+         *
+         * @return the number of bytes allocated
+         */
+        public long getAllocatedBytes() {
+            return this.allocatedBytes;
+        }
+
+        /**
+         * Returns how long it took to build the current version of the container.
+         *
+         * @return the build time
+         */
+        public long getLastBuildTime() {
+            return this.lastBuildTime;
+        }
+    }
+}
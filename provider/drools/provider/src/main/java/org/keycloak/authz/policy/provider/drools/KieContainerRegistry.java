@@ -0,0 +1,690 @@
+package org.keycloak.authz.policy.provider.drools;
+
+import org.keycloak.authz.core.Deadline;
+import org.keycloak.authz.core.EvaluationTimeoutException;
+import org.keycloak.authz.core.metrics.LatencyHistogram;
+import org.keycloak.authz.core.model.Policy;
+import org.kie.api.KieServices;
+import org.kie.api.builder.KieModule;
+import org.kie.api.builder.KieScanner;
+import org.kie.api.builder.ReleaseId;
+import org.kie.api.runtime.KieContainer;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * <p>Keeps the {@link DroolsPolicy} of each Drools policy, built from a {@link KieContainer} for the Maven artifact configured in the policy.
+ * Policies pointing to the same artifact, i.e.: the same group id, artifact id and version, share the same container and, when they use
+ * sessions of the same knowledge base, the same knowledge base. A container is released once no policy references it anymore.
+ *
+ * <p>Containers are built in the background, in parallel, either when a policy is registered at boot or when a policy is first evaluated.
+ * Evaluations wait for the container of their policy until their {@link Deadline} passes. A policy that failed to build is built again
+ * on the next evaluation.
+ *
+ * <p>Policies are never updated in place. When a policy is updated by an administrator, or when the {@link KieScanner} of a container finds
+ * a new version of its artifact, a new policy is built while evaluations keep using the current one, which is then atomically replaced.
+ * Evaluations in flight complete with the container they started with. An update also looks for a new version of an artifact that was
+ * already built, so that a redeployed <code>SNAPSHOT</code> is picked up without waiting for the next scan. Released versions are
+ * immutable in Maven, a new build of them requires a new version.
+ *
+ * <p>Scanners are not attached to the containers used by evaluations, which would update them in place, but to separate containers whose
+ * knowledge bases are never built. All scanners are triggered by a single thread, once per artifact, at the shortest period configured by
+ * the <code>scannerPeriod</code> and <code>scannerPeriodUnit</code> of the policies sharing the artifact. Whenever a scanner installs a new
+ * version of the artifact, a new container is built and every policy sharing the artifact is built again from it.
+ *
+ * <p>A single instance is shared by all the {@link DroolsPolicyProviderFactory} instances of the JVM, e.g.: those of the administration,
+ * UMA and entitlement APIs, so that each artifact is built and scanned once. It is obtained with {@link #acquire()} and disposed once every
+ * reference is given back with {@link #release(KieContainerRegistry)}.
+ *
+ * @author <a href="mailto:psilva@redhat.com">Pedro Igor</a>
+ */
+class KieContainerRegistry {
+
+    private static KieContainerRegistry shared;
+    private static int references;
+
+    /**
+     * Returns the shared instance, creating it if this is the first reference to it.
+     *
+     * @return the shared instance
+     */
+    static synchronized KieContainerRegistry acquire() {
+        if (shared == null) {
+            shared = new KieContainerRegistry(KieServices.Factory.get());
+        }
+
+        references++;
+
+        return shared;
+    }
+
+    /**
+     * Releases a reference to the shared instance obtained from {@link #acquire()}. The instance is disposed once there are no references
+     * left, along with its threads, containers and scanners.
+     *
+     * @param registry the shared instance
+     */
+    static synchronized void release(KieContainerRegistry registry) {
+        if (registry != null && registry == shared && --references == 0) {
+            shared.dispose();
+            shared = null;
+        }
+    }
+
+    private final KieServices ks;
+    private final ConcurrentMap<String, Entry> entries = new ConcurrentHashMap<>();
+    private final Map<String, SharedContainer> containers = new HashMap<>();
+    private final ExecutorService builder;
+    private final ScheduledExecutorService scanner;
+    private final AtomicLong builds = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+    private final AtomicLong updates = new AtomicLong();
+    private final LatencyHistogram buildTime = new LatencyHistogram();
+
+    private KieContainerRegistry(KieServices ks) {
+        this.ks = ks;
+        this.builder = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(), new DroolsThreadFactory("keycloak-authz-drools-builder-"));
+        this.scanner = Executors.newSingleThreadScheduledExecutor(new DroolsThreadFactory("keycloak-authz-drools-scanner-"));
+    }
+
+    /**
+     * Starts building the container of the given <code>policy</code> in the background.
+     *
+     * @param policy a Drools policy
+     */
+    void register(Policy policy) {
+        getEntry(policy);
+    }
+
+    /**
+     * Returns the entry of the given <code>policy</code>, from where the current {@link DroolsPolicy} is obtained. The container of the
+     * policy starts building in the background if it was not registered yet.
+     *
+     * @param policy a Drools policy
+     * @return the entry of the policy
+     */
+    Entry getEntry(Policy policy) {
+        Entry entry = this.entries.get(policy.getId());
+
+        if (entry != null) {
+            return entry;
+        }
+
+        Entry created = new Entry(policy);
+        entry = this.entries.putIfAbsent(policy.getId(), created);
+
+        if (entry != null) {
+            return entry;
+        }
+
+        acquire(created);
+        created.startBuilding();
+
+        return created;
+    }
+
+    /**
+     * Returns the entry of the given <code>policy</code>, without building its container.
+     *
+     * @param policy a Drools policy
+     * @return the entry of the policy or {@code null} if the policy was not registered yet
+     */
+    Entry findEntry(Policy policy) {
+        return this.entries.get(policy.getId());
+    }
+
+    /**
+     * Builds the given <code>policy</code> in the calling thread and replaces the current one once built, failing if it can not be built.
+     * Evaluations keep using the current policy until then. If the container of the artifact was already built and a new version of the
+     * artifact is found, a new container is built first and the other policies sharing the artifact are built again from it.
+     *
+     * @param policy a Drools policy
+     */
+    void update(Policy policy) {
+        Entry entry = new Entry(policy);
+
+        acquire(entry);
+
+        try {
+            KieContainer kc = entry.container.refresh(entry);
+
+            entry.current.complete(build(entry, kc != null ? kc : entry.container.await()));
+        } catch (RuntimeException cause) {
+            release(entry);
+            throw cause;
+        }
+
+        Entry previous = this.entries.put(policy.getId(), entry);
+
+        if (previous != null) {
+            previous.close(entry);
+        }
+    }
+
+    void remove(Policy policy) {
+        Entry entry = this.entries.remove(policy.getId());
+
+        if (entry != null) {
+            entry.close(null);
+        }
+    }
+
+    /**
+     * Returns the metrics of the containers built so far.
+     *
+     * @return the metrics
+     */
+    KieContainerMetrics getMetrics() {
+        Map<String, KieContainerMetrics.Container> containers = new HashMap<>();
+
+        synchronized (this) {
+            for (SharedContainer container : this.containers.values()) {
+                containers.put(container.key, new KieContainerMetrics.Container(container.entries.size(), container.allocatedBytes.get(), container.lastBuildTime));
+            }
+        }
+
+        return new KieContainerMetrics(this.builds.get(), this.failures.get(), this.updates.get(), this.buildTime.snapshot(), containers);
+    }
+
+    private void dispose() {
+        this.scanner.shutdownNow();
+        this.builder.shutdownNow();
+        this.entries.values().forEach(entry -> entry.close(null));
+        this.entries.clear();
+    }
+
+    /**
+     * Associates the given <code>entry</code> with the container of its artifact, creating the container if it does not exist yet.
+     */
+    private synchronized void acquire(Entry entry) {
+        if (entry.closed) {
+            // removed before being associated with a container
+            return;
+        }
+
+        SharedContainer container = this.containers.get(entry.containerKey);
+
+        if (container == null) {
+            container = new SharedContainer(entry.containerKey, entry.releaseId);
+            this.containers.put(entry.containerKey, container);
+        }
+
+        container.entries.add(entry);
+        container.schedule(entry.scannerPeriod);
+        entry.container = container;
+    }
+
+    /**
+     * Dissociates the given <code>entry</code> from its container, which is released once no other entry uses it.
+     */
+    private synchronized void release(Entry entry) {
+        SharedContainer container = entry.container;
+
+        if (container == null || !container.entries.remove(entry) || !container.entries.isEmpty()) {
+            return;
+        }
+
+        this.containers.remove(container.key);
+        container.close();
+    }
+
+    private synchronized List<Entry> getEntries(SharedContainer container) {
+        return new ArrayList<>(container.entries);
+    }
+
+    private KieContainer build(SharedContainer container) {
+        long start = System.nanoTime();
+        long allocated = getAllocatedBytes();
+        KieContainer kc;
+
+        try {
+            kc = this.ks.newKieContainer(container.releaseId);
+        } catch (RuntimeException cause) {
+            this.failures.incrementAndGet();
+            throw cause;
+        }
+
+        long elapsed = System.nanoTime() - start;
+
+        this.builds.incrementAndGet();
+        this.buildTime.record(elapsed);
+        container.lastBuildTime = elapsed;
+        container.addAllocatedBytes(allocated);
+
+        return kc;
+    }
+
+    private DroolsPolicy build(Entry entry, KieContainer kc) {
+        long allocated = getAllocatedBytes();
+        DroolsPolicy policy;
+
+        try {
+            // the first policy using a session of a knowledge base also builds the knowledge base
+            policy = new DroolsPolicy(this.ks, kc, entry.config);
+        } catch (RuntimeException cause) {
+            this.failures.incrementAndGet();
+            throw cause;
+        }
+
+        entry.container.addAllocatedBytes(allocated);
+
+        return policy;
+    }
+
+    private long toMillis(final String scannerPeriod, final String scannerPeriodUnit) {
+        switch (scannerPeriodUnit) {
+            case "Seconds":
+                return TimeUnit.SECONDS.toMillis(Integer.valueOf(scannerPeriod));
+            case "Minutes":
+                return TimeUnit.MINUTES.toMillis(Integer.valueOf(scannerPeriod));
+            case "Hours":
+                return TimeUnit.HOURS.toMillis(Integer.valueOf(scannerPeriod));
+            case "Days":
+                return TimeUnit.DAYS.toMillis(Integer.valueOf(scannerPeriod));
+        }
+
+        throw new RuntimeException("Invalid time period [" + scannerPeriodUnit + "].");
+    }
+
+    /**
+     * Returns the number of bytes allocated so far by the current thread or a negative value if the JVM does not support it.
+     */
+    private static long getAllocatedBytes() {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+
+        if (threads instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean) threads).getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+
+        return -1;
+    }
+
+    /**
+     * The container of an artifact, shared by the entries of all the policies pointing to the artifact, along with the scanner that looks
+     * for new versions of the artifact.
+     */
+    private final class SharedContainer {
+
+        private final String key;
+        private final ReleaseId releaseId;
+        private final Set<Entry> entries = new LinkedHashSet<>();
+        private final AtomicLong allocatedBytes = new AtomicLong();
+        private volatile long lastBuildTime;
+        private final Object scanLock = new Object();
+        private CompletableFuture<KieContainer> current;
+        private ScheduledFuture<?> scanning;
+        private long scannerPeriod;
+        private KieScanner kieScanner;
+        private boolean closed;
+
+        private SharedContainer(String key, ReleaseId releaseId) {
+            this.key = key;
+            this.releaseId = releaseId;
+        }
+
+        /**
+         * Returns the current container, building it in the background if it was not built yet or if it failed to build.
+         */
+        private synchronized CompletableFuture<KieContainer> get() {
+            if (this.current == null || this.current.isCompletedExceptionally()) {
+                this.current = CompletableFuture.supplyAsync(() -> build(this), builder);
+            }
+
+            return this.current;
+        }
+
+        /**
+         * Returns the current container, building it in the calling thread if it was not built yet or if it failed to build.
+         */
+        private KieContainer await() {
+            CompletableFuture<KieContainer> current;
+            boolean building = false;
+
+            synchronized (this) {
+                if (this.current == null || this.current.isCompletedExceptionally()) {
+                    this.current = new CompletableFuture<>();
+                    building = true;
+                }
+
+                current = this.current;
+            }
+
+            if (building) {
+                try {
+                    current.complete(build(this));
+                } catch (RuntimeException cause) {
+                    current.completeExceptionally(cause);
+                }
+            }
+
+            try {
+                return current.get();
+            } catch (InterruptedException cause) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("Interrupted while waiting for container [" + this.key + "].", cause);
+            } catch (ExecutionException cause) {
+                throw new RuntimeException("Failed to build container [" + this.key + "].", cause.getCause());
+            }
+        }
+
+        /**
+         * Scans the artifact at the given <code>period</code>, unless it is already scanned more often.
+         */
+        private synchronized void schedule(long period) {
+            if (this.scanning != null && this.scannerPeriod <= period) {
+                return;
+            }
+
+            if (this.scanning != null) {
+                this.scanning.cancel(false);
+            }
+
+            this.scannerPeriod = period;
+            this.scanning = scanner.scheduleWithFixedDelay(this::scan, period, period, TimeUnit.MILLISECONDS);
+        }
+
+        private void scan() {
+            try {
+                if (!scanNow()) {
+                    return;
+                }
+
+                CompletableFuture<KieContainer> updated = CompletableFuture.supplyAsync(() -> build(this), builder);
+
+                updated.thenAccept(kc -> reload(updated, null));
+            } catch (RuntimeException cause) {
+                // failures are accounted by the metrics, the current container is kept and the next scan tries again
+                failures.incrementAndGet();
+            }
+        }
+
+        /**
+         * Looks for a new version of the artifact in the calling thread and, if one is found once the container was built, builds a new
+         * container and builds again every other policy sharing the artifact from it. The policy of the given <code>entry</code> is left
+         * to the caller.
+         *
+         * @return the new container or {@code null} if the container was not built yet or if no new version was found
+         */
+        private KieContainer refresh(Entry entry) {
+            synchronized (this) {
+                if (this.current == null || !this.current.isDone() || this.current.isCompletedExceptionally()) {
+                    // built from the latest version once awaited
+                    return null;
+                }
+            }
+
+            try {
+                if (!scanNow()) {
+                    return null;
+                }
+            } catch (RuntimeException cause) {
+                // the current container is kept, as when scanning in the background
+                failures.incrementAndGet();
+                return null;
+            }
+
+            CompletableFuture<KieContainer> updated = CompletableFuture.completedFuture(build(this));
+
+            reload(updated, entry);
+
+            return updated.join();
+        }
+
+        /**
+         * Installs a new version of the artifact into the repository, if any.
+         *
+         * @return if a new version was installed
+         */
+        private boolean scanNow() {
+            synchronized (this.scanLock) {
+                if (this.closed) {
+                    // released while a scan was scheduled or in progress
+                    return false;
+                }
+
+                if (this.kieScanner == null) {
+                    this.kieScanner = ks.newKieScanner(ks.newKieContainer(this.releaseId));
+                }
+
+                KieModule installed = ks.getRepository().getKieModule(this.releaseId);
+
+                this.kieScanner.scanNow();
+
+                return installed != ks.getRepository().getKieModule(this.releaseId);
+            }
+        }
+
+        /**
+         * Makes the given <code>updated</code> container the current one and builds again, in the background, the policies sharing it,
+         * except the one of the given <code>entry</code>, if any.
+         */
+        private void reload(CompletableFuture<KieContainer> updated, Entry entry) {
+            KieContainer kc = updated.join();
+
+            synchronized (this) {
+                this.current = updated;
+            }
+
+            for (Entry shared : getEntries(this)) {
+                if (entry != null && shared.policyId.equals(entry.policyId)) {
+                    continue;
+                }
+
+                builder.execute(() -> {
+                    try {
+                        shared.swap(build(shared, kc));
+                    } catch (RuntimeException cause) {
+                        // accounted by the metrics, the entry keeps its current policy
+                    }
+                });
+            }
+        }
+
+        private void addAllocatedBytes(long start) {
+            long end = getAllocatedBytes();
+
+            if (start >= 0 && end >= start) {
+                this.allocatedBytes.addAndGet(end - start);
+            }
+        }
+
+        private void close() {
+            synchronized (this) {
+                if (this.scanning != null) {
+                    this.scanning.cancel(false);
+                }
+            }
+
+            synchronized (this.scanLock) {
+                this.closed = true;
+
+                if (this.kieScanner != null) {
+                    this.kieScanner.shutdown();
+                    this.kieScanner = null;
+                }
+            }
+        }
+    }
+
+    /**
+     * The current {@link DroolsPolicy} of a policy.
+     */
+    final class Entry {
+
+        private final String policyId;
+        private final String policyName;
+        private final Map<String, String> config;
+        private final ReleaseId releaseId;
+        private final String containerKey;
+        private final long scannerPeriod;
+        private volatile CompletableFuture<DroolsPolicy> current = new CompletableFuture<>();
+        private volatile boolean closed;
+        private volatile SharedContainer container;
+
+        private Entry(Policy policy) {
+            this.policyId = policy.getId();
+            this.policyName = policy.getName();
+            this.config = new HashMap<>(policy.getConfig());
+
+            String groupId = this.config.get("mavenArtifactGroupId");
+            String artifactId = this.config.get("mavenArtifactId");
+            String version = this.config.get("mavenArtifactVersion");
+
+            this.releaseId = ks.newReleaseId(groupId, artifactId, version);
+            this.containerKey = groupId + ":" + artifactId + ":" + version;
+            this.scannerPeriod = toMillis(this.config.get("scannerPeriod"), this.config.get("scannerPeriodUnit"));
+        }
+
+        /**
+         * Returns the current {@link DroolsPolicy}, waiting for its container to be built if needed.
+         *
+         * @param deadline the deadline of the evaluation
+         * @return the current policy
+         */
+        DroolsPolicy get(Deadline deadline) {
+            CompletableFuture<DroolsPolicy> current = this.current;
+
+            if (current.isCompletedExceptionally() && !this.closed) {
+                current = rebuild(current);
+            }
+
+            try {
+                return current.get(deadline.remaining(TimeUnit.NANOSECONDS), TimeUnit.NANOSECONDS);
+            } catch (TimeoutException cause) {
+                throw new EvaluationTimeoutException(deadline);
+            } catch (InterruptedException cause) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("Interrupted while waiting for container of policy [" + this.policyName + "].", cause);
+            } catch (ExecutionException cause) {
+                throw new RuntimeException("Failed to build container of policy [" + this.policyName + "].", cause.getCause());
+            }
+        }
+
+        /**
+         * Returns the current {@link DroolsPolicy} if its container was already built.
+         *
+         * @return the current policy or {@code null}
+         */
+        DroolsPolicy getIfBuilt() {
+            CompletableFuture<DroolsPolicy> current = this.current;
+
+            if (current.isDone() && !current.isCompletedExceptionally()) {
+                return current.join();
+            }
+
+            return null;
+        }
+
+        private void startBuilding() {
+            CompletableFuture<DroolsPolicy> current = this.current;
+            SharedContainer container = this.container;
+
+            if (container == null) {
+                return;
+            }
+
+            // the policy is built once the container is, without holding a thread of the builder while waiting for it
+            container.get().thenApplyAsync(kc -> build(this, kc), builder).whenComplete((policy, cause) -> {
+                if (cause != null) {
+                    current.completeExceptionally(cause);
+                } else if (!current.complete(policy) || this.closed) {
+                    policy.dispose();
+                }
+            });
+        }
+
+        private synchronized CompletableFuture<DroolsPolicy> rebuild(CompletableFuture<DroolsPolicy> failed) {
+            if (this.current == failed) {
+                this.current = new CompletableFuture<>();
+                startBuilding();
+            }
+
+            return this.current;
+        }
+
+        /**
+         * Replaces the current policy with the given <code>policy</code>. The previous one is disposed, sessions in use included once
+         * released.
+         */
+        private synchronized void swap(DroolsPolicy policy) {
+            if (this.closed) {
+                policy.dispose();
+                return;
+            }
+
+            CompletableFuture<DroolsPolicy> previous = this.current;
+
+            this.current = CompletableFuture.completedFuture(policy);
+            updates.incrementAndGet();
+
+            // evaluations still waiting for the previous policy get the new one, the previous one is disposed once built
+            if (!previous.complete(policy) && !previous.isCompletedExceptionally()) {
+                previous.join().dispose();
+            }
+        }
+
+        /**
+         * Disposes the current policy and releases its container. Evaluations that still hold this entry keep working with the last policy.
+         *
+         * @param replacement the entry replacing this one, already built, or {@code null} if the policy was removed
+         */
+        private void close(Entry replacement) {
+            synchronized (this) {
+                this.closed = true;
+
+                DroolsPolicy current = getIfBuilt();
+
+                if (current != null) {
+                    current.dispose();
+                } else if (replacement != null) {
+                    // evaluations still waiting for a policy get the one of the replacement, this one is disposed once built
+                    this.current.complete(replacement.getIfBuilt());
+                } else {
+                    // evaluations still waiting for a policy fail instead of waiting for a build that may never complete
+                    this.current.completeExceptionally(new RuntimeException("Container of policy [" + this.policyName + "] was removed."));
+                }
+            }
+
+            release(this);
+        }
+    }
+
+    private static class DroolsThreadFactory implements ThreadFactory {
+
+        private final String prefix;
+        private final AtomicInteger count = new AtomicInteger();
+
+        DroolsThreadFactory(String prefix) {
+            this.prefix = prefix;
+        }
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, this.prefix + this.count.incrementAndGet());
+
+            thread.setDaemon(true);
+
+            return thread;
+        }
+    }
+}
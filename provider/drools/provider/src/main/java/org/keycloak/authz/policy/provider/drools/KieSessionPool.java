@@ -0,0 +1,194 @@
+package org.keycloak.authz.policy.provider.drools;
+
+import org.keycloak.authz.core.Deadline;
+import org.keycloak.authz.core.EvaluationTimeoutException;
+import org.keycloak.authz.core.metrics.LatencyHistogram;
+import org.kie.api.runtime.KieContainer;
+import org.kie.api.runtime.KieSession;
+import org.kie.api.runtime.rule.EntryPoint;
+import org.kie.api.runtime.rule.FactHandle;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * <p>A bounded pool of {@link KieSession} instances created from the same {@link KieContainer} and session name. Sessions are created on
+ * demand, up to the size of the pool, and a session is used by a single evaluation at a time. Evaluations waiting for a session give up once
+ * their {@link Deadline} passes.
+ *
+ * <p>Sessions are reset before going back to the pool by deleting all the facts they hold. A session whose evaluation failed, or that could
+ * not be reset, is disposed instead. When the size of the pool is zero, sessions are not pooled at all and every evaluation gets a new session.
+ *
+ * @author <a href="mailto:psilva@redhat.com">Pedro Igor</a>
+ */
+class KieSessionPool {
+
+    private final KieContainer container;
+    private final String sessionName;
+    private final int size;
+    private final Semaphore permits;
+    private final BlockingQueue<KieSession> idle = new LinkedBlockingQueue<>();
+    private final AtomicInteger active = new AtomicInteger();
+    private final AtomicLong created = new AtomicLong();
+    private final AtomicLong disposed = new AtomicLong();
+    private final AtomicLong timedOut = new AtomicLong();
+    private final LatencyHistogram waitTime = new LatencyHistogram();
+    private final LatencyHistogram creationTime = new LatencyHistogram();
+    private volatile boolean closed;
+
+    KieSessionPool(KieContainer container, String sessionName, int size) {
+        if (size < 0) {
+            throw new RuntimeException("Invalid session pool size [" + size + "].");
+        }
+
+        this.container = container;
+        this.sessionName = sessionName;
+        this.size = size;
+        this.permits = size > 0 ? new Semaphore(size) : null;
+    }
+
+    /**
+     * Obtains a session from the pool, creating a new one if none is idle and the pool is not full. Otherwise, waits for a session to be
+     * released until the given <code>deadline</code> passes.
+     *
+     * @param deadline the deadline of the evaluation
+     * @return a session, which must be given back with {@link #release(KieSession, boolean)}
+     */
+    KieSession acquire(Deadline deadline) {
+        long start = System.nanoTime();
+
+        if (this.permits != null) {
+            boolean acquired;
+
+            try {
+                acquired = this.permits.tryAcquire(deadline.remaining(TimeUnit.NANOSECONDS), TimeUnit.NANOSECONDS);
+            } catch (InterruptedException cause) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("Interrupted while waiting for session [" + this.sessionName + "].", cause);
+            }
+
+            if (!acquired) {
+                this.timedOut.incrementAndGet();
+                throw new EvaluationTimeoutException(deadline);
+            }
+        }
+
+        this.waitTime.record(System.nanoTime() - start);
+
+        KieSession session = this.idle.poll();
+
+        if (session == null) {
+            try {
+                session = create();
+            } catch (RuntimeException cause) {
+                if (this.permits != null) {
+                    this.permits.release();
+                }
+
+                throw cause;
+            }
+        }
+
+        this.active.incrementAndGet();
+
+        return session;
+    }
+
+    /**
+     * Gives back a session obtained from {@link #acquire(Deadline)}.
+     *
+     * @param session the session
+     * @param reusable indicates if the session can be used by other evaluations, which is not the case when its evaluation failed
+     */
+    void release(KieSession session, boolean reusable) {
+        this.active.decrementAndGet();
+
+        try {
+            if (this.permits != null && reusable && !this.closed && reset(session)) {
+                this.idle.offer(session);
+
+                // the pool may have been disposed in the meantime
+                if (this.closed) {
+                    disposeIdle();
+                }
+            } else {
+                dispose(session);
+            }
+        } finally {
+            if (this.permits != null) {
+                this.permits.release();
+            }
+        }
+    }
+
+    /**
+     * Disposes all idle sessions. Sessions in use are disposed once released.
+     */
+    void dispose() {
+        this.closed = true;
+        disposeIdle();
+    }
+
+    /**
+     * Returns a point-in-time view of the metrics of this pool.
+     *
+     * @return the metrics
+     */
+    SessionPoolMetrics getMetrics() {
+        return new SessionPoolMetrics(this.size, this.active.get(), this.idle.size(), this.created.get(), this.disposed.get(), this.timedOut.get(),
+                this.waitTime.snapshot(), this.creationTime.snapshot());
+    }
+
+    private KieSession create() {
+        long start = System.nanoTime();
+        KieSession session = this.container.newKieSession(this.sessionName);
+
+        if (session == null) {
+            throw new RuntimeException("Could not obtain session with name [" + this.sessionName + "].");
+        }
+
+        this.creationTime.record(System.nanoTime() - start);
+        this.created.incrementAndGet();
+
+        return session;
+    }
+
+    /**
+     * Deletes all the facts inserted into the given <code>session</code>, including those inserted by the rules themselves.
+     */
+    private boolean reset(KieSession session) {
+        try {
+            for (EntryPoint entryPoint : session.getEntryPoints()) {
+                List<FactHandle> handles = new ArrayList<>(entryPoint.<FactHandle>getFactHandles());
+
+                for (FactHandle handle : handles) {
+                    entryPoint.delete(handle);
+                }
+            }
+
+            return true;
+        } catch (RuntimeException cause) {
+            // the session is in an unknown state, it is disposed by the caller
+            return false;
+        }
+    }
+
+    private void disposeIdle() {
+        KieSession session;
+
+        while ((session = this.idle.poll()) != null) {
+            dispose(session);
+        }
+    }
+
+    private void dispose(KieSession session) {
+        this.disposed.incrementAndGet();
+        session.dispose();
+    }
+}
@@ -0,0 +1,104 @@
+package org.keycloak.authz.policy.provider.drools;
+
+import org.keycloak.authz.core.metrics.LatencyHistogram;
+
+/**
+ * A point-in-time view of the metrics of the sessions pooled for a Drools policy. Times are in nanoseconds.
+ *
+ * @author <a href="mailto:psilva@redhat.com">Pedro Igor</a>
+ */
+public final class SessionPoolMetrics {
+
+    private final int size;
+    private final int active;
+    private final int idle;
+    private final long created;
+    private final long disposed;
+    private final long timedOut;
+    private final LatencyHistogram.Snapshot waitTime;
+    private final LatencyHistogram.Snapshot creationTime;
+
+    SessionPoolMetrics(int size, int active, int idle, long created, long disposed, long timedOut, LatencyHistogram.Snapshot waitTime, LatencyHistogram.Snapshot creationTime) {
+        this.size = size;
+        this.active = active;
+        this.idle = idle;
+        this.created = created;
+        this.disposed = disposed;
+        this.timedOut = timedOut;
+        this.waitTime = waitTime;
+        this.creationTime = creationTime;
+    }
+
+    /**
+     * Returns the maximum number of sessions in the pool.
+     *
+     * @return the size of the pool or zero if sessions are not pooled
+     */
+    public int getSize() {
+        return this.size;
+    }
+
+    /**
+     * Returns the number of sessions being used by an evaluation.
+     *
+     * @return the number of active sessions
+     */
+    public int getActive() {
+        return this.active;
+    }
+
+    /**
+     * Returns the number of sessions waiting in the pool to be used.
+     *
+     * @return the number of idle sessions
+     */
+    public int getIdle() {
+        return this.idle;
+    }
+
+    /**
+     * Returns how many sessions were created so far.
+     *
+     * @return the number of sessions created
+     */
+    public long getCreated() {
+        return this.created;
+    }
+
+    /**
+     * Returns how many sessions were disposed so far, either because the pool was disposed, because they were not pooled or because their
+     * evaluation failed.
+     *
+     * @return the number of sessions disposed
+     */
+    public long getDisposed() {
+        return this.disposed;
+    }
+
+    /**
+     * Returns how many evaluations timed out while waiting for a session.
+     *
+     * @return the number of evaluations that timed out
+     */
+    public long getTimedOut() {
+        return this.timedOut;
+    }
+
+    /**
+     * Returns how long evaluations waited for the pool to have a session available. Evaluations that timed out are not accounted.
+     *
+     * @return the time spent waiting for a session
+     */
+    public LatencyHistogram.Snapshot getWaitTime() {
+        return this.waitTime;
+    }
+
+    /**
+     * Returns how long it took to create a session.
+     *
+     * @return the time spent creating sessions
+     */
+    public LatencyHistogram.Snapshot getCreationTime() {
+        return this.creationTime;
+    }
+}
@@ -94,6 +94,11 @@ public class IdentityPolicyProvider implements PolicyProvider {
         }
     }
 
+    @Override
+    public boolean isReusable() {
+        return true;
+    }
+
     private RealmModel getCurrentRealm() {
         KeycloakSession keycloakSession = ResteasyProviderFactory.getContextData(KeycloakSession.class);
         return keycloakSession.getContext().getRealm();
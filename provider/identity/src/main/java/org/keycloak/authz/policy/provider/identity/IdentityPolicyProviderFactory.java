@@ -6,6 +6,9 @@ import org.keycloak.authz.core.policy.provider.PolicyProvider;
 import org.keycloak.authz.core.policy.provider.PolicyProviderFactory;
 import org.kohsuke.MetaInfServices;
 
+import java.util.EnumSet;
+import java.util.Set;
+
 /**
  * @author <a href="mailto:psilva@redhat.com">Pedro Igor</a>
  */
@@ -39,4 +42,9 @@ public class IdentityPolicyProviderFactory implements PolicyProviderFactory {
     @Override
     public void dispose() {
     }
+
+    @Override
+    public Set<Dependency> getDependencies(Policy policy) {
+        return EnumSet.of(Dependency.IDENTITY);
+    }
 }
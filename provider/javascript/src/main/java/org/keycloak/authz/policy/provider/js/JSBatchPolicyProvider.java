@@ -0,0 +1,43 @@
+package org.keycloak.authz.policy.provider.js;
+
+import org.keycloak.authz.core.policy.evaluation.Evaluation;
+import org.keycloak.authz.core.policy.provider.BatchPolicyProvider;
+
+import java.util.List;
+
+/**
+ * Evaluates JavaScript policies configured with <code>batch</code> set to <code>true</code>. The script is entered once for all the
+ * permissions of a request and receives them as an array named <code>$evaluations</code>, granting or denying each of them, e.g.:
+ *
+ * <pre>
+ * for (var i = 0; i &lt; $evaluations.length; i++) {
+ *     var evaluation = $evaluations[i];
+ *
+ *     if (evaluation.getPermission().getResource().getOwner() == 'alice') {
+ *         evaluation.grant();
+ *     }
+ * }
+ * </pre>
+ *
+ * @author <a href="mailto:psilva@redhat.com">Pedro Igor</a>
+ */
+public class JSBatchPolicyProvider implements BatchPolicyProvider {
+
+    private final JSScript script;
+    private final ScriptEnginePool engines;
+
+    JSBatchPolicyProvider(JSScript script, ScriptEnginePool engines) {
+        this.script = script;
+        this.engines = engines;
+    }
+
+    @Override
+    public void evaluate(List<Evaluation> evaluations) {
+        this.engines.evaluate(this.script, evaluations);
+    }
+
+    @Override
+    public boolean isReusable() {
+        return true;
+    }
+}
@@ -1,16 +1,24 @@
 package org.keycloak.authz.policy.provider.js;
 
+import org.keycloak.authz.core.Authorization;
 import org.keycloak.authz.core.model.Policy;
 import org.keycloak.authz.core.model.ResourceServer;
 import org.keycloak.authz.server.admin.resource.PolicyProviderAdminResource;
 import org.kohsuke.MetaInfServices;
 
+import javax.ws.rs.core.Context;
+
 /**
  * @author <a href="mailto:psilva@redhat.com">Pedro Igor</a>
  */
 @MetaInfServices(PolicyProviderAdminResource.class)
 public class JSPolicyAdminResource implements PolicyProviderAdminResource {
 
+    private JSPolicyProviderFactory provider;
+
+    @Context
+    private Authorization authorizationManager;
+
     @Override
     public String getType() {
         return "js";
@@ -18,17 +26,22 @@ public class JSPolicyAdminResource implements PolicyProviderAdminResource {
 
     @Override
     public void init(ResourceServer resourceServer) {
+        this.provider = this.authorizationManager.getProviderFactory(getType());
     }
 
     @Override
     public void create(Policy policy) {
+        // fails if the script does not compile, before the changes are committed
+        this.provider.update(policy);
     }
 
     @Override
     public void update(Policy policy) {
+        this.provider.update(policy);
     }
 
     @Override
     public void remove(Policy policy) {
+        this.provider.remove(policy);
     }
 }
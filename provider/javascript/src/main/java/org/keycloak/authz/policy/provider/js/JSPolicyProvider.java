@@ -17,36 +17,29 @@
  */
 package org.keycloak.authz.policy.provider.js;
 
-import org.keycloak.authz.core.model.Policy;
 import org.keycloak.authz.core.policy.evaluation.Evaluation;
 import org.keycloak.authz.core.policy.provider.PolicyProvider;
 
-import javax.script.ScriptEngine;
-import javax.script.ScriptEngineManager;
-import javax.script.ScriptException;
-
 /**
  * @author <a href="mailto:psilva@redhat.com">Pedro Igor</a>
  */
 public class JSPolicyProvider implements PolicyProvider {
 
-    private final Policy policy;
+    private final JSScript script;
+    private final ScriptEnginePool engines;
 
-    public JSPolicyProvider(Policy policy) {
-        this.policy = policy;
+    JSPolicyProvider(JSScript script, ScriptEnginePool engines) {
+        this.script = script;
+        this.engines = engines;
     }
 
     @Override
     public void evaluate(Evaluation evaluation) {
-        ScriptEngineManager manager = new ScriptEngineManager();
-        ScriptEngine engine = manager.getEngineByName("nashorn");
-
-        engine.put("$evaluation", evaluation);
+        this.engines.evaluate(this.script, evaluation);
+    }
 
-        try {
-            engine.eval(policy.getConfig().get("code"));
-        } catch (ScriptException e) {
-            e.printStackTrace();
-        }
+    @Override
+    public boolean isReusable() {
+        return true;
     }
 }
@@ -1,17 +1,40 @@
 package org.keycloak.authz.policy.provider.js;
 
 import org.keycloak.authz.core.Authorization;
+import org.keycloak.authz.core.EvaluationMetrics;
 import org.keycloak.authz.core.model.Policy;
 import org.keycloak.authz.core.policy.provider.PolicyProvider;
 import org.keycloak.authz.core.policy.provider.PolicyProviderFactory;
 import org.kohsuke.MetaInfServices;
 
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
 /**
+ * <p>Creates providers for JavaScript policies. The code of each policy is compiled once, when the policy is saved or first evaluated, and
+ * kept by policy identifier until the code changes or the policy is removed. Scripts are evaluated by a pool of <code>enginePoolSize</code>
+ * engines, which defaults to the number of processors. Policies configured with the same size share the same pool.
+ *
+ * <p>Policies with <code>batch</code> set to <code>true</code> in their configuration are evaluated by a {@link JSBatchPolicyProvider}.
+ *
+ * <p>Scripts may read anything from the evaluation, so policies depend on all inputs by default. Policies that only depend on some of them
+ * can declare these in the <code>dependencies</code> entry of their configuration, as a comma-separated list of {@link Dependency} names,
+ * e.g.: <code>IDENTITY,ATTRIBUTES</code>. The list is validated when the policy is saved.
+ *
  * @author <a href="mailto:psilva@redhat.com">Pedro Igor</a>
  */
 @MetaInfServices(PolicyProviderFactory.class)
 public class JSPolicyProviderFactory implements PolicyProviderFactory {
 
+    private static final String DEPENDENCIES = "dependencies";
+    private static final int ENGINE_POOL_SIZE = Runtime.getRuntime().availableProcessors();
+
+    private final ConcurrentMap<String, JSScript> scripts = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Integer, ScriptEnginePool> engines = new ConcurrentHashMap<>();
+    private EvaluationMetrics metrics;
+
     @Override
     public String getName() {
         return "Javascript-Based";
@@ -29,14 +52,95 @@ public class JSPolicyProviderFactory implements PolicyProviderFactory {
 
     @Override
     public void init(Authorization authorization) {
+        this.metrics = authorization.getMetrics();
     }
 
     @Override
     public PolicyProvider create(Policy policy) {
-        return new JSPolicyProvider(policy);
+        JSScript script = policy.getId() != null ? this.scripts.get(policy.getId()) : null;
+
+        if (script == null || !script.isCompiledFrom(policy.getConfig().get("code"))) {
+            script = compile(policy);
+        }
+
+        if (Boolean.parseBoolean(policy.getConfig().get("batch"))) {
+            return new JSBatchPolicyProvider(script, getEngines(policy));
+        }
+
+        return new JSPolicyProvider(script, getEngines(policy));
     }
 
     @Override
     public void dispose() {
+        this.scripts.clear();
+        this.engines.clear();
+    }
+
+    /**
+     * Compiles the code of the given <code>policy</code>, replacing any script previously compiled for it.
+     *
+     * @param policy the policy
+     * @throws RuntimeException if the code of the policy could not be compiled, if it declares an unknown dependency or an invalid pool size
+     */
+    void update(Policy policy) {
+        getDependencies(policy);
+        compile(policy);
+    }
+
+    void remove(Policy policy) {
+        this.scripts.remove(policy.getId());
+    }
+
+    private JSScript compile(Policy policy) {
+        JSScript script = new JSScript(policy);
+
+        getEngines(policy).compile(script);
+
+        if (policy.getId() != null) {
+            this.scripts.put(policy.getId(), script);
+        }
+
+        return script;
+    }
+
+    private ScriptEnginePool getEngines(Policy policy) {
+        return this.engines.computeIfAbsent(toPoolSize(policy.getConfig().get("enginePoolSize")), size -> new ScriptEnginePool(size, this.metrics));
+    }
+
+    private int toPoolSize(String enginePoolSize) {
+        if (enginePoolSize == null || enginePoolSize.trim().isEmpty()) {
+            return ENGINE_POOL_SIZE;
+        }
+
+        try {
+            return Integer.parseInt(enginePoolSize.trim());
+        } catch (NumberFormatException cause) {
+            throw new RuntimeException("Invalid engine pool size [" + enginePoolSize + "].", cause);
+        }
+    }
+
+    @Override
+    public Set<Dependency> getDependencies(Policy policy) {
+        String dependencies = policy.getConfig().get(DEPENDENCIES);
+
+        if (dependencies == null) {
+            return EnumSet.allOf(Dependency.class);
+        }
+
+        Set<Dependency> result = EnumSet.noneOf(Dependency.class);
+
+        for (String name : dependencies.split(",")) {
+            if (name.trim().isEmpty()) {
+                continue;
+            }
+
+            try {
+                result.add(Dependency.valueOf(name.trim()));
+            } catch (IllegalArgumentException cause) {
+                throw new RuntimeException("Unknown dependency [" + name.trim() + "] declared by policy [" + policy.getName() + "].", cause);
+            }
+        }
+
+        return result;
     }
 }
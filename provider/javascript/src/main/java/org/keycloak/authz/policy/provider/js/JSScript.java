@@ -0,0 +1,46 @@
+package org.keycloak.authz.policy.provider.js;
+
+import org.keycloak.authz.core.model.Policy;
+
+/**
+ * The code of a JavaScript {@link Policy}, as it was when the script was compiled. Compiled versions of the code are kept by
+ * {@link ScriptEnginePool} while this instance is reachable.
+ *
+ * @author <a href="mailto:psilva@redhat.com">Pedro Igor</a>
+ */
+final class JSScript {
+
+    private final String policyName;
+    private final String code;
+    private final int codeHash;
+
+    JSScript(Policy policy) {
+        String code = policy.getConfig().get("code");
+
+        if (code == null) {
+            throw new RuntimeException("No script defined for policy [" + policy.getName() + "].");
+        }
+
+        this.policyName = policy.getName();
+        this.code = code;
+        this.codeHash = code.hashCode();
+    }
+
+    String getPolicyName() {
+        return this.policyName;
+    }
+
+    String getCode() {
+        return this.code;
+    }
+
+    /**
+     * Checks if this script was created from the given <code>code</code>.
+     *
+     * @param code the current code of the policy
+     * @return {@code true} if the code did not change. Otherwise, {@code false}.
+     */
+    boolean isCompiledFrom(String code) {
+        return code != null && this.codeHash == code.hashCode() && this.code.equals(code);
+    }
+}
@@ -0,0 +1,182 @@
+package org.keycloak.authz.policy.provider.js;
+
+import org.keycloak.authz.core.Deadline;
+import org.keycloak.authz.core.EvaluationMetrics;
+import org.keycloak.authz.core.EvaluationTimeoutException;
+import org.keycloak.authz.core.model.Policy;
+import org.keycloak.authz.core.policy.evaluation.Evaluation;
+
+import javax.script.Bindings;
+import javax.script.Compilable;
+import javax.script.CompiledScript;
+import javax.script.ScriptEngine;
+import javax.script.ScriptEngineManager;
+import javax.script.ScriptException;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * <p>A bounded pool of JavaScript engines used to evaluate {@link JSScript} instances. Engines are created on demand, up to the size of the
+ * pool, and an engine is used by a single evaluation at a time. Evaluations waiting for an engine give up once their {@link Deadline} passes.
+ *
+ * <p>A {@link CompiledScript} can only be evaluated by the engine that compiled it, so each engine compiles a given script at most once and
+ * keeps it for as long as the script is referenced by {@link JSPolicyProviderFactory}. Each evaluation runs with its own {@link Bindings}.
+ *
+ * <p>Errors raised by a script while it is evaluated are reported to the {@link EvaluationMetrics} as errors of its policy, and the
+ * evaluation is left without an effect, so that the policy is denied instead of failing the whole request.
+ *
+ * @author <a href="mailto:psilva@redhat.com">Pedro Igor</a>
+ */
+class ScriptEnginePool {
+
+    private static final String ENGINE_NAME = "nashorn";
+
+    private final BlockingQueue<PooledEngine> idle = new LinkedBlockingQueue<>();
+    private final AtomicInteger created = new AtomicInteger();
+    private final int size;
+    private final EvaluationMetrics metrics;
+
+    ScriptEnginePool(int size, EvaluationMetrics metrics) {
+        if (size < 1) {
+            throw new RuntimeException("Invalid number of script engines [" + size + "].");
+        }
+
+        this.size = size;
+        this.metrics = metrics;
+    }
+
+    /**
+     * Compiles the given <code>script</code>, failing if it is not valid.
+     *
+     * @param script the script to compile
+     */
+    void compile(JSScript script) {
+        PooledEngine engine = acquire(Deadline.NONE);
+
+        try {
+            engine.getCompiledScript(script);
+        } finally {
+            this.idle.offer(engine);
+        }
+    }
+
+    /**
+     * Evaluates the given <code>script</code>, exposing the given <code>evaluation</code> as <code>$evaluation</code>.
+     *
+     * @param script the script to evaluate
+     * @param evaluation the evaluation
+     */
+    void evaluate(JSScript script, Evaluation evaluation) {
+        evaluate(script, "$evaluation", evaluation, evaluation.getPolicy(), evaluation.getContext().getDeadline());
+    }
+
+    /**
+     * Evaluates the given <code>script</code> once for all the given <code>evaluations</code>, exposing them as an array named
+     * <code>$evaluations</code>.
+     *
+     * @param script the script to evaluate
+     * @param evaluations the evaluations, which share the same context
+     */
+    void evaluate(JSScript script, List<Evaluation> evaluations) {
+        if (evaluations.isEmpty()) {
+            return;
+        }
+
+        Evaluation first = evaluations.get(0);
+
+        evaluate(script, "$evaluations", evaluations.toArray(new Evaluation[evaluations.size()]), first.getPolicy(), first.getContext().getDeadline());
+    }
+
+    private void evaluate(JSScript script, String name, Object value, Policy policy, Deadline deadline) {
+        PooledEngine engine = acquire(deadline);
+
+        try {
+            engine.evaluate(script, name, value);
+        } catch (ScriptException cause) {
+            this.metrics.onPolicyError(policy);
+        } finally {
+            this.idle.offer(engine);
+        }
+    }
+
+    private PooledEngine acquire(Deadline deadline) {
+        PooledEngine engine = this.idle.poll();
+
+        if (engine != null) {
+            return engine;
+        }
+
+        int count = this.created.get();
+
+        while (count < this.size) {
+            if (this.created.compareAndSet(count, count + 1)) {
+                return new PooledEngine(createEngine());
+            }
+
+            count = this.created.get();
+        }
+
+        try {
+            engine = this.idle.poll(deadline.remaining(TimeUnit.NANOSECONDS), TimeUnit.NANOSECONDS);
+        } catch (InterruptedException cause) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting for a script engine.", cause);
+        }
+
+        if (engine == null) {
+            throw new EvaluationTimeoutException(deadline);
+        }
+
+        return engine;
+    }
+
+    private ScriptEngine createEngine() {
+        ScriptEngine engine = new ScriptEngineManager().getEngineByName(ENGINE_NAME);
+
+        if (engine == null) {
+            this.created.decrementAndGet();
+            throw new RuntimeException("Could not obtain script engine [" + ENGINE_NAME + "].");
+        }
+
+        return engine;
+    }
+
+    private static class PooledEngine {
+
+        private final ScriptEngine engine;
+        private final Map<JSScript, CompiledScript> scripts = new WeakHashMap<>();
+
+        PooledEngine(ScriptEngine engine) {
+            this.engine = engine;
+        }
+
+        CompiledScript getCompiledScript(JSScript script) {
+            CompiledScript compiled = this.scripts.get(script);
+
+            if (compiled == null) {
+                try {
+                    compiled = ((Compilable) this.engine).compile(script.getCode());
+                } catch (ScriptException cause) {
+                    throw new RuntimeException("Failed to compile script of policy [" + script.getPolicyName() + "]: " + cause.getMessage(), cause);
+                }
+
+                this.scripts.put(script, compiled);
+            }
+
+            return compiled;
+        }
+
+        void evaluate(JSScript script, String name, Object value) throws ScriptException {
+            CompiledScript compiled = getCompiledScript(script);
+            Bindings bindings = this.engine.createBindings();
+
+            bindings.put(name, value);
+            compiled.eval(bindings);
+        }
+    }
+}
@@ -33,4 +33,9 @@ public class ResourcePolicyProvider implements PolicyProvider {
     @Override
     public void evaluate(Evaluation evaluation) {
     }
+
+    @Override
+    public boolean isReusable() {
+        return true;
+    }
 }
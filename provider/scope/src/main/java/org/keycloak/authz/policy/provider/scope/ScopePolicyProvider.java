@@ -35,4 +35,9 @@ public class ScopePolicyProvider implements PolicyProvider {
     @Override
     public void evaluate(Evaluation evaluation) {
     }
+
+    @Override
+    public boolean isReusable() {
+        return true;
+    }
 }
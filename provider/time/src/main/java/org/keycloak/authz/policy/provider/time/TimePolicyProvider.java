@@ -21,6 +21,7 @@ import org.keycloak.authz.core.model.Policy;
 import org.keycloak.authz.core.policy.evaluation.Evaluation;
 import org.keycloak.authz.core.policy.provider.PolicyProvider;
 
+import java.text.ParseException;
 import java.text.SimpleDateFormat;
 import java.util.Date;
 
@@ -32,41 +33,50 @@ public class TimePolicyProvider implements PolicyProvider {
     static String DEFAULT_DATE_PATTERN = "yyyy-MM-dd hh:mm:ss";
 
     private final Policy policy;
-    private final SimpleDateFormat dateFormat;
-    private final Date currentDate;
+    private final Date notBefore;
+    private final Date notOnOrAfter;
 
     public TimePolicyProvider(Policy policy) {
         this.policy = policy;
-        this.dateFormat = new SimpleDateFormat(DEFAULT_DATE_PATTERN);
-        this.currentDate = new Date();
+
+        try {
+            SimpleDateFormat dateFormat = new SimpleDateFormat(DEFAULT_DATE_PATTERN);
+
+            this.notBefore = parse(dateFormat, policy.getConfig().get("nbf"));
+            this.notOnOrAfter = parse(dateFormat, policy.getConfig().get("noa"));
+        } catch (Exception e) {
+            throw new RuntimeException("Could not evaluate time-based policy [" + this.policy.getName() + "].", e);
+        }
     }
 
     @Override
     public void evaluate(Evaluation evaluation) {
-        try {
-            String notBefore = this.policy.getConfig().get("nbf");
+        Date currentDate = new Date();
 
-            if (notBefore != null) {
+        if (this.notBefore != null && currentDate.before(this.notBefore)) {
+            evaluation.deny();
+            return;
+        }
 
-                if (this.currentDate.before(this.dateFormat.parse(format(notBefore)))) {
-                    evaluation.deny();
-                    return;
-                }
-            }
+        if (this.notOnOrAfter != null && currentDate.after(this.notOnOrAfter)) {
+            evaluation.deny();
+            return;
+        }
 
-            String notOnOrAfter = this.policy.getConfig().get("noa");
+        evaluation.grant();
+    }
 
-            if (notOnOrAfter != null) {
-                if (this.currentDate.after(this.dateFormat.parse(format(notOnOrAfter)))) {
-                    evaluation.deny();
-                    return;
-                }
-            }
+    @Override
+    public boolean isReusable() {
+        return true;
+    }
 
-            evaluation.grant();
-        } catch (Exception e) {
-            throw new RuntimeException("Could not evaluate time-based policy [" + this.policy.getName() + "].", e);
+    private static Date parse(SimpleDateFormat dateFormat, String date) throws ParseException {
+        if (date == null) {
+            return null;
         }
+
+        return dateFormat.parse(format(date));
     }
 
     static String format(String notBefore) {
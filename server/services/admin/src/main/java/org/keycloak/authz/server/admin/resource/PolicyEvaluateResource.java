@@ -21,6 +21,7 @@ import org.jboss.resteasy.spi.HttpRequest;
 import org.jboss.resteasy.spi.ResteasyProviderFactory;
 import org.keycloak.authz.core.Authorization;
 import org.keycloak.authz.core.EvaluationContext;
+import org.keycloak.authz.core.EvaluationTimeoutException;
 import org.keycloak.authz.core.attribute.Attributes;
 import org.keycloak.authz.core.model.Resource;
 import org.keycloak.authz.core.model.ResourceServer;
@@ -33,6 +34,7 @@ import org.keycloak.authz.server.admin.resource.representation.PolicyEvaluationR
 import org.keycloak.authz.server.admin.resource.representation.PolicyEvaluationResponse;
 import org.keycloak.authz.server.services.common.KeycloakExecutionContext;
 import org.keycloak.authz.server.services.common.KeycloakIdentity;
+import org.keycloak.authz.server.services.common.util.EvaluationScheduler;
 import org.keycloak.authz.server.services.common.util.Permissions;
 import org.keycloak.models.ClientModel;
 import org.keycloak.models.KeycloakSession;
@@ -56,9 +58,7 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.stream.Collectors;
@@ -72,7 +72,7 @@ import static java.util.Arrays.asList;
 public class PolicyEvaluateResource {
 
     private final RealmModel realm;
-    private final ExecutorService scheduler;
+    private final EvaluationScheduler scheduler;
 
     @Context
     private Authorization authorization;
@@ -85,17 +85,21 @@ public class PolicyEvaluateResource {
 
     private final ResourceServer resourceServer;
 
-    PolicyEvaluateResource(RealmModel realm, ResourceServer resourceServer, ThreadFactory threadFactory) {
+    PolicyEvaluateResource(RealmModel realm, ResourceServer resourceServer, EvaluationScheduler scheduler) {
         this.realm = realm;
         this.resourceServer = resourceServer;
-        this.scheduler = Executors.newSingleThreadExecutor(threadFactory);
+        this.scheduler = scheduler;
     }
 
     @POST
     @Consumes("application/json")
     @Produces("application/json")
     public void evaluate(PolicyEvaluationRequest evaluationRequest, @Suspended AsyncResponse asyncResponse) {
-        createPermissionEvaluator(evaluationRequest, createEvaluationContext(evaluationRequest)).evaluate(createDecisionCollector(evaluationRequest, asyncResponse));
+        try {
+            createPermissionEvaluator(evaluationRequest, createEvaluationContext(evaluationRequest)).evaluate(createDecisionCollector(evaluationRequest, asyncResponse));
+        } catch (RejectedExecutionException cause) {
+            throw EvaluationScheduler.unavailable(cause);
+        }
     }
 
     private DecisionResultCollector createDecisionCollector(PolicyEvaluationRequest evaluationRequest, AsyncResponse asyncResponse) {
@@ -113,7 +117,11 @@ public class PolicyEvaluateResource {
 
             @Override
             public void onError(Throwable cause) {
-                asyncResponse.resume(cause);
+                if (cause instanceof EvaluationTimeoutException) {
+                    asyncResponse.resume(EvaluationScheduler.unavailable((EvaluationTimeoutException) cause));
+                } else {
+                    asyncResponse.resume(cause);
+                }
             }
         };
     }
@@ -153,17 +161,23 @@ public class PolicyEvaluateResource {
             return Permissions.all(this.resourceServer, evaluationContext.getIdentity(), this.authorization);
         }
 
-        return representation.getResources().stream().flatMap((Function<PolicyEvaluationRequest.Resource, Stream<ResourcePermission>>) resource -> {
+        List<PolicyEvaluationRequest.Resource> requestedResources = representation.getResources();
+        Set<String> scopeNames = requestedResources.stream().filter(resource -> resource.getScopes() != null).flatMap(resource -> resource.getScopes().stream()).collect(Collectors.toSet());
+        Set<String> resourceIds = requestedResources.stream().map(PolicyEvaluationRequest.Resource::getId).filter(id -> id != null).collect(Collectors.toSet());
+        Map<String, Scope> scopesByName = authorization.getStoreFactory().getScopeStore().findByNames(scopeNames, this.resourceServer.getId()).stream().collect(Collectors.toMap(Scope::getName, Function.identity(), (scope, duplicate) -> scope));
+        Map<String, Resource> resourcesById = authorization.getStoreFactory().getResourceStore().findByIds(resourceIds).stream().collect(Collectors.toMap(Resource::getId, Function.identity()));
+
+        return requestedResources.stream().flatMap((Function<PolicyEvaluationRequest.Resource, Stream<ResourcePermission>>) resource -> {
             Set<String> givenScopes = resource.getScopes();
 
             if (givenScopes == null) {
                 givenScopes = new HashSet();
             }
 
-            List<Scope> scopes = givenScopes.stream().map(scopeName -> authorization.getStoreFactory().getScopeStore().findByName(scopeName)).collect(Collectors.toList());
+            List<Scope> scopes = givenScopes.stream().map(scopesByName::get).filter(scope -> scope != null).collect(Collectors.toList());
 
             if (resource.getId() != null) {
-                Resource resourceModel = authorization.getStoreFactory().getResourceStore().findById(resource.getId());
+                Resource resourceModel = resourcesById.get(resource.getId());
                 return Stream.of(new ResourcePermission(resourceModel, scopes, resourceServer));
             } else if (resource.getType() != null) {
                 return authorization.getStoreFactory().getResourceStore().findByType(resource.getType()).stream().map(resource1 -> new ResourcePermission(resource1, scopes, resourceServer));
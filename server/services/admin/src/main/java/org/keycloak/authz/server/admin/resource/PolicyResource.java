@@ -26,7 +26,9 @@ import org.keycloak.authz.core.model.ResourceServer;
 import org.keycloak.authz.core.model.Scope;
 import org.keycloak.authz.server.admin.resource.representation.PolicyProviderRepresentation;
 import org.keycloak.authz.server.admin.resource.representation.PolicyRepresentation;
+import org.keycloak.authz.server.admin.resource.util.Caches;
 import org.keycloak.authz.server.admin.resource.util.Models;
+import org.keycloak.authz.server.services.common.util.EvaluationScheduler;
 import org.keycloak.models.KeycloakSession;
 import org.keycloak.models.RealmModel;
 
@@ -45,7 +47,6 @@ import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
 import java.util.ServiceLoader;
-import java.util.concurrent.ThreadFactory;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
@@ -65,12 +66,12 @@ public class PolicyResource {
 
     @Context
     private KeycloakSession keycloakSession;
-    private ThreadFactory threadFactory;
+    private EvaluationScheduler scheduler;
 
-    public PolicyResource(RealmModel realm, ResourceServer resourceServer, ThreadFactory threadFactory) {
+    public PolicyResource(RealmModel realm, ResourceServer resourceServer, EvaluationScheduler scheduler) {
         this.realm = realm;
         this.resourceServer = resourceServer;
-        this.threadFactory = threadFactory;
+        this.scheduler = scheduler;
     }
 
     @POST
@@ -91,6 +92,8 @@ public class PolicyResource {
             resource.create(policy);
         }
 
+        Caches.invalidate(policy, this.authorizationManager, this.keycloakSession);
+
         representation.setId(policy.getId());
 
         return Response.status(Response.Status.CREATED).entity(representation).build();
@@ -125,6 +128,8 @@ public class PolicyResource {
 
         this.authorizationManager.getStoreFactory().getPolicyStore().save(policy);
 
+        Caches.invalidate(policy, this.authorizationManager, this.keycloakSession);
+
         return Response.status(Response.Status.CREATED).build();
     }
 
@@ -146,10 +151,13 @@ public class PolicyResource {
         this.authorizationManager.getStoreFactory().getPolicyStore().findDependentPolicies(id).forEach(dependentPolicy -> {
             dependentPolicy.removeAssociatedPolicy(policy);
             this.authorizationManager.getStoreFactory().getPolicyStore().save(dependentPolicy);
+            Caches.invalidate(dependentPolicy, this.authorizationManager, this.keycloakSession);
         });
 
         this.authorizationManager.getStoreFactory().getPolicyStore().remove(policy.getId());
 
+        Caches.remove(policy, this.authorizationManager, this.keycloakSession);
+
         return Response.noContent().build();
     }
 
@@ -199,7 +207,7 @@ public class PolicyResource {
 
     @Path("evaluate")
     public PolicyEvaluateResource getPolicyEvaluateResource() {
-        PolicyEvaluateResource resource = new PolicyEvaluateResource(this.realm, this.resourceServer, this.threadFactory);
+        PolicyEvaluateResource resource = new PolicyEvaluateResource(this.realm, this.resourceServer, this.scheduler);
 
         ResteasyProviderFactory.getInstance().injectProperties(resource);
 
@@ -20,9 +20,14 @@ package org.keycloak.authz.server.admin.resource;
 import org.jboss.resteasy.spi.ResteasyProviderFactory;
 import org.keycloak.Config;
 import org.keycloak.authz.core.Authorization;
+import org.keycloak.authz.core.EvaluationMetrics;
+import org.keycloak.authz.core.metrics.DefaultEvaluationMetrics;
+import org.keycloak.authz.core.policy.index.PolicyIndexes;
 import org.keycloak.authz.core.policy.provider.PolicyProviderFactory;
 import org.keycloak.authz.core.store.StoreFactory;
 import org.keycloak.authz.persistence.PersistenceProviderFactory;
+import org.keycloak.authz.server.services.common.util.EvaluationScheduler;
+import org.keycloak.authz.server.services.common.util.OperationalInfo;
 import org.keycloak.models.KeycloakSession;
 import org.keycloak.models.KeycloakSessionFactory;
 import org.keycloak.models.KeycloakTransactionManager;
@@ -36,7 +41,7 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.ServiceLoader;
-import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
 
 import static org.jboss.resteasy.spi.ResteasyProviderFactory.pushContext;
 
@@ -49,14 +54,19 @@ public class RealmAuthzAdminResourceProviderFactory implements RealmAdminResourc
     private PersistenceProviderFactory persistenceProviderFactory;
     private List<PolicyProviderFactory> policyProviders = new ArrayList<>();
     private Authorization authorization;
-    private ThreadFactory threadFactory;
+    private EvaluationScheduler scheduler;
+    private boolean shortCircuit;
+    private boolean reuseEvaluations;
+    private int evaluationTimeout;
+    private int policyIndexMaxAge;
+    private EvaluationMetrics metrics;
 
     @Override
     public RealmAdminResourceProvider create(RealmModel realm, KeycloakSession keycloakSession) {
         return new RealmAdminResourceProvider() {
             public Object getResource(final String pathName) {
                 if (pathName.equals("authz")) {
-                    RootResource resource = new RootResource(realm, threadFactory);
+                    RootResource resource = new RootResource(realm, scheduler);
 
                     pushContext(StoreFactory.class, persistenceProviderFactory.create(keycloakSession));
                     pushContext(Authorization.class, authorization);
@@ -81,6 +91,13 @@ public class RealmAuthzAdminResourceProviderFactory implements RealmAdminResourc
     @Override
     public void init(Config.Scope config) {
         this.persistenceProviderFactory = createPersistenceProvider();
+        this.shortCircuit = config.getBoolean("shortCircuitEvaluation", false);
+        this.reuseEvaluations = config.getBoolean("reuseEvaluations", false);
+        this.evaluationTimeout = config.getInt("evaluationTimeout", 0);
+        // in seconds, invalidations are local to this node so other nodes of a cluster may evaluate stale policies until then
+        this.policyIndexMaxAge = config.getInt("policyIndexMaxAge", (int) TimeUnit.MILLISECONDS.toSeconds(PolicyIndexes.DEFAULT_MAX_AGE));
+        this.metrics = config.getBoolean("evaluationMetrics", true) ? DefaultEvaluationMetrics.shared() : EvaluationMetrics.NONE;
+        this.scheduler = EvaluationScheduler.acquire(config);
     }
 
     @Override
@@ -98,7 +115,7 @@ public class RealmAuthzAdminResourceProviderFactory implements RealmAdminResourc
                 }
 
                 return storeFactory;
-            }).build();
+            }).shortCircuit(this.shortCircuit).reuseEvaluations(this.reuseEvaluations).evaluationTimeout(this.evaluationTimeout, TimeUnit.MILLISECONDS).policyIndexMaxAge(this.policyIndexMaxAge, TimeUnit.SECONDS).metrics(this.metrics).build();
 
             transaction.commit();
         } catch (Exception e) {
@@ -108,19 +125,12 @@ public class RealmAuthzAdminResourceProviderFactory implements RealmAdminResourc
             session.close();
         }
         this.persistenceProviderFactory.registerSynchronizationListeners(factory);
-        this.threadFactory = r -> {
-            Map<Class<?>, Object> contextDataMap = ResteasyProviderFactory.getContextDataMap();
-
-            return new Thread(() -> {
-                ResteasyProviderFactory.pushContextDataMap(contextDataMap);
-                r.run();
-            });
-        };
     }
 
     @Override
     public void close() {
         this.policyProviders.forEach(PolicyProviderFactory::dispose);
+        EvaluationScheduler.release(this.scheduler);
     }
 
     @Override
@@ -137,6 +147,8 @@ public class RealmAuthzAdminResourceProviderFactory implements RealmAdminResourc
 
         info.put("Persistence Provider", this.persistenceProviderFactory.getClass().getName());
         info.put("Policy Providers", policyProvidersInfo.substring(0, policyProvidersInfo.lastIndexOf(",")));
+        info.putAll(OperationalInfo.of(this.authorization));
+        info.putAll(OperationalInfo.of(this.scheduler));
 
         return info;
     }
@@ -21,6 +21,8 @@ import org.jboss.resteasy.plugins.providers.multipart.InputPart;
 import org.jboss.resteasy.plugins.providers.multipart.MultipartFormDataInput;
 import org.jboss.resteasy.spi.ResteasyProviderFactory;
 import org.keycloak.authz.core.Authorization;
+import org.keycloak.authz.core.metrics.LatencyHistogram;
+import org.keycloak.authz.core.metrics.MetricsSnapshot;
 import org.keycloak.authz.core.model.ResourceServer;
 import org.keycloak.authz.core.model.Scope;
 import org.keycloak.authz.server.admin.resource.representation.PolicyRepresentation;
@@ -28,7 +30,9 @@ import org.keycloak.authz.server.admin.resource.representation.ResourceOwnerRepr
 import org.keycloak.authz.server.admin.resource.representation.ResourceRepresentation;
 import org.keycloak.authz.server.admin.resource.representation.ResourceServerRepresentation;
 import org.keycloak.authz.server.admin.resource.representation.ScopeRepresentation;
+import org.keycloak.authz.server.admin.resource.util.Caches;
 import org.keycloak.authz.server.admin.resource.util.Models;
+import org.keycloak.authz.server.services.common.util.EvaluationScheduler;
 import org.keycloak.models.ClientModel;
 import org.keycloak.models.KeycloakSession;
 import org.keycloak.models.RealmModel;
@@ -50,9 +54,12 @@ import javax.ws.rs.core.Response;
 import javax.ws.rs.core.UriInfo;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.ThreadFactory;
+import java.util.Set;
+import java.util.TreeMap;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
@@ -62,7 +69,7 @@ import java.util.stream.Collectors;
 public class ResourceServerResource {
 
     private final RealmModel realm;
-    private final ThreadFactory threadFactory;
+    private final EvaluationScheduler scheduler;
 
     @Context
     private Authorization authorizationManager;
@@ -70,9 +77,9 @@ public class ResourceServerResource {
     @Context
     private KeycloakSession keycloakSession;
 
-    public ResourceServerResource(RealmModel realm, ThreadFactory threadFactory) {
+    public ResourceServerResource(RealmModel realm, EvaluationScheduler scheduler) {
         this.realm = realm;
-        this.threadFactory = threadFactory;
+        this.scheduler = scheduler;
     }
 
     @POST
@@ -122,8 +129,14 @@ public class ResourceServerResource {
     public Response delete(@PathParam("id") String id) {
         this.authorizationManager.getStoreFactory().getResourceStore().findByResourceServer(id).forEach(resource -> this.authorizationManager.getStoreFactory().getResourceStore().delete(resource.getId()));
         this.authorizationManager.getStoreFactory().getScopeStore().findByResourceServer(id).forEach(scope -> this.authorizationManager.getStoreFactory().getScopeStore().delete(scope.getId()));
-        this.authorizationManager.getStoreFactory().getPolicyStore().findByResourceServer(id).forEach(scope -> this.authorizationManager.getStoreFactory().getPolicyStore().remove(scope.getId()));
+        Set<String> policyIds = new HashSet<>();
+
+        this.authorizationManager.getStoreFactory().getPolicyStore().findByResourceServer(id).forEach(policy -> {
+            policyIds.add(policy.getId());
+            this.authorizationManager.getStoreFactory().getPolicyStore().remove(policy.getId());
+        });
         this.authorizationManager.getStoreFactory().getResourceServerStore().delete(id);
+        Caches.remove(id, policyIds, this.authorizationManager, this.keycloakSession);
         return Response.noContent().build();
     }
 
@@ -156,6 +169,34 @@ public class ResourceServerResource {
         return Response.ok(resourceServers).build();
     }
 
+    /**
+     * Returns the evaluation metrics recorded so far for the policies of the given resource server. Metrics for policy types, requests and
+     * store lookups are shared by all realms, so they are not included.
+     */
+    @Path("{id}/metrics")
+    @GET
+    @Produces("application/json")
+    public Response getMetrics(@PathParam("id") String id) {
+        ResourceServer model = this.authorizationManager.getStoreFactory().getResourceServerStore().findById(id);
+
+        if (model == null) {
+            return Response.status(Response.Status.NOT_FOUND).build();
+        }
+
+        MetricsSnapshot snapshot = this.authorizationManager.getMetrics().getSnapshot();
+        Map<String, MetricsSnapshot.PolicyMetrics> policies = new TreeMap<>();
+
+        this.authorizationManager.getStoreFactory().getPolicyStore().findByResourceServer(model.getId()).forEach(policy -> {
+            MetricsSnapshot.PolicyMetrics policyMetrics = snapshot.getPolicies().get(policy.getId());
+
+            if (policyMetrics != null) {
+                policies.put(policy.getId(), policyMetrics);
+            }
+        });
+
+        return Response.ok(new MetricsSnapshot(Collections.emptyMap(), policies, LatencyHistogram.Snapshot.EMPTY, LatencyHistogram.Snapshot.EMPTY)).build();
+    }
+
     @Path("{id}/settings")
     @GET
     @Produces("application/json")
@@ -391,7 +432,7 @@ public class ResourceServerResource {
                 resourceSetResource.create(resourceRepresentation);
             });
 
-            PolicyResource policyResource = new PolicyResource(this.realm, resourceServer, this.threadFactory);
+            PolicyResource policyResource = new PolicyResource(this.realm, resourceServer, this.scheduler);
 
             ResteasyProviderFactory.getInstance().injectProperties(policyResource);
 
@@ -544,7 +585,7 @@ public class ResourceServerResource {
 
     @Path("{id}/policy")
     public PolicyResource getPolicyResource(@PathParam("id") String id) {
-        PolicyResource resource = new PolicyResource(this.realm, this.authorizationManager.getStoreFactory().getResourceServerStore().findById(id), threadFactory);
+        PolicyResource resource = new PolicyResource(this.realm, this.authorizationManager.getStoreFactory().getResourceServerStore().findById(id), scheduler);
 
         ResteasyProviderFactory.getInstance().injectProperties(resource);
 
@@ -23,6 +23,7 @@ import org.keycloak.authz.core.model.Resource;
 import org.keycloak.authz.core.model.ResourceServer;
 import org.keycloak.authz.server.admin.resource.representation.ResourceRepresentation;
 import org.keycloak.authz.server.admin.resource.representation.ScopeRepresentation;
+import org.keycloak.authz.server.admin.resource.util.Caches;
 import org.keycloak.authz.server.admin.resource.util.Models;
 import org.keycloak.models.KeycloakSession;
 import org.keycloak.models.RealmModel;
@@ -106,6 +107,8 @@ public class ResourceSetResource {
 
         this.authorizationManager.getStoreFactory().getResourceStore().save(model);
 
+        Caches.invalidate(this.resourceServer, this.authorizationManager, this.keycloakSession);
+
         return Response.noContent().build();
     }
 
@@ -131,6 +134,8 @@ public class ResourceSetResource {
 
         this.authorizationManager.getStoreFactory().getResourceStore().delete(id);
 
+        Caches.invalidate(this.resourceServer, this.authorizationManager, this.keycloakSession);
+
         return Response.noContent().build();
     }
 
@@ -18,10 +18,10 @@
 package org.keycloak.authz.server.admin.resource;
 
 import org.jboss.resteasy.spi.ResteasyProviderFactory;
+import org.keycloak.authz.server.services.common.util.EvaluationScheduler;
 import org.keycloak.models.RealmModel;
 
 import javax.ws.rs.Path;
-import java.util.concurrent.ThreadFactory;
 
 /**
  * @author <a href="mailto:psilva@redhat.com">Pedro Igor</a>
@@ -29,16 +29,16 @@ import java.util.concurrent.ThreadFactory;
 public class RootResource {
 
     private final RealmModel realm;
-    private final ThreadFactory threadFactory;
+    private final EvaluationScheduler scheduler;
 
-    RootResource(RealmModel realm, ThreadFactory threadFactory) {
+    RootResource(RealmModel realm, EvaluationScheduler scheduler) {
         this.realm = realm;
-        this.threadFactory = threadFactory;
+        this.scheduler = scheduler;
     }
 
     @Path("/resource-server")
     public Object resourceServers() {
-        ResourceServerResource resource = new ResourceServerResource(this.realm, this.threadFactory);
+        ResourceServerResource resource = new ResourceServerResource(this.realm, this.scheduler);
 
         ResteasyProviderFactory.getInstance().injectProperties(resource);
 
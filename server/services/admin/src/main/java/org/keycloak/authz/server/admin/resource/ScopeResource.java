@@ -26,6 +26,7 @@ import org.keycloak.authz.core.model.Resource;
 import org.keycloak.authz.core.model.ResourceServer;
 import org.keycloak.authz.core.model.Scope;
 import org.keycloak.authz.server.admin.resource.representation.ScopeRepresentation;
+import org.keycloak.authz.server.admin.resource.util.Caches;
 import org.keycloak.authz.server.admin.resource.util.Models;
 import org.keycloak.models.KeycloakSession;
 import org.keycloak.services.ErrorResponse;
@@ -90,6 +91,8 @@ public class ScopeResource {
 
         this.authorizationManager.getStoreFactory().getScopeStore().save(model);
 
+        Caches.invalidate(this.resourceServer, this.authorizationManager, this.keycloakSession);
+
         return Response.noContent().build();
     }
 
@@ -116,6 +119,8 @@ public class ScopeResource {
 
         this.authorizationManager.getStoreFactory().getScopeStore().delete(id);
 
+        Caches.invalidate(this.resourceServer, this.authorizationManager, this.keycloakSession);
+
         return Response.noContent().build();
     }
 
@@ -13,6 +13,9 @@ import org.keycloak.models.RealmModel;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 /**
@@ -40,13 +43,16 @@ public class PolicyEvaluationResponse {
             if (entitlements.isEmpty()) {
                 response.status = Decision.Effect.DENY;
             } else {
+                Set<String> resourceIds = entitlements.stream().map(Permission::getResourceSetId).filter(id -> id != null).collect(Collectors.toSet());
+                Map<String, Resource> resources = authorizationManager.getStoreFactory().getResourceStore().findByIds(resourceIds).stream().collect(Collectors.toMap(Resource::getId, Function.identity()));
+
                 for (Permission permission : entitlements) {
                     EvaluationResultRepresentation rep = new EvaluationResultRepresentation();
 
                     rep.setStatus(Decision.Effect.PERMIT);
                     resultsRep.add(rep);
 
-                    Resource resource = authorizationManager.getStoreFactory().getResourceStore().findById(permission.getResourceSetId());
+                    Resource resource = resources.get(permission.getResourceSetId());
 
                     rep.setResource(Models.toRepresentation(resource, resourceServer, authorizationManager, realm, keycloakSession));
                     rep.setScopes(permission.getScopes().stream().map(ScopeRepresentation::new).collect(Collectors.toList()));
@@ -97,6 +103,7 @@ public class PolicyEvaluationResponse {
 
         policyResultRep.setPolicy(Models.toRepresentation(policy.getPolicy(), authorizationManager));
         policyResultRep.setStatus(policy.getStatus());
+        policyResultRep.setSkipped(policy.isSkipped());
         policyResultRep.setAssociatedPolicies(policy.getAssociatedPolicies().stream().map(result -> toRepresentation(result, authorizationManager)).collect(Collectors.toList()));
 
         return policyResultRep;
@@ -158,6 +165,7 @@ public class PolicyEvaluationResponse {
 
         private PolicyRepresentation policy;
         private Decision.Effect status;
+        private boolean skipped;
         private List<PolicyResultRepresentation> associatedPolicies;
 
         public PolicyRepresentation getPolicy() {
@@ -176,6 +184,14 @@ public class PolicyEvaluationResponse {
             this.status = status;
         }
 
+        public boolean isSkipped() {
+            return skipped;
+        }
+
+        public void setSkipped(final boolean skipped) {
+            this.skipped = skipped;
+        }
+
         public List<PolicyResultRepresentation> getAssociatedPolicies() {
             return associatedPolicies;
         }
@@ -0,0 +1,135 @@
+package org.keycloak.authz.server.admin.resource.util;
+
+import org.keycloak.authz.core.Authorization;
+import org.keycloak.authz.core.model.Policy;
+import org.keycloak.authz.core.model.ResourceServer;
+import org.keycloak.models.KeycloakSession;
+import org.keycloak.models.KeycloakTransaction;
+
+import java.util.Collections;
+import java.util.Set;
+
+/**
+ * Utility methods to keep the caches built from the metadata of a resource server (e.g.: policy indexes and policy providers) in sync with the changes
+ * made through the administration API. Cached decisions are keyed by the version of the policy index they were evaluated with, so they are no
+ * longer used once the index is invalidated.
+ *
+ * @author <a href="mailto:psilva@redhat.com">Pedro Igor</a>
+ */
+public final class Caches {
+
+    /**
+     * Invalidates all caches associated with the given <code>resourceServer</code>. Caches are invalidated immediately and once again
+     * after the current transaction commits, so that no other thread rebuilds them from a state that is not yet committed.
+     *
+     * @param resourceServer the resource server that was changed
+     * @param authorization the authorization instance
+     * @param keycloakSession the current session
+     */
+    public static void invalidate(ResourceServer resourceServer, Authorization authorization, KeycloakSession keycloakSession) {
+        invalidate(resourceServer.getId(), authorization, keycloakSession);
+    }
+
+    /**
+     * Invalidates all caches associated with a resource server with the given <code>resourceServerId</code>.
+     *
+     * @param resourceServerId the identifier of the resource server that was changed
+     * @param authorization the authorization instance
+     * @param keycloakSession the current session
+     * @see #invalidate(ResourceServer, Authorization, KeycloakSession)
+     */
+    public static void invalidate(String resourceServerId, Authorization authorization, KeycloakSession keycloakSession) {
+        invalidate(resourceServerId, Collections.emptySet(), false, authorization, keycloakSession);
+    }
+
+    /**
+     * Invalidates all caches associated with the resource server of the given <code>policy</code>, as well as any
+     * {@link org.keycloak.authz.core.policy.provider.PolicyProvider} cached for the policy itself.
+     *
+     * @param policy the policy that was changed
+     * @param authorization the authorization instance
+     * @param keycloakSession the current session
+     * @see #invalidate(ResourceServer, Authorization, KeycloakSession)
+     */
+    public static void invalidate(Policy policy, Authorization authorization, KeycloakSession keycloakSession) {
+        invalidate(policy.getResourceServer().getId(), Collections.singleton(policy.getId()), false, authorization, keycloakSession);
+    }
+
+    /**
+     * Invalidates all caches associated with the resource server of the given <code>policy</code> after it was removed. Once the current
+     * transaction commits, the metrics recorded for the policy are discarded as well.
+     *
+     * @param policy the policy that was removed
+     * @param authorization the authorization instance
+     * @param keycloakSession the current session
+     * @see #invalidate(Policy, Authorization, KeycloakSession)
+     */
+    public static void remove(Policy policy, Authorization authorization, KeycloakSession keycloakSession) {
+        invalidate(policy.getResourceServer().getId(), Collections.singleton(policy.getId()), true, authorization, keycloakSession);
+    }
+
+    /**
+     * Invalidates all caches associated with a resource server with the given <code>resourceServerId</code> after it was removed, along
+     * with the policies with the given <code>policyIds</code>. Once the current transaction commits, the metrics recorded for these
+     * policies are discarded as well.
+     *
+     * @param resourceServerId the identifier of the resource server that was removed
+     * @param policyIds the identifiers of the policies of the resource server
+     * @param authorization the authorization instance
+     * @param keycloakSession the current session
+     * @see #invalidate(ResourceServer, Authorization, KeycloakSession)
+     */
+    public static void remove(String resourceServerId, Set<String> policyIds, Authorization authorization, KeycloakSession keycloakSession) {
+        invalidate(resourceServerId, policyIds, true, authorization, keycloakSession);
+    }
+
+    private static void invalidate(String resourceServerId, Set<String> policyIds, boolean removed, Authorization authorization, KeycloakSession keycloakSession) {
+        invalidate(resourceServerId, policyIds, authorization);
+
+        keycloakSession.getTransaction().enlist(new KeycloakTransaction() {
+            private boolean rollbackOnly;
+            private boolean active;
+
+            @Override
+            public void begin() {
+                this.active = true;
+            }
+
+            @Override
+            public void commit() {
+                this.active = false;
+                invalidate(resourceServerId, policyIds, authorization);
+
+                if (removed) {
+                    policyIds.forEach(policyId -> authorization.getMetrics().onPolicyRemoved(policyId));
+                }
+            }
+
+            @Override
+            public void rollback() {
+                this.active = false;
+                invalidate(resourceServerId, policyIds, authorization);
+            }
+
+            @Override
+            public void setRollbackOnly() {
+                this.rollbackOnly = true;
+            }
+
+            @Override
+            public boolean getRollbackOnly() {
+                return this.rollbackOnly;
+            }
+
+            @Override
+            public boolean isActive() {
+                return this.active;
+            }
+        });
+    }
+
+    private static void invalidate(String resourceServerId, Set<String> policyIds, Authorization authorization) {
+        authorization.getPolicyIndexes().invalidate(resourceServerId);
+        policyIds.forEach(policyId -> authorization.getPolicyProviderCache().invalidate(policyId));
+    }
+}
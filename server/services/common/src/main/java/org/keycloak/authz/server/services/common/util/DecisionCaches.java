@@ -0,0 +1,43 @@
+package org.keycloak.authz.server.services.common.util;
+
+import org.keycloak.Config;
+import org.keycloak.authz.core.policy.cache.DecisionCache;
+import org.keycloak.authz.core.policy.cache.DefaultDecisionCache;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Creates a {@link DecisionCache} from the configuration of a provider factory. The following properties are supported:
+ *
+ * <ul>
+ *     <li><code>decisionCacheMaxEntries</code>: the maximum number of cached decisions. Decisions are not cached if not set or zero.</li>
+ *     <li><code>decisionCacheTtl</code>: how long, in seconds, a decision is valid. Defaults to 60 seconds.</li>
+ *     <li><code>decisionCacheKeyAttributes</code>: the identity and context attributes that are part of a cache key. Defaults to
+ *     {@link DecisionCache#DEFAULT_KEY_ATTRIBUTES}.</li>
+ *     <li><code>decisionCacheCoversAttributes</code>: if the key attributes include all the context attributes read by policies, so that
+ *     decisions taken by policies depending on context attributes are cached as well. Defaults to false.</li>
+ * </ul>
+ *
+ * @author <a href="mailto:psilva@redhat.com">Pedro Igor</a>
+ */
+public final class DecisionCaches {
+
+    public static DecisionCache create(Config.Scope config) {
+        int maxEntries = config.getInt("decisionCacheMaxEntries", 0);
+
+        if (maxEntries < 1) {
+            return null;
+        }
+
+        int timeToLive = config.getInt("decisionCacheTtl", 60);
+        String[] keyAttributes = config.getArray("decisionCacheKeyAttributes");
+
+        if (keyAttributes == null) {
+            return new DefaultDecisionCache(maxEntries, timeToLive, TimeUnit.SECONDS);
+        }
+
+        return new DefaultDecisionCache(maxEntries, timeToLive, TimeUnit.SECONDS, new HashSet<>(Arrays.asList(keyAttributes)), config.getBoolean("decisionCacheCoversAttributes", false));
+    }
+}
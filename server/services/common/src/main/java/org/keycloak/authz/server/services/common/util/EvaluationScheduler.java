@@ -0,0 +1,223 @@
+package org.keycloak.authz.server.services.common.util;
+
+import org.jboss.resteasy.spi.ResteasyProviderFactory;
+import org.keycloak.Config;
+import org.keycloak.services.ErrorResponseException;
+
+import javax.ws.rs.core.Response;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * <p>A bounded {@link Executor} shared by the provider factories to evaluate permissions asynchronously, instead of creating threads per request.
+ *
+ * <p>Tasks run with the RESTEasy context data of the thread that submitted them. Once all threads are busy and the queue is full, new tasks
+ * are rejected with a {@link RejectedExecutionException}, which should be reported to clients through {@link #unavailable(RuntimeException)}.
+ *
+ * <p>The following properties are read from the configuration of the first provider factory that acquires the shared instance:
+ *
+ * <ul>
+ *     <li><code>evaluationThreads</code>: the maximum number of threads evaluating permissions. Defaults to twice the number of processors.</li>
+ *     <li><code>evaluationQueueSize</code>: the maximum number of tasks waiting for a thread. Defaults to 1000.</li>
+ *     <li><code>evaluationVirtualThreads</code>: if each task should run on its own virtual thread, in which case at most
+ *     <code>evaluationThreads</code> plus <code>evaluationQueueSize</code> tasks run at the same time. Requires a JDK with virtual threads.
+ *     Defaults to false.</li>
+ * </ul>
+ *
+ * @author <a href="mailto:psilva@redhat.com">Pedro Igor</a>
+ */
+public final class EvaluationScheduler implements Executor {
+
+    private static EvaluationScheduler shared;
+    private static int references;
+
+    /**
+     * Returns the shared instance, creating it from the given <code>config</code> if this is the first reference to it.
+     *
+     * @param config the configuration of the provider factory
+     * @return the shared instance
+     */
+    public static synchronized EvaluationScheduler acquire(Config.Scope config) {
+        if (shared == null) {
+            shared = new EvaluationScheduler(config.getInt("evaluationThreads", Runtime.getRuntime().availableProcessors() * 2),
+                    config.getInt("evaluationQueueSize", 1000), config.getBoolean("evaluationVirtualThreads", false));
+        }
+
+        references++;
+
+        return shared;
+    }
+
+    /**
+     * Releases a reference to the shared instance obtained from {@link #acquire(Config.Scope)}. The instance is shut down once there are
+     * no references left.
+     *
+     * @param scheduler the shared instance
+     */
+    public static synchronized void release(EvaluationScheduler scheduler) {
+        if (scheduler != null && scheduler == shared && --references == 0) {
+            shared.executor.shutdown();
+            shared = null;
+        }
+    }
+
+    /**
+     * Creates the exception to report a task rejected because the scheduler is saturated, or an evaluation that did not complete within its
+     * deadline, which results in a <code>503</code> response.
+     *
+     * @param cause the rejection or the {@link org.keycloak.authz.core.EvaluationTimeoutException}
+     * @return the exception to report to the client
+     */
+    public static ErrorResponseException unavailable(RuntimeException cause) {
+        return new ErrorResponseException("temporarily_unavailable", cause.getMessage(), Response.Status.SERVICE_UNAVAILABLE);
+    }
+
+    private final ExecutorService executor;
+    private final ThreadPoolExecutor pool;
+    private final Semaphore permits;
+    private final int threads;
+    private final int queueSize;
+    private final AtomicInteger active = new AtomicInteger();
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+
+    EvaluationScheduler(int threads, int queueSize, boolean virtualThreads) {
+        if (threads < 1) {
+            throw new RuntimeException("Invalid number of evaluation threads [" + threads + "].");
+        }
+
+        if (queueSize < 0) {
+            throw new RuntimeException("Invalid evaluation queue size [" + queueSize + "].");
+        }
+
+        this.threads = threads;
+        this.queueSize = queueSize;
+
+        if (virtualThreads) {
+            this.executor = createVirtualThreadExecutor();
+            this.pool = null;
+            this.permits = new Semaphore(threads + queueSize);
+        } else {
+            BlockingQueue<Runnable> queue = queueSize == 0 ? new SynchronousQueue<>() : new ArrayBlockingQueue<>(queueSize);
+
+            this.pool = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS, queue, new EvaluationThreadFactory(), new ThreadPoolExecutor.AbortPolicy());
+            this.pool.allowCoreThreadTimeOut(true);
+            this.executor = this.pool;
+            this.permits = null;
+        }
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        Map<Class<?>, Object> contextData = ResteasyProviderFactory.getContextDataMap();
+        Runnable evaluation = () -> {
+            this.active.incrementAndGet();
+            ResteasyProviderFactory.pushContextDataMap(contextData);
+
+            try {
+                task.run();
+            } finally {
+                ResteasyProviderFactory.removeContextDataLevel();
+                this.active.decrementAndGet();
+                this.completed.increment();
+
+                if (this.permits != null) {
+                    this.permits.release();
+                }
+            }
+        };
+
+        if (this.permits != null && !this.permits.tryAcquire()) {
+            throw reject();
+        }
+
+        try {
+            this.executor.execute(evaluation);
+        } catch (RejectedExecutionException cause) {
+            if (this.permits != null) {
+                this.permits.release();
+            }
+
+            throw reject();
+        }
+    }
+
+    /**
+     * Returns the number of tasks waiting for a thread.
+     *
+     * @return the queue depth
+     */
+    public int getQueueDepth() {
+        return this.pool != null ? this.pool.getQueue().size() : 0;
+    }
+
+    /**
+     * Returns the number of tasks being executed.
+     *
+     * @return the number of active threads
+     */
+    public int getActiveCount() {
+        return this.active.get();
+    }
+
+    public long getCompletedCount() {
+        return this.completed.sum();
+    }
+
+    public long getRejectedCount() {
+        return this.rejected.sum();
+    }
+
+    public int getThreads() {
+        return this.threads;
+    }
+
+    public int getQueueSize() {
+        return this.queueSize;
+    }
+
+    public boolean isVirtualThreads() {
+        return this.pool == null;
+    }
+
+    private RejectedExecutionException reject() {
+        this.rejected.increment();
+        return new RejectedExecutionException("Too many concurrent evaluations [" + this.active.get() + " active, " + getQueueDepth() + " queued].");
+    }
+
+    private static ExecutorService createVirtualThreadExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (NoSuchMethodException cause) {
+            throw new RuntimeException("Virtual threads are not supported by JDK [" + System.getProperty("java.version") + "].", cause);
+        } catch (Exception cause) {
+            throw new RuntimeException("Failed to create virtual thread executor.", cause);
+        }
+    }
+
+    private static class EvaluationThreadFactory implements ThreadFactory {
+
+        private final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "keycloak-authz-evaluation-" + this.count.incrementAndGet());
+
+            thread.setDaemon(true);
+
+            return thread;
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package org.keycloak.authz.server.services.common.util;
+
+import org.keycloak.authz.core.Authorization;
+import org.keycloak.authz.core.EvaluationMetrics;
+import org.keycloak.authz.core.metrics.LatencyHistogram;
+import org.keycloak.authz.core.metrics.MetricsSnapshot;
+import org.keycloak.authz.core.policy.cache.DecisionCache;
+import org.keycloak.authz.core.policy.index.PolicyIndex;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Collects runtime information about an {@link Authorization} instance, usually exposed by the provider factories through their
+ * operational info.
+ *
+ * @author <a href="mailto:psilva@redhat.com">Pedro Igor</a>
+ */
+public final class OperationalInfo {
+
+    public static Map<String, String> of(Authorization authorization) {
+        Map<String, String> info = new LinkedHashMap<>();
+        Collection<PolicyIndex> indexes = authorization.getPolicyIndexes().getIndexes();
+        long policies = indexes.stream().mapToInt(PolicyIndex::size).sum();
+        long buildTime = indexes.stream().mapToLong(PolicyIndex::getBuildTime).sum();
+
+        info.put("Policy Indexes", indexes.size() + " resource server(s), " + policies + " policies, built in " + TimeUnit.NANOSECONDS.toMillis(buildTime) + "ms");
+        info.put("Cached Policy Providers", String.valueOf(authorization.getPolicyProviderCache().size()));
+
+        DecisionCache decisionCache = authorization.getDecisionCache();
+
+        if (decisionCache != null) {
+            info.put("Decision Cache", decisionCache.getHitCount() + " hits, " + decisionCache.getMissCount() + " misses, " + decisionCache.getEvictionCount() + " evictions, " + decisionCache.size() + " entries");
+        } else {
+            info.put("Decision Cache", "disabled");
+        }
+
+        EvaluationMetrics metrics = authorization.getMetrics();
+
+        if (metrics == EvaluationMetrics.NONE) {
+            info.put("Evaluation Metrics", "disabled");
+        } else {
+            MetricsSnapshot snapshot = metrics.getSnapshot();
+
+            snapshot.getPolicyTypes().forEach((type, policyMetrics) -> info.put("Policy Type [" + type + "]", policyMetrics.getCount() + " evaluations, " + policyMetrics.getReused() + " reused, " + policyMetrics.getErrors() + " errors, " + policyMetrics.getTimedOut() + " timed out, " + toMicros(policyMetrics.getLatency())));
+
+            LatencyHistogram.Snapshot permissionsPerRequest = snapshot.getPermissionsPerRequest();
+
+            info.put("Permissions per Request", permissionsPerRequest.getCount() + " requests, mean " + permissionsPerRequest.getMean() + ", p99 " + permissionsPerRequest.getP99() + ", max " + permissionsPerRequest.getMax());
+            info.put("Store Lookups", snapshot.getStoreLookups().getCount() + " lookups, " + toMicros(snapshot.getStoreLookups()));
+        }
+
+        return info;
+    }
+
+    public static Map<String, String> of(EvaluationScheduler scheduler) {
+        Map<String, String> info = new LinkedHashMap<>();
+
+        info.put("Evaluation Scheduler", scheduler.getThreads() + (scheduler.isVirtualThreads() ? " virtual" : "") + " thread(s), " + scheduler.getActiveCount() + " active, "
+                + scheduler.getQueueDepth() + "/" + scheduler.getQueueSize() + " queued, " + scheduler.getCompletedCount() + " completed, " + scheduler.getRejectedCount() + " rejected");
+
+        return info;
+    }
+
+    private static String toMicros(LatencyHistogram.Snapshot latency) {
+        return "p50 " + TimeUnit.NANOSECONDS.toMicros(latency.getP50()) + "us, p99 " + TimeUnit.NANOSECONDS.toMicros(latency.getP99()) + "us, max " + TimeUnit.NANOSECONDS.toMicros(latency.getMax()) + "us";
+    }
+}
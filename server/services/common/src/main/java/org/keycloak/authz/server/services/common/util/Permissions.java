@@ -3,6 +3,7 @@ package org.keycloak.authz.server.services.common.util;
 import org.keycloak.authz.core.Authorization;
 import org.keycloak.authz.core.Decision;
 import org.keycloak.authz.core.identity.Identity;
+import org.keycloak.authz.core.model.Policy;
 import org.keycloak.authz.core.model.Resource;
 import org.keycloak.authz.core.model.ResourceServer;
 import org.keycloak.authz.core.model.Scope;
@@ -12,11 +13,14 @@ import org.keycloak.authz.server.services.common.representation.Permission;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * @author <a href="mailto:psilva@redhat.com">Pedro Igor</a>
@@ -37,14 +41,34 @@ public final class Permissions {
     public static List<ResourcePermission> all(ResourceServer resourceServer, Identity identity, Authorization authorization) {
         List<ResourcePermission> permissions = new ArrayList<>();
 
-        authorization.getStoreFactory().getResourceStore().findByOwner(resourceServer.getClientId()).stream().forEach(resource -> permissions.addAll(createResourcePermissions(resource)));
-        authorization.getStoreFactory().getResourceStore().findByOwner(identity.getId()).stream().forEach(resource -> permissions.addAll(createResourcePermissions(resource)));
+        iterate(resourceServer, identity, authorization).forEach(permissions::add);
+
+        return permissions;
+    }
+
+    /**
+     * Same as {@link #all(ResourceServer, Identity, Authorization)}, but permissions are only created as they are iterated, so that a
+     * consumer pulling them one window at a time does not hold a permission for every resource and scope. Resources and policies are
+     * loaded from the stores when this method is called, in the calling thread.
+     *
+     * @param resourceServer the resource server
+     * @param identity the identity
+     * @param authorization the authorization instance
+     * @return an {@link Iterable} that creates the permissions as they are iterated
+     */
+    public static Iterable<ResourcePermission> iterate(ResourceServer resourceServer, Identity identity, Authorization authorization) {
+        long start = System.nanoTime();
+        List<Resource> resources = new ArrayList<>(authorization.getStoreFactory().getResourceStore().findByOwner(resourceServer.getClientId()));
+
+        resources.addAll(authorization.getStoreFactory().getResourceStore().findByOwner(identity.getId()));
 
         List<String> scopeNames = authorization.getStoreFactory().getScopeStore().findByResourceServer(resourceServer.getId()).stream().map(Scope::getName).collect(Collectors.toList());
+        List<Policy> policies = authorization.getStoreFactory().getPolicyStore().findByScopeName(scopeNames, resourceServer.getId());
 
-        authorization.getStoreFactory().getPolicyStore().findByScopeName(scopeNames, resourceServer.getId()).stream().forEach(policy -> permissions.add(new ResourcePermission(null, policy.getScopes().stream().collect(Collectors.toList()), resourceServer)));
+        authorization.getMetrics().onStoreLookup(System.nanoTime() - start);
 
-        return permissions;
+        return () -> Stream.concat(resources.stream().flatMap(resource -> createResourcePermissions(resource).stream()),
+                policies.stream().map(policy -> new ResourcePermission(null, policy.getScopes().stream().collect(Collectors.toList()), resourceServer))).iterator();
     }
 
     public static List<ResourcePermission> createResourcePermissions(Resource resource) {
@@ -61,38 +85,52 @@ public final class Permissions {
     }
 
     public static List<Permission> entitlements(List<Result> evaluation) {
-        List<Permission> permissions = evaluation.stream()
-                .filter(evaluationResult -> evaluationResult.getEffect().equals(Decision.Effect.PERMIT))
-                .map(evaluationResult -> {
-                    ResourcePermission permission = evaluationResult.getPermission();
-                    String resourceId = null;
+        // scope names are interned into dense ids, so that the scopes granted for each resource are merged as bit sets
+        Map<String, Integer> scopeIds = new HashMap<>();
+        List<String> scopeNames = new ArrayList<>();
+        Map<String, BitSet> perms = new LinkedHashMap<>();
+
+        for (Result result : evaluation) {
+            if (!Decision.Effect.PERMIT.equals(result.getEffect())) {
+                continue;
+            }
 
-                    if (permission.getResource() != null) {
-                        resourceId = permission.getResource().getId();
-                    }
+            ResourcePermission permission = result.getPermission();
+            String resourceId = null;
 
-                    return new Permission(resourceId, permission.getScopes().stream().map(Scope::getName).collect(Collectors.toList()));
-                }).collect(Collectors.toList());
+            if (permission.getResource() != null) {
+                resourceId = permission.getResource().getId();
+            }
+
+            BitSet scopes = perms.computeIfAbsent(resourceId, key -> new BitSet());
+            List<String> names = permission.getScopeNames();
 
-        Map<String, Permission> perms = new HashMap<>();
+            for (int i = 0; i < names.size(); i++) {
+                String name = names.get(i);
+                Integer id = scopeIds.get(name);
 
-        permissions.forEach(permission -> {
-            Permission evalPermission = perms.get(permission.getResourceSetId());
+                if (id == null) {
+                    id = scopeNames.size();
+                    scopeIds.put(name, id);
+                    scopeNames.add(name);
+                }
 
-            if (evalPermission == null) {
-                evalPermission = permission;
-                perms.put(permission.getResourceSetId(), evalPermission);
+                scopes.set(id);
             }
+        }
 
-            List<String> scopes = evalPermission.getScopes();
+        List<Permission> permissions = new ArrayList<>(perms.size());
 
-            permission.getScopes().forEach(s -> {
-                if (!scopes.contains(s)) {
-                    scopes.add(s);
-                }
-            });
+        perms.forEach((resourceId, scopes) -> {
+            List<String> names = new ArrayList<>(scopes.cardinality());
+
+            for (int id = scopes.nextSetBit(0); id >= 0; id = scopes.nextSetBit(id + 1)) {
+                names.add(scopeNames.get(id));
+            }
+
+            permissions.add(new Permission(resourceId, names));
         });
 
-        return perms.values().stream().collect(Collectors.toList());
+        return permissions;
     }
 }
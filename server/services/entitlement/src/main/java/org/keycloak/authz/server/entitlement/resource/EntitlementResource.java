@@ -20,12 +20,20 @@ package org.keycloak.authz.server.entitlement.resource;
 import org.jboss.resteasy.spi.HttpRequest;
 import org.keycloak.OAuthErrorException;
 import org.keycloak.authz.core.Authorization;
+import org.keycloak.authz.core.Decision;
+import org.keycloak.authz.core.EvaluationTimeoutException;
 import org.keycloak.authz.core.identity.Identity;
+import org.keycloak.authz.core.model.Resource;
 import org.keycloak.authz.core.model.ResourceServer;
-import org.keycloak.authz.core.policy.evaluation.DecisionResultCollector;
+import org.keycloak.authz.core.model.Scope;
+import org.keycloak.authz.core.permission.ResourcePermission;
+import org.keycloak.authz.core.permission.evaluator.Flow;
+import org.keycloak.authz.core.permission.evaluator.Publishers;
 import org.keycloak.authz.core.policy.evaluation.Result;
+import org.keycloak.authz.server.entitlement.resource.representation.AccessibleResourceRepresentation;
 import org.keycloak.authz.server.entitlement.resource.representation.EntitlementResponse;
 import org.keycloak.authz.server.services.common.KeycloakExecutionContext;
+import org.keycloak.authz.server.services.common.util.EvaluationScheduler;
 import org.keycloak.authz.server.services.common.util.Permissions;
 import org.keycloak.authz.server.services.common.util.Tokens;
 import org.keycloak.jose.jws.JWSBuilder;
@@ -37,15 +45,17 @@ import org.keycloak.services.resources.Cors;
 
 import javax.ws.rs.GET;
 import javax.ws.rs.OPTIONS;
+import javax.ws.rs.Path;
 import javax.ws.rs.Produces;
 import javax.ws.rs.QueryParam;
 import javax.ws.rs.container.AsyncResponse;
 import javax.ws.rs.container.Suspended;
 import javax.ws.rs.core.Context;
 import javax.ws.rs.core.Response;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.stream.Collectors;
 
 import static org.keycloak.authz.server.services.common.util.Permissions.entitlements;
 
@@ -54,8 +64,18 @@ import static org.keycloak.authz.server.services.common.util.Permissions.entitle
  */
 public class EntitlementResource {
 
+    /**
+     * The number of results requested at a time while evaluating permissions. Only granted results are kept.
+     */
+    private static final int EVALUATION_BATCH_SIZE = 64;
+
+    /**
+     * The number of accessible resources returned when the request does not specify it, as well as the most that can be requested at once.
+     */
+    private static final int DEFAULT_MAX_RESULTS = 100;
+
     private final RealmModel realm;
-    private final ThreadFactory threadFactory;
+    private final EvaluationScheduler scheduler;
 
     @Context
     private Authorization authorizationManager;
@@ -66,9 +86,9 @@ public class EntitlementResource {
     @Context
     private HttpRequest request;
 
-    EntitlementResource(RealmModel realm, ThreadFactory threadFactory) {
+    EntitlementResource(RealmModel realm, EvaluationScheduler scheduler) {
         this.realm = realm;
-        this.threadFactory = threadFactory;
+        this.scheduler = scheduler;
     }
 
     @OPTIONS
@@ -79,6 +99,103 @@ public class EntitlementResource {
     @GET
     @Produces("application/json")
     public void get(@QueryParam("resourceServerId") String resourceServerId, @Suspended AsyncResponse asyncResponse) {
+        ResourceServer resourceServer = getResourceServer(resourceServerId);
+        // permissions are created as the evaluation requests them, one window at a time
+        Iterable<ResourcePermission> permissions = Permissions.iterate(resourceServer, this.identity, this.authorizationManager);
+        Flow.Publisher<Result> results = this.authorizationManager.evaluators().stream(Publishers.from(permissions), new KeycloakExecutionContext(this.realm));
+
+        Runnable evaluation = () -> results.subscribe(new Flow.Subscriber<Result>() {
+            private final List<Result> granted = new ArrayList<>();
+            private Flow.Subscription subscription;
+            private int received;
+
+            @Override
+            public void onSubscribe(Flow.Subscription subscription) {
+                this.subscription = subscription;
+                this.subscription.request(EVALUATION_BATCH_SIZE);
+            }
+
+            @Override
+            public void onNext(Result result) {
+                if (Decision.Effect.PERMIT.equals(result.getEffect())) {
+                    this.granted.add(result);
+                }
+
+                if (++this.received == EVALUATION_BATCH_SIZE) {
+                    this.received = 0;
+                    this.subscription.request(EVALUATION_BATCH_SIZE);
+                }
+            }
+
+            @Override
+            public void onError(Throwable cause) {
+                if (cause instanceof EvaluationTimeoutException) {
+                    asyncResponse.resume(EvaluationScheduler.unavailable((EvaluationTimeoutException) cause));
+                } else {
+                    asyncResponse.resume(cause);
+                }
+            }
+
+            @Override
+            public void onComplete() {
+                asyncResponse.resume(Cors.add(request, Response.ok().entity(new EntitlementResponse(createRequestingPartyToken(this.granted)))).allowedOrigins("*").build());
+            }
+        });
+
+        try {
+            this.scheduler.execute(evaluation);
+        } catch (RejectedExecutionException cause) {
+            throw EvaluationScheduler.unavailable(cause);
+        }
+    }
+
+    /**
+     * Returns the accessible resources of the given resource server, ordered by name. Only the resources reachable from a permission that can
+     * still be granted to the identity are evaluated, instead of all the resources of the resource server. At most {@link #DEFAULT_MAX_RESULTS}
+     * resources are returned, even if more are requested.
+     */
+    @Path("resources")
+    @GET
+    @Produces("application/json")
+    public void getResources(@QueryParam("resourceServerId") String resourceServerId, @QueryParam("first") Integer firstResult, @QueryParam("max") Integer maxResults, @Suspended AsyncResponse asyncResponse) {
+        ResourceServer resourceServer = getResourceServer(resourceServerId);
+
+        if (firstResult != null && firstResult < 0) {
+            throw new ErrorResponseException(OAuthErrorException.INVALID_REQUEST, "Parameter first must not be negative.", Response.Status.BAD_REQUEST);
+        }
+
+        if (maxResults != null && maxResults < 1) {
+            throw new ErrorResponseException(OAuthErrorException.INVALID_REQUEST, "Parameter max must be greater than zero.", Response.Status.BAD_REQUEST);
+        }
+
+        int first = firstResult != null ? firstResult : 0;
+        int max = maxResults != null ? Math.min(maxResults, DEFAULT_MAX_RESULTS) : DEFAULT_MAX_RESULTS;
+        KeycloakExecutionContext context = new KeycloakExecutionContext(this.realm);
+
+        Runnable lookup = () -> {
+            try {
+                List<AccessibleResourceRepresentation> resources = new ArrayList<>();
+
+                for (Resource resource : this.authorizationManager.findAccessibleResources(resourceServer, context, first, max)) {
+                    resources.add(new AccessibleResourceRepresentation(resource.getId(), resource.getName(), resource.getType(), resource.getUri(), resource.getScopes().stream().map(Scope::getName).collect(Collectors.toList())));
+                }
+
+                asyncResponse.resume(Cors.add(this.request, Response.ok().entity(resources)).allowedOrigins("*").build());
+            } catch (EvaluationTimeoutException cause) {
+                asyncResponse.resume(EvaluationScheduler.unavailable(cause));
+            } catch (RuntimeException cause) {
+                asyncResponse.resume(cause);
+            }
+        };
+
+        try {
+            this.scheduler.execute(lookup);
+        } catch (RejectedExecutionException cause) {
+            throw EvaluationScheduler.unavailable(cause);
+        }
+    }
+
+    private ResourceServer getResourceServer(String resourceServerId) {
         if (resourceServerId == null) {
             throw new ErrorResponseException(OAuthErrorException.INVALID_REQUEST, "Requires resourceServerId request parameter.", Response.Status.BAD_REQUEST);
         }
@@ -99,18 +216,7 @@ public class EntitlementResource {
             throw new ErrorResponseException(OAuthErrorException.INVALID_REQUEST, "Server does support entitlements.", Response.Status.BAD_REQUEST);
         }
 
-        this.authorizationManager.evaluators().schedule(Permissions.all(resourceServer, this.identity, this.authorizationManager), new KeycloakExecutionContext(this.realm), Executors.newSingleThreadExecutor(this.threadFactory)).evaluate(new DecisionResultCollector() {
-
-            @Override
-            public void onError(Throwable cause) {
-                asyncResponse.resume(cause);
-            }
-
-            @Override
-            protected void onComplete(List<Result> results) {
-                asyncResponse.resume(Cors.add(request, Response.ok().entity(new EntitlementResponse(createRequestingPartyToken(results)))).allowedOrigins("*").build());
-            }
-        });
+        return resourceServer;
     }
 
     private String createRequestingPartyToken(List<Result> results) {
@@ -0,0 +1,67 @@
+package org.keycloak.authz.server.entitlement.resource.representation;
+
+import java.util.List;
+
+/**
+ * @author <a href="mailto:psilva@redhat.com">Pedro Igor</a>
+ */
+public class AccessibleResourceRepresentation {
+
+    private String id;
+    private String name;
+    private String type;
+    private String uri;
+    private List<String> scopes;
+
+    public AccessibleResourceRepresentation(String id, String name, String type, String uri, List<String> scopes) {
+        this.id = id;
+        this.name = name;
+        this.type = type;
+        this.uri = uri;
+        this.scopes = scopes;
+    }
+
+    public AccessibleResourceRepresentation() {
+        this(null, null, null, null, null);
+    }
+
+    public String getId() {
+        return this.id;
+    }
+
+    public void setId(final String id) {
+        this.id = id;
+    }
+
+    public String getName() {
+        return this.name;
+    }
+
+    public void setName(final String name) {
+        this.name = name;
+    }
+
+    public String getType() {
+        return this.type;
+    }
+
+    public void setType(final String type) {
+        this.type = type;
+    }
+
+    public String getUri() {
+        return this.uri;
+    }
+
+    public void setUri(final String uri) {
+        this.uri = uri;
+    }
+
+    public List<String> getScopes() {
+        return this.scopes;
+    }
+
+    public void setScopes(final List<String> scopes) {
+        this.scopes = scopes;
+    }
+}
@@ -21,6 +21,7 @@ import org.jboss.resteasy.spi.HttpRequest;
 import org.keycloak.OAuthErrorException;
 import org.keycloak.authz.core.Authorization;
 import org.keycloak.authz.core.Decision;
+import org.keycloak.authz.core.EvaluationTimeoutException;
 import org.keycloak.authz.core.model.Resource;
 import org.keycloak.authz.core.model.Scope;
 import org.keycloak.authz.core.permission.ResourcePermission;
@@ -28,6 +29,7 @@ import org.keycloak.authz.core.policy.evaluation.DecisionResultCollector;
 import org.keycloak.authz.core.policy.evaluation.Result;
 import org.keycloak.authz.server.services.common.KeycloakExecutionContext;
 import org.keycloak.authz.server.services.common.KeycloakIdentity;
+import org.keycloak.authz.server.services.common.util.EvaluationScheduler;
 import org.keycloak.authz.server.services.common.util.Tokens;
 import org.keycloak.authz.server.uma.protection.permission.PermissionTicket;
 import org.keycloak.jose.jws.JWSBuilder;
@@ -51,8 +53,7 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
@@ -71,11 +72,11 @@ public class AuthorizationService {
     @Context
     private HttpRequest httpRequest;
 
-    private ThreadFactory threadFactory;
+    private EvaluationScheduler scheduler;
 
-    public AuthorizationService(RealmModel realm, ThreadFactory threadFactory) {
+    public AuthorizationService(RealmModel realm, EvaluationScheduler scheduler) {
         this.realm = realm;
-        this.threadFactory = threadFactory;
+        this.scheduler = scheduler;
     }
 
     @OPTIONS
@@ -95,25 +96,33 @@ public class AuthorizationService {
 
         PermissionTicket ticket = verifyPermissionTicket(authorizationRequest);
 
-        this.authorizationManager.evaluators().schedule(createPermissions(ticket, authorizationRequest), new KeycloakExecutionContext(identity, this.realm), Executors.newSingleThreadExecutor(this.threadFactory)).evaluate(new DecisionResultCollector() {
-            @Override
-            public void onComplete(List<Result> results) {
-                if (anyDenial(results)) {
-                    asyncResponse.resume(new ErrorResponseException("not_authorized", "Authorization denied for resource [" + ticket.getResourceSetId() + "].", Response.Status.FORBIDDEN));
-                } else {
-                    asyncResponse.resume(Cors.add(httpRequest, Response.status(Response.Status.CREATED).entity(new AuthorizationResponse(createRequestingPartyToken(results)))).allowedOrigins("*").build());
+        try {
+            this.authorizationManager.evaluators().schedule(createPermissions(ticket, authorizationRequest), new KeycloakExecutionContext(identity, this.realm), this.scheduler).evaluate(new DecisionResultCollector() {
+                @Override
+                public void onComplete(List<Result> results) {
+                    if (anyDenial(results)) {
+                        asyncResponse.resume(new ErrorResponseException("not_authorized", "Authorization denied for resource [" + ticket.getResourceSetId() + "].", Response.Status.FORBIDDEN));
+                    } else {
+                        asyncResponse.resume(Cors.add(httpRequest, Response.status(Response.Status.CREATED).entity(new AuthorizationResponse(createRequestingPartyToken(results)))).allowedOrigins("*").build());
+                    }
                 }
-            }
 
-            @Override
-            public void onError(Throwable cause) {
-                asyncResponse.resume(cause);
-            }
+                @Override
+                public void onError(Throwable cause) {
+                    if (cause instanceof EvaluationTimeoutException) {
+                        asyncResponse.resume(EvaluationScheduler.unavailable((EvaluationTimeoutException) cause));
+                    } else {
+                        asyncResponse.resume(cause);
+                    }
+                }
 
-            private boolean anyDenial(List<Result> results) {
-                return results.isEmpty() || results.stream().anyMatch(evaluationResult -> evaluationResult.getEffect().equals(Decision.Effect.DENY));
-            }
-        });
+                private boolean anyDenial(List<Result> results) {
+                    return results.isEmpty() || results.stream().anyMatch(evaluationResult -> evaluationResult.getEffect().equals(Decision.Effect.DENY));
+                }
+            });
+        } catch (RejectedExecutionException cause) {
+            throw EvaluationScheduler.unavailable(cause);
+        }
     }
 
     private List<ResourcePermission> createPermissions(PermissionTicket ticket, AuthorizationRequest request) {
@@ -144,36 +153,48 @@ public class AuthorizationService {
             }
 
             if (requestingPartyToken.isValid()) {
-                requestingPartyToken.getPermissions().forEach(permission -> {
-                    Resource resourcePermission = authorizationManager.getStoreFactory().getResourceStore().findById(permission.getResourceSetId());
+                requestingPartyToken.getPermissions().forEach(permission -> permissionsToEvaluate.computeIfAbsent(permission.getResourceSetId(), key -> new HashSet<>()).addAll(permission.getScopes()));
+            }
+        }
 
-                    if (resourcePermission != null) {
-                        Set<String> scopes = permissionsToEvaluate.get(resourcePermission.getId());
+        long start = System.nanoTime();
+        List<Resource> resources = authorizationManager.getStoreFactory().getResourceStore().findByIds(permissionsToEvaluate.keySet());
+        Map<String, Map<String, Scope>> scopesByResourceServer = findScopes(resources, permissionsToEvaluate);
+        List<ResourcePermission> permissions = resources.stream().map(entryResource -> {
+            Map<String, Scope> resourceServerScopes = scopesByResourceServer.get(entryResource.getResourceServer().getId());
+            List<Scope> scopes = permissionsToEvaluate.get(entryResource.getId()).stream()
+                    .map(resourceServerScopes::get)
+                    .filter(scope -> scope != null).collect(Collectors.toList());
 
-                        if (scopes == null) {
-                            scopes = new HashSet<>();
-                            permissionsToEvaluate.put(resourcePermission.getId(), scopes);
-                        }
+            return new ResourcePermission(entryResource, scopes, entryResource.getResourceServer());
+        }).collect(Collectors.toList());
 
-                        scopes.addAll(permission.getScopes());
-                    }
-                });
-            }
-        }
+        authorizationManager.getMetrics().onStoreLookup(System.nanoTime() - start);
 
-        return permissionsToEvaluate.entrySet().stream().map(entry -> {
-            Resource entryResource = authorizationManager.getStoreFactory().getResourceStore().findById(entry.getKey());
+        return permissions;
+    }
+
+    /**
+     * Loads all the scopes requested for the given <code>resources</code> with a single query per resource server, instead of looking up
+     * each scope individually.
+     *
+     * @param resources the resources being requested
+     * @param permissionsToEvaluate the names of the scopes requested for each resource, keyed by resource id
+     * @return the scopes found, keyed by resource server id and then by scope name
+     */
+    private Map<String, Map<String, Scope>> findScopes(List<Resource> resources, Map<String, Set<String>> permissionsToEvaluate) {
+        Map<String, Set<String>> scopeNamesByResourceServer = new HashMap<>();
+
+        for (Resource resource : resources) {
+            scopeNamesByResourceServer.computeIfAbsent(resource.getResourceServer().getId(), key -> new HashSet<>()).addAll(permissionsToEvaluate.get(resource.getId()));
+        }
 
-            if (entryResource != null) {
-                List<Scope> scopes = entry.getValue().stream()
-                        .map(scopeName -> authorizationManager.getStoreFactory().getScopeStore().findByName(scopeName))
-                        .filter(scope -> scope != null).collect(Collectors.toList());
+        Map<String, Map<String, Scope>> scopes = new HashMap<>();
 
-                return new ResourcePermission(entryResource, scopes, entryResource.getResourceServer());
-            }
+        scopeNamesByResourceServer.forEach((resourceServerId, scopeNames) -> scopes.put(resourceServerId, authorizationManager.getStoreFactory().getScopeStore().findByNames(scopeNames, resourceServerId).stream()
+                .collect(Collectors.toMap(Scope::getName, Function.identity(), (scope, duplicate) -> scope))));
 
-            return null;
-        }).filter(resourcePermission -> resourcePermission != null).collect(Collectors.toList());
+        return scopes;
     }
 
     private String createRequestingPartyToken(List<Result> evaluation) {
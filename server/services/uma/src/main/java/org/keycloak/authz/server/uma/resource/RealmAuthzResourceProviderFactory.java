@@ -20,9 +20,16 @@ package org.keycloak.authz.server.uma.resource;
 import org.jboss.resteasy.spi.ResteasyProviderFactory;
 import org.keycloak.Config;
 import org.keycloak.authz.core.Authorization;
+import org.keycloak.authz.core.EvaluationMetrics;
+import org.keycloak.authz.core.metrics.DefaultEvaluationMetrics;
+import org.keycloak.authz.core.policy.cache.DecisionCache;
+import org.keycloak.authz.core.policy.index.PolicyIndexes;
 import org.keycloak.authz.core.policy.provider.PolicyProviderFactory;
 import org.keycloak.authz.core.store.StoreFactory;
 import org.keycloak.authz.persistence.PersistenceProviderFactory;
+import org.keycloak.authz.server.services.common.util.DecisionCaches;
+import org.keycloak.authz.server.services.common.util.EvaluationScheduler;
+import org.keycloak.authz.server.services.common.util.OperationalInfo;
 import org.keycloak.authz.server.uma.config.Configuration;
 import org.keycloak.models.KeycloakSession;
 import org.keycloak.models.KeycloakSessionFactory;
@@ -36,7 +43,7 @@ import java.net.URI;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.ServiceLoader;
-import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Supplier;
 
 import static org.jboss.resteasy.spi.ResteasyProviderFactory.pushContext;
@@ -49,14 +56,20 @@ public class RealmAuthzResourceProviderFactory implements RealmResourceProviderF
 
     private PersistenceProviderFactory persistenceProviderFactory;
     private Authorization authorization;
-    private ThreadFactory threadFactory;
+    private EvaluationScheduler scheduler;
+    private boolean shortCircuit;
+    private boolean reuseEvaluations;
+    private int evaluationTimeout;
+    private int policyIndexMaxAge;
+    private EvaluationMetrics metrics;
+    private DecisionCache decisionCache;
 
     @Override
     public RealmResourceProvider create(RealmModel realm, KeycloakSession keycloakSession) {
         return new RealmResourceProvider() {
             public Object getResource(final String pathName) {
                 if (pathName.equals("authz")) {
-                    RootResource resource = new RootResource(realm, createConfiguration(realm), threadFactory);
+                    RootResource resource = new RootResource(realm, createConfiguration(realm), scheduler);
 
                     pushContext(StoreFactory.class, persistenceProviderFactory.create(keycloakSession));
                     pushContext(Authorization.class, authorization);
@@ -81,6 +94,14 @@ public class RealmAuthzResourceProviderFactory implements RealmResourceProviderF
     @Override
     public void init(Config.Scope config) {
         this.persistenceProviderFactory = createPersistenceProvider();
+        this.shortCircuit = config.getBoolean("shortCircuitEvaluation", false);
+        this.reuseEvaluations = config.getBoolean("reuseEvaluations", false);
+        this.evaluationTimeout = config.getInt("evaluationTimeout", 0);
+        // in seconds, invalidations are local to this node so other nodes of a cluster may evaluate stale policies until then
+        this.policyIndexMaxAge = config.getInt("policyIndexMaxAge", (int) TimeUnit.MILLISECONDS.toSeconds(PolicyIndexes.DEFAULT_MAX_AGE));
+        this.metrics = config.getBoolean("evaluationMetrics", true) ? DefaultEvaluationMetrics.shared() : EvaluationMetrics.NONE;
+        this.scheduler = EvaluationScheduler.acquire(config);
+        this.decisionCache = DecisionCaches.create(config);
     }
 
     @Override
@@ -104,7 +125,7 @@ public class RealmAuthzResourceProviderFactory implements RealmResourceProviderF
 
                     return storeFactory;
                 }
-            }).build();
+            }).shortCircuit(this.shortCircuit).reuseEvaluations(this.reuseEvaluations).evaluationTimeout(this.evaluationTimeout, TimeUnit.MILLISECONDS).policyIndexMaxAge(this.policyIndexMaxAge, TimeUnit.SECONDS).decisionCache(this.decisionCache).metrics(this.metrics).build();
 
             transaction.commit();
         } catch (Exception e) {
@@ -114,23 +135,12 @@ public class RealmAuthzResourceProviderFactory implements RealmResourceProviderF
             session.close();
         }
         this.persistenceProviderFactory.registerSynchronizationListeners(factory);
-        this.threadFactory = r -> {
-            Map<Class<?>, Object> contextDataMap = ResteasyProviderFactory.getInstance().getContextDataMap();
-
-            if (contextDataMap.isEmpty()) {
-                System.out.println("Empty !!");
-            }
-
-            return new Thread(() -> {
-                ResteasyProviderFactory.pushContextDataMap(contextDataMap);
-                r.run();
-            });
-        };
     }
 
     @Override
     public void close() {
         this.authorization.getProviderFactories().forEach(PolicyProviderFactory::dispose);
+        EvaluationScheduler.release(this.scheduler);
     }
 
     @Override
@@ -147,6 +157,8 @@ public class RealmAuthzResourceProviderFactory implements RealmResourceProviderF
 
         info.put("Persistence Provider", this.persistenceProviderFactory.getClass().getName());
         info.put("Policy Providers", policyProvidersInfo.substring(0, policyProvidersInfo.lastIndexOf(",")));
+        info.putAll(OperationalInfo.of(this.authorization));
+        info.putAll(OperationalInfo.of(this.scheduler));
 
         return info;
     }
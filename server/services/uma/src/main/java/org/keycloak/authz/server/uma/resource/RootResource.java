@@ -25,6 +25,7 @@ import org.keycloak.authz.core.identity.Identity;
 import org.keycloak.authz.core.model.ResourceServer;
 import org.keycloak.authz.server.admin.resource.ResourceSetResource;
 import org.keycloak.authz.server.services.common.KeycloakIdentity;
+import org.keycloak.authz.server.services.common.util.EvaluationScheduler;
 import org.keycloak.authz.server.uma.authorization.AuthorizationService;
 import org.keycloak.authz.server.uma.config.Configuration;
 import org.keycloak.authz.server.uma.config.ConfigurationService;
@@ -38,7 +39,6 @@ import org.keycloak.services.ErrorResponseException;
 import javax.ws.rs.Path;
 import javax.ws.rs.core.Context;
 import javax.ws.rs.core.Response;
-import java.util.concurrent.ThreadFactory;
 
 /**
  * @author <a href="mailto:psilva@redhat.com">Pedro Igor</a>
@@ -57,12 +57,12 @@ public class RootResource {
     @Context
     private Authorization authorizationManager;
 
-    private final ThreadFactory threadFactory;
+    private final EvaluationScheduler scheduler;
 
-    public RootResource(RealmModel realm, Configuration configuration, ThreadFactory threadFactory) {
+    public RootResource(RealmModel realm, Configuration configuration, EvaluationScheduler scheduler) {
         this.realm = realm;
         this.configuration = configuration;
-        this.threadFactory = threadFactory;
+        this.scheduler = scheduler;
     }
 
     @Path("/resource_set")
@@ -101,7 +101,7 @@ public class RootResource {
 
     @Path("/authorize")
     public Object authorize() {
-        AuthorizationService resource = new AuthorizationService(this.realm, this.threadFactory);
+        AuthorizationService resource = new AuthorizationService(this.realm, this.scheduler);
 
         ResteasyProviderFactory.getInstance().injectProperties(resource);
 
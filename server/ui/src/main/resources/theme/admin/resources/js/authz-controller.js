@@ -472,6 +472,12 @@ module.controller('ResourceServerPolicyDroolsDetailCtrl', function($scope, $http
 
         onInitUpdate : function(policy) {
             policy.config.scannerPeriod = parseInt(policy.config.scannerPeriod);
+            policy.config.statelessSession = policy.config.statelessSession == 'true';
+
+            if (policy.config.sessionPoolSize) {
+                policy.config.sessionPoolSize = parseInt(policy.config.sessionPoolSize);
+            }
+
             $scope.resolveModules(policy);
         },
 
@@ -483,6 +489,8 @@ module.controller('ResourceServerPolicyDroolsDetailCtrl', function($scope, $http
         onInitCreate : function(newPolicy) {
             newPolicy.config.scannerPeriod = 1;
             newPolicy.config.scannerPeriodUnit = 'Hours';
+            newPolicy.config.statelessSession = false;
+            newPolicy.config.sessionPoolSize = 10;
         }
     }, realm, $scope);
 });
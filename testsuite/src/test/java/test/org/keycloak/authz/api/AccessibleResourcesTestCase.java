@@ -0,0 +1,216 @@
+package test.org.keycloak.authz.api;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.keycloak.authz.core.Authorization;
+import org.keycloak.authz.core.Decision;
+import org.keycloak.authz.core.EvaluationContext;
+import org.keycloak.authz.core.attribute.Attributes;
+import org.keycloak.authz.core.identity.Identity;
+import org.keycloak.authz.core.metrics.DefaultEvaluationMetrics;
+import org.keycloak.authz.core.model.Policy;
+import org.keycloak.authz.core.model.Resource;
+import org.keycloak.authz.core.model.ResourceServer;
+import org.keycloak.authz.core.model.Scope;
+import org.keycloak.authz.core.permission.ResourcePermission;
+import org.keycloak.authz.core.policy.evaluation.DecisionResultCollector;
+import org.keycloak.authz.core.policy.evaluation.Result;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author <a href="mailto:psilva@redhat.com">Pedro Igor</a>
+ */
+public class AccessibleResourcesTestCase {
+
+    static int NUM_ADMIN_RESOURCES = 20;
+    static int NUM_USER_RESOURCES = 10;
+    static int NUM_READABLE_RESOURCES = 5;
+
+    private MapStoreFactory mapStoreFactory;
+    private ResourceServer resourceServer;
+    private Policy resourcePolicy;
+    private DefaultEvaluationMetrics metrics;
+    private Authorization authorization;
+
+    @Before
+    public void onBefore() {
+        this.mapStoreFactory = new MapStoreFactory();
+        this.resourceServer = this.mapStoreFactory.getResourceServerStore().create("test-resource-server");
+        this.mapStoreFactory.getResourceServerStore().save(this.resourceServer);
+
+        Scope read = this.mapStoreFactory.getScopeStore().create("read", this.resourceServer);
+
+        this.mapStoreFactory.getScopeStore().save(read);
+
+        for (int i = 0; i < NUM_ADMIN_RESOURCES; i++) {
+            createResource("Admin Resource " + i, "admin", this.resourceServer.getClientId(), null);
+        }
+
+        for (int i = 0; i < NUM_USER_RESOURCES; i++) {
+            createResource("User Resource " + i, "user", i % 2 == 0 ? this.resourceServer.getClientId() : "alice", null);
+        }
+
+        for (int i = 0; i < NUM_READABLE_RESOURCES; i++) {
+            createResource("Readable Resource " + i, null, this.resourceServer.getClientId(), read);
+        }
+
+        // resources owned by someone else are never accessible
+        createResource("User Resource Owned By Bob", "user", "bob", null);
+
+        this.resourcePolicy = createStaticDecisionPolicy("Resource Policy", Decision.Effect.PERMIT, null);
+
+        Policy adminPermission = createPermission("Admin Permission", Policy.DecisionStrategy.UNANIMOUS, createStaticDecisionPolicy("Admin Policy", Decision.Effect.DENY, "IDENTITY"), this.resourcePolicy);
+
+        adminPermission.getConfig().put("defaultResourceType", "admin");
+
+        Policy userPermission = createPermission("User Permission", Policy.DecisionStrategy.AFFIRMATIVE, createStaticDecisionPolicy("User Policy", Decision.Effect.PERMIT, "IDENTITY"));
+
+        userPermission.getConfig().put("defaultResourceType", "user");
+
+        createPermission("Read Permission", Policy.DecisionStrategy.UNANIMOUS, this.resourcePolicy).addScope(read);
+
+        this.metrics = new DefaultEvaluationMetrics();
+        this.authorization = Authorization.builder().storeFactory(() -> mapStoreFactory).metrics(this.metrics).build();
+        this.authorization.getPolicyIndexes().invalidate(this.resourceServer.getId());
+    }
+
+    @Test
+    public void testFindAccessibleResources() {
+        List<Resource> resources = this.authorization.findAccessibleResources(this.resourceServer, createEvaluationContext(), 0, -1);
+
+        assertEquals(NUM_USER_RESOURCES + NUM_READABLE_RESOURCES, resources.size());
+
+        // resources of a permission denied by a policy that only depends on the identity are not evaluated
+        assertEquals(NUM_USER_RESOURCES + NUM_READABLE_RESOURCES, this.metrics.getSnapshot().getPermissionsPerRequest().getMax());
+        assertEquals(NUM_READABLE_RESOURCES, this.metrics.getSnapshot().getPolicies().get(this.resourcePolicy.getId()).getCount());
+
+        for (int i = 1; i < resources.size(); i++) {
+            assertTrue(resources.get(i - 1).getName().compareTo(resources.get(i).getName()) < 0);
+        }
+
+        // the same resources are granted when evaluating a permission for every resource
+        assertEquals(evaluateAll(), toNames(resources));
+    }
+
+    @Test
+    public void testPaging() {
+        List<String> all = toNames(this.authorization.findAccessibleResources(this.resourceServer, createEvaluationContext(), 0, -1));
+
+        assertEquals(all.subList(0, 4), toNames(this.authorization.findAccessibleResources(this.resourceServer, createEvaluationContext(), 0, 4)));
+        assertEquals(all.subList(4, 8), toNames(this.authorization.findAccessibleResources(this.resourceServer, createEvaluationContext(), 4, 4)));
+        assertEquals(all.subList(12, all.size()), toNames(this.authorization.findAccessibleResources(this.resourceServer, createEvaluationContext(), 12, 10)));
+        assertTrue(this.authorization.findAccessibleResources(this.resourceServer, createEvaluationContext(), all.size(), 10).isEmpty());
+    }
+
+    @Test
+    public void testPagingLimitsEvaluations() {
+        List<Resource> resources = this.authorization.findAccessibleResources(this.resourceServer, createEvaluationContext(), 0, 1);
+
+        assertEquals(1, resources.size());
+        assertEquals("Readable Resource 0", resources.get(0).getName());
+        // only the first candidate was evaluated
+        assertEquals(1, this.metrics.getSnapshot().getPolicies().get(this.resourcePolicy.getId()).getCount());
+    }
+
+    private List<String> evaluateAll() {
+        List<ResourcePermission> permissions = new ArrayList<>();
+        AtomicReference<List<Result>> results = new AtomicReference<>();
+
+        for (Resource resource : this.mapStoreFactory.getResourceStore().findByResourceServer(this.resourceServer.getId())) {
+            if (!"bob".equals(resource.getOwner())) {
+                permissions.add(new ResourcePermission(resource, Collections.emptyList(), this.resourceServer));
+            }
+        }
+
+        this.authorization.evaluators().from(permissions, createEvaluationContext()).evaluate(new DecisionResultCollector() {
+            @Override
+            protected void onComplete(List<Result> completed) {
+                results.set(completed);
+            }
+        });
+
+        return results.get().stream().filter(result -> Decision.Effect.PERMIT.equals(result.getEffect()))
+                .map(result -> result.getPermission().getResource().getName()).sorted().collect(Collectors.toList());
+    }
+
+    private List<String> toNames(List<Resource> resources) {
+        return resources.stream().map(Resource::getName).collect(Collectors.toList());
+    }
+
+    private void createResource(String name, String type, String owner, Scope scope) {
+        Resource resource = this.mapStoreFactory.getResourceStore().create(name, this.resourceServer, owner);
+
+        resource.setType(type);
+
+        if (scope != null) {
+            resource.addScope(scope);
+        }
+
+        this.mapStoreFactory.getResourceStore().save(resource);
+    }
+
+    private Policy createPermission(String name, Policy.DecisionStrategy decisionStrategy, Policy... associatedPolicies) {
+        Policy permission = this.mapStoreFactory.getPolicyStore().create(name, "resource", this.resourceServer);
+
+        permission.setDecisionStrategy(decisionStrategy);
+        permission.setConfig(new HashMap<>());
+
+        for (Policy associatedPolicy : associatedPolicies) {
+            permission.addAssociatedPolicy(associatedPolicy);
+        }
+
+        this.mapStoreFactory.getPolicyStore().save(permission);
+
+        return permission;
+    }
+
+    private Policy createStaticDecisionPolicy(String name, Decision.Effect effect, String dependencies) {
+        Policy policy = this.mapStoreFactory.getPolicyStore().create(name, "tests-static-decision", this.resourceServer);
+        Map<String, String> config = new HashMap<>();
+
+        config.put("EFFECT", effect.toString());
+
+        if (dependencies != null) {
+            config.put("DEPENDENCIES", dependencies);
+        }
+
+        policy.setConfig(config);
+        this.mapStoreFactory.getPolicyStore().save(policy);
+
+        return policy;
+    }
+
+    private EvaluationContext createEvaluationContext() {
+        return new EvaluationContext() {
+            @Override
+            public Identity getIdentity() {
+                return new Identity() {
+                    @Override
+                    public String getId() {
+                        return "alice";
+                    }
+
+                    @Override
+                    public Attributes getAttributes() {
+                        return Attributes.EMPTY;
+                    }
+                };
+            }
+
+            @Override
+            public Attributes getAttributes() {
+                return Attributes.EMPTY;
+            }
+        };
+    }
+}
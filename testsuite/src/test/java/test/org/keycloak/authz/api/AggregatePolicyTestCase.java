@@ -0,0 +1,183 @@
+package test.org.keycloak.authz.api;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.keycloak.authz.core.Authorization;
+import org.keycloak.authz.core.Decision;
+import org.keycloak.authz.core.EvaluationContext;
+import org.keycloak.authz.core.EvaluationMetrics;
+import org.keycloak.authz.core.attribute.Attributes;
+import org.keycloak.authz.core.identity.Identity;
+import org.keycloak.authz.core.model.Policy;
+import org.keycloak.authz.core.model.Resource;
+import org.keycloak.authz.core.model.ResourceServer;
+import org.keycloak.authz.core.permission.ResourcePermission;
+import org.keycloak.authz.core.policy.evaluation.DecisionResultCollector;
+import org.keycloak.authz.core.policy.evaluation.Result;
+import org.keycloak.authz.policy.provider.time.AggregatePolicyGraph;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * @author <a href="mailto:psilva@redhat.com">Pedro Igor</a>
+ */
+public class AggregatePolicyTestCase {
+
+    private MapStoreFactory mapStoreFactory;
+    private ResourceServer resourceServer;
+    private Resource resource;
+    private Map<String, AtomicInteger> evaluations;
+    private Authorization authorization;
+
+    @Before
+    public void onBefore() {
+        this.mapStoreFactory = new MapStoreFactory();
+        this.resourceServer = this.mapStoreFactory.getResourceServerStore().create("test-resource-server");
+        this.mapStoreFactory.getResourceServerStore().save(this.resourceServer);
+        this.resource = this.mapStoreFactory.getResourceStore().create("Resource A", this.resourceServer, "alice");
+        this.mapStoreFactory.getResourceStore().save(this.resource);
+        this.evaluations = new ConcurrentHashMap<>();
+        this.authorization = Authorization.builder().storeFactory(() -> mapStoreFactory).metrics(new EvaluationMetrics() {
+            @Override
+            public void onPolicyEvaluated(Policy policy, long elapsedNanos, boolean failed) {
+                evaluations.computeIfAbsent(policy.getName(), key -> new AtomicInteger()).incrementAndGet();
+            }
+        }).build();
+    }
+
+    @Test
+    public void testSharedPoliciesEvaluatedOnce() {
+        Policy grantPolicy = createStaticDecisionPolicy("Grant Policy", Decision.Effect.PERMIT);
+        Policy denyPolicy = createStaticDecisionPolicy("Deny Policy", Decision.Effect.DENY);
+        Policy shared = createAggregatePolicy("Shared Policy", Policy.DecisionStrategy.AFFIRMATIVE, grantPolicy, denyPolicy);
+        Policy unanimous = createAggregatePolicy("Unanimous Policy", Policy.DecisionStrategy.UNANIMOUS, grantPolicy, shared);
+        Policy top = createAggregatePolicy("Top Policy", Policy.DecisionStrategy.AFFIRMATIVE, unanimous, shared);
+
+        assertEquals(5, AggregatePolicyGraph.compile(top, 0).size());
+
+        createResourcePermission(top);
+
+        assertEquals(Decision.Effect.PERMIT, evaluate());
+        assertEquals(1, this.evaluations.get("Top Policy").get());
+        assertEquals(1, this.evaluations.get("Grant Policy").get());
+        assertEquals(1, this.evaluations.get("Deny Policy").get());
+    }
+
+    @Test
+    public void testDecisionStrategyAndLogic() {
+        Policy grantPolicy = createStaticDecisionPolicy("Grant Policy", Decision.Effect.PERMIT);
+        Policy denyPolicy = createStaticDecisionPolicy("Deny Policy", Decision.Effect.DENY);
+        Policy affirmative = createAggregatePolicy("Affirmative Policy", Policy.DecisionStrategy.AFFIRMATIVE, denyPolicy, grantPolicy);
+        Policy negative = createAggregatePolicy("Negative Policy", Policy.DecisionStrategy.AFFIRMATIVE, grantPolicy);
+
+        negative.setLogic(Policy.Logic.NEGATIVE);
+
+        Policy consensus = createAggregatePolicy("Consensus Policy", Policy.DecisionStrategy.CONSENSUS, affirmative, grantPolicy, negative);
+
+        createResourcePermission(consensus);
+
+        assertEquals(Decision.Effect.PERMIT, evaluate());
+
+        consensus.removeAssociatedPolicy(grantPolicy);
+        this.authorization.getPolicyIndexes().invalidate(this.resourceServer.getId());
+
+        assertEquals(Decision.Effect.DENY, evaluate());
+
+        negative.setLogic(Policy.Logic.POSITIVE);
+
+        assertEquals(Decision.Effect.PERMIT, evaluate());
+    }
+
+    @Test
+    public void testCycleDetection() {
+        Policy grantPolicy = createStaticDecisionPolicy("Grant Policy", Decision.Effect.PERMIT);
+        Policy first = createAggregatePolicy("First Policy", Policy.DecisionStrategy.UNANIMOUS, grantPolicy);
+        Policy second = createAggregatePolicy("Second Policy", Policy.DecisionStrategy.UNANIMOUS, first);
+        Policy third = createAggregatePolicy("Third Policy", Policy.DecisionStrategy.UNANIMOUS, second);
+
+        AggregatePolicyGraph.compile(third, 0);
+
+        first.addAssociatedPolicy(third);
+
+        try {
+            AggregatePolicyGraph.compile(third, 0);
+            fail("Cycle not detected.");
+        } catch (RuntimeException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains("[Third Policy, Second Policy, First Policy, Third Policy]"));
+        }
+    }
+
+    private Decision.Effect evaluate() {
+        AtomicReference<List<Result>> results = new AtomicReference<>();
+        ResourcePermission permission = new ResourcePermission(this.resource, Collections.emptyList(), this.resourceServer);
+
+        this.evaluations.clear();
+        this.authorization.evaluators().from(Collections.singletonList(permission), createEvaluationContext()).evaluate(new DecisionResultCollector() {
+            @Override
+            protected void onComplete(List<Result> completed) {
+                results.set(completed);
+            }
+        });
+
+        assertEquals(1, results.get().size());
+
+        return results.get().get(0).getEffect();
+    }
+
+    private void createResourcePermission(Policy policy) {
+        Policy permission = this.mapStoreFactory.getPolicyStore().create("Resource A Permission", "resource", this.resourceServer);
+
+        permission.addResource(this.resource);
+        permission.addAssociatedPolicy(policy);
+        this.mapStoreFactory.getPolicyStore().save(permission);
+    }
+
+    private Policy createAggregatePolicy(String name, Policy.DecisionStrategy decisionStrategy, Policy... associatedPolicies) {
+        Policy policy = this.mapStoreFactory.getPolicyStore().create(name, "aggregate", this.resourceServer);
+
+        policy.setDecisionStrategy(decisionStrategy);
+
+        for (Policy associatedPolicy : associatedPolicies) {
+            policy.addAssociatedPolicy(associatedPolicy);
+        }
+
+        this.mapStoreFactory.getPolicyStore().save(policy);
+
+        return policy;
+    }
+
+    private Policy createStaticDecisionPolicy(String name, Decision.Effect effect) {
+        Policy policy = this.mapStoreFactory.getPolicyStore().create(name, "tests-static-decision", this.resourceServer);
+        Map<String, String> config = new HashMap<>();
+
+        config.put("EFFECT", effect.toString());
+        policy.setConfig(config);
+        this.mapStoreFactory.getPolicyStore().save(policy);
+
+        return policy;
+    }
+
+    private EvaluationContext createEvaluationContext() {
+        return new EvaluationContext() {
+            @Override
+            public Identity getIdentity() {
+                return null;
+            }
+
+            @Override
+            public Attributes getAttributes() {
+                return Attributes.EMPTY;
+            }
+        };
+    }
+}
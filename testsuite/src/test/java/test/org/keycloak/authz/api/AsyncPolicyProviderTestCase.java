@@ -0,0 +1,202 @@
+package test.org.keycloak.authz.api;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.keycloak.authz.core.Authorization;
+import org.keycloak.authz.core.Decision;
+import org.keycloak.authz.core.EvaluationContext;
+import org.keycloak.authz.core.attribute.Attributes;
+import org.keycloak.authz.core.identity.Identity;
+import org.keycloak.authz.core.metrics.DefaultEvaluationMetrics;
+import org.keycloak.authz.core.model.Policy;
+import org.keycloak.authz.core.model.Resource;
+import org.keycloak.authz.core.model.ResourceServer;
+import org.keycloak.authz.core.permission.ResourcePermission;
+import org.keycloak.authz.core.policy.evaluation.DecisionResultCollector;
+import org.keycloak.authz.core.policy.evaluation.DefaultPolicyEvaluator;
+import org.keycloak.authz.core.policy.evaluation.Evaluation;
+import org.keycloak.authz.core.policy.evaluation.Result;
+import org.keycloak.authz.core.policy.provider.AsyncPolicyProvider;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author <a href="mailto:psilva@redhat.com">Pedro Igor</a>
+ */
+public class AsyncPolicyProviderTestCase {
+
+    static int NUM_ASYNC_POLICIES = 10;
+    static long DELAY = 200;
+
+    private MapStoreFactory mapStoreFactory;
+    private ResourceServer resourceServer;
+    private Resource resource;
+    private ResourcePermission permission;
+
+    @Before
+    public void onBefore() {
+        this.mapStoreFactory = new MapStoreFactory();
+        this.resourceServer = this.mapStoreFactory.getResourceServerStore().create("test-resource-server");
+        this.mapStoreFactory.getResourceServerStore().save(this.resourceServer);
+        this.resource = this.mapStoreFactory.getResourceStore().create("Resource A", this.resourceServer, "alice");
+        this.mapStoreFactory.getResourceStore().save(this.resource);
+        this.permission = new ResourcePermission(this.resource, Collections.emptyList(), this.resourceServer);
+    }
+
+    @Test
+    public void testAsyncPoliciesEvaluatedConcurrently() {
+        Policy permission = createResourcePermission(Policy.DecisionStrategy.UNANIMOUS);
+
+        permission.addAssociatedPolicy(createPolicy("Sync Policy", Decision.Effect.PERMIT, null));
+
+        for (int i = 0; i < NUM_ASYNC_POLICIES; i++) {
+            permission.addAssociatedPolicy(createPolicy("Async Policy " + i, Decision.Effect.PERMIT, DELAY));
+        }
+
+        DefaultEvaluationMetrics metrics = new DefaultEvaluationMetrics();
+        Authorization authorization = Authorization.builder().storeFactory(() -> mapStoreFactory).metrics(metrics).build();
+        long start = System.nanoTime();
+        Result result = evaluate(authorization);
+        long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        assertEquals(Decision.Effect.PERMIT, result.getEffect());
+        assertEquals(NUM_ASYNC_POLICIES + 1, result.getResults().get(0).getAssociatedPolicies().size());
+        assertTrue("Async policies were not evaluated concurrently, took " + elapsed + "ms.", elapsed < DELAY * NUM_ASYNC_POLICIES / 2);
+        assertEquals(NUM_ASYNC_POLICIES + 1, metrics.getSnapshot().getPolicyTypes().get("tests-static-decision").getCount());
+    }
+
+    @Test
+    public void testDecisionsDeliveredInOrder() {
+        Policy permission = createResourcePermission(Policy.DecisionStrategy.UNANIMOUS);
+        Policy grant = createPolicy("Grant Policy", Decision.Effect.PERMIT, null);
+        Policy negative = createPolicy("Negative Policy", Decision.Effect.PERMIT, DELAY);
+        Policy deny = createPolicy("Deny Policy", Decision.Effect.DENY, null);
+
+        negative.setLogic(Policy.Logic.NEGATIVE);
+
+        permission.addAssociatedPolicy(grant);
+        permission.addAssociatedPolicy(negative);
+        permission.addAssociatedPolicy(deny);
+
+        Result result = evaluate(Authorization.builder().storeFactory(() -> mapStoreFactory).shortCircuit(true).build());
+        List<Result.PolicyResult> associatedPolicies = result.getResults().get(0).getAssociatedPolicies();
+
+        assertEquals(Decision.Effect.DENY, result.getEffect());
+        assertEquals(3, associatedPolicies.size());
+        assertSame(grant, associatedPolicies.get(0).getPolicy());
+        assertEquals(Decision.Effect.PERMIT, associatedPolicies.get(0).getStatus());
+        assertSame(negative, associatedPolicies.get(1).getPolicy());
+        assertEquals(Decision.Effect.DENY, associatedPolicies.get(1).getStatus());
+        // the asynchronous policy settled the unanimous decision, the policies after it are not evaluated
+        assertSame(deny, associatedPolicies.get(2).getPolicy());
+        assertTrue(associatedPolicies.get(2).isSkipped());
+    }
+
+    @Test
+    public void testEvaluateWithoutBlocking() {
+        Policy permission = createResourcePermission(Policy.DecisionStrategy.AFFIRMATIVE);
+
+        permission.addAssociatedPolicy(createPolicy("Async Policy", Decision.Effect.PERMIT, DELAY));
+
+        Authorization authorization = Authorization.builder().storeFactory(() -> mapStoreFactory).reuseEvaluations(true).build();
+        AtomicReference<List<Result>> results = new AtomicReference<>();
+        DecisionResultCollector collector = createCollector(results);
+        CompletableFuture<Void> completion = new DefaultPolicyEvaluator(authorization).evaluateAsync(this.permission, createEvaluationContext(), collector).toCompletableFuture();
+
+        assertFalse(completion.isDone());
+
+        completion.join();
+        collector.onComplete();
+
+        assertEquals(1, results.get().size());
+        assertEquals(Decision.Effect.PERMIT, results.get().get(0).getEffect());
+    }
+
+    @Test
+    public void testSynchronousProviderAdapter() {
+        Policy policy = createPolicy("Negative Policy", Decision.Effect.PERMIT, null);
+
+        policy.setLogic(Policy.Logic.NEGATIVE);
+
+        Authorization authorization = Authorization.builder().storeFactory(() -> mapStoreFactory).build();
+        AsyncPolicyProvider provider = AsyncPolicyProvider.of(authorization.getPolicyProvider(policy));
+        AtomicReference<Decision.Effect> delivered = new AtomicReference<>();
+        Evaluation evaluation = new Evaluation(this.permission, createEvaluationContext(), null, policy, e -> delivered.set(e.getEffect()));
+
+        // the effect is returned before the logic of the policy is applied and nothing is delivered
+        assertEquals(Decision.Effect.PERMIT, provider.evaluateAsync(evaluation).toCompletableFuture().join());
+        assertNull(delivered.get());
+        assertSame(provider, AsyncPolicyProvider.of(provider));
+    }
+
+    private Result evaluate(Authorization authorization) {
+        AtomicReference<List<Result>> results = new AtomicReference<>();
+
+        authorization.evaluators().from(Collections.singletonList(this.permission), createEvaluationContext()).evaluate(createCollector(results));
+
+        assertEquals(1, results.get().size());
+
+        return results.get().get(0);
+    }
+
+    private DecisionResultCollector createCollector(AtomicReference<List<Result>> results) {
+        return new DecisionResultCollector() {
+            @Override
+            protected void onComplete(List<Result> completed) {
+                results.set(completed);
+            }
+        };
+    }
+
+    private Policy createResourcePermission(Policy.DecisionStrategy decisionStrategy) {
+        Policy permission = this.mapStoreFactory.getPolicyStore().create("Resource A Permission", "resource", this.resourceServer);
+
+        permission.setDecisionStrategy(decisionStrategy);
+        permission.addResource(this.resource);
+        this.mapStoreFactory.getPolicyStore().save(permission);
+
+        return permission;
+    }
+
+    private Policy createPolicy(String name, Decision.Effect effect, Long delay) {
+        Policy policy = this.mapStoreFactory.getPolicyStore().create(name, "tests-static-decision", this.resourceServer);
+        Map<String, String> config = new HashMap<>();
+
+        config.put("EFFECT", effect.toString());
+
+        if (delay != null) {
+            config.put("DELAY", delay.toString());
+        }
+
+        policy.setConfig(config);
+        this.mapStoreFactory.getPolicyStore().save(policy);
+
+        return policy;
+    }
+
+    private EvaluationContext createEvaluationContext() {
+        return new EvaluationContext() {
+            @Override
+            public Identity getIdentity() {
+                return null;
+            }
+
+            @Override
+            public Attributes getAttributes() {
+                return Attributes.EMPTY;
+            }
+        };
+    }
+}
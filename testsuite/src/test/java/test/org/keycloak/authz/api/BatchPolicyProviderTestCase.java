@@ -0,0 +1,226 @@
+package test.org.keycloak.authz.api;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.keycloak.authz.core.Authorization;
+import org.keycloak.authz.core.Decision;
+import org.keycloak.authz.core.EvaluationContext;
+import org.keycloak.authz.core.attribute.Attributes;
+import org.keycloak.authz.core.identity.Identity;
+import org.keycloak.authz.core.metrics.DefaultEvaluationMetrics;
+import org.keycloak.authz.core.model.Policy;
+import org.keycloak.authz.core.model.Resource;
+import org.keycloak.authz.core.model.ResourceServer;
+import org.keycloak.authz.core.permission.ResourcePermission;
+import org.keycloak.authz.core.permission.evaluator.Flow;
+import org.keycloak.authz.core.permission.evaluator.Publishers;
+import org.keycloak.authz.core.policy.evaluation.ConcurrentDecisionResultCollector;
+import org.keycloak.authz.core.policy.evaluation.DecisionResultCollector;
+import org.keycloak.authz.core.policy.evaluation.Result;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+/**
+ * @author <a href="mailto:psilva@redhat.com">Pedro Igor</a>
+ */
+public class BatchPolicyProviderTestCase {
+
+    static int NUM_PERMISSIONS = 100;
+    static int STREAMING_BATCH_SIZE = 10;
+
+    private MapStoreFactory mapStoreFactory;
+    private ResourceServer resourceServer;
+    private DefaultEvaluationMetrics metrics;
+    private Authorization authorization;
+    private Policy batchPolicy;
+    private Policy negativeBatchPolicy;
+    private List<ResourcePermission> permissions;
+
+    @Before
+    public void onBefore() {
+        this.mapStoreFactory = new MapStoreFactory();
+        this.resourceServer = this.mapStoreFactory.getResourceServerStore().create("test-resource-server");
+        this.mapStoreFactory.getResourceServerStore().save(this.resourceServer);
+        this.batchPolicy = createBatchPolicy("Batch Policy", Policy.Logic.POSITIVE);
+        this.negativeBatchPolicy = createBatchPolicy("Negative Batch Policy", Policy.Logic.NEGATIVE);
+        this.permissions = new ArrayList<>();
+
+        for (int i = 0; i < NUM_PERMISSIONS; i++) {
+            Resource resource = this.mapStoreFactory.getResourceStore().create("Resource " + i, this.resourceServer, "alice");
+            Policy permission = this.mapStoreFactory.getPolicyStore().create("Resource " + i + " Permission", "resource", this.resourceServer);
+
+            this.mapStoreFactory.getResourceStore().save(resource);
+            permission.setDecisionStrategy(Policy.DecisionStrategy.UNANIMOUS);
+            permission.addResource(resource);
+            permission.addAssociatedPolicy(i % 2 == 0 ? this.batchPolicy : this.negativeBatchPolicy);
+            this.mapStoreFactory.getPolicyStore().save(permission);
+            this.permissions.add(new ResourcePermission(resource, Collections.emptyList(), this.resourceServer));
+        }
+
+        this.metrics = new DefaultEvaluationMetrics();
+        this.authorization = Authorization.builder().storeFactory(() -> mapStoreFactory).metrics(this.metrics).parallelismThreshold(10).build();
+        this.authorization.getPolicyIndexes().invalidate(this.resourceServer.getId());
+    }
+
+    @Test
+    public void testOneCallPerPolicy() {
+        AtomicReference<List<Result>> results = new AtomicReference<>();
+
+        this.authorization.evaluators().from(this.permissions, createEvaluationContext()).evaluate(new DecisionResultCollector() {
+            @Override
+            protected void onComplete(List<Result> completed) {
+                results.set(completed);
+            }
+        });
+
+        assertEffects(results.get());
+        assertEquals(1, getCount(this.batchPolicy));
+        assertEquals(1, getCount(this.negativeBatchPolicy));
+    }
+
+    @Test
+    public void testSharedPolicyNotBatched() {
+        AtomicReference<List<Result>> results = new AtomicReference<>();
+
+        this.batchPolicy.getConfig().put("DEPENDENCIES", "IDENTITY");
+
+        this.authorization.evaluators().from(this.permissions, createEvaluationContext()).evaluate(new DecisionResultCollector() {
+            @Override
+            protected void onComplete(List<Result> completed) {
+                results.set(completed);
+            }
+        });
+
+        assertEffects(results.get());
+        // evaluated for the first permission, then reused instead of being batched
+        assertEquals(1, getCount(this.batchPolicy));
+        assertEquals(NUM_PERMISSIONS / 2 - 1, this.metrics.getSnapshot().getPolicies().get(this.batchPolicy.getId()).getReused());
+        assertEquals(1, getCount(this.negativeBatchPolicy));
+    }
+
+    @Test
+    public void testParallel() {
+        AtomicReference<List<Result>> results = new AtomicReference<>();
+        ForkJoinPool pool = new ForkJoinPool(4);
+
+        try {
+            this.authorization.evaluators().parallel(this.permissions, createEvaluationContext(), pool).evaluate(new ConcurrentDecisionResultCollector() {
+                @Override
+                protected void onComplete(List<Result> completed) {
+                    results.set(completed);
+                }
+            });
+        } finally {
+            pool.shutdown();
+        }
+
+        assertEffects(results.get());
+        assertEquals(1, getCount(this.batchPolicy));
+        assertEquals(1, getCount(this.negativeBatchPolicy));
+    }
+
+    @Test
+    public void testStreamingBatchPerRequest() {
+        List<Result> results = new ArrayList<>();
+
+        this.authorization.evaluators().stream(Publishers.from(this.permissions), createEvaluationContext()).subscribe(new Flow.Subscriber<Result>() {
+            private Flow.Subscription subscription;
+
+            @Override
+            public void onSubscribe(Flow.Subscription subscription) {
+                this.subscription = subscription;
+                this.subscription.request(STREAMING_BATCH_SIZE);
+            }
+
+            @Override
+            public void onNext(Result result) {
+                results.add(result);
+
+                if (results.size() % STREAMING_BATCH_SIZE == 0) {
+                    this.subscription.request(STREAMING_BATCH_SIZE);
+                }
+            }
+
+            @Override
+            public void onError(Throwable cause) {
+                throw new RuntimeException(cause);
+            }
+
+            @Override
+            public void onComplete() {
+            }
+        });
+
+        assertEffects(results);
+        // each request of the subscriber results in one call per policy
+        assertEquals(NUM_PERMISSIONS / STREAMING_BATCH_SIZE, getCount(this.batchPolicy));
+        assertEquals(NUM_PERMISSIONS / STREAMING_BATCH_SIZE, getCount(this.negativeBatchPolicy));
+    }
+
+    @Test
+    public void testSinglePermission() {
+        AtomicReference<List<Result>> results = new AtomicReference<>();
+
+        this.authorization.evaluators().from(this.permissions.subList(0, 1), createEvaluationContext()).evaluate(new DecisionResultCollector() {
+            @Override
+            protected void onComplete(List<Result> completed) {
+                results.set(completed);
+            }
+        });
+
+        assertEquals(Decision.Effect.PERMIT, results.get().get(0).getEffect());
+        assertEquals(1, getCount(this.batchPolicy));
+        assertFalse(this.metrics.getSnapshot().getPolicies().containsKey(this.negativeBatchPolicy.getId()));
+    }
+
+    private void assertEffects(List<Result> results) {
+        assertEquals(NUM_PERMISSIONS, results.size());
+
+        for (Result result : results) {
+            int index = this.permissions.indexOf(result.getPermission());
+            // the logic of the policy is applied to the effects of a batch
+            assertEquals(index % 2 == 0 ? Decision.Effect.PERMIT : Decision.Effect.DENY, result.getEffect());
+        }
+    }
+
+    private long getCount(Policy policy) {
+        return this.metrics.getSnapshot().getPolicies().get(policy.getId()).getCount();
+    }
+
+    private Policy createBatchPolicy(String name, Policy.Logic logic) {
+        Policy policy = this.mapStoreFactory.getPolicyStore().create(name, "tests-static-decision", this.resourceServer);
+        Map<String, String> config = new HashMap<>();
+
+        config.put("EFFECT", Decision.Effect.PERMIT.toString());
+        config.put("BATCH", Boolean.TRUE.toString());
+
+        policy.setConfig(config);
+        policy.setLogic(logic);
+        this.mapStoreFactory.getPolicyStore().save(policy);
+
+        return policy;
+    }
+
+    private EvaluationContext createEvaluationContext() {
+        return new EvaluationContext() {
+            @Override
+            public Identity getIdentity() {
+                return null;
+            }
+
+            @Override
+            public Attributes getAttributes() {
+                return Attributes.EMPTY;
+            }
+        };
+    }
+}
@@ -0,0 +1,195 @@
+package test.org.keycloak.authz.api;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.keycloak.authz.core.Authorization;
+import org.keycloak.authz.core.Deadline;
+import org.keycloak.authz.core.Decision;
+import org.keycloak.authz.core.EvaluationContext;
+import org.keycloak.authz.core.EvaluationTimeoutException;
+import org.keycloak.authz.core.attribute.Attributes;
+import org.keycloak.authz.core.identity.Identity;
+import org.keycloak.authz.core.metrics.DefaultEvaluationMetrics;
+import org.keycloak.authz.core.model.Policy;
+import org.keycloak.authz.core.model.Resource;
+import org.keycloak.authz.core.model.ResourceServer;
+import org.keycloak.authz.core.permission.ResourcePermission;
+import org.keycloak.authz.core.policy.evaluation.DecisionResultCollector;
+import org.keycloak.authz.core.policy.evaluation.Evaluation;
+import org.keycloak.authz.core.policy.evaluation.Result;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author <a href="mailto:psilva@redhat.com">Pedro Igor</a>
+ */
+public class DeadlineTestCase {
+
+    static long TIMEOUT = 100;
+    static long DELAY = 1000;
+
+    private MapStoreFactory mapStoreFactory;
+    private ResourceServer resourceServer;
+
+    @Before
+    public void onBefore() {
+        this.mapStoreFactory = new MapStoreFactory();
+        this.resourceServer = this.mapStoreFactory.getResourceServerStore().create("test-resource-server");
+        this.mapStoreFactory.getResourceServerStore().save(this.resourceServer);
+    }
+
+    @Test
+    public void testSlowPolicyTimesOut() {
+        Resource resource = createResource("Resource A");
+        Policy grant = createPolicy("Grant Policy", null);
+        Policy slow = createPolicy("Slow Policy", DELAY);
+        Policy deferred = createPolicy("Deferred Policy", null);
+
+        createResourcePermission(resource, grant, slow, deferred);
+
+        DefaultEvaluationMetrics metrics = new DefaultEvaluationMetrics();
+        Authorization authorization = Authorization.builder().storeFactory(() -> mapStoreFactory).metrics(metrics).evaluationTimeout(TIMEOUT, TimeUnit.MILLISECONDS).build();
+        AtomicReference<List<Result>> results = new AtomicReference<>();
+        long start = System.nanoTime();
+
+        authorization.evaluators().from(Collections.singletonList(createPermission(resource)), createEvaluationContext(Deadline.NONE)).evaluate(createCollector(results));
+
+        long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        Result result = results.get().get(0);
+        List<Result.PolicyResult> associatedPolicies = result.getResults().get(0).getAssociatedPolicies();
+
+        assertTrue("Evaluation did not stop at the deadline, took " + elapsed + "ms.", elapsed < DELAY);
+        assertEquals(Decision.Effect.DENY, result.getEffect());
+        assertTrue(result.isTimedOut());
+        assertEquals(Decision.Effect.PERMIT, associatedPolicies.get(0).getStatus());
+        assertFalse(associatedPolicies.get(0).isTimedOut());
+        // the slow policy did not complete and the policy after it was not evaluated before the deadline
+        assertEquals(Decision.Effect.DENY, associatedPolicies.get(1).getStatus());
+        assertTrue(associatedPolicies.get(1).isTimedOut());
+        assertEquals(Decision.Effect.DENY, associatedPolicies.get(2).getStatus());
+        assertTrue(associatedPolicies.get(2).isTimedOut());
+        assertEquals(2, metrics.getSnapshot().getTimedOutEvaluations());
+    }
+
+    @Test
+    public void testDeadlineExpiresBetweenPermissions() {
+        Resource slowResource = createResource("Resource A");
+        Resource resource = createResource("Resource B");
+
+        createResourcePermission(slowResource, createPolicy("Slow Policy", DELAY));
+        createResourcePermission(resource, createPolicy("Grant Policy", null));
+
+        Authorization authorization = Authorization.builder().storeFactory(() -> mapStoreFactory).build();
+        List<Evaluation> decisions = new ArrayList<>();
+        AtomicReference<Throwable> error = new AtomicReference<>();
+        EvaluationContext context = createEvaluationContext(Deadline.after(TIMEOUT, TimeUnit.MILLISECONDS));
+
+        authorization.evaluators().from(Arrays.asList(createPermission(slowResource), createPermission(resource)), context).evaluate(new Decision() {
+            @Override
+            public void onDecision(Evaluation evaluation) {
+                decisions.add(evaluation);
+            }
+
+            @Override
+            public void onError(Throwable cause) {
+                error.set(cause);
+            }
+        });
+
+        assertEquals(1, decisions.size());
+        assertTrue(decisions.get(0).isTimedOut());
+        assertTrue(error.get() instanceof EvaluationTimeoutException);
+    }
+
+    @Test
+    public void testDeadlineOfContextAndTimeout() {
+        Deadline deadline = Deadline.after(TIMEOUT, TimeUnit.MILLISECONDS);
+
+        assertEquals(deadline, deadline.min(Deadline.NONE));
+        assertEquals(deadline, Deadline.NONE.min(deadline));
+        assertEquals(deadline, deadline.min(Deadline.after(DELAY, TimeUnit.MILLISECONDS)));
+        assertEquals(Deadline.NONE, Deadline.after(0, TimeUnit.MILLISECONDS));
+        assertFalse(Deadline.NONE.isExpired());
+        assertEquals(Long.MAX_VALUE, Deadline.NONE.remaining(TimeUnit.MILLISECONDS));
+    }
+
+    private DecisionResultCollector createCollector(AtomicReference<List<Result>> results) {
+        return new DecisionResultCollector() {
+            @Override
+            protected void onComplete(List<Result> completed) {
+                results.set(completed);
+            }
+        };
+    }
+
+    private Resource createResource(String name) {
+        Resource resource = this.mapStoreFactory.getResourceStore().create(name, this.resourceServer, "alice");
+
+        this.mapStoreFactory.getResourceStore().save(resource);
+
+        return resource;
+    }
+
+    private ResourcePermission createPermission(Resource resource) {
+        return new ResourcePermission(resource, Collections.emptyList(), this.resourceServer);
+    }
+
+    private void createResourcePermission(Resource resource, Policy... associatedPolicies) {
+        Policy permission = this.mapStoreFactory.getPolicyStore().create(resource.getName() + " Permission", "resource", this.resourceServer);
+
+        permission.setDecisionStrategy(Policy.DecisionStrategy.UNANIMOUS);
+        permission.addResource(resource);
+
+        for (Policy associatedPolicy : associatedPolicies) {
+            permission.addAssociatedPolicy(associatedPolicy);
+        }
+
+        this.mapStoreFactory.getPolicyStore().save(permission);
+    }
+
+    private Policy createPolicy(String name, Long delay) {
+        Policy policy = this.mapStoreFactory.getPolicyStore().create(name, "tests-static-decision", this.resourceServer);
+        Map<String, String> config = new HashMap<>();
+
+        config.put("EFFECT", Decision.Effect.PERMIT.toString());
+
+        if (delay != null) {
+            config.put("DELAY", delay.toString());
+        }
+
+        policy.setConfig(config);
+        this.mapStoreFactory.getPolicyStore().save(policy);
+
+        return policy;
+    }
+
+    private EvaluationContext createEvaluationContext(Deadline deadline) {
+        return new EvaluationContext() {
+            @Override
+            public Identity getIdentity() {
+                return null;
+            }
+
+            @Override
+            public Attributes getAttributes() {
+                return Attributes.EMPTY;
+            }
+
+            @Override
+            public Deadline getDeadline() {
+                return deadline;
+            }
+        };
+    }
+}
@@ -0,0 +1,301 @@
+package test.org.keycloak.authz.api;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.keycloak.authz.core.Authorization;
+import org.keycloak.authz.core.Decision;
+import org.keycloak.authz.core.EvaluationContext;
+import org.keycloak.authz.core.attribute.Attributes;
+import org.keycloak.authz.core.identity.Identity;
+import org.keycloak.authz.core.model.Policy;
+import org.keycloak.authz.core.model.Resource;
+import org.keycloak.authz.core.model.ResourceServer;
+import org.keycloak.authz.core.permission.ResourcePermission;
+import org.keycloak.authz.core.policy.cache.DecisionCache;
+import org.keycloak.authz.core.policy.cache.DefaultDecisionCache;
+import org.keycloak.authz.core.policy.evaluation.DecisionResultCollector;
+import org.keycloak.authz.core.policy.evaluation.Result;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author <a href="mailto:psilva@redhat.com">Pedro Igor</a>
+ */
+public class DecisionCacheTestCase {
+
+    private MapStoreFactory mapStoreFactory;
+    private ResourceServer resourceServer;
+
+    @Before
+    public void onBefore() {
+        this.mapStoreFactory = new MapStoreFactory();
+        this.resourceServer = this.mapStoreFactory.getResourceServerStore().create("test-resource-server");
+        this.mapStoreFactory.getResourceServerStore().save(this.resourceServer);
+    }
+
+    @Test
+    public void testCacheHit() {
+        DecisionCache cache = new DefaultDecisionCache(100, 1, TimeUnit.MINUTES);
+        Authorization authorization = createAuthorization(cache);
+        ResourcePermission permission = createPermission("Resource A", Decision.Effect.PERMIT, Decision.Effect.DENY);
+
+        Result first = evaluate(authorization, permission, createEvaluationContext("alice", "user"));
+        Result second = evaluate(authorization, permission, createEvaluationContext("alice", "user"));
+
+        assertEquals(1, cache.getMissCount());
+        assertEquals(1, cache.getHitCount());
+        assertEquals(1, cache.size());
+        assertEquals(Decision.Effect.PERMIT, first.getEffect());
+        assertEquals(first.getEffect(), second.getEffect());
+        assertEquals(2, second.getResults().get(0).getAssociatedPolicies().size());
+    }
+
+    @Test
+    public void testDifferentIdentityOrAttributes() {
+        DecisionCache cache = new DefaultDecisionCache(100, 1, TimeUnit.MINUTES);
+        Authorization authorization = createAuthorization(cache);
+        ResourcePermission permission = createPermission("Resource A", Decision.Effect.PERMIT);
+
+        evaluate(authorization, permission, createEvaluationContext("alice", "user"));
+        evaluate(authorization, permission, createEvaluationContext("alice", "admin"));
+        evaluate(authorization, permission, createEvaluationContext("bob", "user"));
+
+        assertEquals(3, cache.getMissCount());
+        assertEquals(0, cache.getHitCount());
+    }
+
+    @Test
+    public void testPolicyIndexInvalidation() {
+        DecisionCache cache = new DefaultDecisionCache(100, 1, TimeUnit.MINUTES);
+        Authorization authorization = createAuthorization(cache);
+        ResourcePermission permission = createPermission("Resource A", Decision.Effect.PERMIT);
+
+        evaluate(authorization, permission, createEvaluationContext("alice", "user"));
+        authorization.getPolicyIndexes().invalidate(this.resourceServer.getId());
+        evaluate(authorization, permission, createEvaluationContext("alice", "user"));
+
+        assertEquals(2, cache.getMissCount());
+        assertEquals(0, cache.getHitCount());
+    }
+
+    @Test
+    public void testEviction() throws Exception {
+        ResourcePermission permissionA = createPermission("Resource A", Decision.Effect.PERMIT);
+        ResourcePermission permissionB = createPermission("Resource B", Decision.Effect.PERMIT);
+        DecisionCache cache = new DefaultDecisionCache(1, 1, TimeUnit.MINUTES);
+        Authorization authorization = createAuthorization(cache);
+
+        evaluate(authorization, permissionA, createEvaluationContext("alice", "user"));
+        evaluate(authorization, permissionB, createEvaluationContext("alice", "user"));
+
+        assertEquals(1, cache.getEvictionCount());
+        assertEquals(1, cache.size());
+
+        ResourcePermission permission = createPermission("Resource C", Decision.Effect.PERMIT);
+
+        cache = new DefaultDecisionCache(100, 1, TimeUnit.MILLISECONDS);
+        authorization = createAuthorization(cache);
+
+        evaluate(authorization, permission, createEvaluationContext("alice", "user"));
+        Thread.sleep(5);
+        evaluate(authorization, permission, createEvaluationContext("alice", "user"));
+
+        assertEquals(1, cache.getEvictionCount());
+        assertEquals(2, cache.getMissCount());
+    }
+
+    @Test
+    public void testMaxEntries() {
+        List<ResourcePermission> permissions = new ArrayList<>();
+
+        for (int i = 0; i < 40; i++) {
+            permissions.add(createPermission("Resource " + i, Decision.Effect.PERMIT));
+        }
+
+        DecisionCache cache = new DefaultDecisionCache(20, 1, TimeUnit.MINUTES);
+        Authorization authorization = createAuthorization(cache);
+
+        for (ResourcePermission permission : permissions) {
+            evaluate(authorization, permission, createEvaluationContext("alice", "user"));
+        }
+
+        assertTrue(cache.size() <= 20);
+        assertEquals(40 - cache.size(), cache.getEvictionCount());
+    }
+
+    @Test
+    public void testTimeDependentPolicyNotCached() {
+        DecisionCache cache = new DefaultDecisionCache(100, 1, TimeUnit.MINUTES);
+        Authorization authorization = createAuthorization(cache);
+        ResourcePermission permission = createPermission("Resource A", "IDENTITY,TIME", Decision.Effect.PERMIT);
+
+        evaluate(authorization, permission, createEvaluationContext("alice", "user"));
+        evaluate(authorization, permission, createEvaluationContext("alice", "user"));
+
+        assertEquals(2, cache.getMissCount());
+        assertEquals(0, cache.getHitCount());
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void testAttributeDependentPolicyNotCached() {
+        // the contexts differ only in an attribute outside the key, the decision of the first one must not be replayed to the second one
+        DecisionCache cache = new DefaultDecisionCache(100, 1, TimeUnit.MINUTES);
+        Authorization authorization = createAuthorization(cache);
+        ResourcePermission permission = createAttributePermission("Resource A", "kc.authz.context.authc.method=otp");
+
+        assertEquals(Decision.Effect.PERMIT, evaluate(authorization, permission, createEvaluationContext("alice", "user", "otp")).getEffect());
+        assertEquals(Decision.Effect.DENY, evaluate(authorization, permission, createEvaluationContext("alice", "user", "password")).getEffect());
+        assertEquals(2, cache.getMissCount());
+        assertEquals(0, cache.getHitCount());
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void testAttributeDependentPolicyCachedWhenKeyCoversAttributes() {
+        Set<String> keyAttributes = new HashSet<>(DecisionCache.DEFAULT_KEY_ATTRIBUTES);
+
+        keyAttributes.add("kc.authz.context.authc.method");
+
+        DecisionCache cache = new DefaultDecisionCache(100, 1, TimeUnit.MINUTES, keyAttributes, true);
+        Authorization authorization = createAuthorization(cache);
+        ResourcePermission permission = createAttributePermission("Resource A", "kc.authz.context.authc.method=otp");
+
+        assertEquals(Decision.Effect.PERMIT, evaluate(authorization, permission, createEvaluationContext("alice", "user", "otp")).getEffect());
+        assertEquals(Decision.Effect.DENY, evaluate(authorization, permission, createEvaluationContext("alice", "user", "password")).getEffect());
+        assertEquals(Decision.Effect.PERMIT, evaluate(authorization, permission, createEvaluationContext("alice", "user", "otp")).getEffect());
+        assertEquals(2, cache.getMissCount());
+        assertEquals(1, cache.getHitCount());
+        assertEquals(2, cache.size());
+    }
+
+    @Test
+    public void testNoIdentity() {
+        DecisionCache cache = new DefaultDecisionCache(100, 1, TimeUnit.MINUTES);
+        Authorization authorization = createAuthorization(cache);
+        ResourcePermission permission = createPermission("Resource A", Decision.Effect.PERMIT);
+
+        assertEquals(Decision.Effect.PERMIT, evaluate(authorization, permission, createEvaluationContext(null, "user")).getEffect());
+        assertEquals(0, cache.getMissCount());
+        assertEquals(0, cache.size());
+    }
+
+    private Authorization createAuthorization(DecisionCache cache) {
+        Authorization authorization = Authorization.builder().storeFactory(() -> mapStoreFactory).decisionCache(cache).build();
+
+        authorization.getPolicyIndexes().invalidate(this.resourceServer.getId());
+
+        return authorization;
+    }
+
+    private Result evaluate(Authorization authorization, ResourcePermission permission, EvaluationContext evaluationContext) {
+        AtomicReference<List<Result>> results = new AtomicReference<>();
+
+        authorization.evaluators().from(Arrays.asList(permission), evaluationContext).evaluate(new DecisionResultCollector() {
+            @Override
+            protected void onComplete(List<Result> completed) {
+                results.set(completed);
+            }
+        });
+
+        assertEquals(1, results.get().size());
+
+        return results.get().get(0);
+    }
+
+    private ResourcePermission createPermission(String resourceName, Decision.Effect... effects) {
+        return createPermission(resourceName, null, effects);
+    }
+
+    private ResourcePermission createPermission(String resourceName, String dependencies, Decision.Effect... effects) {
+        Resource resource = this.mapStoreFactory.getResourceStore().create(resourceName, this.resourceServer, "alice");
+
+        this.mapStoreFactory.getResourceStore().save(resource);
+
+        Policy policy = this.mapStoreFactory.getPolicyStore().create(resourceName + " Policy", "resource", this.resourceServer);
+
+        policy.setDecisionStrategy(Policy.DecisionStrategy.AFFIRMATIVE);
+        policy.addResource(resource);
+
+        for (int i = 0; i < effects.length; i++) {
+            Policy associatedPolicy = this.mapStoreFactory.getPolicyStore().create(resourceName + " Static Decision Policy " + i, "tests-static-decision", this.resourceServer);
+            Map<String, String> config = new HashMap<>();
+
+            config.put("EFFECT", effects[i].toString());
+
+            if (dependencies != null) {
+                config.put("DEPENDENCIES", dependencies);
+            }
+
+            associatedPolicy.setConfig(config);
+            policy.addAssociatedPolicy(associatedPolicy);
+        }
+
+        this.mapStoreFactory.getPolicyStore().save(policy);
+
+        return new ResourcePermission(resource, Collections.emptyList(), this.resourceServer);
+    }
+
+    private ResourcePermission createAttributePermission(String resourceName, String attribute) {
+        ResourcePermission permission = createPermission(resourceName, "IDENTITY,ATTRIBUTES", Decision.Effect.DENY);
+        Policy policy = this.mapStoreFactory.getPolicyStore().findByResource(permission.getResource().getId()).get(0);
+
+        policy.getAssociatedPolicies().iterator().next().getConfig().put("ATTRIBUTE", attribute);
+
+        return permission;
+    }
+
+    private EvaluationContext createEvaluationContext(String identityId, String role) {
+        return createEvaluationContext(identityId, role, null);
+    }
+
+    private EvaluationContext createEvaluationContext(String identityId, String role, String authenticationMethod) {
+        Map<String, Collection<String>> attributes = new HashMap<>();
+
+        attributes.put("roles", Arrays.asList(role));
+
+        Attributes identityAttributes = Attributes.from(attributes);
+        Map<String, Collection<String>> context = new HashMap<>();
+
+        if (authenticationMethod != null) {
+            context.put("kc.authz.context.authc.method", Arrays.asList(authenticationMethod));
+        }
+
+        Attributes contextAttributes = Attributes.from(context);
+
+        return new EvaluationContext() {
+            @Override
+            public Identity getIdentity() {
+                return new Identity() {
+                    @Override
+                    public String getId() {
+                        return identityId;
+                    }
+
+                    @Override
+                    public Attributes getAttributes() {
+                        return identityAttributes;
+                    }
+                };
+            }
+
+            @Override
+            public Attributes getAttributes() {
+                return contextAttributes;
+            }
+        };
+    }
+}
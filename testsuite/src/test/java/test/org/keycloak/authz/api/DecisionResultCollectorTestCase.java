@@ -0,0 +1,185 @@
+package test.org.keycloak.authz.api;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.keycloak.authz.core.Decision;
+import org.keycloak.authz.core.model.Policy;
+import org.keycloak.authz.core.model.Resource;
+import org.keycloak.authz.core.model.ResourceServer;
+import org.keycloak.authz.core.permission.ResourcePermission;
+import org.keycloak.authz.core.policy.evaluation.ConcurrentDecisionResultCollector;
+import org.keycloak.authz.core.policy.evaluation.DecisionResultCollector;
+import org.keycloak.authz.core.policy.evaluation.Evaluation;
+import org.keycloak.authz.core.policy.evaluation.Result;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+/**
+ * @author <a href="mailto:psilva@redhat.com">Pedro Igor</a>
+ */
+public class DecisionResultCollectorTestCase {
+
+    static int NUM_PERMISSIONS = 1000;
+    static int NUM_THREADS = 8;
+
+    private MapStoreFactory mapStoreFactory;
+    private ResourceServer resourceServer;
+    private List<ResourcePermission> permissions;
+    private Policy parentPolicy;
+    private Policy grantPolicy;
+    private Policy denyPolicy;
+
+    @Before
+    public void onBefore() {
+        this.mapStoreFactory = new MapStoreFactory();
+        this.resourceServer = this.mapStoreFactory.getResourceServerStore().create("test-resource-server");
+        this.mapStoreFactory.getResourceServerStore().save(this.resourceServer);
+
+        this.grantPolicy = this.mapStoreFactory.getPolicyStore().create("Grant Policy", "tests-static-decision", this.resourceServer);
+        this.denyPolicy = this.mapStoreFactory.getPolicyStore().create("Deny Policy", "tests-static-decision", this.resourceServer);
+        this.parentPolicy = this.mapStoreFactory.getPolicyStore().create("Parent Policy", "resource", this.resourceServer);
+        this.parentPolicy.setDecisionStrategy(Policy.DecisionStrategy.AFFIRMATIVE);
+        this.parentPolicy.addAssociatedPolicy(this.grantPolicy);
+        this.parentPolicy.addAssociatedPolicy(this.denyPolicy);
+
+        this.permissions = new ArrayList<>();
+
+        for (int i = 0; i < NUM_PERMISSIONS; i++) {
+            Resource resource = this.mapStoreFactory.getResourceStore().create("Resource " + i, this.resourceServer, "alice");
+            this.permissions.add(new ResourcePermission(resource, Collections.emptyList(), this.resourceServer));
+        }
+    }
+
+    @Test
+    public void testConcurrentCollector() throws Exception {
+        AtomicReference<List<Result>> expected = new AtomicReference<>();
+        AtomicReference<List<Result>> actual = new AtomicReference<>();
+
+        ExecutorService executor = Executors.newFixedThreadPool(NUM_THREADS);
+
+        try {
+            deliver(createCollector(expected), null);
+            deliver(createConcurrentCollector(actual), executor);
+        } finally {
+            executor.shutdown();
+        }
+
+        assertNotNull(expected.get());
+        assertNotNull(actual.get());
+        assertEquals(summarize(expected.get()), summarize(actual.get()));
+        assertEquals(NUM_PERMISSIONS, actual.get().size());
+    }
+
+    @Test
+    public void testConcurrentCollectorOf() throws Exception {
+        AtomicReference<List<Result>> expected = new AtomicReference<>();
+        AtomicReference<List<Result>> actual = new AtomicReference<>();
+        ConcurrentDecisionResultCollector collector = ConcurrentDecisionResultCollector.of(createCollector(actual));
+        ExecutorService executor = Executors.newFixedThreadPool(NUM_THREADS);
+
+        try {
+            deliver(createCollector(expected), null);
+            deliver(collector, executor);
+        } finally {
+            executor.shutdown();
+        }
+
+        // results are delivered to the collector given to of(DecisionResultCollector)
+        assertEquals(summarize(expected.get()), summarize(actual.get()));
+        assertSame(collector, ConcurrentDecisionResultCollector.of(collector));
+
+        // collectors that handle decisions themselves can not be replaced
+        assertNull(ConcurrentDecisionResultCollector.of(new DecisionResultCollector() {
+            @Override
+            public void onDecision(Evaluation evaluation) {
+                super.onDecision(evaluation);
+            }
+
+            @Override
+            protected void onComplete(List<Result> results) {
+            }
+        }));
+    }
+
+    private void deliver(Decision decision, ExecutorService executor) throws Exception {
+        if (executor == null) {
+            deliver(decision, 0, this.permissions.size());
+        } else {
+            List<Future<?>> futures = new ArrayList<>();
+            int chunk = this.permissions.size() / NUM_THREADS;
+
+            for (int i = 0; i < NUM_THREADS; i++) {
+                int from = i * chunk;
+                int to = i == NUM_THREADS - 1 ? this.permissions.size() : from + chunk;
+
+                futures.add(executor.submit(() -> deliver(decision, from, to)));
+            }
+
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        }
+
+        decision.onComplete();
+    }
+
+    private void deliver(Decision decision, int from, int to) {
+        for (int i = from; i < to; i++) {
+            ResourcePermission permission = this.permissions.get(i);
+
+            new Evaluation(permission, null, this.parentPolicy, this.grantPolicy, decision).grant();
+            new Evaluation(permission, null, this.parentPolicy, this.denyPolicy, decision).deny();
+        }
+    }
+
+    private Map<String, String> summarize(List<Result> results) {
+        Map<String, String> summary = new HashMap<>();
+
+        for (Result result : results) {
+            StringBuilder builder = new StringBuilder(result.getEffect().name());
+
+            for (Result.PolicyResult policyResult : result.getResults()) {
+                builder.append(' ').append(policyResult.getPolicy().getName()).append('=').append(policyResult.getStatus());
+
+                for (Result.PolicyResult associated : policyResult.getAssociatedPolicies()) {
+                    builder.append(' ').append(associated.getPolicy().getName()).append('=').append(associated.getStatus());
+                }
+            }
+
+            summary.put(result.getPermission().getResource().getName(), builder.toString());
+        }
+
+        return summary;
+    }
+
+    private DecisionResultCollector createCollector(AtomicReference<List<Result>> results) {
+        return new DecisionResultCollector() {
+            @Override
+            protected void onComplete(List<Result> completed) {
+                results.set(completed);
+            }
+        };
+    }
+
+    private DecisionResultCollector createConcurrentCollector(AtomicReference<List<Result>> results) {
+        return new ConcurrentDecisionResultCollector() {
+            @Override
+            protected void onComplete(List<Result> completed) {
+                results.set(completed);
+            }
+        };
+    }
+}
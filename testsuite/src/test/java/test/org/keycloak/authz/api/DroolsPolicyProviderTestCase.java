@@ -0,0 +1,476 @@
+package test.org.keycloak.authz.api;
+
+import org.drools.compiler.kie.builder.impl.InternalKieModule;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.keycloak.authz.core.Authorization;
+import org.keycloak.authz.core.Decision;
+import org.keycloak.authz.core.EvaluationContext;
+import org.keycloak.authz.core.attribute.Attributes;
+import org.keycloak.authz.core.identity.Identity;
+import org.keycloak.authz.core.model.Policy;
+import org.keycloak.authz.core.model.Resource;
+import org.keycloak.authz.core.model.ResourceServer;
+import org.keycloak.authz.core.permission.ResourcePermission;
+import org.keycloak.authz.core.policy.evaluation.DecisionResultCollector;
+import org.keycloak.authz.core.policy.evaluation.Result;
+import org.keycloak.authz.policy.provider.drools.DroolsPolicyProviderFactory;
+import org.keycloak.authz.policy.provider.drools.KieContainerMetrics;
+import org.keycloak.authz.policy.provider.drools.SessionPoolMetrics;
+import org.kie.api.KieServices;
+import org.kie.api.builder.KieBuilder;
+import org.kie.api.builder.KieFileSystem;
+import org.kie.api.builder.Message;
+import org.kie.api.builder.ReleaseId;
+import org.kie.api.builder.model.KieBaseModel;
+import org.kie.api.builder.model.KieModuleModel;
+import org.kie.scanner.MavenRepository;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Evaluates Drools policies against knowledge modules built and installed into the {@link org.kie.api.builder.KieRepository} by the tests.
+ *
+ * @author <a href="mailto:psilva@redhat.com">Pedro Igor</a>
+ */
+public class DroolsPolicyProviderTestCase {
+
+    static int NUM_RESOURCES = 20;
+    static int NUM_THREADS = 4;
+    static String GROUP_ID = "test.org.keycloak.authz";
+    static String ARTIFACT_ID = "drools-policy";
+    static String SNAPSHOT_VERSION = "1.0-SNAPSHOT";
+    static String SESSION_NAME = "PolicySession";
+
+    private MapStoreFactory mapStoreFactory;
+    private ResourceServer resourceServer;
+    private Authorization authorization;
+    private DroolsPolicyProviderFactory factory;
+    private final List<Policy> policies = new ArrayList<>();
+
+    @Before
+    public void onBefore() {
+        this.mapStoreFactory = new MapStoreFactory();
+        this.resourceServer = this.mapStoreFactory.getResourceServerStore().create("test-resource-server");
+        this.mapStoreFactory.getResourceServerStore().save(this.resourceServer);
+        this.authorization = Authorization.builder().storeFactory(() -> mapStoreFactory).build();
+        this.factory = this.authorization.getProviderFactory("drools");
+    }
+
+    @After
+    public void onAfter() {
+        // containers are shared by all the factories of the JVM, including those of other tests, so policies are released explicitly
+        this.policies.forEach(this.factory::remove);
+        this.factory.dispose();
+    }
+
+    @Test
+    public void testPooledSession() {
+        install("1.0.0", "grant");
+
+        Policy policy = createDroolsPolicy("1.0.0", false);
+        List<ResourcePermission> permissions = createPermissions(policy);
+
+        for (int i = 0; i < 3; i++) {
+            assertEffects(evaluate(permissions), Decision.Effect.PERMIT);
+        }
+
+        SessionPoolMetrics metrics = this.factory.getSessionPoolMetrics(policy);
+
+        assertNotNull(metrics);
+        // permissions are evaluated in a single batch, sequentially, so the same session is reset and reused
+        assertEquals(1, metrics.getCreated());
+        assertEquals(0, metrics.getDisposed());
+        assertEquals(0, metrics.getActive());
+        assertEquals(1, metrics.getIdle());
+    }
+
+    @Test
+    public void testPooledSessionWithoutBatch() {
+        install("1.0.0", "grant");
+
+        Policy policy = createDroolsPolicy("1.0.0", false);
+
+        policy.getConfig().put("batch", "false");
+        policy.getConfig().put("sessionPoolSize", "2");
+
+        List<ResourcePermission> permissions = createPermissions(policy);
+
+        assertEffects(evaluate(permissions), Decision.Effect.PERMIT);
+
+        SessionPoolMetrics metrics = this.factory.getSessionPoolMetrics(policy);
+
+        // permissions are evaluated one at a time, each one reusing the session released by the previous one
+        assertEquals(1, metrics.getCreated());
+        assertEquals(2, metrics.getSize());
+    }
+
+    @Test
+    public void testStatelessSession() {
+        install("1.0.0", "grant");
+
+        Policy policy = createDroolsPolicy("1.0.0", true);
+        List<ResourcePermission> permissions = createPermissions(policy);
+
+        assertEffects(evaluate(permissions), Decision.Effect.PERMIT);
+
+        policy.getConfig().put("batch", "false");
+
+        assertEffects(evaluate(permissions), Decision.Effect.PERMIT);
+        assertNull(this.factory.getSessionPoolMetrics(policy));
+    }
+
+    @Test
+    public void testContainerSwapDuringEvaluation() throws Exception {
+        install("1.0.0", "grant");
+        install("2.0.0", "deny");
+
+        Policy policy = createDroolsPolicy("1.0.0", false);
+        List<ResourcePermission> permissions = createPermissions(policy);
+
+        assertEffects(evaluate(permissions), Decision.Effect.PERMIT);
+
+        List<Throwable> errors = evaluateConcurrently(permissions, NUM_THREADS * 5, () -> {
+            policy.getConfig().put("mavenArtifactVersion", "2.0.0");
+            this.factory.update(policy);
+        });
+
+        assertTrue("Evaluations failed: " + errors, errors.isEmpty());
+        assertEffects(evaluate(permissions), Decision.Effect.DENY);
+
+        // the container of the previous version is released once its last policy is updated
+        Set<String> containers = this.factory.getContainerMetrics().getContainers().keySet();
+
+        assertEquals(Collections.singleton(GROUP_ID + ":" + ARTIFACT_ID + ":2.0.0"), containers);
+
+        SessionPoolMetrics metrics = this.factory.getSessionPoolMetrics(policy);
+
+        assertTrue(metrics.getCreated() <= NUM_THREADS);
+        assertEquals(0, metrics.getActive());
+    }
+
+    @Test
+    public void testUpdateWhileBuilding() throws Exception {
+        // resolving the first version from the Maven repository takes longer than building the second one, which is installed already
+        deploy("1.1-SNAPSHOT", "grant");
+        install("2.0.0", "deny");
+
+        Policy policy = createDroolsPolicy("1.1-SNAPSHOT", false);
+        List<ResourcePermission> permissions = createPermissions(policy);
+
+        // evaluations waiting for the first build get the policy that replaced it
+        List<Throwable> errors = evaluateConcurrently(permissions, 0, () -> {
+            await(() -> this.factory.getContainerMetrics().getContainers().containsKey(GROUP_ID + ":" + ARTIFACT_ID + ":1.1-SNAPSHOT"), "Policy was not evaluated.");
+            policy.getConfig().put("mavenArtifactVersion", "2.0.0");
+            this.factory.update(policy);
+        });
+
+        assertTrue("Evaluations failed: " + errors, errors.isEmpty());
+        assertEffects(evaluate(permissions), Decision.Effect.DENY);
+    }
+
+    @Test
+    public void testUpdatePicksUpRedeployedArtifact() {
+        deploy("1.2-SNAPSHOT", "grant");
+
+        Policy policy = createDroolsPolicy("1.2-SNAPSHOT", false);
+        List<ResourcePermission> permissions = createPermissions(policy);
+
+        assertEffects(evaluate(permissions), Decision.Effect.PERMIT);
+
+        // the artifact is redeployed under the same version, long before the next scan
+        deploy("1.2-SNAPSHOT", "deny");
+        this.factory.update(policy);
+
+        assertEffects(evaluate(permissions), Decision.Effect.DENY);
+    }
+
+    @Test
+    public void testContainerSharedByFactories() {
+        install("1.0.0", "grant");
+
+        Policy policy = createDroolsPolicy("1.0.0", false);
+        List<ResourcePermission> permissions = createPermissions(policy);
+        long builds = this.factory.getContainerMetrics().getBuilds();
+        // e.g.: the administration and the entitlement APIs, each one with its own instance
+        Authorization other = Authorization.builder().storeFactory(() -> mapStoreFactory).build();
+        DroolsPolicyProviderFactory otherFactory = other.getProviderFactory("drools");
+
+        try {
+            assertEffects(evaluate(other, permissions), Decision.Effect.PERMIT);
+            // built through the other instance, but visible to this one
+            assertTrue(this.factory.getContainerMetrics().getContainers().containsKey(GROUP_ID + ":" + ARTIFACT_ID + ":1.0.0"));
+        } finally {
+            otherFactory.dispose();
+        }
+
+        // still referenced by this factory, so the container is not built again
+        assertEffects(evaluate(permissions), Decision.Effect.PERMIT);
+        assertEquals(builds + 1, this.factory.getContainerMetrics().getBuilds());
+    }
+
+    @Test
+    public void testScannerSwapDuringEvaluation() throws Exception {
+        deploy(SNAPSHOT_VERSION, "grant");
+
+        Policy pooledPolicy = createDroolsPolicy("Pooled Drools Policy", SNAPSHOT_VERSION, false);
+        Policy statelessPolicy = createDroolsPolicy("Stateless Drools Policy", SNAPSHOT_VERSION, true);
+
+        pooledPolicy.getConfig().put("scannerPeriod", "1");
+        pooledPolicy.getConfig().put("scannerPeriodUnit", "Seconds");
+
+        List<ResourcePermission> permissions = createPermissions(pooledPolicy, statelessPolicy);
+
+        assertEffects(evaluate(permissions), Decision.Effect.PERMIT);
+
+        // both policies share the container of the artifact, which is scanned at the shortest period of them
+        KieContainerMetrics.Container container = this.factory.getContainerMetrics().getContainers().get(GROUP_ID + ":" + ARTIFACT_ID + ":" + SNAPSHOT_VERSION);
+
+        assertEquals(2, container.getPolicies());
+
+        long updates = this.factory.getContainerMetrics().getUpdates();
+
+        // the scanner finds the new build in the repository and every policy sharing the artifact is built again from it
+        List<Throwable> errors = evaluateConcurrently(permissions, NUM_THREADS, () -> {
+            deploy(SNAPSHOT_VERSION, "deny");
+            await(() -> this.factory.getContainerMetrics().getUpdates() == updates + 2, "Policies were not updated after a new build of their artifact was deployed.");
+        });
+
+        assertTrue("Evaluations failed: " + errors, errors.isEmpty());
+        assertEffects(evaluate(permissions), Decision.Effect.DENY);
+        assertEquals(1, this.factory.getContainerMetrics().getContainers().size());
+    }
+
+    /**
+     * Evaluates the given <code>permissions</code> from multiple threads, running <code>action</code> once <code>before</code> evaluations
+     * completed and waiting for as many evaluations to complete afterwards.
+     *
+     * @return the errors of the evaluations
+     */
+    private List<Throwable> evaluateConcurrently(List<ResourcePermission> permissions, int before, Runnable action) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(NUM_THREADS);
+        AtomicBoolean stop = new AtomicBoolean();
+        AtomicInteger evaluations = new AtomicInteger();
+        ConcurrentLinkedQueue<Throwable> errors = new ConcurrentLinkedQueue<>();
+        List<Future<?>> futures = new ArrayList<>();
+
+        try {
+            for (int i = 0; i < NUM_THREADS; i++) {
+                futures.add(executor.submit(() -> {
+                    while (!stop.get()) {
+                        try {
+                            for (Result result : evaluate(permissions)) {
+                                // the policy is replaced within the same request, so results may differ between permissions
+                                if (result.getEffect() == null || result.isTimedOut()) {
+                                    throw new RuntimeException("Unexpected result [" + result.getEffect() + "] for [" + result.getPermission().getResource().getName() + "].");
+                                }
+                            }
+                        } catch (Throwable cause) {
+                            errors.add(cause);
+                        }
+
+                        evaluations.incrementAndGet();
+                    }
+                }));
+            }
+
+            await(() -> evaluations.get() >= before, "Evaluations did not progress.");
+            action.run();
+
+            int after = evaluations.get() + NUM_THREADS * 5;
+
+            await(() -> evaluations.get() >= after, "Evaluations did not progress.");
+        } finally {
+            stop.set(true);
+
+            for (Future<?> future : futures) {
+                future.get(1, TimeUnit.MINUTES);
+            }
+
+            executor.shutdownNow();
+        }
+
+        return new ArrayList<>(errors);
+    }
+
+    private void await(BooleanSupplier condition, String message) {
+        long timeout = System.currentTimeMillis() + TimeUnit.MINUTES.toMillis(2);
+
+        while (!condition.getAsBoolean()) {
+            if (System.currentTimeMillis() > timeout) {
+                fail(message);
+            }
+
+            Thread.yield();
+        }
+    }
+
+    private void assertEffects(List<Result> results, Decision.Effect expected) {
+        assertEquals(NUM_RESOURCES, results.size());
+
+        for (Result result : results) {
+            assertEquals(result.getPermission().getResource().getName(), expected, result.getEffect());
+        }
+    }
+
+    private List<Result> evaluate(List<ResourcePermission> permissions) {
+        return evaluate(this.authorization, permissions);
+    }
+
+    private List<Result> evaluate(Authorization authorization, List<ResourcePermission> permissions) {
+        AtomicReference<List<Result>> results = new AtomicReference<>();
+        AtomicReference<Throwable> error = new AtomicReference<>();
+
+        authorization.evaluators().from(permissions, createEvaluationContext()).evaluate(new DecisionResultCollector() {
+            @Override
+            public void onError(Throwable cause) {
+                error.set(cause);
+            }
+
+            @Override
+            protected void onComplete(List<Result> completed) {
+                results.set(completed);
+            }
+        });
+
+        if (error.get() != null) {
+            throw new RuntimeException("Evaluation failed.", error.get());
+        }
+
+        return results.get();
+    }
+
+    private List<ResourcePermission> createPermissions(Policy... policies) {
+        List<ResourcePermission> permissions = new ArrayList<>();
+
+        for (int i = 0; i < NUM_RESOURCES; i++) {
+            Resource resource = this.mapStoreFactory.getResourceStore().create("Resource " + i, this.resourceServer, "alice");
+            Policy permission = this.mapStoreFactory.getPolicyStore().create(resource.getName() + " Permission", "resource", this.resourceServer);
+
+            this.mapStoreFactory.getResourceStore().save(resource);
+            permission.setDecisionStrategy(Policy.DecisionStrategy.UNANIMOUS);
+            permission.addResource(resource);
+
+            for (Policy policy : policies) {
+                permission.addAssociatedPolicy(policy);
+            }
+
+            this.mapStoreFactory.getPolicyStore().save(permission);
+            permissions.add(new ResourcePermission(resource, Collections.emptyList(), this.resourceServer));
+        }
+
+        this.authorization.getPolicyIndexes().invalidate(this.resourceServer.getId());
+
+        return permissions;
+    }
+
+    private Policy createDroolsPolicy(String version, boolean statelessSession) {
+        return createDroolsPolicy("Drools Policy", version, statelessSession);
+    }
+
+    private Policy createDroolsPolicy(String name, String version, boolean statelessSession) {
+        Policy policy = this.mapStoreFactory.getPolicyStore().create(name, "drools", this.resourceServer);
+        Map<String, String> config = new HashMap<>();
+
+        config.put("mavenArtifactGroupId", GROUP_ID);
+        config.put("mavenArtifactId", ARTIFACT_ID);
+        config.put("mavenArtifactVersion", version);
+        config.put("scannerPeriod", "1");
+        config.put("scannerPeriodUnit", "Hours");
+        config.put("sessionName", SESSION_NAME);
+        config.put("statelessSession", String.valueOf(statelessSession));
+
+        policy.setConfig(config);
+        this.mapStoreFactory.getPolicyStore().save(policy);
+        this.policies.add(policy);
+
+        return policy;
+    }
+
+    private EvaluationContext createEvaluationContext() {
+        return new EvaluationContext() {
+            @Override
+            public Identity getIdentity() {
+                return null;
+            }
+
+            @Override
+            public Attributes getAttributes() {
+                return Attributes.EMPTY;
+            }
+        };
+    }
+
+    /**
+     * Builds a module whose rules call the given <code>action</code> on every {@link org.keycloak.authz.core.policy.evaluation.Evaluation}
+     * and installs it into the repository of the {@link KieServices}.
+     */
+    private static void install(String version, String action) {
+        build(version, action);
+    }
+
+    /**
+     * Builds a module as {@link #install(String, String)} does, but deploys it into the local Maven repository, from where it is resolved
+     * and scanned for new builds.
+     */
+    private static void deploy(String version, String action) {
+        KieServices ks = KieServices.Factory.get();
+        ReleaseId releaseId = ks.newReleaseId(GROUP_ID, ARTIFACT_ID, version);
+        KieFileSystem files = build(version, action);
+        InternalKieModule module = (InternalKieModule) ks.getRepository().removeKieModule(releaseId);
+
+        MavenRepository.getMavenRepository().deployArtifact(releaseId, module.getBytes(), files.read("pom.xml"));
+    }
+
+    private static KieFileSystem build(String version, String action) {
+        KieServices ks = KieServices.Factory.get();
+        ReleaseId releaseId = ks.newReleaseId(GROUP_ID, ARTIFACT_ID, version);
+        KieModuleModel module = ks.newKieModuleModel();
+        KieBaseModel base = module.newKieBaseModel("PolicyBase").setDefault(true).addPackage("test.org.keycloak.authz.rules");
+
+        base.newKieSessionModel(SESSION_NAME).setDefault(true);
+
+        KieFileSystem files = ks.newKieFileSystem();
+
+        files.generateAndWritePomXML(releaseId);
+        files.writeKModuleXML(module.toXML());
+        files.write("src/main/resources/test/org/keycloak/authz/rules/Policy.drl",
+                "package test.org.keycloak.authz.rules\n" +
+                "import org.keycloak.authz.core.policy.evaluation.Evaluation\n" +
+                "rule \"Evaluate\"\n" +
+                "when\n" +
+                "    $evaluation : Evaluation()\n" +
+                "then\n" +
+                "    $evaluation." + action + "();\n" +
+                "end\n");
+
+        KieBuilder builder = ks.newKieBuilder(files).buildAll();
+
+        if (builder.getResults().hasMessages(Message.Level.ERROR)) {
+            throw new RuntimeException("Failed to build module [" + releaseId + "]: " + builder.getResults().getMessages() + ".");
+        }
+
+        return files;
+    }
+}
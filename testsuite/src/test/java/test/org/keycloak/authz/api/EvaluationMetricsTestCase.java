@@ -0,0 +1,184 @@
+package test.org.keycloak.authz.api;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.keycloak.authz.core.Authorization;
+import org.keycloak.authz.core.Decision;
+import org.keycloak.authz.core.EvaluationContext;
+import org.keycloak.authz.core.attribute.Attributes;
+import org.keycloak.authz.core.identity.Identity;
+import org.keycloak.authz.core.metrics.DefaultEvaluationMetrics;
+import org.keycloak.authz.core.metrics.LatencyHistogram;
+import org.keycloak.authz.core.metrics.MetricsSnapshot;
+import org.keycloak.authz.core.model.Policy;
+import org.keycloak.authz.core.model.Resource;
+import org.keycloak.authz.core.model.ResourceServer;
+import org.keycloak.authz.core.permission.ResourcePermission;
+import org.keycloak.authz.core.policy.evaluation.Evaluation;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author <a href="mailto:psilva@redhat.com">Pedro Igor</a>
+ */
+public class EvaluationMetricsTestCase {
+
+    private MapStoreFactory mapStoreFactory;
+    private ResourceServer resourceServer;
+
+    @Before
+    public void onBefore() {
+        this.mapStoreFactory = new MapStoreFactory();
+        this.resourceServer = this.mapStoreFactory.getResourceServerStore().create("test-resource-server");
+        this.mapStoreFactory.getResourceServerStore().save(this.resourceServer);
+    }
+
+    @Test
+    public void testPolicyMetrics() {
+        Policy grantPolicy = createStaticDecisionPolicy("Grant Policy", "PERMIT");
+        Policy failingPolicy = createStaticDecisionPolicy("Failing Policy", "INVALID");
+        List<ResourcePermission> permissions = new ArrayList<>();
+
+        for (int i = 0; i < 10; i++) {
+            permissions.add(createPermission("Resource " + i, grantPolicy));
+        }
+
+        ResourcePermission failingPermission = createPermission("Failing Resource", failingPolicy);
+        DefaultEvaluationMetrics metrics = new DefaultEvaluationMetrics();
+        Authorization authorization = Authorization.builder().storeFactory(() -> mapStoreFactory).metrics(metrics).build();
+
+        authorization.getPolicyIndexes().invalidate(this.resourceServer.getId());
+
+        assertNotNull(evaluate(authorization, permissions).get());
+        assertNotNull(evaluate(authorization, Collections.singletonList(failingPermission)).get());
+
+        MetricsSnapshot snapshot = metrics.getSnapshot();
+        MetricsSnapshot.PolicyMetrics typeMetrics = snapshot.getPolicyTypes().get("tests-static-decision");
+
+        assertEquals(11, typeMetrics.getCount());
+        assertEquals(1, typeMetrics.getErrors());
+        assertEquals(10, snapshot.getPolicies().get(grantPolicy.getId()).getCount());
+        assertEquals(0, snapshot.getPolicies().get(grantPolicy.getId()).getErrors());
+        assertEquals(1, snapshot.getPolicies().get(failingPolicy.getId()).getErrors());
+        assertEquals(1, snapshot.getPermissionsPerRequest().getCount());
+        assertEquals(10, snapshot.getPermissionsPerRequest().getMax());
+        assertEquals(1, snapshot.getStoreLookups().getCount());
+
+        metrics.onPolicyRemoved(grantPolicy.getId());
+
+        assertFalse(metrics.getSnapshot().getPolicies().containsKey(grantPolicy.getId()));
+        assertEquals(11, metrics.getSnapshot().getPolicyTypes().get("tests-static-decision").getCount());
+
+        metrics.reset();
+
+        assertTrue(metrics.getSnapshot().getPolicyTypes().isEmpty());
+    }
+
+    @Test
+    public void testPolicyWithoutId() {
+        Policy policy = this.mapStoreFactory.getPolicyStore().create("Unsaved Policy", "tests-static-decision", this.resourceServer);
+        DefaultEvaluationMetrics metrics = new DefaultEvaluationMetrics();
+
+        metrics.onPolicyEvaluated(policy, 1000, false);
+        metrics.onEvaluationReused(policy);
+        metrics.onEvaluationTimedOut(policy);
+
+        MetricsSnapshot snapshot = metrics.getSnapshot();
+
+        assertEquals(1, snapshot.getPolicyTypes().get("tests-static-decision").getCount());
+        assertTrue(snapshot.getPolicies().isEmpty());
+    }
+
+    @Test
+    public void testLatencyHistogram() {
+        LatencyHistogram histogram = new LatencyHistogram();
+
+        for (int i = 1; i <= 1000; i++) {
+            histogram.record(TimeUnit.MICROSECONDS.toNanos(i));
+        }
+
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+
+        assertEquals(1000, snapshot.getCount());
+        assertEquals(TimeUnit.MICROSECONDS.toNanos(1000), snapshot.getMax());
+        assertWithinBucket(TimeUnit.MICROSECONDS.toNanos(500), snapshot.getP50());
+        assertWithinBucket(TimeUnit.MICROSECONDS.toNanos(990), snapshot.getP99());
+        assertEquals(0, new LatencyHistogram().snapshot().getCount());
+    }
+
+    private void assertWithinBucket(long expected, long actual) {
+        assertTrue("Expected " + expected + " but was " + actual, actual >= expected && actual <= expected * 1.25);
+    }
+
+    private AtomicReference<Object> evaluate(Authorization authorization, List<ResourcePermission> permissions) {
+        AtomicReference<Object> completion = new AtomicReference<>();
+
+        authorization.evaluators().from(permissions, createEvaluationContext()).evaluate(new Decision() {
+            @Override
+            public void onDecision(Evaluation evaluation) {
+            }
+
+            @Override
+            public void onError(Throwable cause) {
+                completion.set(cause);
+            }
+
+            @Override
+            public void onComplete() {
+                completion.set(Boolean.TRUE);
+            }
+        });
+
+        return completion;
+    }
+
+    private ResourcePermission createPermission(String resourceName, Policy associatedPolicy) {
+        Resource resource = this.mapStoreFactory.getResourceStore().create(resourceName, this.resourceServer, "alice");
+
+        this.mapStoreFactory.getResourceStore().save(resource);
+
+        Policy policy = this.mapStoreFactory.getPolicyStore().create(resourceName + " Policy", "resource", this.resourceServer);
+
+        policy.addResource(resource);
+        policy.addAssociatedPolicy(associatedPolicy);
+        this.mapStoreFactory.getPolicyStore().save(policy);
+
+        return new ResourcePermission(resource, Collections.emptyList(), this.resourceServer);
+    }
+
+    private Policy createStaticDecisionPolicy(String name, String effect) {
+        Policy policy = this.mapStoreFactory.getPolicyStore().create(name, "tests-static-decision", this.resourceServer);
+        Map<String, String> config = new HashMap<>();
+
+        config.put("EFFECT", effect);
+        policy.setConfig(config);
+        this.mapStoreFactory.getPolicyStore().save(policy);
+
+        return policy;
+    }
+
+    private EvaluationContext createEvaluationContext() {
+        return new EvaluationContext() {
+            @Override
+            public Identity getIdentity() {
+                return null;
+            }
+
+            @Override
+            public Attributes getAttributes() {
+                return Attributes.EMPTY;
+            }
+        };
+    }
+}
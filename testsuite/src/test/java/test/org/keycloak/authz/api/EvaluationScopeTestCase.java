@@ -0,0 +1,150 @@
+package test.org.keycloak.authz.api;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.keycloak.authz.core.Authorization;
+import org.keycloak.authz.core.Decision;
+import org.keycloak.authz.core.EvaluationContext;
+import org.keycloak.authz.core.attribute.Attributes;
+import org.keycloak.authz.core.identity.Identity;
+import org.keycloak.authz.core.metrics.DefaultEvaluationMetrics;
+import org.keycloak.authz.core.metrics.MetricsSnapshot;
+import org.keycloak.authz.core.model.Policy;
+import org.keycloak.authz.core.model.Resource;
+import org.keycloak.authz.core.model.ResourceServer;
+import org.keycloak.authz.core.permission.ResourcePermission;
+import org.keycloak.authz.core.permission.evaluator.PermissionEvaluator;
+import org.keycloak.authz.core.policy.evaluation.DecisionResultCollector;
+import org.keycloak.authz.core.policy.evaluation.Result;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author <a href="mailto:psilva@redhat.com">Pedro Igor</a>
+ */
+public class EvaluationScopeTestCase {
+
+    static int NUM_PERMISSIONS = 100;
+
+    private MapStoreFactory mapStoreFactory;
+    private ResourceServer resourceServer;
+    private Policy identityPolicy;
+    private Policy resourcePolicy;
+    private List<ResourcePermission> permissions;
+    private DefaultEvaluationMetrics metrics;
+    private Authorization authorization;
+
+    @Before
+    public void onBefore() {
+        this.mapStoreFactory = new MapStoreFactory();
+        this.resourceServer = this.mapStoreFactory.getResourceServerStore().create("test-resource-server");
+        this.mapStoreFactory.getResourceServerStore().save(this.resourceServer);
+        this.identityPolicy = createStaticDecisionPolicy("Identity Policy", "IDENTITY");
+        this.resourcePolicy = createStaticDecisionPolicy("Resource Policy", null);
+        this.permissions = new ArrayList<>();
+
+        for (int i = 0; i < NUM_PERMISSIONS; i++) {
+            Resource resource = this.mapStoreFactory.getResourceStore().create("Resource " + i, this.resourceServer, "alice");
+
+            this.mapStoreFactory.getResourceStore().save(resource);
+
+            Policy policy = this.mapStoreFactory.getPolicyStore().create("Resource " + i + " Permission", "resource", this.resourceServer);
+
+            policy.addResource(resource);
+            policy.addAssociatedPolicy(this.identityPolicy);
+            policy.addAssociatedPolicy(this.resourcePolicy);
+            this.mapStoreFactory.getPolicyStore().save(policy);
+
+            this.permissions.add(new ResourcePermission(resource, Collections.emptyList(), this.resourceServer));
+        }
+
+        this.metrics = new DefaultEvaluationMetrics();
+        this.authorization = Authorization.builder().storeFactory(() -> mapStoreFactory).metrics(this.metrics).build();
+        this.authorization.getPolicyIndexes().invalidate(this.resourceServer.getId());
+    }
+
+    @Test
+    public void testReuseIdentityOnlyPolicies() {
+        evaluate(this.authorization.evaluators().from(this.permissions, createEvaluationContext()));
+
+        MetricsSnapshot snapshot = this.metrics.getSnapshot();
+
+        assertEquals(1, snapshot.getPolicies().get(this.identityPolicy.getId()).getCount());
+        assertEquals(NUM_PERMISSIONS - 1, snapshot.getPolicies().get(this.identityPolicy.getId()).getReused());
+        assertEquals(NUM_PERMISSIONS, snapshot.getPolicies().get(this.resourcePolicy.getId()).getCount());
+        assertEquals(0, snapshot.getPolicies().get(this.resourcePolicy.getId()).getReused());
+        assertEquals(NUM_PERMISSIONS - 1, snapshot.getReusedEvaluations());
+
+        // effects are only reused within a single evaluation
+        evaluate(this.authorization.evaluators().from(this.permissions, createEvaluationContext()));
+
+        assertEquals(2, this.metrics.getSnapshot().getPolicies().get(this.identityPolicy.getId()).getCount());
+    }
+
+    @Test
+    public void testReuseWithParallelEvaluation() {
+        evaluate(this.authorization.evaluators().parallel(this.permissions, createEvaluationContext(), ForkJoinPool.commonPool()));
+
+        MetricsSnapshot.PolicyMetrics identityMetrics = this.metrics.getSnapshot().getPolicies().get(this.identityPolicy.getId());
+
+        assertTrue(identityMetrics.getCount() >= 1);
+        assertEquals(NUM_PERMISSIONS, identityMetrics.getCount() + identityMetrics.getReused());
+    }
+
+    private void evaluate(PermissionEvaluator evaluator) {
+        AtomicReference<List<Result>> results = new AtomicReference<>();
+
+        evaluator.evaluate(new DecisionResultCollector() {
+            @Override
+            protected void onComplete(List<Result> completed) {
+                results.set(completed);
+            }
+        });
+
+        assertEquals(NUM_PERMISSIONS, results.get().size());
+
+        for (Result result : results.get()) {
+            assertEquals(Decision.Effect.PERMIT, result.getEffect());
+            assertEquals(2, result.getResults().get(0).getAssociatedPolicies().size());
+        }
+    }
+
+    private Policy createStaticDecisionPolicy(String name, String dependencies) {
+        Policy policy = this.mapStoreFactory.getPolicyStore().create(name, "tests-static-decision", this.resourceServer);
+        Map<String, String> config = new HashMap<>();
+
+        config.put("EFFECT", Decision.Effect.PERMIT.toString());
+
+        if (dependencies != null) {
+            config.put("DEPENDENCIES", dependencies);
+        }
+
+        policy.setConfig(config);
+        this.mapStoreFactory.getPolicyStore().save(policy);
+
+        return policy;
+    }
+
+    private EvaluationContext createEvaluationContext() {
+        return new EvaluationContext() {
+            @Override
+            public Identity getIdentity() {
+                return null;
+            }
+
+            @Override
+            public Attributes getAttributes() {
+                return Attributes.EMPTY;
+            }
+        };
+    }
+}
@@ -0,0 +1,287 @@
+package test.org.keycloak.authz.api;
+
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+import org.keycloak.authz.core.Authorization;
+import org.keycloak.authz.core.Decision;
+import org.keycloak.authz.core.EvaluationContext;
+import org.keycloak.authz.core.attribute.Attributes;
+import org.keycloak.authz.core.identity.Identity;
+import org.keycloak.authz.core.metrics.DefaultEvaluationMetrics;
+import org.keycloak.authz.core.model.Policy;
+import org.keycloak.authz.core.model.Resource;
+import org.keycloak.authz.core.model.ResourceServer;
+import org.keycloak.authz.core.permission.ResourcePermission;
+import org.keycloak.authz.core.policy.evaluation.ConcurrentDecisionResultCollector;
+import org.keycloak.authz.core.policy.evaluation.DecisionResultCollector;
+import org.keycloak.authz.core.policy.evaluation.Result;
+import org.keycloak.authz.core.policy.provider.PolicyProvider;
+
+import javax.script.ScriptEngineManager;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * @author <a href="mailto:psilva@redhat.com">Pedro Igor</a>
+ */
+public class JSPolicyProviderTestCase {
+
+    static int NUM_RESOURCES = 200;
+
+    private MapStoreFactory mapStoreFactory;
+    private ResourceServer resourceServer;
+    private DefaultEvaluationMetrics metrics;
+    private Authorization authorization;
+
+    @Before
+    public void onBefore() {
+        Assume.assumeTrue("JavaScript engine not available.", new ScriptEngineManager().getEngineByName("nashorn") != null);
+
+        this.mapStoreFactory = new MapStoreFactory();
+        this.resourceServer = this.mapStoreFactory.getResourceServerStore().create("test-resource-server");
+        this.mapStoreFactory.getResourceServerStore().save(this.resourceServer);
+        this.metrics = new DefaultEvaluationMetrics();
+        this.authorization = Authorization.builder().storeFactory(() -> mapStoreFactory).metrics(this.metrics).parallelismThreshold(10).build();
+    }
+
+    @Test
+    public void testEvaluationsAreIsolated() {
+        // a script sees the variables it defines only within the same evaluation
+        Policy policy = createJSPolicy("JS Policy", "var count = (typeof count === 'undefined' ? 0 : count) + 1; if (count == 1) $evaluation.grant();");
+        List<ResourcePermission> permissions = new ArrayList<>();
+
+        for (int i = 0; i < NUM_RESOURCES; i++) {
+            Resource resource = this.mapStoreFactory.getResourceStore().create("Resource " + i, this.resourceServer, "alice");
+
+            this.mapStoreFactory.getResourceStore().save(resource);
+            createResourcePermission(resource, policy);
+            permissions.add(new ResourcePermission(resource, Collections.emptyList(), this.resourceServer));
+        }
+
+        AtomicReference<List<Result>> results = new AtomicReference<>();
+        ForkJoinPool pool = new ForkJoinPool(4);
+
+        try {
+            // evaluations run concurrently, sharing the engines of the pool
+            this.authorization.evaluators().parallel(permissions, createEvaluationContext(), pool).evaluate(new ConcurrentDecisionResultCollector() {
+                @Override
+                protected void onComplete(List<Result> completed) {
+                    results.set(completed);
+                }
+            });
+        } finally {
+            pool.shutdown();
+        }
+
+        assertEquals(NUM_RESOURCES, results.get().size());
+
+        for (Result result : results.get()) {
+            assertEquals(Decision.Effect.PERMIT, result.getEffect());
+        }
+
+        assertEquals(0, this.metrics.getSnapshot().getPolicies().get(policy.getId()).getErrors());
+    }
+
+    @Test
+    public void testBatch() {
+        Policy policy = createJSPolicy("JS Batch Policy", "for (var i = 0; i < $evaluations.length; i++) { if ($evaluations[i].getPermission().getResource().getName().endsWith('0')) $evaluations[i].grant(); }");
+        List<ResourcePermission> permissions = new ArrayList<>();
+
+        policy.getConfig().put("batch", "true");
+
+        for (int i = 0; i < NUM_RESOURCES; i++) {
+            Resource resource = this.mapStoreFactory.getResourceStore().create("Resource " + i, this.resourceServer, "alice");
+
+            this.mapStoreFactory.getResourceStore().save(resource);
+            createResourcePermission(resource, policy);
+            permissions.add(new ResourcePermission(resource, Collections.emptyList(), this.resourceServer));
+        }
+
+        for (Result result : evaluate(permissions)) {
+            boolean granted = result.getPermission().getResource().getName().endsWith("0");
+            assertEquals(granted ? Decision.Effect.PERMIT : Decision.Effect.DENY, result.getEffect());
+        }
+
+        // the script is entered once for all the permissions
+        assertEquals(1, this.metrics.getSnapshot().getPolicies().get(policy.getId()).getCount());
+    }
+
+    @Test
+    public void testScriptRecompiledWhenCodeChanges() {
+        Policy policy = createJSPolicy("JS Policy", "$evaluation.grant();");
+        Resource resource = this.mapStoreFactory.getResourceStore().create("Resource A", this.resourceServer, "alice");
+
+        this.mapStoreFactory.getResourceStore().save(resource);
+        createResourcePermission(resource, policy);
+
+        List<ResourcePermission> permissions = Collections.singletonList(new ResourcePermission(resource, Collections.emptyList(), this.resourceServer));
+        PolicyProvider provider = this.authorization.getPolicyProvider(policy);
+
+        assertEquals(Decision.Effect.PERMIT, evaluate(permissions).get(0).getEffect());
+        assertSame(provider, this.authorization.getPolicyProvider(policy));
+
+        policy.getConfig().put("code", "$evaluation.deny();");
+
+        assertNotSame(provider, this.authorization.getPolicyProvider(policy));
+        assertEquals(Decision.Effect.DENY, evaluate(permissions).get(0).getEffect());
+    }
+
+    @Test
+    public void testDependencies() {
+        // reads data that differs per permission without referring to the permission itself
+        Policy parentPolicyPolicy = createJSPolicy("JS Parent Policy", "if ($evaluation.getParentPolicy().getName().indexOf('Resource 1 ') == 0) $evaluation.grant();");
+        Policy identityPolicy = createJSPolicy("JS Identity Policy", "$evaluation.grant();");
+        List<ResourcePermission> permissions = new ArrayList<>();
+
+        identityPolicy.getConfig().put("dependencies", "IDENTITY, ATTRIBUTES");
+
+        for (int i = 0; i < 10; i++) {
+            Resource resource = this.mapStoreFactory.getResourceStore().create("Resource " + i, this.resourceServer, "alice");
+
+            this.mapStoreFactory.getResourceStore().save(resource);
+            createResourcePermission(resource, i < 2 ? parentPolicyPolicy : identityPolicy);
+            permissions.add(new ResourcePermission(resource, Collections.emptyList(), this.resourceServer));
+        }
+
+        for (Result result : evaluate(permissions)) {
+            String resourceName = result.getPermission().getResource().getName();
+            assertEquals(resourceName.equals("Resource 0") ? Decision.Effect.DENY : Decision.Effect.PERMIT, result.getEffect());
+        }
+
+        assertEquals(0, this.metrics.getSnapshot().getPolicies().get(parentPolicyPolicy.getId()).getReused());
+        // evaluated for the first permission only, then reused for the others
+        assertEquals(1, this.metrics.getSnapshot().getPolicies().get(identityPolicy.getId()).getCount());
+        assertEquals(7, this.metrics.getSnapshot().getPolicies().get(identityPolicy.getId()).getReused());
+
+        identityPolicy.getConfig().put("dependencies", "IDENTITY,CLOCK");
+
+        try {
+            this.authorization.getProviderFactory("js").getDependencies(identityPolicy);
+            fail("Dependency should be unknown.");
+        } catch (RuntimeException cause) {
+            assertTrue(cause.getMessage().contains("[CLOCK]"));
+        }
+    }
+
+    @Test
+    public void testCompilationError() {
+        Policy policy = createJSPolicy("Invalid JS Policy", "$evaluation.grant(;");
+
+        try {
+            this.authorization.getPolicyProvider(policy);
+            fail("Script should not compile.");
+        } catch (RuntimeException cause) {
+            assertTrue(cause.getMessage().contains("[Invalid JS Policy]"));
+        }
+    }
+
+    @Test
+    public void testRuntimeErrorDeniesPolicy() {
+        // a failing script only denies its own policy, the other permissions are still evaluated
+        Policy failingPolicy = createJSPolicy("Failing JS Policy", "throw 'Unexpected error';");
+        Policy grantingPolicy = createJSPolicy("JS Policy", "$evaluation.grant();");
+        List<ResourcePermission> permissions = new ArrayList<>();
+
+        for (int i = 0; i < 2; i++) {
+            Resource resource = this.mapStoreFactory.getResourceStore().create("Resource " + i, this.resourceServer, "alice");
+
+            this.mapStoreFactory.getResourceStore().save(resource);
+            createResourcePermission(resource, i == 0 ? failingPolicy : grantingPolicy);
+            permissions.add(new ResourcePermission(resource, Collections.emptyList(), this.resourceServer));
+        }
+
+        for (Result result : evaluate(permissions)) {
+            String resourceName = result.getPermission().getResource().getName();
+            assertEquals(resourceName.equals("Resource 0") ? Decision.Effect.DENY : Decision.Effect.PERMIT, result.getEffect());
+        }
+
+        assertEquals(1, this.metrics.getSnapshot().getPolicies().get(failingPolicy.getId()).getErrors());
+        assertEquals(0, this.metrics.getSnapshot().getPolicies().get(grantingPolicy.getId()).getErrors());
+    }
+
+    @Test
+    public void testEnginePoolSize() {
+        Policy policy = createJSPolicy("JS Policy", "$evaluation.grant();");
+
+        policy.getConfig().put("enginePoolSize", "1");
+
+        Resource resource = this.mapStoreFactory.getResourceStore().create("Resource A", this.resourceServer, "alice");
+
+        this.mapStoreFactory.getResourceStore().save(resource);
+        createResourcePermission(resource, policy);
+
+        assertEquals(Decision.Effect.PERMIT, evaluate(Collections.singletonList(new ResourcePermission(resource, Collections.emptyList(), this.resourceServer))).get(0).getEffect());
+
+        Policy invalid = createJSPolicy("Invalid JS Policy", "$evaluation.grant();");
+
+        invalid.getConfig().put("enginePoolSize", "many");
+
+        try {
+            this.authorization.getPolicyProvider(invalid);
+            fail("Engine pool size should be invalid.");
+        } catch (RuntimeException cause) {
+            assertTrue(cause.getMessage().contains("[many]"));
+        }
+    }
+
+    private List<Result> evaluate(List<ResourcePermission> permissions) {
+        AtomicReference<List<Result>> results = new AtomicReference<>();
+
+        this.authorization.evaluators().from(permissions, createEvaluationContext()).evaluate(new DecisionResultCollector() {
+            @Override
+            protected void onComplete(List<Result> completed) {
+                results.set(completed);
+            }
+        });
+
+        return results.get();
+    }
+
+    private void createResourcePermission(Resource resource, Policy policy) {
+        Policy permission = this.mapStoreFactory.getPolicyStore().create(resource.getName() + " Permission", "resource", this.resourceServer);
+
+        permission.setDecisionStrategy(Policy.DecisionStrategy.UNANIMOUS);
+        permission.addResource(resource);
+        permission.addAssociatedPolicy(policy);
+
+        this.mapStoreFactory.getPolicyStore().save(permission);
+    }
+
+    private Policy createJSPolicy(String name, String code) {
+        Policy policy = this.mapStoreFactory.getPolicyStore().create(name, "js", this.resourceServer);
+        Map<String, String> config = new HashMap<>();
+
+        config.put("code", code);
+
+        policy.setConfig(config);
+        this.mapStoreFactory.getPolicyStore().save(policy);
+
+        return policy;
+    }
+
+    private EvaluationContext createEvaluationContext() {
+        return new EvaluationContext() {
+            @Override
+            public Identity getIdentity() {
+                return null;
+            }
+
+            @Override
+            public Attributes getAttributes() {
+                return Attributes.EMPTY;
+            }
+        };
+    }
+}
@@ -8,7 +8,7 @@ import org.keycloak.authz.core.model.ResourceServer;
 import org.keycloak.authz.core.model.Scope;
 
 import java.util.HashMap;
-import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.Map;
 import java.util.Set;
 
@@ -47,15 +47,15 @@ public class MapPolicy implements Policy {
 
     @Getter
     @Setter
-    private Set<Policy> associatedPolicies = new HashSet<>();
+    private Set<Policy> associatedPolicies = new LinkedHashSet<>();
 
     @Getter
     @Setter
-    private Set<Resource> resources = new HashSet<>();
+    private Set<Resource> resources = new LinkedHashSet<>();
 
     @Getter
     @Setter
-    private Set<Scope> scopes = new HashSet<>();
+    private Set<Scope> scopes = new LinkedHashSet<>();
     private Logic logic;
 
     public MapPolicy(String name, String type, ResourceServer resourceServer) {
@@ -6,9 +6,12 @@ import org.keycloak.authz.core.model.Scope;
 import org.keycloak.authz.core.model.util.Identifiers;
 import org.keycloak.authz.core.store.ResourceStore;
 
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
@@ -43,6 +46,11 @@ public class MapResourceStore implements ResourceStore {
         return this.resources.get(id);
     }
 
+    @Override
+    public List<Resource> findByIds(Collection<String> ids) {
+        return ids.stream().distinct().map(this.resources::get).filter(Objects::nonNull).collect(Collectors.toList());
+    }
+
     @Override
     public List<Resource> findByOwner(String ownerId) {
         return this.resources.values().stream().filter(resource -> resource.getOwner().equals(ownerId)).collect(Collectors.toList());
@@ -55,13 +63,15 @@ public class MapResourceStore implements ResourceStore {
 
     @Override
     public List<Resource> findByScope(String... id) {
+        List<String> scopeIds = Arrays.asList(id);
+
         return this.resources.values().stream().filter(new Predicate<Resource>() {
             @Override
             public boolean test(Resource resource) {
                 return resource.getScopes().stream().filter(new Predicate<Scope>() {
                     @Override
                     public boolean test(Scope scope) {
-                        return scope.getId().equals(id);
+                        return scopeIds.contains(scope.getId());
                     }
                 }).findFirst().isPresent();
             }
@@ -75,6 +85,6 @@ public class MapResourceStore implements ResourceStore {
 
     @Override
     public List<Resource> findByType(String type) {
-        return this.resources.values().stream().filter(resource -> resource.getType().equals(type)).collect(Collectors.toList());
+        return this.resources.values().stream().filter(resource -> type.equals(resource.getType())).collect(Collectors.toList());
     }
 }
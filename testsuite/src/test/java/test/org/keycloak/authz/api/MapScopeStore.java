@@ -5,6 +5,7 @@ import org.keycloak.authz.core.model.Scope;
 import org.keycloak.authz.core.model.util.Identifiers;
 import org.keycloak.authz.core.store.ScopeStore;
 
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -46,6 +47,11 @@ public class MapScopeStore implements ScopeStore {
         return this.scopes.values().stream().filter(scope -> scope.getName().equals(name)).findFirst().orElse(null);
     }
 
+    @Override
+    public List<Scope> findByNames(Collection<String> names, String resourceServerId) {
+        return this.scopes.values().stream().filter(scope -> scope.getResourceServer().getId().equals(resourceServerId) && names.contains(scope.getName())).collect(Collectors.toList());
+    }
+
     @Override
     public List<Scope> findByResourceServer(String id) {
         return this.scopes.values().stream().filter(scope -> scope.getResourceServer().getId().equals(id)).collect(Collectors.toList());
@@ -0,0 +1,171 @@
+package test.org.keycloak.authz.api;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.keycloak.authz.core.Authorization;
+import org.keycloak.authz.core.Decision;
+import org.keycloak.authz.core.EvaluationContext;
+import org.keycloak.authz.core.attribute.Attributes;
+import org.keycloak.authz.core.identity.Identity;
+import org.keycloak.authz.core.model.Policy;
+import org.keycloak.authz.core.model.Resource;
+import org.keycloak.authz.core.model.ResourceServer;
+import org.keycloak.authz.core.permission.ResourcePermission;
+import org.keycloak.authz.core.policy.evaluation.DecisionResultCollector;
+import org.keycloak.authz.core.policy.evaluation.Evaluation;
+import org.keycloak.authz.core.policy.evaluation.Result;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * @author <a href="mailto:psilva@redhat.com">Pedro Igor</a>
+ */
+public class ParallelEvaluationTestCase {
+
+    private MapStoreFactory mapStoreFactory;
+    private Authorization authorization;
+    private ResourceServer resourceServer;
+    private ForkJoinPool pool;
+
+    @Before
+    public void onBefore() {
+        this.mapStoreFactory = new MapStoreFactory();
+        this.resourceServer = this.mapStoreFactory.getResourceServerStore().create("test-resource-server");
+        this.mapStoreFactory.getResourceServerStore().save(this.resourceServer);
+        this.authorization = Authorization.builder().storeFactory(() -> mapStoreFactory).parallelismThreshold(10).build();
+        this.pool = new ForkJoinPool(4);
+    }
+
+    @Test
+    public void testParallelEvaluation() {
+        List<ResourcePermission> permissions = createPermissions(1000);
+        CollectingDecision decision = new CollectingDecision();
+
+        this.authorization.evaluators().parallel(permissions, createEvaluationContext(), this.pool).evaluate(decision);
+
+        assertEquals(1, decision.completed.get());
+        assertEquals(0, decision.errors.get());
+        assertEquals(permissions.size(), decision.evaluations.size());
+        assertEquals(new HashSet<>(permissions), decision.permissions);
+    }
+
+    @Test
+    public void testSequentialBelowThreshold() {
+        List<ResourcePermission> permissions = createPermissions(10);
+        CollectingDecision decision = new CollectingDecision();
+
+        this.authorization.evaluators().parallel(permissions, createEvaluationContext(), this.pool).evaluate(decision);
+
+        assertEquals(1, decision.completed.get());
+        assertEquals(permissions.size(), decision.evaluations.size());
+        assertEquals(Collections.singleton(Thread.currentThread().getName()), decision.threads);
+    }
+
+    @Test
+    public void testParallelEvaluationWithResultCollector() {
+        List<ResourcePermission> permissions = createPermissions(1000);
+        AtomicReference<List<Result>> results = new AtomicReference<>();
+        Set<String> threads = ConcurrentHashMap.newKeySet();
+
+        // decisions are collected concurrently and delivered at once to the collector
+        this.authorization.evaluators().parallel(permissions, createEvaluationContext(), this.pool).evaluate(new DecisionResultCollector() {
+            @Override
+            protected void onComplete(List<Result> completed) {
+                threads.add(Thread.currentThread().getName());
+                results.set(completed);
+            }
+        });
+
+        assertEquals(permissions.size(), results.get().size());
+        assertEquals(Collections.singleton(Thread.currentThread().getName()), threads);
+
+        for (Result result : results.get()) {
+            assertEquals(Decision.Effect.PERMIT, result.getEffect());
+        }
+    }
+
+    private List<ResourcePermission> createPermissions(int count) {
+        List<ResourcePermission> permissions = new ArrayList<>();
+
+        for (int i = 0; i < count; i++) {
+            Resource resource = this.mapStoreFactory.getResourceStore().create("Resource " + i, this.resourceServer, "alice");
+
+            this.mapStoreFactory.getResourceStore().save(resource);
+
+            Policy policy = this.mapStoreFactory.getPolicyStore().create("Resource " + i + " Policy", "resource", this.resourceServer);
+
+            policy.addResource(resource);
+            policy.addAssociatedPolicy(createStaticDecisionPolicy("Static Decision Policy " + i));
+
+            this.mapStoreFactory.getPolicyStore().save(policy);
+
+            permissions.add(new ResourcePermission(resource, Collections.emptyList(), this.resourceServer));
+        }
+
+        this.authorization.getPolicyIndexes().invalidate(this.resourceServer.getId());
+
+        return permissions;
+    }
+
+    private Policy createStaticDecisionPolicy(String name) {
+        Policy policy = this.mapStoreFactory.getPolicyStore().create(name, "tests-static-decision", this.resourceServer);
+        Map<String, String> config = new HashMap<>();
+
+        config.put("EFFECT", Decision.Effect.PERMIT.toString());
+        policy.setConfig(config);
+
+        return policy;
+    }
+
+    private EvaluationContext createEvaluationContext() {
+        return new EvaluationContext() {
+            @Override
+            public Identity getIdentity() {
+                return null;
+            }
+
+            @Override
+            public Attributes getAttributes() {
+                return Attributes.EMPTY;
+            }
+        };
+    }
+
+    private static class CollectingDecision implements Decision {
+
+        final List<Evaluation> evaluations = new ArrayList<>();
+        final Set<ResourcePermission> permissions = new HashSet<>();
+        final Set<String> threads = new HashSet<>();
+        final AtomicInteger completed = new AtomicInteger();
+        final AtomicInteger errors = new AtomicInteger();
+
+        @Override
+        public void onDecision(Evaluation evaluation) {
+            this.evaluations.add(evaluation);
+            this.permissions.add(evaluation.getPermission());
+            this.threads.add(Thread.currentThread().getName());
+        }
+
+        @Override
+        public void onError(Throwable cause) {
+            this.errors.incrementAndGet();
+        }
+
+        @Override
+        public void onComplete() {
+            this.completed.incrementAndGet();
+        }
+    }
+}
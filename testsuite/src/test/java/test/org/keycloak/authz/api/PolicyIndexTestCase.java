@@ -0,0 +1,156 @@
+package test.org.keycloak.authz.api;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.keycloak.authz.core.Authorization;
+import org.keycloak.authz.core.model.Policy;
+import org.keycloak.authz.core.model.Resource;
+import org.keycloak.authz.core.model.ResourceServer;
+import org.keycloak.authz.core.model.Scope;
+import org.keycloak.authz.core.policy.index.PolicyIndex;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author <a href="mailto:psilva@redhat.com">Pedro Igor</a>
+ */
+public class PolicyIndexTestCase {
+
+    private MapStoreFactory mapStoreFactory;
+    private Authorization authorization;
+    private ResourceServer resourceServer;
+    private Resource resource;
+    private Policy resourcePolicy;
+    private Policy typePolicy;
+    private Policy readPolicy;
+    private Policy writePolicy;
+
+    @Before
+    public void onBefore() {
+        this.mapStoreFactory = new MapStoreFactory();
+        this.resourceServer = this.mapStoreFactory.getResourceServerStore().create("test-resource-server");
+        this.mapStoreFactory.getResourceServerStore().save(this.resourceServer);
+
+        Scope read = createScope("read");
+        Scope write = createScope("write");
+
+        this.resource = this.mapStoreFactory.getResourceStore().create("Resource A", this.resourceServer, "alice");
+        this.resource.setType("urn:test:resource-a");
+        this.resource.addScope(read);
+        this.mapStoreFactory.getResourceStore().save(this.resource);
+
+        this.resourcePolicy = createPolicy("Resource A Policy");
+        this.resourcePolicy.addResource(this.resource);
+        this.resourcePolicy.addScope(read);
+
+        this.typePolicy = createPolicy("Resource Type Policy");
+        this.typePolicy.getConfig().put("defaultResourceType", "urn:test:resource-a");
+
+        this.readPolicy = createPolicy("Read Policy");
+        this.readPolicy.addScope(read);
+
+        this.writePolicy = createPolicy("Write Policy");
+        this.writePolicy.addScope(read);
+        this.writePolicy.addScope(write);
+
+        this.authorization = Authorization.builder().storeFactory(() -> mapStoreFactory).build();
+    }
+
+    @Test
+    public void testLookups() {
+        PolicyIndex index = this.authorization.getPolicyIndex(this.resourceServer);
+
+        assertEquals(4, index.size());
+        assertEquals(Arrays.asList(this.resourcePolicy), index.findByResource(this.resource.getId()));
+        assertEquals(Arrays.asList(this.typePolicy), index.findByResourceType("urn:test:resource-a"));
+        assertEquals(Arrays.asList(this.readPolicy, this.writePolicy), index.findByScopeName(Arrays.asList("read")));
+        assertEquals(Arrays.asList(this.readPolicy, this.writePolicy), index.findByScopeName(Arrays.asList("write", "read")));
+        assertTrue(index.findByScopeName(Collections.singletonList("delete")).isEmpty());
+        assertTrue(index.findByResourceType("urn:test:unknown").isEmpty());
+    }
+
+    @Test
+    public void testInvalidate() {
+        PolicyIndex index = this.authorization.getPolicyIndex(this.resourceServer);
+
+        assertSame(index, this.authorization.getPolicyIndex(this.resourceServer));
+
+        Policy deletePolicy = createPolicy("Delete Policy");
+
+        deletePolicy.addScope(createScope("delete"));
+
+        assertTrue(this.authorization.getPolicyIndex(this.resourceServer).findByScopeName(Arrays.asList("delete")).isEmpty());
+
+        this.authorization.getPolicyIndexes().invalidate(this.resourceServer.getId());
+
+        PolicyIndex rebuilt = this.authorization.getPolicyIndex(this.resourceServer);
+
+        assertNotSame(index, rebuilt);
+        assertEquals(5, rebuilt.size());
+        assertEquals(Arrays.asList(deletePolicy), rebuilt.findByScopeName(Arrays.asList("delete")));
+    }
+
+    @Test
+    public void testIndexScopedToAuthorization() {
+        // each instance holds its own index, but invalidations made through one of them reach the others
+        Authorization other = Authorization.builder().storeFactory(() -> mapStoreFactory).build();
+        PolicyIndex index = this.authorization.getPolicyIndex(this.resourceServer);
+        PolicyIndex otherIndex = other.getPolicyIndex(this.resourceServer);
+
+        assertNotSame(index, otherIndex);
+        assertSame(otherIndex, other.getPolicyIndex(this.resourceServer));
+
+        createPolicy("Delete Policy").addScope(createScope("delete"));
+
+        this.authorization.getPolicyIndexes().invalidate(this.resourceServer.getId());
+
+        PolicyIndex rebuilt = other.getPolicyIndex(this.resourceServer);
+
+        assertNotSame(otherIndex, rebuilt);
+        assertEquals(5, rebuilt.size());
+    }
+
+    @Test
+    public void testExpiredIndexRebuilt() throws Exception {
+        // indexes are rebuilt from the store once expired, even if nobody invalidates them (e.g.: changes made by another node)
+        Authorization authorization = Authorization.builder().storeFactory(() -> mapStoreFactory).policyIndexMaxAge(50, TimeUnit.MILLISECONDS).build();
+
+        authorization.getPolicyIndexes().invalidate(this.resourceServer.getId());
+
+        PolicyIndex index = authorization.getPolicyIndex(this.resourceServer);
+
+        assertSame(index, authorization.getPolicyIndex(this.resourceServer));
+
+        createPolicy("Delete Policy").addScope(createScope("delete"));
+
+        Thread.sleep(100);
+
+        PolicyIndex rebuilt = authorization.getPolicyIndex(this.resourceServer);
+
+        assertNotSame(index, rebuilt);
+        assertEquals(5, rebuilt.size());
+    }
+
+    private Scope createScope(String name) {
+        Scope scope = this.mapStoreFactory.getScopeStore().create(name, this.resourceServer);
+
+        this.mapStoreFactory.getScopeStore().save(scope);
+
+        return scope;
+    }
+
+    private Policy createPolicy(String name) {
+        Policy policy = this.mapStoreFactory.getPolicyStore().create(name, "tests-static-decision", this.resourceServer);
+
+        this.mapStoreFactory.getPolicyStore().save(policy);
+
+        return policy;
+    }
+}
@@ -0,0 +1,133 @@
+package test.org.keycloak.authz.api;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.keycloak.authz.core.Authorization;
+import org.keycloak.authz.core.model.Policy;
+import org.keycloak.authz.core.model.ResourceServer;
+import org.keycloak.authz.core.policy.evaluation.Evaluation;
+import org.keycloak.authz.core.policy.provider.PolicyProvider;
+import org.keycloak.authz.core.policy.provider.PolicyProviderCache;
+import org.keycloak.authz.core.policy.provider.PolicyProviderFactory;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+/**
+ * @author <a href="mailto:psilva@redhat.com">Pedro Igor</a>
+ */
+public class PolicyProviderCacheTestCase {
+
+    private MapStoreFactory mapStoreFactory;
+    private ResourceServer resourceServer;
+    private PolicyProviderCache cache;
+
+    @Before
+    public void onBefore() {
+        this.mapStoreFactory = new MapStoreFactory();
+        this.resourceServer = this.mapStoreFactory.getResourceServerStore().create("test-resource-server");
+        this.mapStoreFactory.getResourceServerStore().save(this.resourceServer);
+        this.cache = new PolicyProviderCache(Arrays.asList(new TestPolicyProviderFactory("reusable", true), new TestPolicyProviderFactory("not-reusable", false)));
+    }
+
+    @Test
+    public void testReusableProvider() {
+        Policy policy = createPolicy("Reusable Policy", "reusable");
+        PolicyProvider provider = this.cache.get(policy);
+
+        assertSame(provider, this.cache.get(policy));
+        assertEquals(1, this.cache.size());
+
+        policy.getConfig().put("changed", "true");
+
+        PolicyProvider changed = this.cache.get(policy);
+
+        assertNotSame(provider, changed);
+        assertSame(changed, this.cache.get(policy));
+
+        policy.setLogic(Policy.Logic.NEGATIVE);
+
+        PolicyProvider negative = this.cache.get(policy);
+
+        assertNotSame(changed, negative);
+        assertSame(negative, this.cache.get(policy));
+
+        this.cache.invalidate(policy.getId());
+
+        assertEquals(0, this.cache.size());
+        assertNotSame(negative, this.cache.get(policy));
+    }
+
+    @Test
+    public void testNotReusableProvider() {
+        Policy policy = createPolicy("Not Reusable Policy", "not-reusable");
+
+        assertNotSame(this.cache.get(policy), this.cache.get(policy));
+        assertEquals(0, this.cache.size());
+    }
+
+    @Test(expected = RuntimeException.class)
+    public void testUnknownType() {
+        this.cache.get(createPolicy("Unknown Policy", "unknown"));
+    }
+
+    private Policy createPolicy(String name, String type) {
+        Policy policy = this.mapStoreFactory.getPolicyStore().create(name, type, this.resourceServer);
+
+        this.mapStoreFactory.getPolicyStore().save(policy);
+
+        return policy;
+    }
+
+    private static class TestPolicyProviderFactory implements PolicyProviderFactory {
+
+        private final String type;
+        private final boolean reusable;
+
+        TestPolicyProviderFactory(String type, boolean reusable) {
+            this.type = type;
+            this.reusable = reusable;
+        }
+
+        @Override
+        public String getName() {
+            return this.type;
+        }
+
+        @Override
+        public String getGroup() {
+            return "Test Suite";
+        }
+
+        @Override
+        public String getType() {
+            return this.type;
+        }
+
+        @Override
+        public void init(Authorization authorization) {
+        }
+
+        @Override
+        public PolicyProvider create(Policy policy) {
+            return new PolicyProvider() {
+                @Override
+                public void evaluate(Evaluation evaluation) {
+                    evaluation.grant();
+                }
+
+                @Override
+                public boolean isReusable() {
+                    return reusable;
+                }
+            };
+        }
+
+        @Override
+        public void dispose() {
+        }
+    }
+}
@@ -0,0 +1,175 @@
+package test.org.keycloak.authz.api;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.keycloak.authz.core.Decision;
+import org.keycloak.authz.core.model.Policy;
+import org.keycloak.authz.core.model.Resource;
+import org.keycloak.authz.core.model.ResourceServer;
+import org.keycloak.authz.core.permission.ResourcePermission;
+import org.keycloak.authz.core.policy.evaluation.DecisionResultCollector;
+import org.keycloak.authz.core.policy.evaluation.Evaluation;
+import org.keycloak.authz.core.policy.evaluation.Result;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author <a href="mailto:psilva@redhat.com">Pedro Igor</a>
+ */
+public class ResultTestCase {
+
+    static int NUM_POLICIES = 500;
+
+    private MapStoreFactory mapStoreFactory;
+    private ResourceServer resourceServer;
+    private ResourcePermission permission;
+
+    @Before
+    public void onBefore() {
+        this.mapStoreFactory = new MapStoreFactory();
+        this.resourceServer = this.mapStoreFactory.getResourceServerStore().create("test-resource-server");
+        this.mapStoreFactory.getResourceServerStore().save(this.resourceServer);
+
+        Resource resource = this.mapStoreFactory.getResourceStore().create("Resource A", this.resourceServer, "alice");
+
+        this.mapStoreFactory.getResourceStore().save(resource);
+        this.permission = new ResourcePermission(resource, Collections.emptyList(), this.resourceServer);
+    }
+
+    @Test
+    public void testLargeDecisionSet() {
+        Policy affirmative = createParentPolicy("Affirmative Policy", Policy.DecisionStrategy.AFFIRMATIVE);
+        Policy unanimous = createParentPolicy("Unanimous Policy", Policy.DecisionStrategy.UNANIMOUS);
+        List<Policy> associatedPolicies = new ArrayList<>();
+
+        for (int i = 0; i < NUM_POLICIES; i++) {
+            Policy policy = createPolicy("Policy " + i);
+
+            affirmative.addAssociatedPolicy(policy);
+            unanimous.addAssociatedPolicy(policy);
+            associatedPolicies.add(policy);
+        }
+
+        AtomicReference<List<Result>> results = new AtomicReference<>();
+        DecisionResultCollector collector = createCollector(results);
+
+        for (int i = 0; i < NUM_POLICIES; i++) {
+            Policy policy = associatedPolicies.get(i);
+            Decision.Effect effect = i == NUM_POLICIES - 1 ? Decision.Effect.DENY : Decision.Effect.PERMIT;
+
+            decide(collector, affirmative, policy, effect);
+            decide(collector, unanimous, policy, effect);
+            // the same decision delivered twice must not create a new entry
+            decide(collector, unanimous, policy, effect);
+        }
+
+        collector.onComplete();
+
+        assertEquals(1, results.get().size());
+
+        Result result = results.get().get(0);
+
+        assertEquals(Decision.Effect.DENY, result.getEffect());
+        assertTrue(result.anyDenial());
+        assertEquals(2, result.getResults().size());
+
+        Result.PolicyResult affirmativeResult = result.getResults().get(0);
+        Result.PolicyResult unanimousResult = result.getResults().get(1);
+
+        assertSame(affirmative, affirmativeResult.getPolicy());
+        assertEquals(Decision.Effect.PERMIT, affirmativeResult.getStatus());
+        assertSame(unanimous, unanimousResult.getPolicy());
+        assertEquals(Decision.Effect.DENY, unanimousResult.getStatus());
+        assertEquals(NUM_POLICIES, unanimousResult.getAssociatedPolicies().size());
+
+        for (int i = 0; i < NUM_POLICIES; i++) {
+            Result.PolicyResult associatedResult = unanimousResult.getAssociatedPolicies().get(i);
+
+            assertSame(associatedPolicies.get(i), associatedResult.getPolicy());
+            assertEquals(i == NUM_POLICIES - 1 ? Decision.Effect.DENY : Decision.Effect.PERMIT, associatedResult.getStatus());
+            assertFalse(associatedResult.isSkipped());
+        }
+    }
+
+    @Test
+    public void testTreeView() {
+        Policy parent = createParentPolicy("Parent Policy", Policy.DecisionStrategy.UNANIMOUS);
+        Policy grant = createPolicy("Grant Policy");
+        Policy skipped = createPolicy("Skipped Policy");
+
+        parent.addAssociatedPolicy(grant);
+        parent.addAssociatedPolicy(skipped);
+
+        Result result = new Result(this.permission);
+
+        result.policy(parent).policy(grant).setStatus(Decision.Effect.PERMIT);
+        result.policy(parent).policy(skipped).setSkipped(true);
+
+        Result.PolicyResult parentResult = result.getResults().get(0);
+
+        assertEquals(1, result.getResults().size());
+        assertEquals(2, parentResult.getAssociatedPolicies().size());
+        assertEquals(Decision.Effect.PERMIT, parentResult.getAssociatedPolicies().get(0).getStatus());
+        assertTrue(parentResult.getAssociatedPolicies().get(1).isSkipped());
+        assertNull(parentResult.getAssociatedPolicies().get(1).getStatus());
+        assertFalse(result.anyDenial());
+
+        parentResult.setStatus(Decision.Effect.DENY);
+
+        assertEquals(Decision.Effect.DENY, result.policy(parent).getStatus());
+        assertTrue(result.anyDenial());
+
+        parentResult.setAssociatedPolicies(Arrays.asList(new Result.PolicyResult(skipped).status(Decision.Effect.DENY)));
+
+        assertEquals(1, parentResult.getAssociatedPolicies().size());
+        assertSame(skipped, parentResult.getAssociatedPolicies().get(0).getPolicy());
+        assertEquals(Decision.Effect.DENY, parentResult.getAssociatedPolicies().get(0).getStatus());
+        assertFalse(parentResult.getAssociatedPolicies().get(0).isSkipped());
+    }
+
+    private void decide(DecisionResultCollector collector, Policy parentPolicy, Policy policy, Decision.Effect effect) {
+        Evaluation evaluation = new Evaluation(this.permission, null, parentPolicy, policy, collector);
+
+        if (Decision.Effect.PERMIT.equals(effect)) {
+            evaluation.grant();
+        } else {
+            evaluation.deny();
+        }
+    }
+
+    private Policy createParentPolicy(String name, Policy.DecisionStrategy decisionStrategy) {
+        Policy policy = this.mapStoreFactory.getPolicyStore().create(name, "resource", this.resourceServer);
+
+        policy.setDecisionStrategy(decisionStrategy);
+        this.mapStoreFactory.getPolicyStore().save(policy);
+
+        return policy;
+    }
+
+    private Policy createPolicy(String name) {
+        Policy policy = this.mapStoreFactory.getPolicyStore().create(name, "tests-static-decision", this.resourceServer);
+
+        this.mapStoreFactory.getPolicyStore().save(policy);
+
+        return policy;
+    }
+
+    private DecisionResultCollector createCollector(AtomicReference<List<Result>> results) {
+        return new DecisionResultCollector() {
+            @Override
+            protected void onComplete(List<Result> completed) {
+                results.set(completed);
+            }
+        };
+    }
+}
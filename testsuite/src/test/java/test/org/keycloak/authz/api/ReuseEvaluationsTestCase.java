@@ -0,0 +1,148 @@
+package test.org.keycloak.authz.api;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.keycloak.authz.core.Authorization;
+import org.keycloak.authz.core.Decision;
+import org.keycloak.authz.core.EvaluationContext;
+import org.keycloak.authz.core.attribute.Attributes;
+import org.keycloak.authz.core.identity.Identity;
+import org.keycloak.authz.core.model.Policy;
+import org.keycloak.authz.core.model.Resource;
+import org.keycloak.authz.core.model.ResourceServer;
+import org.keycloak.authz.core.model.Scope;
+import org.keycloak.authz.core.permission.ResourcePermission;
+import org.keycloak.authz.core.policy.evaluation.DecisionResultCollector;
+import org.keycloak.authz.core.policy.evaluation.Result;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * @author <a href="mailto:psilva@redhat.com">Pedro Igor</a>
+ */
+public class ReuseEvaluationsTestCase {
+
+    private MapStoreFactory mapStoreFactory;
+    private ResourceServer resourceServer;
+    private List<ResourcePermission> permissions;
+
+    @Before
+    public void onBefore() {
+        this.mapStoreFactory = new MapStoreFactory();
+        this.resourceServer = this.mapStoreFactory.getResourceServerStore().create("test-resource-server");
+        this.mapStoreFactory.getResourceServerStore().save(this.resourceServer);
+
+        Scope read = createScope("read");
+        Scope write = createScope("write");
+        Policy grantPolicy = createStaticDecisionPolicy("Grant Policy", Decision.Effect.PERMIT);
+        Policy denyPolicy = createStaticDecisionPolicy("Deny Policy", Decision.Effect.DENY);
+        Policy scopePolicy = this.mapStoreFactory.getPolicyStore().create("Write Policy", "scope", this.resourceServer);
+
+        scopePolicy.addScope(write);
+        scopePolicy.addAssociatedPolicy(denyPolicy);
+        this.mapStoreFactory.getPolicyStore().save(scopePolicy);
+
+        this.permissions = new ArrayList<>();
+
+        for (int i = 0; i < 10; i++) {
+            Resource resource = this.mapStoreFactory.getResourceStore().create("Resource " + i, this.resourceServer, "alice");
+
+            resource.addScope(read);
+            resource.addScope(write);
+            this.mapStoreFactory.getResourceStore().save(resource);
+
+            Policy policy = this.mapStoreFactory.getPolicyStore().create("Resource " + i + " Policy", "resource", this.resourceServer);
+
+            policy.setDecisionStrategy(i % 2 == 0 ? Policy.DecisionStrategy.AFFIRMATIVE : Policy.DecisionStrategy.UNANIMOUS);
+            policy.addResource(resource);
+            policy.addAssociatedPolicy(grantPolicy);
+            policy.addAssociatedPolicy(denyPolicy);
+            this.mapStoreFactory.getPolicyStore().save(policy);
+
+            this.permissions.add(new ResourcePermission(resource, Collections.emptyList(), this.resourceServer));
+            this.permissions.add(new ResourcePermission(resource, Arrays.asList(read), this.resourceServer));
+            this.permissions.add(new ResourcePermission(resource, Arrays.asList(read, write), this.resourceServer));
+        }
+    }
+
+    @Test
+    public void testSameResults() {
+        assertEquals(evaluate(false, false), evaluate(true, false));
+        assertEquals(evaluate(false, true), evaluate(true, true));
+    }
+
+    private Map<String, String> evaluate(boolean reuseEvaluations, boolean shortCircuit) {
+        Authorization authorization = Authorization.builder().storeFactory(() -> mapStoreFactory).reuseEvaluations(reuseEvaluations).shortCircuit(shortCircuit).build();
+        AtomicReference<List<Result>> results = new AtomicReference<>();
+
+        authorization.getPolicyIndexes().invalidate(this.resourceServer.getId());
+        authorization.evaluators().from(this.permissions, createEvaluationContext()).evaluate(new DecisionResultCollector() {
+            @Override
+            protected void onComplete(List<Result> completed) {
+                results.set(completed);
+            }
+        });
+
+        Map<String, String> summary = new HashMap<>();
+
+        for (Result result : results.get()) {
+            StringBuilder builder = new StringBuilder(result.getEffect().name());
+
+            for (Result.PolicyResult policyResult : result.getResults()) {
+                builder.append(' ').append(policyResult.getPolicy().getName()).append('=').append(policyResult.getStatus());
+
+                for (Result.PolicyResult associated : policyResult.getAssociatedPolicies()) {
+                    builder.append(' ').append(associated.getPolicy().getName()).append('=').append(associated.getStatus()).append(associated.isSkipped() ? "(skipped)" : "");
+                }
+            }
+
+            ResourcePermission permission = result.getPermission();
+
+            summary.put(permission.getResource().getName() + " " + permission.getScopeNames(), builder.toString());
+        }
+
+        assertEquals(this.permissions.size(), summary.size());
+
+        return summary;
+    }
+
+    private Scope createScope(String name) {
+        Scope scope = this.mapStoreFactory.getScopeStore().create(name, this.resourceServer);
+
+        this.mapStoreFactory.getScopeStore().save(scope);
+
+        return scope;
+    }
+
+    private Policy createStaticDecisionPolicy(String name, Decision.Effect effect) {
+        Policy policy = this.mapStoreFactory.getPolicyStore().create(name, "tests-static-decision", this.resourceServer);
+        Map<String, String> config = new HashMap<>();
+
+        config.put("EFFECT", effect.toString());
+        policy.setConfig(config);
+
+        return policy;
+    }
+
+    private EvaluationContext createEvaluationContext() {
+        return new EvaluationContext() {
+            @Override
+            public Identity getIdentity() {
+                return null;
+            }
+
+            @Override
+            public Attributes getAttributes() {
+                return Attributes.EMPTY;
+            }
+        };
+    }
+}
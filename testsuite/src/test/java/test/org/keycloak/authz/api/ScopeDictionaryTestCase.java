@@ -0,0 +1,165 @@
+package test.org.keycloak.authz.api;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.keycloak.authz.core.Authorization;
+import org.keycloak.authz.core.Decision;
+import org.keycloak.authz.core.EvaluationContext;
+import org.keycloak.authz.core.attribute.Attributes;
+import org.keycloak.authz.core.identity.Identity;
+import org.keycloak.authz.core.model.Policy;
+import org.keycloak.authz.core.model.Resource;
+import org.keycloak.authz.core.model.ResourceServer;
+import org.keycloak.authz.core.model.Scope;
+import org.keycloak.authz.core.permission.ResourcePermission;
+import org.keycloak.authz.core.policy.evaluation.DecisionResultCollector;
+import org.keycloak.authz.core.policy.evaluation.Result;
+import org.keycloak.authz.core.policy.index.PolicyIndex;
+import org.keycloak.authz.core.policy.index.ScopeDictionary;
+import org.keycloak.authz.core.policy.index.ScopeMask;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author <a href="mailto:psilva@redhat.com">Pedro Igor</a>
+ */
+public class ScopeDictionaryTestCase {
+
+    static int NUM_SCOPES = 100;
+
+    private MapStoreFactory mapStoreFactory;
+    private ResourceServer resourceServer;
+    private Authorization authorization;
+    private List<Scope> scopes;
+    private Resource resource;
+
+    @Before
+    public void onBefore() {
+        this.mapStoreFactory = new MapStoreFactory();
+        this.resourceServer = this.mapStoreFactory.getResourceServerStore().create("test-resource-server");
+        this.mapStoreFactory.getResourceServerStore().save(this.resourceServer);
+        this.authorization = Authorization.builder().storeFactory(() -> mapStoreFactory).build();
+        this.scopes = new ArrayList<>();
+
+        for (int i = 0; i < NUM_SCOPES; i++) {
+            Scope scope = this.mapStoreFactory.getScopeStore().create("scope-" + i, this.resourceServer);
+
+            this.mapStoreFactory.getScopeStore().save(scope);
+            this.scopes.add(scope);
+        }
+
+        this.resource = this.mapStoreFactory.getResourceStore().create("Resource A", this.resourceServer, "alice");
+        this.mapStoreFactory.getResourceStore().save(this.resource);
+
+        Policy grantPolicy = createStaticDecisionPolicy("Grant Policy", Decision.Effect.PERMIT);
+        Policy denyPolicy = createStaticDecisionPolicy("Deny Policy", Decision.Effect.DENY);
+
+        // the first scope fits in the first word of a mask, the others do not
+        createScopePolicy("Grant Scope Policy", grantPolicy, this.scopes.get(0), this.scopes.get(70));
+        createScopePolicy("Deny Scope Policy", denyPolicy, this.scopes.get(0), this.scopes.get(99));
+    }
+
+    @Test
+    public void testScopeMasks() {
+        PolicyIndex policyIndex = this.authorization.getPolicyIndex(this.resourceServer);
+        ScopeDictionary dictionary = policyIndex.getScopeDictionary();
+
+        assertEquals(3, dictionary.size());
+        assertEquals(ScopeDictionary.UNKNOWN, dictionary.idOf(this.scopes.get(1).getId()));
+
+        ScopeMask all = dictionary.mask(this.scopes);
+        ScopeMask first = dictionary.mask(Arrays.asList(this.scopes.get(0), this.scopes.get(1)));
+
+        assertTrue(all.containsAll(first));
+        assertFalse(first.containsAll(all));
+        assertTrue(first.containsAll(ScopeMask.EMPTY));
+        assertTrue(dictionary.mask(Arrays.asList(this.scopes.get(1))).isEmpty());
+
+        for (Policy policy : policyIndex.findByScopeName(Arrays.asList("scope-0"))) {
+            ScopeMask policyScopes = policyIndex.getScopeMask(policy);
+
+            assertNotNull(policyScopes);
+            assertTrue(all.containsAll(policyScopes));
+            assertFalse(first.containsAll(policyScopes));
+        }
+
+        ResourcePermission permission = new ResourcePermission(this.resource, this.scopes, this.resourceServer);
+
+        assertSame(permission.getScopeMask(dictionary), permission.getScopeMask(dictionary));
+    }
+
+    @Test
+    public void testRequestedScopes() {
+        // no policy requires only the first scope
+        assertNull(evaluate(this.scopes.get(0)));
+        assertEquals(Decision.Effect.PERMIT, evaluate(this.scopes.get(0), this.scopes.get(1), this.scopes.get(70)));
+        assertEquals(Decision.Effect.DENY, evaluate(this.scopes.get(0), this.scopes.get(70), this.scopes.get(99)));
+        assertEquals(Decision.Effect.DENY, evaluate(this.scopes.get(99), this.scopes.get(0)));
+    }
+
+    private Decision.Effect evaluate(Scope... scopes) {
+        AtomicReference<List<Result>> results = new AtomicReference<>();
+        ResourcePermission permission = new ResourcePermission(this.resource, Arrays.asList(scopes), this.resourceServer);
+
+        this.authorization.evaluators().from(Collections.singletonList(permission), createEvaluationContext()).evaluate(new DecisionResultCollector() {
+            @Override
+            protected void onComplete(List<Result> completed) {
+                results.set(completed);
+            }
+        });
+
+        if (results.get().isEmpty()) {
+            return null;
+        }
+
+        return results.get().get(0).getEffect();
+    }
+
+    private void createScopePolicy(String name, Policy associatedPolicy, Scope... scopes) {
+        Policy policy = this.mapStoreFactory.getPolicyStore().create(name, "scope", this.resourceServer);
+
+        for (Scope scope : scopes) {
+            policy.addScope(scope);
+        }
+
+        policy.addAssociatedPolicy(associatedPolicy);
+        this.mapStoreFactory.getPolicyStore().save(policy);
+    }
+
+    private Policy createStaticDecisionPolicy(String name, Decision.Effect effect) {
+        Policy policy = this.mapStoreFactory.getPolicyStore().create(name, "tests-static-decision", this.resourceServer);
+        Map<String, String> config = new HashMap<>();
+
+        config.put("EFFECT", effect.toString());
+        policy.setConfig(config);
+
+        return policy;
+    }
+
+    private EvaluationContext createEvaluationContext() {
+        return new EvaluationContext() {
+            @Override
+            public Identity getIdentity() {
+                return null;
+            }
+
+            @Override
+            public Attributes getAttributes() {
+                return Attributes.EMPTY;
+            }
+        };
+    }
+}
@@ -0,0 +1,146 @@
+package test.org.keycloak.authz.api;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.keycloak.authz.core.Authorization;
+import org.keycloak.authz.core.Decision;
+import org.keycloak.authz.core.EvaluationContext;
+import org.keycloak.authz.core.attribute.Attributes;
+import org.keycloak.authz.core.identity.Identity;
+import org.keycloak.authz.core.model.Policy;
+import org.keycloak.authz.core.model.Resource;
+import org.keycloak.authz.core.model.ResourceServer;
+import org.keycloak.authz.core.permission.ResourcePermission;
+import org.keycloak.authz.core.policy.evaluation.DecisionResultCollector;
+import org.keycloak.authz.core.policy.evaluation.Result;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * @author <a href="mailto:psilva@redhat.com">Pedro Igor</a>
+ */
+public class ShortCircuitTestCase {
+
+    private MapStoreFactory mapStoreFactory;
+    private ResourceServer resourceServer;
+
+    @Before
+    public void onBefore() {
+        this.mapStoreFactory = new MapStoreFactory();
+        this.resourceServer = this.mapStoreFactory.getResourceServerStore().create("test-resource-server");
+        this.mapStoreFactory.getResourceServerStore().save(this.resourceServer);
+    }
+
+    @Test
+    public void testUnanimous() {
+        ResourcePermission permission = createPermission(Policy.DecisionStrategy.UNANIMOUS, Decision.Effect.DENY, Decision.Effect.DENY, Decision.Effect.DENY);
+
+        assertResult(permission, Decision.Effect.DENY, 2);
+    }
+
+    @Test
+    public void testAffirmative() {
+        ResourcePermission permission = createPermission(Policy.DecisionStrategy.AFFIRMATIVE, Decision.Effect.PERMIT, Decision.Effect.PERMIT, Decision.Effect.PERMIT);
+
+        assertResult(permission, Decision.Effect.PERMIT, 2);
+    }
+
+    @Test
+    public void testConsensus() {
+        ResourcePermission permission = createPermission(Policy.DecisionStrategy.CONSENSUS, Decision.Effect.PERMIT, Decision.Effect.PERMIT, Decision.Effect.PERMIT);
+
+        assertResult(permission, Decision.Effect.PERMIT, 1);
+    }
+
+    @Test
+    public void testNotSettled() {
+        ResourcePermission permission = createPermission(Policy.DecisionStrategy.UNANIMOUS, Decision.Effect.PERMIT, Decision.Effect.PERMIT, Decision.Effect.PERMIT);
+
+        assertResult(permission, Decision.Effect.PERMIT, 0);
+    }
+
+    private void assertResult(ResourcePermission permission, Decision.Effect expectedEffect, int expectedSkipped) {
+        Result complete = evaluate(permission, false);
+        Result shortCircuit = evaluate(permission, true);
+
+        assertEquals(expectedEffect, complete.getEffect());
+        assertEquals(expectedEffect, shortCircuit.getEffect());
+        assertEquals(0, countSkipped(complete));
+        assertEquals(expectedSkipped, countSkipped(shortCircuit));
+        assertEquals(3, shortCircuit.getResults().get(0).getAssociatedPolicies().size());
+    }
+
+    private Result evaluate(ResourcePermission permission, boolean shortCircuit) {
+        Authorization authorization = Authorization.builder().storeFactory(() -> mapStoreFactory).shortCircuit(shortCircuit).build();
+        AtomicReference<List<Result>> results = new AtomicReference<>();
+
+        authorization.getPolicyIndexes().invalidate(this.resourceServer.getId());
+        authorization.evaluators().from(Arrays.asList(permission), createEvaluationContext()).evaluate(new DecisionResultCollector() {
+            @Override
+            protected void onComplete(List<Result> completed) {
+                results.set(completed);
+            }
+        });
+
+        assertEquals(1, results.get().size());
+
+        return results.get().get(0);
+    }
+
+    private long countSkipped(Result result) {
+        return result.getResults().stream()
+                .flatMap(policyResult -> policyResult.getAssociatedPolicies().stream())
+                .filter(Result.PolicyResult::isSkipped)
+                .count();
+    }
+
+    private ResourcePermission createPermission(Policy.DecisionStrategy decisionStrategy, Decision.Effect... effects) {
+        Resource resource = this.mapStoreFactory.getResourceStore().create("Resource A", this.resourceServer, "alice");
+
+        this.mapStoreFactory.getResourceStore().save(resource);
+
+        Policy policy = this.mapStoreFactory.getPolicyStore().create("Resource A Policy", "resource", this.resourceServer);
+
+        policy.setDecisionStrategy(decisionStrategy);
+        policy.addResource(resource);
+
+        for (int i = 0; i < effects.length; i++) {
+            policy.addAssociatedPolicy(createStaticDecisionPolicy("Static Decision Policy " + i, effects[i]));
+        }
+
+        this.mapStoreFactory.getPolicyStore().save(policy);
+
+        return new ResourcePermission(resource, Collections.emptyList(), this.resourceServer);
+    }
+
+    private Policy createStaticDecisionPolicy(String name, Decision.Effect effect) {
+        Policy policy = this.mapStoreFactory.getPolicyStore().create(name, "tests-static-decision", this.resourceServer);
+        Map<String, String> config = new HashMap<>();
+
+        config.put("EFFECT", effect.toString());
+        policy.setConfig(config);
+
+        return policy;
+    }
+
+    private EvaluationContext createEvaluationContext() {
+        return new EvaluationContext() {
+            @Override
+            public Identity getIdentity() {
+                return null;
+            }
+
+            @Override
+            public Attributes getAttributes() {
+                return Attributes.EMPTY;
+            }
+        };
+    }
+}
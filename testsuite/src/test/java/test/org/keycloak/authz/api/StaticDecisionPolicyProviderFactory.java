@@ -4,15 +4,33 @@ import org.keycloak.authz.core.Authorization;
 import org.keycloak.authz.core.Decision;
 import org.keycloak.authz.core.model.Policy;
 import org.keycloak.authz.core.policy.evaluation.Evaluation;
+import org.keycloak.authz.core.policy.provider.AsyncPolicyProvider;
+import org.keycloak.authz.core.policy.provider.BatchPolicyProvider;
 import org.keycloak.authz.core.policy.provider.PolicyProvider;
 import org.keycloak.authz.core.policy.provider.PolicyProviderFactory;
 import org.kohsuke.MetaInfServices;
 
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
 /**
  * @author <a href="mailto:psilva@redhat.com">Pedro Igor</a>
  */
 @MetaInfServices(PolicyProviderFactory.class)
 public class StaticDecisionPolicyProviderFactory implements PolicyProviderFactory {
+
+    private static final ScheduledExecutorService SCHEDULER = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "tests-static-decision");
+        thread.setDaemon(true);
+        return thread;
+    });
+
     @Override
     public String getName() {
         return "Statis Decision Policy Provider";
@@ -35,6 +53,14 @@ public class StaticDecisionPolicyProviderFactory implements PolicyProviderFactor
 
     @Override
     public PolicyProvider create(Policy policy) {
+        if (policy.getConfig().containsKey("DELAY")) {
+            return new DelayedDecisionPolicyProvider(policy);
+        }
+
+        if (policy.getConfig().containsKey("BATCH")) {
+            return new BatchDecisionPolicyProvider(policy);
+        }
+
         return new StaticDecisionPolicyProvider(policy);
     }
 
@@ -43,6 +69,26 @@ public class StaticDecisionPolicyProviderFactory implements PolicyProviderFactor
 
     }
 
+    @Override
+    public Set<Dependency> getDependencies(Policy policy) {
+        String dependencies = policy.getConfig().get("DEPENDENCIES");
+
+        if (dependencies == null) {
+            // static decisions never change over time, nor read any attribute
+            return EnumSet.complementOf(EnumSet.of(Dependency.TIME, Dependency.ATTRIBUTES));
+        }
+
+        Set<Dependency> result = EnumSet.noneOf(Dependency.class);
+
+        for (String dependency : dependencies.split(",")) {
+            if (!dependency.trim().isEmpty()) {
+                result.add(Dependency.valueOf(dependency.trim()));
+            }
+        }
+
+        return result;
+    }
+
     private class StaticDecisionPolicyProvider implements PolicyProvider {
 
         private final Policy policy;
@@ -53,6 +99,21 @@ public class StaticDecisionPolicyProviderFactory implements PolicyProviderFactor
 
         @Override
         public void evaluate(Evaluation evaluation) {
+            String attribute = this.policy.getConfig().get("ATTRIBUTE");
+
+            if (attribute != null) {
+                // grants only if the context holds the attribute, given as name=value
+                String[] nameAndValue = attribute.split("=", 2);
+
+                if (evaluation.getContext().getAttributes().containsValue(nameAndValue[0], nameAndValue[1])) {
+                    evaluation.grant();
+                } else {
+                    evaluation.deny();
+                }
+
+                return;
+            }
+
             if (Decision.Effect.PERMIT.equals(Decision.Effect.valueOf(this.policy.getConfig().get("EFFECT").toUpperCase()))) {
                 evaluation.grant();
             } else {
@@ -60,4 +121,45 @@ public class StaticDecisionPolicyProviderFactory implements PolicyProviderFactor
             }
         }
     }
+
+    /**
+     * Completes with the configured effect after the number of milliseconds set to the <code>DELAY</code> config key, without blocking the caller.
+     */
+    private class DelayedDecisionPolicyProvider implements AsyncPolicyProvider {
+
+        private final Policy policy;
+
+        public DelayedDecisionPolicyProvider(Policy policy) {
+            this.policy = policy;
+        }
+
+        @Override
+        public CompletionStage<Decision.Effect> evaluateAsync(Evaluation evaluation) {
+            CompletableFuture<Decision.Effect> effect = new CompletableFuture<>();
+            Decision.Effect configured = Decision.Effect.valueOf(this.policy.getConfig().get("EFFECT").toUpperCase());
+
+            SCHEDULER.schedule(() -> effect.complete(configured), Long.parseLong(this.policy.getConfig().get("DELAY")), TimeUnit.MILLISECONDS);
+
+            return effect;
+        }
+    }
+
+    /**
+     * Applies the configured effect to all the evaluations of a batch at once.
+     */
+    private class BatchDecisionPolicyProvider implements BatchPolicyProvider {
+
+        private final Policy policy;
+
+        public BatchDecisionPolicyProvider(Policy policy) {
+            this.policy = policy;
+        }
+
+        @Override
+        public void evaluate(List<Evaluation> evaluations) {
+            for (Evaluation evaluation : evaluations) {
+                new StaticDecisionPolicyProvider(this.policy).evaluate(evaluation);
+            }
+        }
+    }
 }
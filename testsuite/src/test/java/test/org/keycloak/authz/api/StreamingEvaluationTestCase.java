@@ -0,0 +1,251 @@
+package test.org.keycloak.authz.api;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.keycloak.authz.core.Authorization;
+import org.keycloak.authz.core.Decision;
+import org.keycloak.authz.core.EvaluationContext;
+import org.keycloak.authz.core.attribute.Attributes;
+import org.keycloak.authz.core.identity.Identity;
+import org.keycloak.authz.core.model.Policy;
+import org.keycloak.authz.core.model.Resource;
+import org.keycloak.authz.core.model.ResourceServer;
+import org.keycloak.authz.core.permission.ResourcePermission;
+import org.keycloak.authz.core.permission.evaluator.Flow;
+import org.keycloak.authz.core.permission.evaluator.Publishers;
+import org.keycloak.authz.core.policy.evaluation.Result;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author <a href="mailto:psilva@redhat.com">Pedro Igor</a>
+ */
+public class StreamingEvaluationTestCase {
+
+    static int NUM_PERMISSIONS = 100;
+
+    private MapStoreFactory mapStoreFactory;
+    private ResourceServer resourceServer;
+    private Authorization authorization;
+    private List<ResourcePermission> permissions;
+
+    @Before
+    public void onBefore() {
+        this.mapStoreFactory = new MapStoreFactory();
+        this.resourceServer = this.mapStoreFactory.getResourceServerStore().create("test-resource-server");
+        this.mapStoreFactory.getResourceServerStore().save(this.resourceServer);
+
+        Policy grantPolicy = createStaticDecisionPolicy("Grant Policy", Decision.Effect.PERMIT);
+        Policy denyPolicy = createStaticDecisionPolicy("Deny Policy", Decision.Effect.DENY);
+
+        this.permissions = new ArrayList<>();
+
+        for (int i = 0; i < NUM_PERMISSIONS; i++) {
+            Resource resource = this.mapStoreFactory.getResourceStore().create("Resource " + i, this.resourceServer, "alice");
+
+            this.mapStoreFactory.getResourceStore().save(resource);
+
+            // every tenth resource has no policies and produces no result
+            if (i % 10 != 0) {
+                Policy policy = this.mapStoreFactory.getPolicyStore().create("Resource " + i + " Policy", "resource", this.resourceServer);
+
+                policy.addResource(resource);
+                policy.addAssociatedPolicy(i % 2 == 0 ? grantPolicy : denyPolicy);
+                this.mapStoreFactory.getPolicyStore().save(policy);
+            }
+
+            this.permissions.add(new ResourcePermission(resource, Collections.emptyList(), this.resourceServer));
+        }
+
+        this.authorization = Authorization.builder().storeFactory(() -> mapStoreFactory).build();
+        this.authorization.getPolicyIndexes().invalidate(this.resourceServer.getId());
+    }
+
+    @Test
+    public void testBackPressure() {
+        AtomicInteger pulled = new AtomicInteger();
+        Supplier<ResourcePermission> source = new Supplier<ResourcePermission>() {
+            private int next;
+
+            @Override
+            public ResourcePermission get() {
+                if (this.next == permissions.size()) {
+                    return null;
+                }
+
+                pulled.incrementAndGet();
+
+                return permissions.get(this.next++);
+            }
+        };
+        TestSubscriber subscriber = new TestSubscriber();
+
+        this.authorization.evaluators().stream(Publishers.from(source), createEvaluationContext()).subscribe(subscriber);
+
+        assertEquals(0, subscriber.results.size());
+        assertEquals(0, pulled.get());
+
+        subscriber.subscription.request(5);
+
+        assertEquals(5, subscriber.results.size());
+        // one permission without policies was replaced and one permission is read ahead
+        assertEquals(7, pulled.get());
+        assertFalse(subscriber.completed);
+
+        subscriber.subscription.request(Long.MAX_VALUE);
+
+        assertTrue(subscriber.completed);
+        assertEquals(NUM_PERMISSIONS - NUM_PERMISSIONS / 10, subscriber.results.size());
+
+        for (Result result : subscriber.results) {
+            int index = this.permissions.indexOf(result.getPermission());
+            assertEquals(index % 2 == 0 ? Decision.Effect.PERMIT : Decision.Effect.DENY, result.getEffect());
+        }
+    }
+
+    @Test
+    public void testBoundedRequests() {
+        List<Long> requests = new ArrayList<>();
+        Flow.Publisher<ResourcePermission> source = Publishers.from(this.permissions);
+        Flow.Publisher<ResourcePermission> recordingSource = subscriber -> source.subscribe(new Flow.Subscriber<ResourcePermission>() {
+            @Override
+            public void onSubscribe(Flow.Subscription subscription) {
+                subscriber.onSubscribe(new Flow.Subscription() {
+                    @Override
+                    public void request(long n) {
+                        requests.add(n);
+                        subscription.request(n);
+                    }
+
+                    @Override
+                    public void cancel() {
+                        subscription.cancel();
+                    }
+                });
+            }
+
+            @Override
+            public void onNext(ResourcePermission item) {
+                subscriber.onNext(item);
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+                subscriber.onError(throwable);
+            }
+
+            @Override
+            public void onComplete() {
+                subscriber.onComplete();
+            }
+        });
+        TestSubscriber subscriber = new TestSubscriber();
+
+        this.authorization.evaluators().stream(recordingSource, createEvaluationContext()).subscribe(subscriber);
+
+        subscriber.subscription.request(Long.MAX_VALUE);
+
+        assertTrue(subscriber.completed);
+        assertEquals(NUM_PERMISSIONS - NUM_PERMISSIONS / 10, subscriber.results.size());
+        assertTrue(requests.size() > 1);
+
+        for (Long requested : requests) {
+            assertTrue("Requested " + requested + " permissions at once", requested <= 64);
+        }
+    }
+
+    @Test
+    public void testCancel() {
+        TestSubscriber subscriber = new TestSubscriber() {
+            @Override
+            public void onNext(Result item) {
+                super.onNext(item);
+
+                if (this.results.size() == 3) {
+                    this.subscription.cancel();
+                }
+            }
+        };
+
+        this.authorization.evaluators().stream(Publishers.from(this.permissions), createEvaluationContext()).subscribe(subscriber);
+
+        subscriber.subscription.request(Long.MAX_VALUE);
+
+        assertEquals(3, subscriber.results.size());
+        assertFalse(subscriber.completed);
+    }
+
+    @Test
+    public void testInvalidDemand() {
+        TestSubscriber subscriber = new TestSubscriber();
+
+        this.authorization.evaluators().stream(Publishers.from(this.permissions), createEvaluationContext()).subscribe(subscriber);
+
+        subscriber.subscription.request(0);
+
+        assertTrue(subscriber.error instanceof IllegalArgumentException);
+        assertEquals(0, subscriber.results.size());
+    }
+
+    private Policy createStaticDecisionPolicy(String name, Decision.Effect effect) {
+        Policy policy = this.mapStoreFactory.getPolicyStore().create(name, "tests-static-decision", this.resourceServer);
+        Map<String, String> config = new HashMap<>();
+
+        config.put("EFFECT", effect.toString());
+        policy.setConfig(config);
+
+        return policy;
+    }
+
+    private EvaluationContext createEvaluationContext() {
+        return new EvaluationContext() {
+            @Override
+            public Identity getIdentity() {
+                return null;
+            }
+
+            @Override
+            public Attributes getAttributes() {
+                return Attributes.EMPTY;
+            }
+        };
+    }
+
+    private static class TestSubscriber implements Flow.Subscriber<Result> {
+
+        final List<Result> results = new ArrayList<>();
+        Flow.Subscription subscription;
+        Throwable error;
+        boolean completed;
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+        }
+
+        @Override
+        public void onNext(Result item) {
+            this.results.add(item);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            this.error = throwable;
+        }
+
+        @Override
+        public void onComplete() {
+            this.completed = true;
+        }
+    }
+}